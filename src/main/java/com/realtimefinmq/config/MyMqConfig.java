@@ -1,11 +1,18 @@
 package com.realtimefinmq.config;
 
 import com.realtimefinmq.mq.mymq.*;
+import com.realtimefinmq.mq.mymq.wal.CompressionType;
+import com.realtimefinmq.mq.mymq.wal.FsyncPolicy;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * MyMQ 관련 설정 클래스
  * - 스프링이 자동으로 Bean을 등록하고, 의존성을 주입할 수 있도록 구성
@@ -19,4 +26,278 @@ public class MyMqConfig {
 
     // 소비 주기
     private long pollIntervalMs = 100;
+
+    // 파티션 수 (파티션마다 InMemoryQueue 1개, Message.key 해시로 선택)
+    private int partitions = 4;
+
+    // 소비자 스레드 수 (파티션은 스레드에 나눠 배정, 한 파티션은 한 스레드만 소비)
+    private int numConsumers = 1;
+
+    // 컨슈머 배치 크기 (한 번의 pollBatch로 가져올 최대 건수)
+    private int batchSize = 500;
+
+    // 컨슈머 중복 감지 윈도우 (전체 파티션 합계 최근 N건의 메시지 ID, 0이면 끔)
+    private int consumerDedupeWindow = 100_000;
+
+    // 큐 엔진 (linked: LinkedBlockingQueue / ring: 사전할당 링 버퍼)
+    private QueueEngine engine = QueueEngine.LINKED;
+
+    // 링 버퍼 대기 전략 (busy-spin / yield / park / blocking)
+    private WaitStrategy.Type waitStrategy = WaitStrategy.Type.BLOCKING;
+
+    // lease: poll된 메시지를 이 시간 안에 ack 하지 않으면 재전달
+    private long visibilityTimeoutMs = 30000;
+
+    // lease 만료 확인 주기 (타이머 휠 틱)
+    private long leaseTickMs = 100;
+
+    // WAL(Write-Ahead Log) 설정
+    private Wal wal = new Wal();
+
+    // DLQ(Dead Letter Queue) 설정
+    private Dlq dlq = new Dlq();
+
+    // 큐가 가득 찼을 때 동작
+    private Backpressure backpressure = new Backpressure();
+
+    // 이름 있는 토픽 (토픽별 파티션/용량/보존 설정, 생략한 값은 위 상위 설정). default 토픽은 항상 존재
+    private Map<String, TopicProps> topics = new LinkedHashMap<>();
+
+    // 메모리 큐 넘침분을 디스크로 (spill)
+    private Spill spill = new Spill();
+
+    // 파티션 내 우선순위 레인 (Message.priority)
+    private Priority priority = new Priority();
+
+    // 메시지 TTL (Message.expiresAt)
+    private Ttl ttl = new Ttl();
+
+    // 로그 보존 정리 (토픽별 retention-* 적용 주기, 미소비 보호)
+    private Retention retention = new Retention();
+
+    // key 기반 로그 압축 (compact: true 토픽의 닫힌 세그먼트에서 key별 최신 메시지만 남김)
+    private Compaction compaction = new Compaction();
+
+    // 지연/예약 메시지 (Message.deliverAt)
+    private Delay delay = new Delay();
+
+    // 컨슈머 그룹 (토픽 WAL을 그룹별 오프셋으로 읽음, 메시지는 로그에 한 번만 저장). WAL 필요
+    private Map<String, ConsumerGroupProps> consumerGroups = new LinkedHashMap<>();
+
+    // 적재 중복 판별 윈도우 (IdempotencyStore: 시간 버킷 회전 + 건수 상한)
+    private Idempotency idempotency = new Idempotency();
+
+    public enum QueueEngine { LINKED, RING }
+
+    @Getter @Setter
+    public static class TopicProps {
+        // 파티션 수 (0 = custom-mq.partitions)
+        private int partitions = 0;
+
+        // 파티션당 큐 용량 (0 = custom-mq.queue-size)
+        private int queueSize = 0;
+
+        // 로그 보존 기간 (-1 = 무제한)
+        private long retentionMs = -1;
+
+        // 파티션 로그 최대 크기 (-1 = 무제한)
+        private long retentionBytes = -1;
+
+        // 모든 컨슈머(메인 큐 + 컨슈머 그룹)가 커밋한 구간의 세그먼트 삭제
+        private boolean retentionConsumed = false;
+
+        // 메시지 TTL (0 = custom-mq.ttl.default-ms)
+        private long ttlMs = 0;
+
+        // priority 없는 메시지의 레인 이름 (null = custom-mq.priority.default-lane)
+        private String priorityLane;
+
+        // key 기반 로그 압축 대상 (상태 토픽: key별 최신 메시지만 보존, WAL 필요)
+        private boolean compact = false;
+    }
+
+    @Getter @Setter
+    public static class Retention {
+        // 보존 정리 주기 (닫힌 세그먼트를 통째로 삭제, 활성 세그먼트는 대상 아님)
+        private long checkIntervalMs = 60_000;
+
+        // true면 나이/크기 조건이 맞아도 가장 느린 컨슈머의 커밋 이후 세그먼트는 삭제하지 않음 (미소비 메시지 보호)
+        private boolean protectUnconsumed = true;
+    }
+
+    @Getter @Setter
+    public static class Compaction {
+        // 압축 확인 주기 (새로 닫힌 세그먼트나 지울 tombstone이 있을 때만 실제로 다시 씀)
+        private long intervalMs = 30_000;
+
+        // 압축 I/O 한도 (읽기 + 쓰기 초당 바이트, 0 = 무제한)
+        private long ioBytesPerSec = 16L * 1024 * 1024;
+
+        // tombstone(payload 없는 메시지) 보존 기간 (이전 버전을 지운 뒤에도 이 시간 동안은 남김)
+        private long tombstoneRetentionMs = 24L * 60 * 60 * 1000;
+    }
+
+    @Getter @Setter
+    public static class Priority {
+        public enum Policy { WEIGHTED, STRICT }
+
+        // 레인 이름 (앞이 높은 우선순위, Message.priority = 이 목록의 번호)
+        // 파티션 queueSize / spill.maxBytes를 레인 수로 나눠 가짐 (레인을 늘려도 파티션 상한은 그대로)
+        private List<String> lanes = new ArrayList<>(List.of("normal"));
+
+        // 레인별 가중치 (WEIGHTED: 배치를 이 비율로 나눠 꺼냄, 없으면 1)
+        private List<Integer> weights = new ArrayList<>(List.of(1));
+
+        // weighted | strict
+        private Policy policy = Policy.WEIGHTED;
+
+        // priority 없는 메시지의 기본 레인
+        private String defaultLane = "normal";
+    }
+
+    @Getter @Setter
+    public static class Ttl {
+        // 토픽 기본 TTL (0 = 만료 없음, 메시지 expiresAt이 있으면 그 값 우선)
+        private long defaultMs = 0;
+
+        // sweeper 주기 (파티션 큐 앞쪽의 만료 메시지 회수)
+        private long sweepIntervalMs = 1000;
+
+        // sweeper가 파티션당 한 번에 회수할 최대 건수
+        private int sweepBatch = 10000;
+    }
+
+    @Getter @Setter
+    public static class Delay {
+        // 타이머 휠 틱 (전달 시각 해상도 겸 내보내기 주기)
+        private long tickMs = 10;
+
+        // 토픽별 최대 보류 건수 (넘으면 적재 거부)
+        private int maxPending = 1_000_000;
+
+        // 최대 지연 (이보다 먼 deliverAt은 거부)
+        private long maxDelayMs = 7L * 24 * 60 * 60 * 1000;
+    }
+
+    @Getter @Setter
+    public static class Idempotency {
+        // 중복 판별 윈도우 (이보다 오래전에 본 ID는 잊음 → 같은 ID를 다시 받으면 새 메시지로 수용)
+        private long windowMs = 10 * 60 * 1000;
+
+        // 윈도우를 나누는 시간 버킷 수 (만료 = 가장 오래된 버킷을 통째로 버림, 많을수록 만료 시점이 정확)
+        private int buckets = 10;
+
+        // 최대 보관 ID 수 (넘으면 기간이 남았어도 가장 오래된 버킷부터 버림 → 메모리 상한)
+        private int maxEntries = 2_000_000;
+
+        // 버킷마다 Bloom 사전 필터를 둘지 (처음 보는 ID는 필터에서 바로 걸러져 큰 ID 테이블 조회를 건너뜀, 기본 꺼짐)
+        private boolean filterEnabled = false;
+
+        // 필터 목표 오탐률 (낮을수록 필터가 커짐: 0.01 → ID당 약 12비트, 0.001 → 약 22비트)
+        private double filterFpp = 0.01;
+
+        // 재시작 후에도 윈도우 유지 (본 ID를 메모리 매핑 기록 파일에 남기고 시작 시 다시 읽음)
+        private boolean persistent = false;
+
+        // 기록 파일 디렉터리 (버킷별 {epoch}-{seq}.ids)
+        private String dir = "./data/mymq/idempotency";
+
+        // 기록 청크 파일 크기 (16바이트/ID, 64MB = 약 400만 ID, 차면 다음 청크)
+        private int journalChunkBytes = 64 * 1024 * 1024;
+    }
+
+    @Getter @Setter
+    public static class ConsumerGroupProps {
+        // 구독할 토픽 (비어 있으면 전체 토픽)
+        private List<String> topics = new ArrayList<>();
+
+        // 그룹 워커 스레드 수 (그룹의 파티션을 나눠 배정)
+        private int numConsumers = 1;
+
+        // 배치 크기 (0 = custom-mq.batch-size)
+        private int batchSize = 0;
+    }
+
+    @Getter @Setter
+    public static class Spill {
+        private boolean enabled = false;
+
+        // spill 파일 디렉터리 (파티션별 하위 디렉터리, 시작 시 비움)
+        private String dir = "./data/mymq-spill";
+
+        // 메모리 적재 상한 = queueSize * 비율 (이상이면 spill)
+        private double highWaterRatio = 0.8;
+
+        // spill 세그먼트 크기 (메모리 매핑 단위)
+        private int segmentBytes = 64 * 1024 * 1024;
+
+        // 파티션별 spill 최대 크기 (우선순위 레인이 여러 개면 레인 수로 나눔)
+        private long maxBytes = 1024L * 1024 * 1024;
+    }
+
+    @Getter @Setter
+    public static class Backpressure {
+        // reject | block | drop-oldest | caller-runs
+        private BackpressurePolicy policy = BackpressurePolicy.REJECT;
+
+        // block: 빈 자리를 기다리는 최대 시간
+        private long blockTimeoutMs = 100;
+    }
+
+    @Getter @Setter
+    public static class Dlq {
+        // 토픽별 DLQ 최대 항목 수 (가득 차면 새 항목 거부)
+        private int capacity = 10000;
+
+        // 이 횟수만큼 전달했는데도 nack/만료되면 DLQ로 이동
+        private int maxDeliveryAttempts = 5;
+
+        // 재투입 속도 (초당 최대 건수, 실시간 트래픽 보호)
+        private double redriveRatePerSec = 100;
+
+        // 재투입 작업 주기
+        private long redriveTickMs = 100;
+    }
+
+    @Getter @Setter
+    public static class Wal {
+        // WAL 사용 여부 (false면 메모리 전용)
+        private boolean enabled = false;
+
+        // 로그 디렉터리 (파티션별 하위 디렉터리)
+        private String dir = "./data/mymq";
+
+        // 세그먼트 최대 크기 (넘으면 새 세그먼트로 롤링)
+        private long segmentBytes = 64L * 1024 * 1024;
+
+        // 파티션별 쓰기 버퍼 크기 (레코드를 모아 write 1회로 기록)
+        private int writeBufferBytes = 1024 * 1024;
+
+        // fsync 정책 (every-n / interval / never)
+        private FsyncPolicy fsyncPolicy = FsyncPolicy.INTERVAL;
+
+        // every-n: N건마다 fsync (N건이 안 차도 fsync-interval-ms마다 → 프로듀서 대기 상한)
+        private int fsyncEveryRecords = 1000;
+
+        // interval: T ms마다 fsync (프로듀서는 최대 T ms 대기, never에서는 버퍼 → 파일 주기로 사용)
+        private long fsyncIntervalMs = 50;
+
+        // 컨슈머 커밋 오프셋 체크포인트 저장 주기
+        private long checkpointIntervalMs = 1000;
+
+        // 시작 시 복구 스캔 스레드 수 (0이면 CPU 코어 수)
+        private int recoveryThreads = 0;
+
+        // 세그먼트 인덱스 엔트리 간격 (이 바이트마다 오프셋/시각 인덱스 1개, 작을수록 seek 스캔이 짧고 인덱스가 큼)
+        private int indexIntervalBytes = 4096;
+
+        // 배치 압축 방식 (none / deflate): flush 때 레코드 묶음을 압축 프레임 1개로 기록, 읽을 때만 풂
+        private CompressionType compression = CompressionType.NONE;
+
+        // Deflater 압축 레벨 (1 = 가장 빠름 ~ 9 = 가장 작음)
+        private int compressionLevel = 1;
+
+        // 이 크기보다 작은 묶음은 압축하지 않음 (작은 묶음은 압축 이득이 적고 CPU만 씀)
+        private int compressionMinBytes = 1024;
+    }
 }
@@ -0,0 +1,212 @@
+package com.realtimefinmq.consumer;
+
+import com.realtimefinmq.mq.mymq.MessageIdSet;
+
+import java.util.Arrays;
+
+/**
+ * DedupeWindow
+ * - 컨슈머 중복 감지 윈도우 (전체 파티션 공용, 최근 capacity건의 메시지 ID)
+ *   → 같은 ID가 다른 key/파티션으로 다시 들어와도 (프로듀서 재시도, key 없는 메시지의 라운드로빈) 잡아냄
+ * - ID 해시로 샤드를 나눔 (샤드마다 용량 = capacity / 샤드 수, 샤드별 락) → 워커끼리 하나의 모니터에 줄 서지 않음
+ *
+ * 샤드 1개:
+ * - ID는 128비트 키(MessageIdSet.hi/lo)로 원형 배열에 등록 순서대로 보관, 조회는 open addressing 인덱스
+ *   → 인덱스 슬롯 = 원형 배열 위치 + 1 (0 = 빈 칸), 키 비교는 원형 배열에서
+ *   → 가득 차면 가장 오래된 칸을 인덱스에서 빼고 그 칸을 재사용 (O(1), 객체 할당 없음)
+ * - 삭제(nack)는 인덱스에서 빼고 원형 배열 칸을 빈 칸 (0, 0)으로 표시
+ *   → 양 끝의 빈 칸은 바로 회수, 가운데 빈 칸이 용량의 1/8을 넘으면 원형 배열을 당겨 채워 회수 (분할 상환 O(1))
+ *   → 실제로 보관하는 ID 수는 용량의 7/8 ~ 용량 (capacity는 상한)
+ */
+final class DedupeWindow {
+    private static final int MAX_SHARDS = 64;
+    private static final int MIN_SHARD_CAPACITY = 1024;
+
+    private final Shard[] shards;
+    private final int shardShift;
+
+    /**
+     * @param capacity 전체 윈도우 크기 (샤드에 고르게 나눔)
+     */
+    DedupeWindow(int capacity) {
+        int cap = Math.max(1, capacity);
+        int n = Integer.highestOneBit(Math.max(1, Math.min(MAX_SHARDS, cap / MIN_SHARD_CAPACITY)));
+        this.shards = new Shard[n];
+        for (int i = 0; i < n; i++) shards[i] = new Shard((cap + n - 1) / n);
+        this.shardShift = 64 - Integer.numberOfTrailingZeros(n);
+    }
+
+    /**
+     * 처음 본 ID면 등록
+     *
+     * @return true → 처음 봄 (등록함), false → 윈도우 안에 이미 있음 (중복)
+     */
+    boolean add(String id) {
+        long hi = MessageIdSet.hi(id), lo = MessageIdSet.lo(id);
+        if ((hi | lo) == 0) lo = 1; // (0, 0)은 빈 칸 표시
+        long h = MessageIdSet.mix(hi, lo);
+        Shard s = shardOf(h);
+        synchronized (s) {
+            return s.add(hi, lo, h);
+        }
+    }
+
+    /** 윈도우에서 제거 (처리 실패 → 재전달 시 중복으로 드롭되지 않도록) */
+    boolean remove(String id) {
+        long hi = MessageIdSet.hi(id), lo = MessageIdSet.lo(id);
+        if ((hi | lo) == 0) lo = 1;
+        long h = MessageIdSet.mix(hi, lo);
+        Shard s = shardOf(h);
+        synchronized (s) {
+            return s.remove(hi, lo, h);
+        }
+    }
+
+    /** 보관 중인 ID 수 */
+    int size() {
+        int total = 0;
+        for (Shard s : shards) {
+            synchronized (s) {
+                total += s.count - s.dead;
+            }
+        }
+        return total;
+    }
+
+    void clear() {
+        for (Shard s : shards) {
+            synchronized (s) {
+                s.clear();
+            }
+        }
+    }
+
+    private Shard shardOf(long h) {
+        return (shardShift == 64) ? shards[0] : shards[(int) (h >>> shardShift)];
+    }
+
+    /** 원형 배열 + 인덱스 1개 (DedupeWindow가 샤드 모니터를 잡고 호출) */
+    private static final class Shard {
+        private final long[] ringHi;
+        private final long[] ringLo;
+        private final int[] index;
+        private final int mask;
+        private int head;   // 가장 오래된 칸
+        private int count;  // head부터 쓰인 칸 수 (빈 칸 포함)
+        private int dead;   // 그중 삭제로 비운 칸 수
+
+        Shard(int capacity) {
+            this.ringHi = new long[capacity];
+            this.ringLo = new long[capacity];
+            int slots = Integer.highestOneBit(Math.max(2, capacity) - 1) << 2; // 적재율 0.25~0.5
+            this.index = new int[slots];
+            this.mask = slots - 1;
+        }
+
+        boolean add(long hi, long lo, long h) {
+            if (find(hi, lo, h) >= 0) return false;
+            int cap = ringHi.length;
+            if (count == cap && dead > 0 && dead >= (cap >>> 3)) compact();
+            if (count == cap) {
+                if (isDead(head)) dead--;
+                else deleteSlot(find(ringHi[head], ringLo[head], MessageIdSet.mix(ringHi[head], ringLo[head])));
+                head = next(head);
+                count--;
+            }
+            int pos = wrap(head + count);
+            ringHi[pos] = hi;
+            ringLo[pos] = lo;
+            count++;
+            insert(pos, h);
+            return true;
+        }
+
+        boolean remove(long hi, long lo, long h) {
+            int slot = find(hi, lo, h);
+            if (slot < 0) return false;
+            int pos = index[slot] - 1;
+            deleteSlot(slot);
+            ringHi[pos] = 0;
+            ringLo[pos] = 0;
+            dead++;
+            // 양 끝의 빈 칸은 바로 회수 (처리 실패는 대개 방금 등록한 ID → 끝 칸)
+            while (count > 0 && isDead(wrap(head + count - 1))) {
+                count--;
+                dead--;
+            }
+            while (count > 0 && isDead(head)) {
+                head = next(head);
+                count--;
+                dead--;
+            }
+            return true;
+        }
+
+        void clear() {
+            Arrays.fill(index, 0);
+            head = 0;
+            count = 0;
+            dead = 0;
+        }
+
+        /** 가운데 빈 칸을 없애도록 살아 있는 칸을 앞으로 당기고 인덱스 재구성 (순서 유지) */
+        private void compact() {
+            int w = head;
+            for (int i = 0, r = head; i < count; i++, r = next(r)) {
+                if (isDead(r)) continue;
+                ringHi[w] = ringHi[r];
+                ringLo[w] = ringLo[r];
+                w = next(w);
+            }
+            count -= dead;
+            dead = 0;
+            Arrays.fill(index, 0);
+            for (int i = 0, p = head; i < count; i++, p = next(p)) {
+                insert(p, MessageIdSet.mix(ringHi[p], ringLo[p]));
+            }
+        }
+
+        private void insert(int pos, long h) {
+            int i = (int) h & mask;
+            while (index[i] != 0) i = (i + 1) & mask;
+            index[i] = pos + 1;
+        }
+
+        /** 키가 있는 인덱스 슬롯 (없으면 -1) */
+        private int find(long hi, long lo, long h) {
+            for (int i = (int) h & mask; ; i = (i + 1) & mask) {
+                int v = index[i];
+                if (v == 0) return -1;
+                if (ringHi[v - 1] == hi && ringLo[v - 1] == lo) return i;
+            }
+        }
+
+        /** 슬롯 i를 비우고 뒤쪽 연속 구간을 당겨 채움 (backward shift, 묘비 없음) */
+        private void deleteSlot(int i) {
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                int v = index[j];
+                if (v == 0) break;
+                int home = (int) MessageIdSet.mix(ringHi[v - 1], ringLo[v - 1]) & mask;
+                boolean between = (i <= j) ? (i < home && home <= j) : (i < home || home <= j);
+                if (between) continue;
+                index[i] = v;
+                i = j;
+            }
+            index[i] = 0;
+        }
+
+        private boolean isDead(int pos) {
+            return (ringHi[pos] | ringLo[pos]) == 0;
+        }
+
+        private int next(int pos) {
+            return (pos + 1 == ringHi.length) ? 0 : pos + 1;
+        }
+
+        private int wrap(int pos) {
+            return (pos >= ringHi.length) ? pos - ringHi.length : pos;
+        }
+    }
+}
@@ -5,21 +5,30 @@ import com.realtimefinmq.metrics.MyMqMetricsService;
 import com.realtimefinmq.mq.Message;
 import com.realtimefinmq.mq.mymq.Broker;
 import com.realtimefinmq.mq.mymq.IdempotencyStore;
+import com.realtimefinmq.mq.mymq.Topic;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
 
 /**
  * MyMQ Consumer
- * - Broker에서 메시지를 poll() 해서 처리
+ * - Broker에서 메시지를 pollBatch()로 여러 건씩 꺼내 배치 단위로 처리
+ * - 모든 토픽의 파티션을 워커에 나눠 배정, 파티션마다 정확히 한 워커가 소비 (키별 순서 유지, 워커 수만큼 코어 활용)
+ * - 처리 성공/중복은 ack, 처리 실패는 nack → 브로커가 재전달 (ack 안 하고 죽으면 visibility timeout 후 재전달)
  * - KafkaListener와 유사한 역할
  */
 @Slf4j
@@ -31,37 +40,28 @@ public class MyMqConsumerService {
     private final Broker broker; // MyMQ 브로커 (큐 + WAL + DLQ)
     private final MyMqConfig cfg; // 폴링/지연 설정 값
 
-    // ===== 중복 감지용(최근 N개 윈도우) =====
-    private static final int DEDUPE_WINDOW_SIZE = 100_000;
-    private final ConcurrentMap<String, Boolean> processedIds = new ConcurrentHashMap<>();
-    private final ArrayDeque<String> processedOrder = new ArrayDeque<>(DEDUPE_WINDOW_SIZE);
-    private final Object dedupeLock = new Object(); // 큐 축출 동기화용
+    // ===== 중복 감지용 (전체 파티션 공용 최근 N건 윈도우, ID 해시 샤드별 락, null = 꺼짐) =====
+    private volatile DedupeWindow dedupe;
 
-    // ===== 순서 위반 감지용: key별 마지막 seq =====
-    private final ConcurrentMap<String, Long> lastSeqByKey = new ConcurrentHashMap<>();
+    // ===== 순서 위반 감지용: 토픽별 key별 마지막 seq =====
+    private final ConcurrentMap<String, ConcurrentMap<String, Long>> lastSeqByTopic = new ConcurrentHashMap<>();
 
-    private Thread worker;
+    // 토픽별 파티션 배정 (시작 시 1회 구성, 이후 읽기 전용)
+    private final Map<String, Assignment[]> assignments = new HashMap<>();
+
+    private final List<Thread> workers = new ArrayList<>();
     private volatile boolean running = true;
 
     /**
      * 메시지 ID가 중복인지 검사하고, 처음 본 ID면 윈도우에 등록한다.
+     * - 윈도우는 파티션과 무관하게 ID 기준 (재시도가 다른 key/파티션으로 들어와도 잡음)
      * true  = 처음 본 것(정상 처리 진행)
      * false = 이미 처리된 것(중복 → 드롭)
      */
     private boolean checkAndRemember(String messageId) {
-        if (messageId == null) return true; // ID 없으면 중복 판별 불가 → 통과
-        Boolean prev = processedIds.putIfAbsent(messageId, Boolean.TRUE);
-        if (prev != null) return false; // 이미 존재 → 중복
-
-        // 새 ID를 순서 큐에 넣고, 넘치면 가장 오래된 항목 축출
-        synchronized (dedupeLock) {
-            processedOrder.addLast(messageId);
-            if (processedOrder.size() > DEDUPE_WINDOW_SIZE) {
-                String old = processedOrder.removeFirst();
-                if (old != null) processedIds.remove(old);
-            }
-        }
-        return true;
+        DedupeWindow window = dedupe;
+        if (messageId == null || window == null) return true; // ID 없음 / 윈도우 꺼짐 → 통과
+        return window.add(messageId);
     }
 
     /**
@@ -69,111 +69,249 @@ public class MyMqConsumerService {
      * - Message에 getKey()/getSequence()가 있을 때만 동작 (없으면 skip)
      * - 현재 seq <= 마지막 seq → 순서 위반 기록
      * - 정상/위반 여부와 관계없이 마지막 seq 갱신(더 큰 값만)
+     * - 배치 안에서는 로컬 맵(batchSeq)에만 기록하고, 공유 맵 반영은 배치 끝에 키당 1회(flushOrderState)
+     *   (같은 key는 항상 같은 파티션 → 같은 워커이므로 배치 중 다른 스레드와 경합 없음)
+     * - seq는 토픽 안에서만 비교 (토픽마다 프로듀서 시퀀스가 따로)
      */
-    private void checkOrderViolation(Message msg) {
+    private void checkOrderViolation(Message msg, Map<String, Long> batchSeq, Map<String, Long> lastSeqByKey) {
         String key = msg.getKey();
         Long   seq = msg.getSequence();
         if (key == null || seq == null) return;
 
-        lastSeqByKey.compute(key, (k, prev) -> {
-            if (prev != null && seq <= prev) {
-                metrics.recordOrderViolation(); // 순서 위반 카운트
-                log.warn("[MyMQ-Consumer] 순서 위반 감지 | key={} prev={} curr={}", k, prev, seq);
-                // prev 유지(큰 값 유지) 또는 seq로 갱신할지 선택. 일반적으로 더 큰 값 유지:
-                return Math.max(prev, seq);
-            }
-            return (prev == null) ? seq : Math.max(prev, seq);
-        });
+        Long prev = batchSeq.get(key);
+        if (prev == null) prev = lastSeqByKey.get(key);
+
+        if (prev != null && seq <= prev) {
+            metrics.recordOrderViolation(); // 순서 위반 카운트
+            log.warn("[MyMQ-Consumer] 순서 위반 감지 | key={} prev={} curr={}", key, prev, seq);
+        }
+        // 일반적으로 더 큰 값 유지
+        batchSeq.put(key, (prev == null) ? seq : Math.max(prev, seq));
+    }
+
+    /** 배치에서 갱신된 key별 마지막 seq를 공유 맵에 반영 */
+    private void flushOrderState(Map<String, Long> batchSeq, Map<String, Long> lastSeqByKey) {
+        for (Map.Entry<String, Long> e : batchSeq.entrySet()) {
+            lastSeqByKey.merge(e.getKey(), e.getValue(), Math::max);
+        }
+        batchSeq.clear();
     }
 
     @PostConstruct
     void startWorkers() {
-        worker = new Thread(this::consumeLoop, "mymq-consumer-1");
-        worker.setDaemon(true);
-        worker.start();
-        log.info("[MyMQ-Consumer] 워커 실행");
+        int window = cfg.getConsumerDedupeWindow();
+        this.dedupe = (window > 0) ? new DedupeWindow(window) : null;
+
+        // 전체 (토픽, 파티션)을 스레드에 나눠 배정: 워커 i → i, i+N, i+2N 번째 파티션
+        List<Assignment> all = new ArrayList<>();
+        for (Topic topic : broker.topics()) {
+            ConcurrentMap<String, Long> lastSeq = lastSeqByTopic.computeIfAbsent(topic.name(), k -> new ConcurrentHashMap<>());
+            Assignment[] perTopic = new Assignment[topic.partitionCount()];
+            for (int p = 0; p < perTopic.length; p++) {
+                perTopic[p] = new Assignment(topic, p, topic.consumeLock(p), lastSeq);
+                all.add(perTopic[p]);
+            }
+            assignments.put(topic.name(), perTopic);
+        }
+        broker.registerDrainer(this::drainOnCaller);
+
+        int n = Math.max(1, Math.min(cfg.getNumConsumers(), all.size()));
+        for (int w = 0; w < n; w++) {
+            final int workerIdx = w;
+            final Assignment[] owned = IntStream.range(0, all.size())
+                    .filter(i -> i % n == workerIdx)
+                    .mapToObj(all::get)
+                    .toArray(Assignment[]::new);
+
+            Thread t = new Thread(() -> consumeLoop(owned), "mymq-consumer-" + (w + 1));
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+            log.info("[MyMQ-Consumer] 워커 실행 | name={} partitions={}", t.getName(), Arrays.toString(owned));
+        }
     }
 
     @PreDestroy
     void stopWorkers() throws InterruptedException {
         running = false;
-        if (worker != null) {
+        for (Thread worker : workers) {
             worker.interrupt(); // poll 대기/park 해제용
+        }
+        for (Thread worker : workers) {
             worker.join(5_000);
         }
         log.info("[MyMQ-Consumer] 워커 정지");
     }
 
-    /** 지속 폴링 워커(각 스레드가 이 메서드를 무한 루프로 수행) */
-    private void consumeLoop() {
+    /**
+     * 지속 폴링 워커(각 스레드가 이 메서드를 무한 루프로 수행)
+     * - 파티션에서 batchSize만큼 한 번에 꺼내 배치 단위로 처리
+     *
+     * @param owned 이 워커가 전담하는 (토픽, 파티션)들
+     */
+    private void consumeLoop(Assignment[] owned) {
         // 큐가 비었을 때 잠깐 쉬어주는 대기 시간(ns). 과도한 busy loop 방지.
         final long idleSleepNs = TimeUnit.MILLISECONDS.toNanos(Math.max(1, cfg.getPollIntervalMs())); // 최소 1ms 보장
+        // 파티션 1개면 블로킹 poll(최대 50ms), 여러 개면 한 파티션에 묶이지 않도록 즉시 반환 poll
+        final long pollTimeoutMs = (owned.length == 1) ? 50 : 0;
+        final int batchSize = Math.max(1, cfg.getBatchSize());
+
+        // 워커 전용 재사용 버퍼 (배치마다 새로 할당하지 않음)
+        final Batch batch = new Batch(batchSize);
 
         while (running) {                                         // 종료 신호가 올 때까지 반복
             try {
-                // 브로커에서 메시지 하나를 꺼냄(최대 50ms 대기). 없으면 null.
-                Message msg = broker.poll(50);
+                boolean idle = true;
+                for (Assignment a : owned) {
+                    // CALLER_RUNS 프로듀서 / TTL sweeper가 처리 중이면 이번엔 건너뜀
+                    ReentrantLock lock = a.lock();
+                    if (!lock.tryLock()) {
+                        idle = false;
+                        continue;
+                    }
+                    try {
+                        // 브로커에서 최대 batchSize건을 꺼냄. 없으면 0.
+                        if (pollAndProcess(a, batch, pollTimeoutMs) > 0) idle = false;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
 
-                if (msg == null) {                                // 큐가 비어있으면
+                if (idle) {                                       // 담당 파티션이 모두 비어있으면
                     LockSupport.parkNanos(idleSleepNs);           // 짧게 쉰 뒤 재폴링
-                    continue;                                     // 루프 상단으로
                 }
+            } catch (Throwable t) {
+                if (!running && t instanceof InterruptedException) break;
+                log.error("[MyMQ-Consumer] 워커 예외: {}", t.getMessage(), t);
+            }
+        }
+    }
+
+    /** 파티션에서 한 배치 꺼내 처리 (파티션 락을 잡은 상태에서 호출) */
+    private int pollAndProcess(Assignment a, Batch batch, long pollTimeoutMs) {
+        int n = a.topic().pollBatch(a.partition(), batch.leaseIds.length, pollTimeoutMs, batch.messages, batch.leaseIds);
+        if (n == 0) return 0;
+        try {
+            processBatch(a, batch);
+        } finally {
+            batch.clear();
+        }
+        return n;
+    }
 
-                long now = System.currentTimeMillis();            // 현재 시각
-                long latency = Math.max(0, now - msg.getTimestamp()); // E2E 지연(음수 보정)
+    /**
+     * CALLER_RUNS 정책: 큐가 가득 찬 파티션을 프로듀서 스레드에서 한 배치 처리
+     * - 워커가 처리 중이면 그 배치가 끝날 때까지 기다림 (그 자체로 프로듀서 감속)
+     */
+    private int drainOnCaller(Topic topic, int partition) {
+        Assignment a = assignments.get(topic.name())[partition];
+        a.lock().lock();
+        try {
+            return pollAndProcess(a, new Batch(Math.max(1, cfg.getBatchSize())), 0);
+        } finally {
+            a.lock().unlock();
+        }
+    }
 
-                boolean decDone = false;                          // 미커밋 카운트 1회만 감소하도록 가드
+    /**
+     * 배치 처리: 메시지별로 중복 감지 → 순서 검사 → 처리,
+     * 지표/미커밋/멱등 저장소/순서 상태/ack 반영은 배치당 1회 (실패 건만 즉시 nack)
+     */
+    private void processBatch(Assignment a, Batch batch) {
+        final long now = System.currentTimeMillis();      // 배치 기준 현재 시각
+        final List<Message> messages = batch.messages;
 
+        int ok = 0;
+        int acks = 0;
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                Message msg = messages.get(i);
                 try {
                     /* ==== (1) 중복 감지: 이미 처리한 ID면 즉시 드롭 ==== */
                     String msgId = msg.getId();
                     if (!checkAndRemember(msgId)) {
                         metrics.recordDuplicate();   // 중복 카운트
-                        metrics.decUncommitted();    // 큐에서 빠졌으므로 미커밋 -1
-                        decDone = true;
                         log.warn("[MyMQ-Consumer] 중복 드롭 | id={}", msgId);
+                        batch.ackIds[acks++] = batch.leaseIds[i]; // 이미 처리된 것 → 재전달 불필요
                         continue; // 비즈니스 처리 스킵
                     }
 
                     /* ==== (2) 순서 위반 감지(키/시퀀스 기반) ==== */
-                    checkOrderViolation(msg);
+                    checkOrderViolation(msg, batch.lastSeq, a.lastSeq());
 
                     /* ==== (3) 실제 처리(데모: 로그 + 지표 반영) ==== */
+                    long since = Math.max(msg.getTimestamp(), msg.getDeliverAt()); // 지연 메시지는 전달 예정 시각 기준
+                    long latency = Math.max(0, now - since); // E2E 지연(음수 보정)
                     log.debug("[MyMQ-Consumer] 처리 | id={} | payload={} | latency={}ms",
                             msg.getId(), msg.getPayload(), latency);
 
-                    metrics.recordMessage(latency);
-
-                    // 기존 전략 유지: 성공 시 멱등 저장소에서 제거(사용처에 따라 의미가 다를 수 있음)
-                    idempotencyStore.removeProcessed(msg.getId());
-
-                    metrics.decUncommitted();
-                    decDone = true;
+                    batch.latencies[ok++] = latency;
+                    batch.processedIds.add(msgId);
+                    batch.ackIds[acks++] = batch.leaseIds[i];
 
                 } catch (Exception e) {
-                    log.error("[MyMQ-Consumer] 처리 실패 | id={} | 이유={}", msg.getId(), e.getMessage(), e);
+                    log.error("[MyMQ-Consumer] 처리 실패 → nack | id={} attempt={} | 이유={}",
+                            msg.getId(), msg.getDeliveryCount(), e.getMessage(), e);
                     metrics.recordFailure();
-                    metrics.decUncommitted();
-                    decDone = true;
-
-                } finally {
-                    if (!decDone) {
-                        metrics.decUncommitted();
-                    }
+                    if (msg.getId() != null && dedupe != null) dedupe.remove(msg.getId()); // 재전달 시 중복으로 드롭되지 않도록
+                    a.topic().nack(a.partition(), batch.leaseIds[i], e.getClass().getSimpleName() + ": " + e.getMessage());
                 }
-            } catch (Throwable t) {
-                if (!running && t instanceof InterruptedException) break;
-                log.error("[MyMQ-Consumer] 워커 예외: {}", t.getMessage(), t);
             }
+        } finally {
+            flushOrderState(batch.lastSeq, a.lastSeq());
+            metrics.recordMessages(batch.latencies, ok);
+
+            // 기존 전략 유지: 성공 시 멱등 저장소에서 제거(사용처에 따라 의미가 다를 수 있음)
+            // persistent 모드는 제거하지 않음 (재시작 전후 중복 판별이 같도록, 윈도우가 지나야 잊음)
+            if (!idempotencyStore.isPersistent()) idempotencyStore.removeProcessed(batch.processedIds);
+
+            // 성공/중복은 ack로 완료 → 미커밋 -n (배치당 1회). nack된 건은 재전달되므로 미커밋 유지
+            int acked = a.topic().ack(a.partition(), batch.ackIds, acks);
+            metrics.decUncommitted(acked);
         }
     }
 
-    public void resetConsistencyWindows() {
-        synchronized (dedupeLock) {
-            processedOrder.clear();
+    /**
+     * 워커가 맡은 (토픽, 파티션) 1개
+     *
+     * @param lock    파티션 소비 직렬화 (담당 워커 + CALLER_RUNS 프로듀서 + TTL sweeper). 평소엔 워커 혼자라 경합 없음
+     * @param lastSeq 토픽의 key별 마지막 seq (순서 위반 감지용)
+     */
+    private record Assignment(Topic topic, int partition, ReentrantLock lock, ConcurrentMap<String, Long> lastSeq) {
+        @Override
+        public String toString() {
+            return topic.name() + "-" + partition;
+        }
+    }
+
+    /** 워커별 배치 버퍼 (스레드 전용, 매 배치 clear 후 재사용) */
+    private static final class Batch {
+        final List<Message> messages;
+        final long[] leaseIds;   // messages와 같은 순서의 lease ID
+        final long[] ackIds;     // 이번 배치에서 ack할 lease ID
+        final long[] latencies;
+        final List<String> processedIds;
+        final Map<String, Long> lastSeq = new HashMap<>();
+
+        Batch(int size) {
+            this.messages = new ArrayList<>(size);
+            this.leaseIds = new long[size];
+            this.ackIds = new long[size];
+            this.latencies = new long[size];
+            this.processedIds = new ArrayList<>(size);
+        }
+
+        void clear() {
+            messages.clear();
             processedIds.clear();
+            lastSeq.clear();
         }
-        lastSeqByKey.clear();
+    }
+
+    public void resetConsistencyWindows() {
+        DedupeWindow window = dedupe;
+        if (window != null) window.clear();
+        lastSeqByTopic.values().forEach(Map::clear);
         log.info("[MyMQ-Consumer] dedupe/order 상태 초기화 완료");
     }
 }
\ No newline at end of file
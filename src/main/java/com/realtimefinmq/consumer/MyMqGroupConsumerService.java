@@ -0,0 +1,152 @@
+package com.realtimefinmq.consumer;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.metrics.MyMqMetricsService;
+import com.realtimefinmq.mq.Message;
+import com.realtimefinmq.mq.mymq.Broker;
+import com.realtimefinmq.mq.mymq.ConsumerGroup;
+import com.realtimefinmq.mq.mymq.Topic;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * MyMQ 컨슈머 그룹 워커
+ * - custom-mq.consumer-groups에 정의된 그룹마다 구독 토픽의 파티션을 워커에 나눠 배정
+ * - 메인 큐(MyMqConsumerService)와 달리 lease/ack 없이 로그를 읽고 배치 끝에 오프셋 커밋
+ *   → 처리 중 죽으면 마지막 커밋 이후부터 다시 읽음 (at-least-once)
+ * - 그룹마다 순서 위반 상태를 따로 가짐 (같은 메시지를 그룹 수만큼 받으므로)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MyMqGroupConsumerService {
+    private final MyMqMetricsService metrics;
+    private final Broker broker;
+    private final MyMqConfig cfg;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    @PostConstruct
+    void startWorkers() {
+        if (cfg.getConsumerGroups().isEmpty()) return;
+        if (!cfg.getWal().isEnabled()) {
+            log.warn("[MyMQ-Group] WAL 비활성화 → 컨슈머 그룹 미실행 | groups={}", cfg.getConsumerGroups().keySet());
+            return;
+        }
+        cfg.getConsumerGroups().forEach(this::startGroup);
+    }
+
+    /** 그룹 1개: 구독 토픽 × 파티션을 num-consumers개 워커에 라운드로빈 배정 */
+    private void startGroup(String groupName, MyMqConfig.ConsumerGroupProps props) {
+        List<String> topicNames = props.getTopics().isEmpty()
+                ? broker.topics().stream().map(Topic::name).toList()
+                : props.getTopics();
+
+        List<Assignment> all = new ArrayList<>();
+        for (String topicName : topicNames) {
+            ConsumerGroup group = broker.consumerGroup(topicName, groupName);
+            Map<String, Long> lastSeq = new HashMap<>(); // 토픽별 (key → seq), 키는 한 파티션 → 한 워커라 공유 안 됨
+            for (int p = 0; p < group.partitionCount(); p++) {
+                all.add(new Assignment(group, p, lastSeq));
+            }
+        }
+
+        int batchSize = Math.max(1, props.getBatchSize() > 0 ? props.getBatchSize() : cfg.getBatchSize());
+        int n = Math.max(1, Math.min(props.getNumConsumers(), all.size()));
+        for (int w = 0; w < n; w++) {
+            final int workerIdx = w;
+            final Assignment[] owned = IntStream.range(0, all.size())
+                    .filter(i -> i % n == workerIdx)
+                    .mapToObj(all::get)
+                    .toArray(Assignment[]::new);
+
+            Thread t = new Thread(() -> consumeLoop(owned, batchSize), "mymq-group-" + groupName + "-" + (w + 1));
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+            log.info("[MyMQ-Group] 워커 실행 | name={} partitions={}", t.getName(), Arrays.toString(owned));
+        }
+    }
+
+    @PreDestroy
+    void stopWorkers() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            worker.join(5_000);
+        }
+        if (!workers.isEmpty()) log.info("[MyMQ-Group] 워커 정지");
+    }
+
+    private void consumeLoop(Assignment[] owned, int batchSize) {
+        final long idleSleepNs = TimeUnit.MILLISECONDS.toNanos(Math.max(1, cfg.getPollIntervalMs()));
+        final long pollTimeoutMs = (owned.length == 1) ? 50 : 0;
+        final List<Message> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            try {
+                boolean idle = true;
+                for (Assignment a : owned) {
+                    int n = a.group().poll(a.partition(), batchSize, pollTimeoutMs, batch);
+                    if (n == 0) continue;
+                    idle = false;
+                    try {
+                        processBatch(a, batch);
+                    } finally {
+                        batch.clear();
+                    }
+                }
+                if (idle) LockSupport.parkNanos(idleSleepNs);
+            } catch (Throwable t) {
+                if (!running) break;
+                log.error("[MyMQ-Group] 워커 예외: {}", t.getMessage(), t);
+                LockSupport.parkNanos(idleSleepNs); // 읽기 실패가 반복돼도 busy loop 방지
+            }
+        }
+    }
+
+    /**
+     * 배치 처리 후 마지막 오프셋 + 1 커밋
+     * - 데모: 순서 검사 + 로그 (원장/이상거래/분석 서비스가 이 자리에 붙음)
+     */
+    private void processBatch(Assignment a, List<Message> batch) {
+        for (Message msg : batch) {
+            String key = msg.getKey();
+            Long seq = msg.getSequence();
+            if (key != null && seq != null) {
+                Long prev = a.lastSeq().get(key);
+                if (prev != null && seq <= prev) {
+                    metrics.recordOrderViolation();
+                    log.warn("[MyMQ-Group] 순서 위반 감지 | group={} key={} prev={} curr={}", a.group(), key, prev, seq);
+                }
+                a.lastSeq().put(key, (prev == null) ? seq : Math.max(prev, seq));
+            }
+            log.trace("[MyMQ-Group] 처리 | group={} id={} offset={}", a.group(), msg.getId(), msg.getOffset());
+        }
+        a.group().commit(a.partition(), batch.get(batch.size() - 1).getOffset() + 1);
+        metrics.recordGroupConsumed(batch.size());
+    }
+
+    /** 워커가 맡은 (그룹, 토픽 파티션) 1개 */
+    private record Assignment(ConsumerGroup group, int partition, Map<String, Long> lastSeq) {
+        @Override
+        public String toString() {
+            return group.topic().logName(partition) + "@" + group.name();
+        }
+    }
+}
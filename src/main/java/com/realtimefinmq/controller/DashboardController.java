@@ -1,6 +1,7 @@
 package com.realtimefinmq.controller;
 
 import com.realtimefinmq.consumer.MyMqConsumerService;
+import com.realtimefinmq.metrics.BrokerMetricsDto;
 import com.realtimefinmq.metrics.KafkaMetricsService;
 import com.realtimefinmq.metrics.MetricsDto;
 import com.realtimefinmq.metrics.MyMqMetricsService;
@@ -41,6 +42,12 @@ public class DashboardController {
         );
     }
 
+    /** MyMQ 브로커 엔진 지표 (복구 등) */
+    @GetMapping("/metrics/mymq/broker")
+    public BrokerMetricsDto myMqBroker() {
+        return myMqMetrics.getBrokerMetrics();
+    }
+
     /** Kafka로 n개 발사 후, 최신 지표 스냅샷 반환 */
     @PostMapping("/metrics/kafka/send")
     public Map<String, Object> sendKafka(@RequestParam(defaultValue = "1000") int n) {
@@ -60,7 +67,11 @@ public class DashboardController {
     public Map<String, Object> sendMyMq(
             @RequestParam(defaultValue = "1000") int n,
             @RequestParam(required = false) String key,
-            @RequestParam(defaultValue = "16") int keyBuckets
+            @RequestParam(defaultValue = "16") int keyBuckets,
+            @RequestParam(defaultValue = "default") String topic,
+            @RequestParam(defaultValue = "0") long delayMs,
+            @RequestParam(defaultValue = "0") long ttlMs,
+            @RequestParam(required = false) String lane
     ) {
         int count = Math.max(0, n);
         int buckets = Math.max(1, keyBuckets);
@@ -69,11 +80,12 @@ public class DashboardController {
             String effectiveKey = (key != null && !key.isBlank())
                     ? key
                     : "key-" + (i % buckets);
-            myMqProducerService.publish(effectiveKey, "mymq-test-" + i);
+            myMqProducerService.publish(topic, effectiveKey, "mymq-test-" + i, delayMs, ttlMs, lane);
         }
         return Map.of(
                 "sent", count,
                 "target", "mymq",
+                "topic", topic,
                 "metrics", myMqMetrics.getMetrics()
         );
     }
@@ -0,0 +1,227 @@
+package com.realtimefinmq.controller;
+
+import com.realtimefinmq.mq.mymq.Broker;
+import com.realtimefinmq.mq.mymq.ConsumerGroup;
+import com.realtimefinmq.mq.mymq.DeadLetterQueue;
+import com.realtimefinmq.mq.mymq.Topic;
+import com.realtimefinmq.mq.mymq.wal.LogExport;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MyMQ 관리 API
+ * - 토픽 목록 / 컨슈머 그룹 lag / 그룹 seek(재처리) / DLQ 조회 / 재투입(redrive)
+ * - 파티션 로그 원본 바이트 내보내기 (외부 컨슈머 스트리밍 / 백업·시딩 파일)
+ */
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/admin/mymq")
+@RequiredArgsConstructor
+public class MyMqAdminController {
+    private final Broker broker;
+
+    /** 등록된 토픽과 설정/적재량 */
+    @GetMapping("/topics")
+    public List<Map<String, Object>> topics() {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Topic t : broker.topics()) {
+            out.add(Map.of(
+                    "topic", t.name(),
+                    "settings", t.settings(),
+                    "size", t.size(),
+                    "inflight", t.inflightCount(),
+                    "dlqSize", t.deadLetterQueue().size(),
+                    "diskBytes", t.diskBytes()
+            ));
+        }
+        return out;
+    }
+
+    /** 컨슈머 그룹별 파티션 위치 / 커밋 오프셋 / lag */
+    @GetMapping("/groups")
+    public List<Map<String, Object>> groups() {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Topic t : broker.topics()) {
+            for (ConsumerGroup g : t.groups()) {
+                List<Map<String, Object>> parts = new ArrayList<>();
+                for (int p = 0; p < g.partitionCount(); p++) {
+                    parts.add(Map.of(
+                            "partition", p,
+                            "position", g.position(p),
+                            "committed", g.committed(p),
+                            "lag", g.lag(p)
+                    ));
+                }
+                out.add(Map.of(
+                        "group", g.name(),
+                        "topic", t.name(),
+                        "lag", g.lag(),
+                        "partitions", parts
+                ));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 컨슈머 그룹 읽기 위치 이동 (재처리 / 건너뛰기)
+     * - 대상은 하나만: offset | to=earliest|latest | timestamp(epoch ms) | agoMs(지금부터 몇 ms 전)
+     * - partition 생략 시 전체 파티션 (offset은 파티션마다 의미가 달라 partition 필수)
+     * - 커밋 오프셋도 함께 되돌림, 워커는 다음 poll부터 새 위치에서 읽음
+     * - 이미 있는 그룹만 (없는 토픽/그룹이면 404, 새 그룹은 만들지 않음 → 아무도 읽지 않는 그룹이 보존 정리를 붙잡지 않도록)
+     */
+    @PostMapping("/groups/{group}/seek")
+    public ResponseEntity<Map<String, Object>> seek(
+            @PathVariable String group,
+            @RequestParam String topic,
+            @RequestParam(required = false) Integer partition,
+            @RequestParam(required = false) Long offset,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Long timestamp,
+            @RequestParam(required = false) Long agoMs
+    ) {
+        int targets = (offset != null ? 1 : 0) + (to != null ? 1 : 0) + (timestamp != null ? 1 : 0) + (agoMs != null ? 1 : 0);
+        if (targets != 1) throw new IllegalArgumentException("exactly one of offset / to / timestamp / agoMs is required");
+        if (offset != null && partition == null) throw new IllegalArgumentException("offset seek requires partition");
+        if (to != null && !to.equals("earliest") && !to.equals("latest")) {
+            throw new IllegalArgumentException("to must be earliest or latest: " + to);
+        }
+
+        ConsumerGroup g = broker.findConsumerGroup(topic, group);
+        if (g == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "status", "error",
+                    "message", "unknown consumer group: " + group + "@" + topic
+            ));
+        }
+        if (partition != null && (partition < 0 || partition >= g.partitionCount())) {
+            throw new IllegalArgumentException("partition out of range: " + partition);
+        }
+        long ts = (agoMs != null) ? System.currentTimeMillis() - agoMs : (timestamp != null ? timestamp : -1);
+
+        List<Map<String, Object>> parts = new ArrayList<>();
+        int from = (partition != null) ? partition : 0;
+        int until = (partition != null) ? partition + 1 : g.partitionCount();
+        for (int p = from; p < until; p++) {
+            long target;
+            if (offset != null) target = g.seek(p, offset);
+            else if ("earliest".equals(to)) target = g.seekToBeginning(p);
+            else if ("latest".equals(to)) target = g.seekToEnd(p);
+            else target = g.seekToTimestamp(p, ts);
+            parts.add(Map.of("partition", p, "offset", target));
+        }
+        return ResponseEntity.ok(Map.of(
+                "status", "ok",
+                "group", group,
+                "topic", topic,
+                "partitions", parts
+        ));
+    }
+
+    /**
+     * 파티션 로그 구간을 원본 바이트(세그먼트 포맷) 그대로 스트리밍 (외부 프로세스 컨슈머용, Message 디코딩 없음)
+     * - 응답 헤더: X-MyMQ-First-Offset(첫 프레임 오프셋) / X-MyMQ-Next-Offset(다음 요청의 from)
+     * - 압축 배치는 압축된 채로 전송, 받는 쪽은 from보다 작은 오프셋을 건너뜀
+     * - 서블릿 출력 스트림은 소켓 채널이 아니므로 여기서는 페이지 캐시 → 응답 버퍼 복사 1회 (파일 내보내기는 커널 안 복사)
+     */
+    @GetMapping(value = "/topics/{topic}/partitions/{partition}/log", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamLog(
+            @PathVariable String topic,
+            @PathVariable int partition,
+            @RequestParam(defaultValue = "0") long from,
+            @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to
+    ) throws IOException {
+        LogExport export = broker.exportLog(topic, partition, from, to);
+        StreamingResponseBody body = out -> export.transferTo(Channels.newChannel(out));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(export.bytes())
+                .header("X-MyMQ-First-Offset", Long.toString(export.firstOffset()))
+                .header("X-MyMQ-Next-Offset", Long.toString(export.nextOffset()))
+                .body(body);
+    }
+
+    /**
+     * 파티션 로그 구간을 서버 파일로 내보내기 (백업 / 새 노드 시딩)
+     * - {wal.dir}/exports/{토픽}-{파티션}/{첫 오프셋}.log, 세그먼트 파일 그대로 복사 가능
+     */
+    @PostMapping("/topics/{topic}/partitions/{partition}/export")
+    public Map<String, Object> exportLog(
+            @PathVariable String topic,
+            @PathVariable int partition,
+            @RequestParam(defaultValue = "0") long from,
+            @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to
+    ) throws IOException {
+        LogExport export = broker.exportLog(topic, partition, from, to);
+        Path file = broker.exportLogToFile(topic, partition, export);
+        return Map.of(
+                "status", "ok",
+                "topic", topic,
+                "partition", partition,
+                "file", (file == null) ? "" : file.toAbsolutePath().toString(),
+                "bytes", export.bytes(),
+                "firstOffset", export.firstOffset(),
+                "nextOffset", export.nextOffset()
+        );
+    }
+
+    /** DLQ 조회 (오래된 순, skip/limit 페이지) */
+    @GetMapping("/topics/{topic}/dlq")
+    public Map<String, Object> dlq(
+            @PathVariable String topic,
+            @RequestParam(defaultValue = "0") int skip,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        DeadLetterQueue dlq = dlqOf(topic);
+        return Map.of(
+                "topic", topic,
+                "size", dlq.size(),
+                "capacity", dlq.capacity(),
+                "rejected", dlq.dropped(),
+                "redriveRemaining", dlq.redriveRemaining(),
+                "entries", dlq.list(Math.max(0, skip), Math.max(0, Math.min(limit, 1000)))
+        );
+    }
+
+    /** DLQ → 메인 큐 재투입 요청 (max=0이면 전부, 실제 이동은 redrive-rate-per-sec 한도 안에서) */
+    @PostMapping("/topics/{topic}/dlq/redrive")
+    public Map<String, Object> redrive(
+            @PathVariable String topic,
+            @RequestParam(defaultValue = "0") long max
+    ) {
+        DeadLetterQueue dlq = dlqOf(topic);
+        long scheduled = dlq.requestRedrive(max);
+        return Map.of(
+                "status", "ok",
+                "topic", topic,
+                "scheduled", scheduled,
+                "size", dlq.size()
+        );
+    }
+
+    /** 잘못된 요청 파라미터 / 없는 토픽 → 400 (기본 처리면 500) */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of(
+                "status", "error",
+                "message", String.valueOf(e.getMessage())
+        ));
+    }
+
+    private DeadLetterQueue dlqOf(String topic) {
+        DeadLetterQueue dlq = broker.deadLetterQueue(topic);
+        if (dlq == null) throw new IllegalArgumentException("unknown topic: " + topic);
+        return dlq;
+    }
+}
@@ -13,6 +13,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * - 처리량: total / success / fail
  * - 지연:   avg / p95 / p99  (최근 N건 표본 + 시간 윈도우)
  * - 정합성: duplicate / orderViolation
+ * - 만료: expired (TTL이 지나 컨슈머에게 전달하지 않고 버린 메시지)
  * - 내구성(간이): uncommitted (프로듀서 +1, 컨슈머 -1)
  */
 @Slf4j
@@ -36,6 +37,9 @@ public class BaseMetricsService {
     private final AtomicInteger duplicateCount      = new AtomicInteger(0);
     private final AtomicInteger orderViolationCount = new AtomicInteger(0);
 
+    // ===== 만료(TTL) =====
+    private final AtomicInteger expiredCount = new AtomicInteger(0);
+
     // ===== 내구성(간이) =====
     private final AtomicInteger uncommittedCount = new AtomicInteger(0);
 
@@ -68,6 +72,41 @@ public class BaseMetricsService {
         log.debug("[Metrics] success latencyMs={} avgMs={}", latencyMs, avgLatencyMs);
     }
 
+    /**
+     * 배치 성공 기록: 카운터/윈도우 락을 배치당 1회만 갱신
+     *
+     * @param latenciesMs 지연 값 배열 (앞에서부터 n개 사용)
+     * @param n           건수
+     */
+    public void recordMessages(long[] latenciesMs, int n) {
+        if (n <= 0) return;
+        long now = System.currentTimeMillis();
+
+        long sum = 0;
+        for (int i = 0; i < n; i++) sum += latenciesMs[i];
+
+        totalMessages.addAndGet(n);
+        successMessages.addAndGet(n);
+
+        long total = totalLatency.addAndGet(sum);
+        int samples = latencySamples.addAndGet(n);
+        avgLatencyMs = total / (double) samples;
+
+        int base = latencyIdx.getAndAdd(n);
+        for (int i = 0; i < n; i++) {
+            latencyBuf[(base + i) % LAT_BUF_SIZE] = latenciesMs[i];
+        }
+
+        synchronized (winLock) {
+            for (int i = 0; i < n; i++) {
+                winTs.addLast(now);
+                winLat.addLast(latenciesMs[i]);
+            }
+        }
+
+        log.debug("[Metrics] success batch n={} avgMs={}", n, avgLatencyMs);
+    }
+
     public void recordFailure() {
         totalMessages.incrementAndGet();
         failMessages.incrementAndGet();
@@ -81,12 +120,20 @@ public class BaseMetricsService {
         orderViolationCount.incrementAndGet();
     }
 
+    /** TTL 만료로 버린 메시지 (poll 시 건너뜀 / sweeper 회수) */
+    public void recordExpired(int n) {
+        expiredCount.addAndGet(n);
+    }
+
     // 언커밋 증감 (프로듀서 enqueue 성공 시 +1, 컨슈머 처리/실패 시 -1)
     public void incUncommitted() {
         uncommittedCount.incrementAndGet();
     }
     public void decUncommitted() {
-        int u = uncommittedCount.decrementAndGet();
+        decUncommitted(1);
+    }
+    public void decUncommitted(int n) {
+        int u = uncommittedCount.addAndGet(-n);
         if (u < 0) {
             // 음수 방지용 경고(레이스/보정 확인용)
             log.warn("[Metrics] uncommitted < 0 (보정 필요)");
@@ -109,6 +156,7 @@ public class BaseMetricsService {
 
         dto.setDuplicateCount(duplicateCount.get());
         dto.setOrderViolationCount(orderViolationCount.get());
+        dto.setExpiredCount(expiredCount.get());
         dto.setUncommittedCount(uncommittedCount.get());
         return dto;
     }
@@ -180,6 +228,7 @@ public class BaseMetricsService {
 
         duplicateCount.set(0);
         orderViolationCount.set(0);
+        expiredCount.set(0);
         uncommittedCount.set(0);
 
         synchronized (winLock) {
@@ -0,0 +1,87 @@
+package com.realtimefinmq.metrics;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * MyMQ 브로커 내부 지표 DTO
+ * - 처리량/지연(MetricsDto)과 별개로 브로커 엔진 상태를 보여줌
+ */
+@Data
+public class BrokerMetricsDto {
+    // 복구 (WAL)
+    private long recoveryDurationMs;      // 마지막 시작 시 복구 소요 시간
+    private long recoveredRecords;        // 복구로 큐에 되살린 메시지 수
+    private int recoveredSegments;        // 복구 때 스캔한 세그먼트 수
+    private int recoveryCorruptSegments;  // 중간 손상이 발견된 세그먼트 수
+    private long recoveryOverflow;        // 큐 용량을 넘어 overflow에 보관한 복구 메시지 수 (버리지 않음)
+
+    // lease (ack/nack/재전달)
+    private long inflight;                // 현재 ack 대기 중인 메시지 수
+    private long nacks;                   // nack 누적
+    private long leasesExpired;           // visibility timeout 만료 누적
+    private long redelivered;             // 재전달 누적 (nack + 만료)
+
+    // DLQ
+    private long dlqSize;                 // 현재 DLQ 항목 수 (전체 토픽)
+    private long deadLettered;            // DLQ 이동 누적
+    private long dlqRejected;             // DLQ가 가득 차서 못 넣은 누적
+    private long redriven;                // DLQ → 메인 큐 재투입 누적
+
+    // spill (메모리 큐 넘침분)
+    private long spillRecords;            // spill 파일에 남은 메시지 수
+    private long spillBytes;              // spill 파일에 남은 바이트
+
+    // backpressure (큐 가득 참)
+    private long backpressureBlocked;         // 대기(BLOCK)/직접 소비(CALLER_RUNS)한 enqueue 수
+    private long backpressureBlockedMs;       // 그 누적 시간
+    private long backpressureRejected;        // 정책 적용 후에도 자리를 못 얻은 수 (→ DLQ)
+    private long backpressureDroppedOldest;   // DROP_OLDEST로 밀려난 메시지 수
+    private long backpressureCallerRuns;      // CALLER_RUNS로 프로듀서가 직접 처리한 메시지 수
+
+    // 우선순위 레인
+    private List<LaneMetricsDto> lanes;   // 레인별 적재 수 / 꺼낸 누적 / 대기 시간
+
+    // 지연 메시지 (타이머 휠)
+    private long delayScheduled;          // 지연 보류 누적
+    private long delayReleased;           // 시각이 되어 큐로 내보낸 누적
+    private long delayPending;            // 현재 보류 중
+
+    // 디스크 / 보존 정리 (WAL)
+    private long diskBytes;                // WAL 전체 사용량 (파티션 + DLQ + 지연 로그)
+    private long diskSegments;             // WAL 전체 세그먼트 수
+    private long retentionDeletedSegments; // 보존 정리로 삭제한 세그먼트 누적
+    private long retentionReclaimedBytes;  // 보존 정리로 회수한 바이트 누적
+    private long retentionLastMs;          // 마지막 보존 정리 소요 시간
+
+    // 적재 중복 판별 윈도우 (IdempotencyStore)
+    private long idempotencyEntries;        // 보관 중인 ID 수
+    private long idempotencyEvictedBuckets; // 건수 상한으로 기간 전에 버린 버킷 누적
+    private long idempotencyBytes;          // ID 테이블이 차지하는 바이트 (128비트 키 open addressing)
+    private long idempotencyFilterChecks;   // Bloom 사전 필터 조회 수 (버킷 단위)
+    private long idempotencyFilterSkips;    // 필터가 "확실히 없음"으로 ID 테이블 조회를 건너뛴 수
+    private long idempotencyFilterFalsePositives; // 필터는 "있을 수도"였지만 ID 테이블에 없던 수
+    private double idempotencyFilterSkipRatio;    // skips / checks
+    private long idempotencyFilterBytes;    // 필터 비트 배열 바이트
+
+    // WAL 배치 압축 (디스크/페이지 캐시 ↔ CPU)
+    private long compressionRawBytes;      // 압축한 배치의 원본 바이트 누적
+    private long compressionStoredBytes;   // 압축한 배치의 기록 바이트 누적
+    private double compressionRatio;       // 원본 / 기록 (1 = 압축 없음)
+    private long compressionBatches;       // 압축 배치 수
+    private long compressionSkipped;       // 압축해도 줄지 않아 원본으로 기록한 묶음 수
+    private long compressMs;               // 압축 CPU 시간 누적 (flush 스레드)
+    private long decompressedBytes;        // 컨슈머 그룹이 풀어 읽은 바이트 누적
+    private long decompressMs;             // 압축 해제 CPU 시간 누적
+
+    // 로그 압축 (compact 토픽)
+    private long compactionRuns;           // 세그먼트를 다시 쓴 압축 횟수 (로그 단위)
+    private long compactionRemoved;        // 지운 레코드 누적 (이전 버전 + 만료 tombstone)
+    private long compactionReclaimedBytes; // 줄어든 디스크 바이트 누적
+    private long compactionLastMs;         // 마지막 압축 소요 시간 (I/O 한도 대기 포함)
+
+    // 컨슈머 그룹 (로그 fan-out)
+    private long groupConsumed;           // 전체 그룹이 처리한 메시지 누적
+    private long groupLag;                // 전체 그룹 lag 합 (로그 끝 - 커밋 오프셋)
+}
@@ -0,0 +1,15 @@
+package com.realtimefinmq.metrics;
+
+import lombok.Data;
+
+/**
+ * 우선순위 레인별 지표 DTO
+ */
+@Data
+public class LaneMetricsDto {
+    private String lane;          // 레인 이름
+    private long depth;           // 현재 적재 수 (전체 토픽/파티션 합)
+    private long dequeued;        // 꺼낸 누적
+    private double avgLatencyMs;  // 적재 → 꺼냄 평균 대기 (최근 표본)
+    private double p99LatencyMs;  // 적재 → 꺼냄 p99 대기 (최근 표본)
+}
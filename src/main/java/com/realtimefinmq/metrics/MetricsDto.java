@@ -21,6 +21,9 @@ public class MetricsDto {
     private int duplicateCount; // 중복 처리된 메시지 수
     private int orderViolationCount; // 순서 위반 발생 건수
 
+    // 만료
+    private int expiredCount; // TTL 만료로 전달하지 않은 메시지 수
+
     // 내구성
     private int uncommittedCount; // 커밋되지 않은 메시지 수
 }
@@ -1,7 +1,327 @@
 package com.realtimefinmq.metrics;
 
+import com.realtimefinmq.mq.mymq.wal.CompressionStats;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * MyMQ 지표
+ * - 공통 처리량/지연/정합성 지표(BaseMetricsService) + 브로커 엔진 지표(BrokerMetricsDto)
+ */
 @Service
 public class MyMqMetricsService extends BaseMetricsService {
+
+    // ===== 복구 (시작 시 1회 기록) =====
+    private final AtomicLong recoveryDurationMs = new AtomicLong(0);
+    private final AtomicLong recoveredRecords = new AtomicLong(0);
+    private final AtomicInteger recoveredSegments = new AtomicInteger(0);
+    private final AtomicInteger recoveryCorruptSegments = new AtomicInteger(0);
+    private final AtomicLong recoveryOverflow = new AtomicLong(0);
+
+    // ===== lease (ack/nack/재전달) =====
+    private final AtomicLong nacks = new AtomicLong(0);
+    private final AtomicLong leasesExpired = new AtomicLong(0);
+    private final AtomicLong redelivered = new AtomicLong(0);
+    private volatile LongSupplier inflight = () -> 0L;
+
+    // ===== DLQ =====
+    private final AtomicLong deadLettered = new AtomicLong(0);
+    private final AtomicLong dlqRejected = new AtomicLong(0);
+    private final AtomicLong redriven = new AtomicLong(0);
+    private volatile LongSupplier dlqSize = () -> 0L;
+
+    // ===== spill =====
+    private volatile LongSupplier spillRecords = () -> 0L;
+    private volatile LongSupplier spillBytes = () -> 0L;
+
+    // ===== backpressure (큐 가득 참) =====
+    private final AtomicLong bpBlocked = new AtomicLong(0);
+    private final AtomicLong bpBlockedNanos = new AtomicLong(0);
+    private final AtomicLong bpRejected = new AtomicLong(0);
+    private final AtomicLong bpDroppedOldest = new AtomicLong(0);
+    private final AtomicLong bpCallerRuns = new AtomicLong(0);
+
+    // ===== 우선순위 레인 =====
+    private volatile List<String> laneNames = List.of();
+    private volatile LaneStats[] laneStats = new LaneStats[0];
+    private volatile IntToLongFunction laneDepth = lane -> 0L;
+
+    // ===== 지연 메시지 =====
+    private final AtomicLong delayScheduled = new AtomicLong(0);
+    private final AtomicLong delayReleased = new AtomicLong(0);
+    private volatile LongSupplier delayPending = () -> 0L;
+
+    // ===== 디스크 / 보존 정리 =====
+    private volatile LongSupplier diskBytes = () -> 0L;
+    private volatile LongSupplier diskSegments = () -> 0L;
+    private final AtomicLong retentionDeletedSegments = new AtomicLong(0);
+    private final AtomicLong retentionReclaimedBytes = new AtomicLong(0);
+    private final AtomicLong retentionLastMs = new AtomicLong(0);
+
+    // ===== 적재 중복 판별 윈도우 =====
+    private volatile LongSupplier idempotencyEntries = () -> 0L;
+    private volatile LongSupplier idempotencyEvicted = () -> 0L;
+    private volatile LongSupplier idempotencyBytes = () -> 0L;
+    private volatile LongSupplier idempotencyFilterChecks = () -> 0L;
+    private volatile LongSupplier idempotencyFilterSkips = () -> 0L;
+    private volatile LongSupplier idempotencyFilterFalsePositives = () -> 0L;
+    private volatile LongSupplier idempotencyFilterBytes = () -> 0L;
+
+    // ===== WAL 배치 압축 =====
+    private volatile CompressionStats compression = new CompressionStats();
+
+    // ===== 로그 압축 =====
+    private final AtomicLong compactionRuns = new AtomicLong(0);
+    private final AtomicLong compactionRemoved = new AtomicLong(0);
+    private final AtomicLong compactionReclaimedBytes = new AtomicLong(0);
+    private final AtomicLong compactionLastMs = new AtomicLong(0);
+
+    // ===== 컨슈머 그룹 =====
+    private final AtomicLong groupConsumed = new AtomicLong(0);
+    private volatile LongSupplier groupLag = () -> 0L;
+
+    public void recordRecovery(long durationMs, long records, int segments, int corruptSegments, long overflow) {
+        recoveryDurationMs.set(durationMs);
+        recoveredRecords.set(records);
+        recoveredSegments.set(segments);
+        recoveryCorruptSegments.set(corruptSegments);
+        recoveryOverflow.set(overflow);
+    }
+
+    public void recordNack() {
+        nacks.incrementAndGet();
+    }
+
+    public void recordLeaseExpired(int n) {
+        leasesExpired.addAndGet(n);
+    }
+
+    public void recordRedelivered(int n) {
+        redelivered.addAndGet(n);
+    }
+
+    /** in-flight 수는 브로커가 직접 세므로 조회 함수만 등록 */
+    public void bindInflight(LongSupplier supplier) {
+        this.inflight = supplier;
+    }
+
+    public void recordDeadLetter() {
+        deadLettered.incrementAndGet();
+    }
+
+    public void recordDlqRejected() {
+        dlqRejected.incrementAndGet();
+    }
+
+    public void recordRedriven(int n) {
+        redriven.addAndGet(n);
+    }
+
+    public void bindDlqSize(LongSupplier supplier) {
+        this.dlqSize = supplier;
+    }
+
+    public void bindSpill(LongSupplier records, LongSupplier bytes) {
+        this.spillRecords = records;
+        this.spillBytes = bytes;
+    }
+
+    /** 큐가 가득 차서 프로듀서가 기다린(BLOCK) 또는 직접 소비한(CALLER_RUNS) 시간 */
+    public void recordBackpressureBlocked(long nanos) {
+        bpBlocked.incrementAndGet();
+        bpBlockedNanos.addAndGet(nanos);
+    }
+
+    /** 정책을 적용해도 자리를 못 얻어 거부된 건수 */
+    public void recordBackpressureRejected() {
+        bpRejected.incrementAndGet();
+    }
+
+    public void recordBackpressureDroppedOldest() {
+        bpDroppedOldest.incrementAndGet();
+    }
+
+    public void recordBackpressureCallerRuns(int processed) {
+        bpCallerRuns.addAndGet(processed);
+    }
+
+    /** 레인 목록과 레인별 적재 수 조회 함수 등록 (브로커 시작 시) */
+    public void bindLanes(List<String> names, IntToLongFunction depth) {
+        LaneStats[] stats = new LaneStats[names.size()];
+        for (int i = 0; i < stats.length; i++) stats[i] = new LaneStats();
+        this.laneStats = stats;
+        this.laneNames = List.copyOf(names);
+        this.laneDepth = depth;
+    }
+
+    /** 레인에서 꺼낸 메시지 1건의 대기 시간 (적재 → 꺼냄) */
+    public void recordLaneLatency(int lane, long latencyMs) {
+        LaneStats[] stats = laneStats;
+        if (lane < 0 || lane >= stats.length) return;
+        stats[lane].record(latencyMs);
+    }
+
+    public void recordDelayScheduled() {
+        delayScheduled.incrementAndGet();
+    }
+
+    public void recordDelayReleased(int n) {
+        delayReleased.addAndGet(n);
+    }
+
+    public void bindDelayPending(LongSupplier supplier) {
+        this.delayPending = supplier;
+    }
+
+    /** WAL 디스크 사용량 조회 함수 등록 (바이트, 세그먼트 수) */
+    public void bindDisk(LongSupplier bytes, LongSupplier segments) {
+        this.diskBytes = bytes;
+        this.diskSegments = segments;
+    }
+
+    /** 멱등 윈도우 조회 함수 등록 (보관 ID 수, 건수 상한으로 조기 폐기한 버킷 수, ID 테이블 바이트) */
+    public void bindIdempotency(LongSupplier entries, LongSupplier evictedBuckets, LongSupplier bytes) {
+        this.idempotencyEntries = entries;
+        this.idempotencyEvicted = evictedBuckets;
+        this.idempotencyBytes = bytes;
+    }
+
+    /** 멱등 윈도우 Bloom 사전 필터 지표 등록 (조회 수, 건너뛴 수, 오탐 수, 필터 바이트) */
+    public void bindIdempotencyFilter(LongSupplier checks, LongSupplier skips, LongSupplier falsePositives, LongSupplier bytes) {
+        this.idempotencyFilterChecks = checks;
+        this.idempotencyFilterSkips = skips;
+        this.idempotencyFilterFalsePositives = falsePositives;
+        this.idempotencyFilterBytes = bytes;
+    }
+
+    /** WAL 배치 압축 지표 등록 (압축률 / 압축·해제 CPU 시간) */
+    public void bindCompression(CompressionStats stats) {
+        this.compression = stats;
+    }
+
+    /** 보존 정리 1회 (전체 로그) */
+    public void recordRetention(int deletedSegments, long reclaimedBytes, long durationMs) {
+        retentionDeletedSegments.addAndGet(deletedSegments);
+        retentionReclaimedBytes.addAndGet(reclaimedBytes);
+        retentionLastMs.set(durationMs);
+    }
+
+    /** 로그 1개를 압축해 실제로 세그먼트를 다시 쓴 경우 */
+    public void recordCompaction(long recordsRemoved, long reclaimedBytes, long durationMs) {
+        compactionRuns.incrementAndGet();
+        compactionRemoved.addAndGet(recordsRemoved);
+        compactionReclaimedBytes.addAndGet(reclaimedBytes);
+        compactionLastMs.set(durationMs);
+    }
+
+    /** 컨슈머 그룹이 로그에서 읽어 처리한 건수 (메인 큐 처리량과 별도로 집계) */
+    public void recordGroupConsumed(int n) {
+        groupConsumed.addAndGet(n);
+    }
+
+    public void bindGroupLag(LongSupplier supplier) {
+        this.groupLag = supplier;
+    }
+
+    public BrokerMetricsDto getBrokerMetrics() {
+        BrokerMetricsDto dto = new BrokerMetricsDto();
+        dto.setRecoveryDurationMs(recoveryDurationMs.get());
+        dto.setRecoveredRecords(recoveredRecords.get());
+        dto.setRecoveredSegments(recoveredSegments.get());
+        dto.setRecoveryCorruptSegments(recoveryCorruptSegments.get());
+        dto.setRecoveryOverflow(recoveryOverflow.get());
+        dto.setInflight(inflight.getAsLong());
+        dto.setNacks(nacks.get());
+        dto.setLeasesExpired(leasesExpired.get());
+        dto.setRedelivered(redelivered.get());
+        dto.setDlqSize(dlqSize.getAsLong());
+        dto.setDeadLettered(deadLettered.get());
+        dto.setDlqRejected(dlqRejected.get());
+        dto.setRedriven(redriven.get());
+        dto.setSpillRecords(spillRecords.getAsLong());
+        dto.setSpillBytes(spillBytes.getAsLong());
+        dto.setBackpressureBlocked(bpBlocked.get());
+        dto.setBackpressureBlockedMs(bpBlockedNanos.get() / 1_000_000);
+        dto.setBackpressureRejected(bpRejected.get());
+        dto.setBackpressureDroppedOldest(bpDroppedOldest.get());
+        dto.setBackpressureCallerRuns(bpCallerRuns.get());
+        List<LaneMetricsDto> lanes = new ArrayList<>(laneNames.size());
+        LaneStats[] stats = laneStats;
+        for (int i = 0; i < stats.length; i++) {
+            LaneMetricsDto l = stats[i].snapshot();
+            l.setLane(laneNames.get(i));
+            l.setDepth(laneDepth.applyAsLong(i));
+            lanes.add(l);
+        }
+        dto.setLanes(lanes);
+        dto.setDelayScheduled(delayScheduled.get());
+        dto.setDelayReleased(delayReleased.get());
+        dto.setDelayPending(delayPending.getAsLong());
+        dto.setDiskBytes(diskBytes.getAsLong());
+        dto.setDiskSegments(diskSegments.getAsLong());
+        dto.setRetentionDeletedSegments(retentionDeletedSegments.get());
+        dto.setRetentionReclaimedBytes(retentionReclaimedBytes.get());
+        dto.setRetentionLastMs(retentionLastMs.get());
+        dto.setIdempotencyEntries(idempotencyEntries.getAsLong());
+        dto.setIdempotencyEvictedBuckets(idempotencyEvicted.getAsLong());
+        dto.setIdempotencyBytes(idempotencyBytes.getAsLong());
+        long filterChecks = idempotencyFilterChecks.getAsLong();
+        long filterSkips = idempotencyFilterSkips.getAsLong();
+        dto.setIdempotencyFilterChecks(filterChecks);
+        dto.setIdempotencyFilterSkips(filterSkips);
+        dto.setIdempotencyFilterFalsePositives(idempotencyFilterFalsePositives.getAsLong());
+        dto.setIdempotencyFilterSkipRatio(filterChecks > 0 ? (double) filterSkips / filterChecks : 0.0);
+        dto.setIdempotencyFilterBytes(idempotencyFilterBytes.getAsLong());
+        CompressionStats cs = compression;
+        dto.setCompressionRawBytes(cs.rawBytes());
+        dto.setCompressionStoredBytes(cs.storedBytes());
+        dto.setCompressionRatio(cs.ratio());
+        dto.setCompressionBatches(cs.batches());
+        dto.setCompressionSkipped(cs.skipped());
+        dto.setCompressMs(cs.compressMs());
+        dto.setDecompressedBytes(cs.inflatedBytes());
+        dto.setDecompressMs(cs.decompressMs());
+        dto.setCompactionRuns(compactionRuns.get());
+        dto.setCompactionRemoved(compactionRemoved.get());
+        dto.setCompactionReclaimedBytes(compactionReclaimedBytes.get());
+        dto.setCompactionLastMs(compactionLastMs.get());
+        dto.setGroupConsumed(groupConsumed.get());
+        dto.setGroupLag(groupLag.getAsLong());
+        return dto;
+    }
+
+    /** 레인 1개의 누적 건수 + 최근 대기 시간 표본 (링 버퍼, 표본 덮어쓰기 경합은 허용) */
+    private static final class LaneStats {
+        private static final int SAMPLES = 4096;
+        private final AtomicLong dequeued = new AtomicLong(0);
+        private final AtomicInteger idx = new AtomicInteger(0);
+        private final long[] samples = new long[SAMPLES];
+
+        void record(long latencyMs) {
+            dequeued.incrementAndGet();
+            samples[(idx.getAndIncrement() & Integer.MAX_VALUE) % SAMPLES] = latencyMs;
+        }
+
+        LaneMetricsDto snapshot() {
+            LaneMetricsDto dto = new LaneMetricsDto();
+            long count = dequeued.get();
+            dto.setDequeued(count);
+            int n = (int) Math.min(count, SAMPLES);
+            if (n == 0) return dto;
+            long[] copy = Arrays.copyOf(samples, n);
+            Arrays.sort(copy);
+            long sum = 0;
+            for (long v : copy) sum += v;
+            dto.setAvgLatencyMs(sum / (double) n);
+            dto.setP99LatencyMs(copy[(int) Math.max(0, Math.floor(n * 0.99) - 1)]);
+            return dto;
+        }
+    }
 }
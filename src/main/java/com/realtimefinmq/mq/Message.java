@@ -1,7 +1,7 @@
 package com.realtimefinmq.mq;
 
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -11,11 +11,32 @@ import lombok.NoArgsConstructor;
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Message {
     private String id;       // 메시지 고유 ID
     private String payload;  // 실제 데이터
     private long timestamp;  // 생성 시각
     private String key;      // 파티션 키
     private Long sequence;   // 시퀀스
-}
\ No newline at end of file
+    private long deliverAt;  // 전달 예정 시각 (epoch millis, 0이면 즉시) → 브로커가 그때까지 보류
+    private long expiresAt;  // 만료 시각 (epoch millis, 0이면 만료 없음) → 지나면 컨슈머에게 전달하지 않음
+    private Integer priority; // 우선순위 레인 번호 (0이 가장 높음, null이면 토픽 기본 레인)
+
+    @JsonIgnore
+    private long offset = -1; // MyMQ 파티션 로그 오프셋 (브로커가 WAL 적재 시 부여, 없으면 -1)
+
+    @JsonIgnore
+    private int deliveryCount; // MyMQ 전달 횟수 (lease 발급마다 +1, 2 이상이면 재전달)
+
+    /** 만료 시각이 지났는지 (TTL) */
+    public boolean isExpired(long nowMs) {
+        return expiresAt > 0 && nowMs >= expiresAt;
+    }
+
+    public Message(String id, String payload, long timestamp, String key, Long sequence) {
+        this.id = id;
+        this.payload = payload;
+        this.timestamp = timestamp;
+        this.key = key;
+        this.sequence = sequence;
+    }
+}
@@ -0,0 +1,17 @@
+package com.realtimefinmq.mq.mymq;
+
+/**
+ * BackpressurePolicy
+ * - 파티션 큐가 가득 찼을 때 enqueue가 취할 동작 (custom-mq.backpressure.policy)
+ * - 어느 정책이든 끝내 자리를 못 얻으면 DLQ(QUEUE_FULL)로 이동
+ *
+ * 종류:
+ * - REJECT      : 즉시 실패 (지연 최저, 버스트 시 유실/DLQ 최다)
+ * - BLOCK       : 빈 자리가 생길 때까지 최대 block-timeout-ms 대기 (프로듀서 지연 ↑, 흡수율 ↑)
+ * - DROP_OLDEST : 가장 오래된 메시지를 DLQ(DROPPED_OLDEST)로 빼고 새 메시지 적재 (최신 데이터 우선, 컨슈머가 그 파티션을 처리 중이면 REJECT와 같음)
+ * - CALLER_RUNS : 프로듀서 스레드가 그 파티션의 컨슈머 배치 1회를 직접 처리한 뒤 재시도
+ *                 (소비 속도만큼 프로듀서가 자연스럽게 느려짐)
+ */
+public enum BackpressurePolicy {
+    REJECT, BLOCK, DROP_OLDEST, CALLER_RUNS
+}
@@ -1,56 +1,513 @@
 package com.realtimefinmq.mq.mymq;
 
+import com.realtimefinmq.config.MyMqConfig;
 import com.realtimefinmq.metrics.MyMqMetricsService;
 import com.realtimefinmq.mq.Message;
-import lombok.RequiredArgsConstructor;
+import com.realtimefinmq.mq.mymq.wal.IoThrottler;
+import com.realtimefinmq.mq.mymq.wal.LogCompactor;
+import com.realtimefinmq.mq.mymq.wal.LogExport;
+import com.realtimefinmq.mq.mymq.wal.RetentionCleaner;
+import com.realtimefinmq.mq.mymq.wal.SegmentedLog;
+import com.realtimefinmq.mq.mymq.wal.WalRecovery;
+import com.realtimefinmq.mq.mymq.wal.WriteAheadLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
 /**
  * Broker (MyMQ의 핵심 엔진)
- * - Producer가 보낸 메시지를 큐(InMemoryQueue)에 적재
- * - WAL(Write-Ahead Log)에 기록하여 장애 복구 가능
+ * - 토픽 레지스트리: 이름 있는 토픽(Topic)마다 파티션 큐 / 용량 / 보존 설정이 독립적
+ *   → custom-mq.topics에 정의, 상위 설정을 쓰는 default 토픽은 항상 존재
+ *   → 시작 시 만든 불변 맵이라 publish/poll 경로의 토픽 조회에 락 없음
+ * - Producer가 보낸 메시지를 토픽의 파티션 큐(InMemoryQueue)에 적재
+ * - Message.key 해시로 파티션을 골라 파티션별 큐에 적재 (같은 key → 같은 파티션 → 순서 보장)
+ * - 파티션 큐는 우선순위 레인(Message.priority)으로 나뉘고 weighted-fair / strict 정책으로 꺼냄
+ * - WAL(Write-Ahead Log)에 기록하여 장애 복구 가능 (custom-mq.wal.enabled, 파티션별 세그먼트 로그)
+ *   → 시작 시 커밋 오프셋 이후 레코드를 큐/멱등 저장소로 복구
  * - 멱등성(Idempotency) 체크: 중복 메시지 차단
- * - 큐가 가득 차면 DLQ(Dead Letter Queue)로 메시지 이동
- * - Consumer는 Broker에서 메시지를 꺼내 소비
+ * - deliverAt이 미래인 메시지는 토픽의 타이머 휠에 보류했다가 시각이 되면 큐에 적재 (지연/예약 전달)
+ * - TTL(expiresAt)이 지난 메시지는 poll 시 건너뛰고, 낮은 우선순위 sweeper가 밀린 큐 앞쪽에서 회수
+ * - 큐가 가득 차면 backpressure 정책(reject/block/drop-oldest/caller-runs) 적용
+ * - 큐가 가득 차거나 최대 전달 횟수를 넘긴 메시지는 토픽 DLQ(Dead Letter Queue)로 이동
+ *   → 관리 API로 조회, 초당 rate 한도 안에서 메인 큐로 재투입(redrive)
+ * - Consumer는 토픽의 파티션 단위로 메시지를 꺼내 소비
+ *   → 꺼낸 메시지는 lease(visibility timeout)로 추적, ack로 완료 / nack·만료 시 재전달 (at-least-once)
+ * - 컨슈머 그룹은 메인 큐 대신 파티션 WAL을 그룹별 오프셋으로 읽음 (fan-out, 메시지 복사 없음)
+ * - compact 토픽은 낮은 우선순위 압축 스레드가 I/O 한도 안에서 닫힌 세그먼트를 key별 최신 메시지만 남기고 다시 씀
+ * - 같은 스레드가 보존 정책(나이/크기/소비 완료)에 따라 오래된 세그먼트를 통째로 삭제 (적재 경로와 락 공유 없음)
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class Broker {
-    private final InMemoryQueue queue;    // 메인 메시지 큐
-    private final IdempotencyStore idem;  // 멱등 저장소 (중복 방지)
+    public static final String DEFAULT_TOPIC = "default";
+
+    private final Map<String, Topic> topics;  // 토픽 레지스트리 (불변)
+    private final IdempotencyStore idem;      // 멱등 저장소 (중복 방지)
     private final MyMqMetricsService metrics; // 지표 집계
+    private final boolean walEnabled;
+    private final int recoveryThreads;
+    private final long leaseTickMs;
+    private final MyMqConfig.Dlq dlqCfg;
+    private final long delayTickMs;
+    private final MyMqConfig.Ttl ttlCfg;
+    private final List<String> lanes;
+    private final MyMqConfig.Compaction compactionCfg;
+    private final MyMqConfig.Retention retentionCfg;
+    private final WriteAheadLog wal;
+    private ScheduledExecutorService scheduler; // lease 만료 처리(타이머 휠 진행) + DLQ 재투입 + 지연 메시지 내보내기
+    private ScheduledExecutorService sweeper;   // TTL 만료 회수 (낮은 우선순위 스레드)
+    private ScheduledExecutorService cleaner;   // 로그 압축 + 보존 정리 (낮은 우선순위 스레드, WAL 활성화 시)
+    private LogCompactor compactor;             // compact 토픽이 있을 때만
+    private final RetentionCleaner retention = new RetentionCleaner();
 
-    public boolean enqueue(Message msg) {
-        try {
-            // 멱등성: 이미 본 ID면 거부
-            if (idem.alreadyProcessed(msg.getId())) {
-                log.warn("[Broker] 중복 메시지 감지 | id={}", msg.getId());
-                metrics.recordDuplicate();
-                return false;
+    public Broker(IdempotencyStore idem, MyMqMetricsService metrics, MyMqConfig cfg, WriteAheadLog wal) {
+        this.idem = idem;
+        this.metrics = metrics;
+        this.walEnabled = wal.isEnabled();
+        this.recoveryThreads = (cfg.getWal().getRecoveryThreads() > 0)
+                ? cfg.getWal().getRecoveryThreads()
+                : Runtime.getRuntime().availableProcessors();
+        this.leaseTickMs = Math.max(1, cfg.getLeaseTickMs());
+        this.dlqCfg = cfg.getDlq();
+        this.delayTickMs = Math.max(1, cfg.getDelay().getTickMs());
+        this.ttlCfg = cfg.getTtl();
+        this.lanes = List.copyOf(cfg.getPriority().getLanes());
+        this.compactionCfg = cfg.getCompaction();
+        this.retentionCfg = cfg.getRetention();
+        this.wal = wal;
+
+        Map<String, Topic> registry = new LinkedHashMap<>();
+        registry.put(DEFAULT_TOPIC, newTopic(DEFAULT_TOPIC, new MyMqConfig.TopicProps(), cfg, wal));
+        cfg.getTopics().forEach((name, props) -> registry.put(name, newTopic(name, props, cfg, wal)));
+        this.topics = Collections.unmodifiableMap(registry); // 생성 후 변경 없음 → 조회는 락 없는 HashMap 읽기
+
+        log.info("[Broker] 초기화 | topics={} engine={} wal={} visibilityTimeoutMs={} backpressure={} lanes={} lanePolicy={}",
+                registry.keySet(), cfg.getEngine(), wal.isEnabled(), cfg.getVisibilityTimeoutMs(),
+                cfg.getBackpressure().getPolicy(), cfg.getPriority().getLanes(), cfg.getPriority().getPolicy());
+    }
+
+    /** 토픽 설정 = custom-mq.topics.{이름} 값, 비어 있으면(0) 상위 설정 */
+    private Topic newTopic(String name, MyMqConfig.TopicProps props, MyMqConfig cfg, WriteAheadLog wal) {
+        if (name.isBlank() || name.contains("/") || name.endsWith("-dlq") || name.endsWith("-delay")) {
+            throw new IllegalArgumentException("invalid topic name: " + name);
+        }
+        Topic.Settings s = new Topic.Settings(
+                Math.max(1, props.getPartitions() > 0 ? props.getPartitions() : cfg.getPartitions()),
+                props.getQueueSize() > 0 ? props.getQueueSize() : cfg.getQueueSize(),
+                props.getRetentionMs(),
+                props.getRetentionBytes(),
+                props.getTtlMs() > 0 ? props.getTtlMs() : Math.max(0, cfg.getTtl().getDefaultMs()),
+                laneIndex(cfg, props.getPriorityLane() != null ? props.getPriorityLane() : cfg.getPriority().getDefaultLane()),
+                props.isCompact(),
+                props.isRetentionConsumed());
+        if (s.compact() && !wal.isEnabled()) {
+            log.warn("[Broker] WAL 비활성화 → 로그 압축 미실행 | topic={}", name);
+        }
+        log.info("[Broker] 토픽 등록 | topic={} partitions={} queueSize={} retentionMs={} retentionBytes={} retentionConsumed={} ttlMs={} lane={} compact={}",
+                name, s.partitions(), s.queueSize(), s.retentionMs(), s.retentionBytes(), s.retentionConsumed(),
+                s.ttlMs(), s.priorityLane(), s.compact());
+        return new Topic(name, s, cfg, idem, metrics, wal);
+    }
+
+    /** 레인 이름 → 번호 (custom-mq.priority.lanes 순서, 레인이 1개면 항상 0) */
+    private static int laneIndex(MyMqConfig cfg, String lane) {
+        List<String> lanes = cfg.getPriority().getLanes();
+        if (lanes.size() <= 1) return 0;
+        int i = lanes.indexOf(lane);
+        if (i < 0) throw new IllegalArgumentException("unknown priority lane: " + lane + " (lanes=" + lanes + ")");
+        return i;
+    }
+
+    @PostConstruct
+    void start() {
+        recover();
+        for (Topic t : topics.values()) {
+            t.deadLetterQueue().recover();
+            int pending = t.recoverDelayed();
+            for (int i = 0; i < pending; i++) metrics.incUncommitted(); // 보류 중인 메시지도 미커밋
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mymq-broker-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::expireLeases, leaseTickMs, leaseTickMs, TimeUnit.MILLISECONDS);
+        long redriveTickMs = Math.max(1, dlqCfg.getRedriveTickMs());
+        scheduler.scheduleWithFixedDelay(this::redriveDeadLetters, redriveTickMs, redriveTickMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::releaseDelayed, delayTickMs, delayTickMs, TimeUnit.MILLISECONDS);
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mymq-ttl-sweeper");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        long sweepMs = Math.max(1, ttlCfg.getSweepIntervalMs());
+        sweeper.scheduleWithFixedDelay(this::sweepExpired, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+
+        if (walEnabled) {
+            cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "mymq-log-cleaner");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+            long retentionMs = Math.max(1, retentionCfg.getCheckIntervalMs());
+            cleaner.scheduleWithFixedDelay(this::enforceRetention, retentionMs, retentionMs, TimeUnit.MILLISECONDS);
+            if (topics.values().stream().anyMatch(t -> t.settings().compact())) {
+                compactor = new LogCompactor(new IoThrottler(compactionCfg.getIoBytesPerSec()),
+                        compactionCfg.getTombstoneRetentionMs());
+                long compactMs = Math.max(1, compactionCfg.getIntervalMs());
+                cleaner.scheduleWithFixedDelay(this::compactLogs, compactMs, compactMs, TimeUnit.MILLISECONDS);
             }
+            metrics.bindDisk(wal::diskBytes, wal::segmentCount);
+            metrics.bindCompression(wal.compressionStats());
+        }
+        metrics.bindInflight(() -> sum(Topic::inflightCount));
+        metrics.bindDlqSize(() -> sum(t -> t.deadLetterQueue().size()));
+        metrics.bindSpill(() -> sum(Topic::spillRecords), () -> sum(Topic::spillBytes));
+        metrics.bindLanes(lanes, lane -> sum(t -> t.laneSize(lane)));
+        metrics.bindDelayPending(() -> sum(Topic::delayedCount));
+        metrics.bindIdempotency(idem::size, idem::evictedBuckets, idem::memoryBytes);
+        metrics.bindIdempotencyFilter(idem::filterChecks, idem::filterSkips, idem::filterFalsePositives, idem::filterBytes);
+        metrics.bindGroupLag(() -> sum(t -> t.groups().stream().mapToLong(ConsumerGroup::lag).sum()));
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) scheduler.shutdownNow();
+        if (sweeper != null) sweeper.shutdownNow();
+        if (cleaner != null) cleaner.shutdownNow();
+        for (Topic t : topics.values()) t.close();
+    }
 
-            // 큐 적재 시도
-            boolean ok = queue.offer(msg);
-            if (!ok) {
-                log.error("[Broker] 큐 꽉참 → DLQ 이동 | id={}", msg.getId());
-                return false;
+    /**
+     * 시작 시 WAL 복구
+     * - 모든 토픽·파티션의 커밋 오프셋 이후 레코드를 한 번에 병렬 스캔해 큐에 다시 적재하고 멱등 저장소에 ID 재등록
+     * - 컨슈머 워커 시작(MyMqConsumerService @PostConstruct) 전에 끝남 (Broker에 의존하므로)
+     */
+    private void recover() {
+        if (!walEnabled) return;
+
+        List<SegmentedLog> logs = new ArrayList<>();
+        List<Topic> owners = new ArrayList<>();
+        List<Integer> parts = new ArrayList<>();
+        for (Topic t : topics.values()) {
+            for (int p = 0; p < t.partitionCount(); p++) {
+                logs.add(t.log(p));
+                owners.add(t);
+                parts.add(p);
             }
+        }
+
+        long[] from = new long[logs.size()];
+        for (int i = 0; i < from.length; i++) from[i] = owners.get(i).recoveryStart(parts.get(i));
+
+        LongAdder overflow = new LongAdder(); // 파티션별 스캔 스레드가 동시에 셈
+        WalRecovery.Result r = WalRecovery.recover(logs, from, recoveryThreads, (i, rec) -> {
+            Message msg = rec.message();
+            idem.remember(msg.getId());
+            if (!owners.get(i).restore(parts.get(i), msg)) overflow.increment();
+            metrics.incUncommitted(); // 되살린 메시지도 컨슈머가 처리할 때까지 미커밋
+        });
+        if (overflow.sum() > 0) {
+            log.warn("[Broker] 복구 중 큐 용량 초과 → 넘친 메시지는 소비되는 대로 적재, 그동안 새 적재는 backpressure | overflow={} (custom-mq.queue-size 확인)",
+                    overflow.sum());
+        }
+        metrics.recordRecovery(r.durationMs(), r.records(), r.segments(), r.corruptSegments(), overflow.sum());
+        log.info("[Broker] WAL 복구 완료 | records={} segments={} corrupt={} took={}ms",
+                r.records(), r.segments(), r.corruptSegments(), r.durationMs());
+    }
+
+    // ========================= 토픽 레지스트리 =========================
+
+    /**
+     * 토픽 조회 (락 없음)
+     *
+     * @return 없는 토픽이면 null
+     */
+    public Topic topic(String name) {
+        return topics.get(name);
+    }
 
-            return true;
+    /** 등록된 전체 토픽 */
+    public Collection<Topic> topics() {
+        return topics.values();
+    }
+
+    // ========================= 적재 =========================
+
+    /** default 토픽으로 적재 */
+    public EnqueueResult enqueue(Message msg) {
+        return enqueue(DEFAULT_TOPIC, msg);
+    }
+
+    /**
+     * 토픽으로 적재
+     *
+     * @return ENQUEUED(메인 큐 / 지연 보류) / DEAD_LETTERED(큐 꽉참 → DLQ 보관, 받아들인 것) / DUPLICATE / REJECTED
+     */
+    public EnqueueResult enqueue(String topicName, Message msg) {
+        Topic topic = topics.get(topicName);
+        if (topic == null) {
+            log.warn("[Broker] 없는 토픽 | topic={} id={}", topicName, msg.getId());
+            metrics.recordFailure();
+            return EnqueueResult.REJECTED;
+        }
+        // 멱등성: 이미 본 ID면 거부 (처음 본 ID는 예약만 → 적재 결과에 따라 확정/해제)
+        if (!idem.reserve(msg.getId())) {
+            log.warn("[Broker] 중복 메시지 감지 | topic={} id={}", topicName, msg.getId());
+            metrics.recordDuplicate();
+            return EnqueueResult.DUPLICATE;
+        }
+        EnqueueResult result = EnqueueResult.REJECTED;
+        try {
+            // 파티션 큐 적재 (가득 차면 backpressure 정책 → 그래도 안 되면 DLQ)
+            result = topic.enqueue(msg);
+            return result;
 
         } catch (Exception e) {
-            log.error("[Broker] enqueue 실패 | id={} | 이유={}", msg.getId(), e.getMessage(), e);
+            log.error("[Broker] enqueue 실패 | topic={} id={} | 이유={}", topicName, msg.getId(), e.getMessage(), e);
             metrics.recordFailure();
-            return false;
+            return EnqueueResult.REJECTED;
+        } finally {
+            // DLQ에 보관된 메시지도 받아들인 것 → ID 유지 (재전송은 중복)
+            // 거부된 메시지의 ID는 잊음 → 프로듀서 재시도가 중복으로 막히지 않도록 (persistent 모드 포함)
+            if (result.accepted()) idem.confirm(msg.getId());
+            else idem.release(msg.getId());
+        }
+    }
+
+    /**
+     * 우선순위 레인 이름 → Message.priority 값
+     *
+     * @return 없는 레인이면 -1
+     */
+    public int priorityLane(String name) {
+        return lanes.indexOf(name);
+    }
+
+    /** CALLER_RUNS 정책에서 쓸 파티션 소비 함수 등록 (컨슈머 시작 시) */
+    public void registerDrainer(PartitionDrainer drainer) {
+        for (Topic t : topics.values()) t.setDrainer(drainer);
+    }
+
+    // ========================= 컨슈머 그룹 =========================
+
+    /**
+     * 토픽의 컨슈머 그룹 (없으면 생성, 커밋 오프셋부터 읽음)
+     *
+     * @throws IllegalArgumentException 없는 토픽 / 잘못된 그룹 이름
+     * @throws IllegalStateException    WAL 비활성화
+     */
+    public ConsumerGroup consumerGroup(String topicName, String groupName) {
+        Topic t = topics.get(topicName);
+        if (t == null) throw new IllegalArgumentException("unknown topic: " + topicName);
+        return t.group(groupName);
+    }
+
+    /**
+     * 이미 있는 컨슈머 그룹만 조회 (관리 API용, 생성하지 않음)
+     *
+     * @return 없는 토픽 / 없는 그룹이면 null
+     */
+    public ConsumerGroup findConsumerGroup(String topicName, String groupName) {
+        Topic t = topics.get(topicName);
+        return (t == null) ? null : t.findGroup(groupName);
+    }
+
+    // ========================= DLQ =========================
+
+    /**
+     * 토픽 DLQ 조회
+     *
+     * @return 없는 토픽이면 null
+     */
+    public DeadLetterQueue deadLetterQueue(String topicName) {
+        Topic t = topics.get(topicName);
+        return (t == null) ? null : t.deadLetterQueue();
+    }
+
+    // ========================= 로그 내보내기 =========================
+
+    /**
+     * 파티션 로그 구간 [fromOffset, toOffset)의 원본 바이트 범위 (디코딩 없음, 전송은 LogExport.transferTo)
+     */
+    public LogExport exportLog(String topicName, int partition, long fromOffset, long toOffset) throws IOException {
+        SegmentedLog segLog = exportTopic(topicName, partition).log(partition);
+        if (segLog == null) throw new IllegalStateException("WAL disabled (custom-mq.wal.enabled=false)");
+        return segLog.export(fromOffset, toOffset);
+    }
+
+    /**
+     * 백업 / 새 노드 시딩용 파일 내보내기: {wal.dir}/exports/{로그 이름}/{첫 오프셋 20자리}.log
+     * - 파일 → 파일 transferTo (커널 안에서 복사), 다 쓰고 fsync한 뒤 원자적 rename
+     * - 결과 파일은 세그먼트 포맷 그대로 → 새 노드의 같은 로그 디렉터리에 복사하면 세그먼트로 열림
+     *
+     * @return 내보낸 파일 (빈 범위면 null)
+     * @throws IllegalArgumentException 없는 토픽 / 범위 밖 파티션
+     */
+    public Path exportLogToFile(String topicName, int partition, LogExport export) throws IOException {
+        Topic t = exportTopic(topicName, partition);
+        if (export.bytes() == 0) return null;
+        Path dir = wal.baseDir().resolve("exports").resolve(t.logName(partition));
+        Files.createDirectories(dir);
+        Path file = dir.resolve(String.format("%020d.log", export.firstOffset()));
+        Path part = dir.resolve(file.getFileName() + ".part");
+        long start = System.currentTimeMillis();
+        try (FileChannel out = FileChannel.open(part, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            export.transferTo(out);
+            out.force(true);
+        }
+        Files.move(part, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        log.info("[Broker] 로그 내보내기 | topic={} partition={} file={} bytes={} offsets=[{}, {}) took={}ms",
+                topicName, partition, file, export.bytes(), export.firstOffset(), export.nextOffset(),
+                System.currentTimeMillis() - start);
+        return file;
+    }
+
+    /** 내보내기 대상 토픽 (없는 토픽 / 범위 밖 파티션이면 IllegalArgumentException) */
+    private Topic exportTopic(String topicName, int partition) {
+        Topic t = topics.get(topicName);
+        if (t == null) throw new IllegalArgumentException("unknown topic: " + topicName);
+        if (partition < 0 || partition >= t.partitionCount()) {
+            throw new IllegalArgumentException("partition out of range: " + partition);
+        }
+        return t;
+    }
+
+    // ========================= 주기 작업 =========================
+
+    private void expireLeases() {
+        long now = System.currentTimeMillis();
+        for (Topic t : topics.values()) t.expireLeases(now);
+    }
+
+    private void releaseDelayed() {
+        long now = System.currentTimeMillis();
+        for (Topic t : topics.values()) t.releaseDelayed(now);
+    }
+
+    /** 파티션 큐 앞쪽의 만료 메시지 회수 (컨슈머가 처리 중인 파티션은 건너뜀) */
+    private void sweepExpired() {
+        long now = System.currentTimeMillis();
+        int batch = Math.max(1, ttlCfg.getSweepBatch());
+        List<Message> scratch = new ArrayList<>();
+        for (Topic t : topics.values()) {
+            for (int p = 0; p < t.partitionCount(); p++) {
+                try {
+                    int n = t.sweepExpired(p, now, batch, scratch);
+                    if (n > 0) log.info("[Broker] TTL 만료 회수 | topic={} partition={} count={}", t.name(), p, n);
+                } catch (Exception e) {
+                    log.error("[Broker] TTL 회수 실패 | topic={} partition={} | 이유={}", t.name(), p, e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /** compact 토픽의 파티션 로그 압축 (I/O 한도는 압축 스레드 전체에 공통) */
+    private void compactLogs() {
+        long now = System.currentTimeMillis();
+        for (Topic t : topics.values()) {
+            if (!t.settings().compact()) continue;
+            for (int p = 0; p < t.partitionCount(); p++) {
+                try {
+                    LogCompactor.Result r = compactor.compact(t.log(p), now);
+                    if (r.segmentsRewritten() > 0) {
+                        metrics.recordCompaction(r.recordsRemoved(), r.bytesBefore() - r.bytesAfter(), r.durationMs());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    log.error("[Broker] 로그 압축 실패 | topic={} partition={} | 이유={}", t.name(), p, e.getMessage(), e);
+                }
+            }
         }
     }
 
     /**
-     * 컨슈머용 poll
+     * 보존 정책 적용 (토픽 파티션 로그 + 토픽 내부 로그)
+     * - 파티션 로그: 토픽 retention-ms / retention-bytes / retention-consumed,
+     *   protect-unconsumed면 가장 느린 컨슈머(메인 큐 + 컨슈머 그룹)의 커밋 이후는 지우지 않음
+     * - DLQ·지연 로그: 커밋 오프셋 앞(이미 처리한 항목)만 삭제
      */
-    public Message poll(long timeoutMs) {
-        return queue.poll(timeoutMs);
+    private void enforceRetention() {
+        long start = System.currentTimeMillis();
+        int segments = 0;
+        long bytes = 0;
+        for (Topic t : topics.values()) {
+            Topic.Settings s = t.settings();
+            for (int p = 0; p < t.partitionCount(); p++) {
+                long minConsumer = t.minConsumerOffset(p);
+                RetentionCleaner.Policy policy = new RetentionCleaner.Policy(
+                        s.retentionMs(), s.retentionBytes(),
+                        s.retentionConsumed() ? minConsumer : -1,
+                        retentionCfg.isProtectUnconsumed() ? minConsumer : Long.MAX_VALUE);
+                RetentionCleaner.Result r = cleanLog(t.log(p), policy, start);
+                segments += r.segments();
+                bytes += r.bytes();
+            }
+            for (String internal : List.of(DeadLetterQueue.logName(t.name()), DelayedMessages.logName(t.name()))) {
+                long committed = wal.committedOffset(internal);
+                RetentionCleaner.Result r = cleanLog(wal.open(internal),
+                        new RetentionCleaner.Policy(-1, -1, committed, committed), start);
+                segments += r.segments();
+                bytes += r.bytes();
+            }
+        }
+        metrics.recordRetention(segments, bytes, System.currentTimeMillis() - start);
+    }
+
+    private RetentionCleaner.Result cleanLog(SegmentedLog segLog, RetentionCleaner.Policy policy, long now) {
+        try {
+            return retention.clean(segLog, policy, now);
+        } catch (Exception e) {
+            log.error("[Broker] 보존 정리 실패 | log={} | 이유={}", segLog.name(), e.getMessage(), e);
+            return RetentionCleaner.Result.NONE;
+        }
+    }
+
+    private void redriveDeadLetters() {
+        for (Topic t : topics.values()) t.redriveDeadLetters(dlqCfg.getRedriveRatePerSec(), dlqCfg.getRedriveTickMs());
+    }
+
+    // ========================= 상태 =========================
+
+    /** 전체 in-flight(ack 대기) 메시지 수 */
+    public long inflightCount() {
+        return sum(Topic::inflightCount);
+    }
+
+    /** 전체 토픽에 쌓여있는 메시지 수 */
+    public int size() {
+        return (int) sum(Topic::size);
+    }
+
+    private long sum(ToLongFunction<Topic> f) {
+        long total = 0;
+        for (Topic t : topics.values()) total += f.applyAsLong(t);
+        return total;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,203 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.mq.Message;
+import com.realtimefinmq.mq.mymq.wal.LogReader;
+import com.realtimefinmq.mq.mymq.wal.SegmentedLog;
+import com.realtimefinmq.mq.mymq.wal.WriteAheadLog;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ConsumerGroup
+ * - 토픽의 파티션 WAL(append-only 로그)을 자기 오프셋으로 읽는 구독자 1개 (Kafka 컨슈머 그룹과 같은 모델)
+ * - 메시지는 로그에 한 번만 저장되고, 그룹은 파티션별 읽기 위치(LogReader)와 커밋 오프셋만 가짐
+ *   → 그룹이 늘어도 payload 복사본이 늘지 않음 (원장/이상거래/분석이 같은 거래를 각자 전부 받음)
+ * - 메인 큐(lease/ack) 소비와 독립: 그룹이 밀려도 메인 큐·다른 그룹에 영향 없음
+ * - 커밋 오프셋은 WAL 체크포인트에 "{토픽}-{파티션}@{그룹}" 이름으로 저장 → 재시작 시 이어서 읽음 (at-least-once)
+ * - 한 그룹의 한 파티션은 한 스레드만 poll 해야 함 (키별 순서 유지)
+ * - seek(오프셋 / 처음 / 끝 / 시각)으로 읽기 위치를 옮겨 재처리 가능
+ *   → 다른 스레드(관리 API)에서 요청하면 담당 워커가 다음 poll에서 적용 (리더는 워커 전용이므로)
+ */
+@Slf4j
+public class ConsumerGroup {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String name;
+    private final Topic topic;
+    private final WriteAheadLog wal;
+    private final SegmentedLog[] logs;
+    private final LogReader[] readers;    // 파티션별 읽기 위치 (담당 워커만 사용)
+    private final AtomicLongArray committed;   // 파티션별 커밋 오프셋 (워커 commit / 관리 API seek / lag 조회가 서로 다른 스레드)
+    private final AtomicLongArray pendingSeek; // 파티션별 적용 대기 중인 seek 위치 (-1 = 없음)
+
+    ConsumerGroup(String name, Topic topic, WriteAheadLog wal) {
+        this.name = name;
+        this.topic = topic;
+        this.wal = wal;
+
+        int n = topic.partitionCount();
+        this.logs = new SegmentedLog[n];
+        this.readers = new LogReader[n];
+        this.committed = new AtomicLongArray(n);
+        this.pendingSeek = new AtomicLongArray(n);
+        for (int p = 0; p < n; p++) {
+            logs[p] = topic.log(p);
+            long start = startOffset(p);
+            readers[p] = logs[p].reader(start);
+            committed.set(p, start);
+            pendingSeek.set(p, -1);
+        }
+        log.info("[ConsumerGroup] 생성 | group={} topic={} offsets={}", name, topic.name(), committed);
+    }
+
+    /** 시작 오프셋 = 커밋 오프셋 (로그 범위 밖이면 시작/끝으로 보정) */
+    private long startOffset(int p) {
+        String key = offsetKey(p);
+        long c = wal.committedOffset(key);
+        long end = logs[p].nextOffset();
+        long begin = logs[p].startOffset();
+        if (c > end || c < begin) {
+            long fixed = (c > end) ? end : begin;
+            log.warn("[ConsumerGroup] 커밋 오프셋이 로그 범위 밖 → 보정 | key={} committed={} range=[{}, {}]", key, c, begin, end);
+            wal.resetCommitted(key, fixed);
+            c = fixed;
+        }
+        return c;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Topic topic() {
+        return topic;
+    }
+
+    public int partitionCount() {
+        return readers.length;
+    }
+
+    /** 체크포인트 키 ({토픽}-{파티션}@{그룹}) */
+    public String offsetKey(int partition) {
+        return topic.logName(partition) + "@" + name;
+    }
+
+    /**
+     * 파티션 로그에서 다음 메시지들을 읽음 (lease 없음, 위치만 전진)
+     * - 읽을 게 없으면 timeoutMs까지 짧게 쉬며 재시도
+     * - 쓰기 버퍼에만 있는 레코드는 flusher 주기(fsync-interval-ms)에 파일로 내려간 뒤 보임
+     *   (그룹 poll이 직접 flush하면 lag가 있는 동안 매번 작은 write가 나가 쓰기 버퍼링이 무의미해짐)
+     * - TTL이 지난 메시지는 건너뜀 (커밋은 다음 배치의 마지막 오프셋으로 함께 전진)
+     *
+     * @param sink 읽은 메시지를 담을 리스트 (호출자가 재사용)
+     * @return 읽은 건수
+     */
+    public int poll(int partition, int maxMessages, long timeoutMs, List<Message> sink) {
+        applySeek(partition);
+        LogReader reader = readers[partition];
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMs));
+        while (true) {
+            int n = readLive(reader, maxMessages, sink);
+            if (n > 0) return n;
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || Thread.currentThread().isInterrupted()) return 0;
+            LockSupport.parkNanos(Math.min(remaining, IDLE_PARK_NANOS));
+        }
+    }
+
+    /** 읽은 뒤 만료 메시지 제거 */
+    private int readLive(LogReader reader, int maxMessages, List<Message> sink) {
+        int n = reader.read(maxMessages, sink);
+        if (n == 0) return 0;
+        int expired = Topic.removeExpired(sink, System.currentTimeMillis());
+        if (expired > 0) topic.recordExpired(expired);
+        return n - expired;
+    }
+
+    /**
+     * 처리 완료 위치 커밋 (재시작 시 여기서부터 다시 읽음)
+     *
+     * @param nextOffset 처리한 마지막 메시지 오프셋 + 1
+     */
+    public void commit(int partition, long nextOffset) {
+        // seek 대기 중이면 seek 전에 읽은 배치 → 커밋하지 않음 (적용 시 seek 위치로 다시 덮임)
+        if (pendingSeek.get(partition) >= 0) return;
+        if (nextOffset <= committed.get(partition)) return;
+        committed.set(partition, nextOffset);
+        wal.commit(offsetKey(partition), nextOffset);
+    }
+
+    // ========================= seek (재처리) =========================
+
+    /**
+     * 읽기 위치를 오프셋으로 이동 (로그 범위 밖이면 시작/끝으로 보정)
+     * - 커밋 오프셋도 바로 같은 위치로 되돌림 → 워커가 없는 그룹도 재시작하면 여기서부터 읽음
+     * - 읽기 위치는 담당 워커가 다음 poll에서 적용 (그 사이 처리 중이던 배치의 커밋은 그때 다시 덮임)
+     *
+     * @return 보정된 이동 위치
+     */
+    public long seek(int partition, long offset) {
+        SegmentedLog l = logs[partition];
+        long target = Math.max(l.startOffset(), Math.min(offset, l.nextOffset()));
+        pendingSeek.set(partition, target);
+        committed.set(partition, target);
+        wal.resetCommitted(offsetKey(partition), target);
+        log.info("[ConsumerGroup] seek 요청 | group={} log={} offset={} target={}", name, topic.logName(partition), offset, target);
+        return target;
+    }
+
+    /** 로그 처음(보존 중인 가장 오래된 메시지)으로 이동 */
+    public long seekToBeginning(int partition) {
+        return seek(partition, logs[partition].startOffset());
+    }
+
+    /** 로그 끝으로 이동 (이후 새로 들어오는 메시지부터) */
+    public long seekToEnd(int partition) {
+        return seek(partition, logs[partition].nextOffset());
+    }
+
+    /** 타임스탬프가 timestampMs 이상인 첫 메시지로 이동 (예: 10분 전부터 재처리) */
+    public long seekToTimestamp(int partition, long timestampMs) {
+        return seek(partition, logs[partition].offsetForTimestamp(timestampMs));
+    }
+
+    /** 대기 중인 seek 적용 (담당 워커 스레드에서) */
+    private void applySeek(int partition) {
+        long target = pendingSeek.getAndSet(partition, -1);
+        if (target < 0) return;
+        readers[partition].seek(target);
+        committed.set(partition, target);
+        wal.resetCommitted(offsetKey(partition), target);
+    }
+
+    /** 다음에 읽을 오프셋 */
+    public long position(int partition) {
+        return readers[partition].position();
+    }
+
+    /** 커밋 오프셋 */
+    public long committed(int partition) {
+        return committed.get(partition);
+    }
+
+    /** 파티션 lag = 로그 끝 - 커밋 오프셋 */
+    public long lag(int partition) {
+        return Math.max(0, logs[partition].nextOffset() - committed.get(partition));
+    }
+
+    /** 전체 파티션 lag 합 */
+    public long lag() {
+        long total = 0;
+        for (int p = 0; p < readers.length; p++) total += lag(p);
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return name + "@" + topic.name();
+    }
+}
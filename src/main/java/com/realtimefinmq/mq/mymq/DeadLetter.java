@@ -0,0 +1,24 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.mq.Message;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DLQ 항목 DTO
+ * - 원본 메시지 + 실패 사유 + 시도 횟수
+ * - DLQ 로그에는 이 객체를 JSON으로 직렬화해 Message.payload에 담아 기록
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetter {
+    private long dlqOffset;   // DLQ 로그 오프셋 (WAL 비활성화 시 DLQ 내 순번)
+    private String topic;     // 원래 토픽
+    private int partition;    // 원래 파티션 (-1 = 적재 전 실패)
+    private String reason;    // 실패 사유
+    private int attempts;     // 전달 시도 횟수 (적재 전 실패면 0)
+    private long deadAt;      // DLQ 이동 시각 (epoch millis)
+    private Message message;  // 원본 메시지
+}
@@ -0,0 +1,242 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.mq.Message;
+import com.realtimefinmq.mq.mymq.wal.LogReader;
+import com.realtimefinmq.mq.mymq.wal.SegmentedLog;
+import com.realtimefinmq.mq.mymq.wal.WalRecovery;
+import com.realtimefinmq.mq.mymq.wal.WriteAheadLog;
+import com.realtimefinmq.util.JsonUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * DeadLetterQueue (토픽당 1개)
+ * - 큐 용량 초과 / 최대 전달 횟수 초과 메시지를 사유·시도 횟수와 함께 보관
+ * - 용량 제한(capacity): 가득 차면 새 항목을 받지 않음 (호출자가 기존 경로로 처리)
+ * - WAL 활성화 시 전용 로그({토픽}-dlq)에 기록 → 재시작 시 커밋 오프셋 이후 항목 복구
+ *   (DLQ 커밋 오프셋 = 아직 남아있는 가장 오래된 항목 위치)
+ * - 복구할 항목이 용량보다 많으면(용량을 줄이고 재시작 등) 넘친 구간은 로그에 둔 채 위치만 기억
+ *   → 재투입으로 자리가 나는 대로 로그에서 다시 읽어 채움, 커밋은 그 구간을 넘지 않음
+ *   → 넘친 구간이 남아 있는 동안은 메모리가 가득 차 있으므로 새 항목은 받지 않음 (로그 순서 = 메모리 순서 유지)
+ * - 재투입(redrive): 요청 건수를 초당 rate 한도 안에서 조금씩 메인 큐로 되돌림
+ *   → 대량 재투입이 실시간 트래픽을 밀어내지 않도록
+ *
+ * 동기화: 락 1개 (적재/재투입/조회 모두 드묾)
+ */
+@Slf4j
+public class DeadLetterQueue {
+    private final String topic;
+    private final int capacity;
+    private final SegmentedLog dlqLog;  // WAL 비활성화 시 null
+    private final WriteAheadLog wal;
+
+    private final ArrayDeque<DeadLetter> entries = new ArrayDeque<>();
+    private long nextSeq;               // WAL 비활성화 시 dlqOffset 대용 순번
+    private long dropped;               // 가득 차서 못 받은 건수
+    private long unloadedFrom = -1;     // 복구 때 용량이 넘쳐 메모리에 못 올린 첫 DLQ 오프셋 (-1 = 없음)
+    private long unloadedEnd;           // 그 구간의 끝 (복구 시점의 로그 끝, 이후 add된 항목은 메모리에 있음)
+
+    // ===== 재투입 상태 =====
+    private long redriveRemaining;      // 남은 재투입 요청 건수
+    private double redriveTokens;       // 토큰 버킷 (초당 rate만큼 충전)
+
+    public DeadLetterQueue(String topic, int capacity, SegmentedLog dlqLog, WriteAheadLog wal) {
+        this.topic = topic;
+        this.capacity = Math.max(1, capacity);
+        this.dlqLog = dlqLog;
+        this.wal = wal;
+    }
+
+    /** DLQ 로그 이름 ({토픽}-dlq) */
+    public static String logName(String topic) {
+        return topic + "-dlq";
+    }
+
+    /**
+     * 시작 시 DLQ 로그에서 미처리 항목 복구
+     *
+     * @return 복구한 항목 수
+     */
+    public synchronized int recover() {
+        if (dlqLog == null) return 0;
+
+        String name = dlqLog.name();
+        long committed = wal.committedOffset(name);
+        long end = dlqLog.nextOffset();
+        if (committed > end) {
+            log.warn("[DLQ] 커밋 오프셋이 로그 끝보다 큼 → 보정 | log={} committed={} end={}", name, committed, end);
+            wal.resetCommitted(name, end);
+            committed = end;
+        }
+
+        long[] overflow = new long[1];
+        WalRecovery.recover(List.of(dlqLog), new long[]{committed}, 1, (i, rec) -> {
+            if (entries.size() >= capacity) {
+                if (unloadedFrom < 0) unloadedFrom = rec.offset();
+                overflow[0]++;
+                return;
+            }
+            entries.addLast(toEntry(rec.message()));
+        });
+        if (overflow[0] > 0) {
+            unloadedEnd = end;
+            log.error("[DLQ] 복구 중 용량 초과 → 로그에 남겨 두고 재투입으로 자리가 나면 다시 읽음 | topic={} overflow={} from={}",
+                    topic, overflow[0], unloadedFrom);
+        }
+        log.info("[DLQ] 복구 완료 | topic={} entries={}", topic, entries.size());
+        return entries.size();
+    }
+
+    /** DLQ 로그 레코드 → 항목 (payload = DeadLetter JSON) */
+    private static DeadLetter toEntry(Message rec) {
+        DeadLetter d = JsonUtils.fromJson(rec.getPayload(), DeadLetter.class);
+        d.setDlqOffset(rec.getOffset());
+        return d;
+    }
+
+    /** 복구 때 못 올린 구간을 빈 자리만큼 로그에서 다시 읽음 (락 안에서) */
+    private void reloadUnloaded() {
+        if (unloadedFrom < 0 || entries.size() >= capacity) return;
+        LogReader reader = dlqLog.reader(unloadedFrom);
+        List<Message> sink = new ArrayList<>();
+        while (unloadedFrom >= 0 && entries.size() < capacity) {
+            sink.clear();
+            int want = (int) Math.min(capacity - entries.size(), unloadedEnd - unloadedFrom);
+            long before = unloadedFrom;
+            reader.read(want, sink);
+            for (Message rec : sink) {
+                if (rec.getOffset() < unloadedFrom || rec.getOffset() >= unloadedEnd) continue;
+                entries.addLast(toEntry(rec));
+                unloadedFrom = rec.getOffset() + 1;
+            }
+            if (unloadedFrom >= unloadedEnd) {
+                unloadedFrom = -1;
+            } else if (unloadedFrom == before) {
+                log.error("[DLQ] 넘친 구간 다시 읽기 실패 → 남은 구간 포기 | topic={} from={} end={}", topic, unloadedFrom, unloadedEnd);
+                unloadedFrom = -1;
+            }
+        }
+    }
+
+    /**
+     * DLQ 적재
+     *
+     * @param partition 원래 파티션 (-1 = 적재 전 실패)
+     * @return 적재했으면 true, 가득 찼으면 false
+     */
+    public boolean add(Message msg, int partition, String reason, int attempts) {
+        long offset;
+        synchronized (this) {
+            if (entries.size() >= capacity) {
+                dropped++;
+                return false;
+            }
+            DeadLetter d = new DeadLetter(0, topic, partition, reason, attempts, System.currentTimeMillis(), msg);
+            if (dlqLog != null) {
+                Message rec = new Message(msg.getId(), JsonUtils.toJson(d), d.getDeadAt(), msg.getKey(), null);
+                d.setDlqOffset(dlqLog.append(rec));
+            } else {
+                d.setDlqOffset(nextSeq++);
+            }
+            entries.addLast(d);
+            if (dlqLog == null) return true;
+            offset = d.getDlqOffset();
+        }
+        dlqLog.awaitDurable(offset); // DLQ 락 밖에서 (조회/재투입을 막지 않도록)
+        return true;
+    }
+
+    /**
+     * 조회 (오래된 순)
+     *
+     * @param skip  앞에서 건너뛸 건수
+     * @param limit 최대 건수
+     */
+    public synchronized List<DeadLetter> list(int skip, int limit) {
+        List<DeadLetter> out = new ArrayList<>(Math.max(0, Math.min(limit, entries.size())));
+        Iterator<DeadLetter> it = entries.iterator();
+        for (int i = 0; i < skip && it.hasNext(); i++) it.next();
+        while (out.size() < limit && it.hasNext()) out.add(it.next());
+        return out;
+    }
+
+    /**
+     * 재투입 요청 (실제 이동은 redriveTick에서 rate 한도 안에서)
+     *
+     * @param max 재투입할 건수 (0 이하면 현재 전부)
+     * @return 이번 요청으로 예약된 건수
+     */
+    public synchronized long requestRedrive(long max) {
+        long total = size(); // 넘친 구간 포함 (재투입하면서 로그에서 채움)
+        long n = (max <= 0) ? total : Math.min(max, total);
+        redriveRemaining = Math.max(redriveRemaining, n);
+        return redriveRemaining;
+    }
+
+    /**
+     * 재투입 주기 작업: 토큰만큼 앞에서부터 꺼내 sink(메인 큐 적재)에 넘김
+     * - sink가 false(메인 큐 꽉 참 등)면 그 항목에서 멈추고 다음 틱에 재시도
+     *
+     * @param ratePerSec 초당 최대 재투입 건수
+     * @param elapsedMs  지난 틱 이후 경과 시간
+     * @return 이번 틱에 재투입한 건수
+     */
+    public synchronized int redriveTick(double ratePerSec, long elapsedMs, Predicate<Message> sink) {
+        if (redriveRemaining <= 0 || entries.isEmpty()) {
+            redriveRemaining = 0;
+            redriveTokens = 0;
+            return 0;
+        }
+        // 버스트는 최대 1초치
+        redriveTokens = Math.min(Math.max(1, ratePerSec), redriveTokens + ratePerSec * elapsedMs / 1000.0);
+
+        int moved = 0;
+        long lastOffset = -1;
+        while (redriveTokens >= 1 && redriveRemaining > 0 && !entries.isEmpty()) {
+            DeadLetter head = entries.peekFirst();
+            Message msg = head.getMessage();
+            msg.setOffset(-1);
+            msg.setDeliveryCount(0);
+            if (!sink.test(msg)) break;
+            entries.pollFirst();
+            lastOffset = head.getDlqOffset();
+            redriveTokens -= 1;
+            redriveRemaining--;
+            moved++;
+        }
+
+        if (moved > 0 && dlqLog != null) {
+            reloadUnloaded(); // 빈 자리만큼 넘친 구간을 채움 → 메모리 순서 = 로그 순서 유지
+            long committed = entries.isEmpty() ? lastOffset + 1 : entries.peekFirst().getDlqOffset();
+            if (unloadedFrom >= 0) committed = Math.min(committed, unloadedFrom); // 아직 로그에만 있는 구간은 넘지 않음
+            wal.commit(dlqLog.name(), committed);
+        }
+        return moved;
+    }
+
+    public String topic() {
+        return topic;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /** 보관 건수 (복구 때 넘쳐 아직 로그에만 있는 구간 포함) */
+    public synchronized int size() {
+        return entries.size() + (int) Math.max(0, (unloadedFrom < 0) ? 0 : unloadedEnd - unloadedFrom);
+    }
+
+    public synchronized long dropped() {
+        return dropped;
+    }
+
+    public synchronized long redriveRemaining() {
+        return redriveRemaining;
+    }
+}
@@ -0,0 +1,151 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.mq.Message;
+import com.realtimefinmq.mq.mymq.wal.SegmentedLog;
+import com.realtimefinmq.mq.mymq.wal.WalRecovery;
+import com.realtimefinmq.mq.mymq.wal.WriteAheadLog;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * DelayedMessages (토픽당 1개)
+ * - deliverAt이 미래인 메시지를 계층형 타이머 휠(TimingWheel)에 보관, 시각이 되면 파티션 큐로 내보냄
+ *   → 메시지마다 ScheduledExecutorService 작업을 만들지 않음 (수백만 건 보류도 휠 칸 배열만 사용)
+ * - 메인 파티션 로그에는 내보낼 때 기록 (보류 중 메시지는 컨슈머 그룹/복구 대상이 아님)
+ * - WAL 활성화 시 전용 로그({토픽}-delay)에 먼저 기록 → 재시작 시 커밋 오프셋 이후를 다시 휠에 등록
+ *   (커밋 오프셋 = 아직 내보내지 않은 가장 오래된 항목, 내보낸 위치는 비트셋으로 추적)
+ *   커밋 전에 죽으면 이미 내보낸 항목이 한 번 더 나갈 수 있음 (at-least-once, 컨슈머 중복 감지로 흡수)
+ *
+ * 동기화: 락 1개 (등록은 O(1)이라 짧고, 내보내기는 브로커 스케줄러 1개만 호출)
+ */
+@Slf4j
+public class DelayedMessages {
+    private final String topic;
+    private final int maxPending;
+    private final SegmentedLog delayLog;  // WAL 비활성화 시 null
+    private final WriteAheadLog wal;
+
+    private final TimingWheel wheel;
+    private final ArrayDeque<Message> due = new ArrayDeque<>(); // 시각은 됐지만 큐가 가득 차 못 나간 메시지 (다음 틱 재시도)
+
+    // ===== 커밋 추적 (WAL 활성화 시) =====
+    private long commitBase;                    // 커밋 오프셋 (이전은 모두 내보냄)
+    private BitSet released = new BitSet();     // commitBase 기준 내보낸 위치
+
+    public DelayedMessages(String topic, long tickMs, int maxPending, SegmentedLog delayLog, WriteAheadLog wal) {
+        this.topic = topic;
+        this.maxPending = Math.max(1, maxPending);
+        this.delayLog = delayLog;
+        this.wal = wal;
+        this.wheel = new TimingWheel(tickMs, System.currentTimeMillis());
+    }
+
+    /** 지연 메시지 로그 이름 ({토픽}-delay) */
+    public static String logName(String topic) {
+        return topic + "-delay";
+    }
+
+    /**
+     * 시작 시 지연 로그에서 아직 내보내지 않은 메시지 복구
+     *
+     * @param visitor 복구한 메시지마다 호출 (멱등 저장소 등록 등)
+     * @return 복구한 건수
+     */
+    public synchronized int recover(Consumer<Message> visitor) {
+        if (delayLog == null) return 0;
+
+        String name = delayLog.name();
+        long committed = wal.committedOffset(name);
+        long end = delayLog.nextOffset();
+        if (committed > end) {
+            log.warn("[Delay] 커밋 오프셋이 로그 끝보다 큼 → 보정 | log={} committed={} end={}", name, committed, end);
+            wal.resetCommitted(name, end);
+            committed = end;
+        }
+        commitBase = committed;
+
+        int[] restored = new int[1];
+        WalRecovery.recover(List.of(delayLog), new long[]{committed}, 1, (i, rec) -> {
+            Message msg = rec.message(); // offset = 지연 로그 오프셋
+            if (!wheel.add(msg)) due.addLast(msg); // 다운타임 중 시각이 지난 메시지는 바로 내보냄
+            visitor.accept(msg);
+            restored[0]++;
+        });
+        log.info("[Delay] 복구 완료 | topic={} pending={}", topic, restored[0]);
+        return restored[0];
+    }
+
+    /**
+     * 지연 메시지 등록 (WAL 활성화 시 지연 로그에 먼저 기록)
+     *
+     * @return false → 보류 한도(max-pending) 초과
+     */
+    public boolean schedule(Message msg) {
+        long offset = -1;
+        synchronized (this) {
+            if (wheel.size() + due.size() >= maxPending) return false;
+            if (delayLog != null) {
+                offset = delayLog.append(msg);
+                msg.setOffset(offset);
+            }
+            if (!wheel.add(msg)) due.addLast(msg);
+        }
+        if (delayLog != null) delayLog.awaitDurable(offset); // 락 밖에서 (틱 스레드를 막지 않도록)
+        return true;
+    }
+
+    /**
+     * 스케줄러 주기 작업: 시각이 된 메시지를 sink(파티션 큐 적재)로 내보냄
+     * - sink가 false(큐 가득 참)면 거기서 멈추고 다음 틱에 재시도 (순서 유지, 유실 없음)
+     *
+     * @return 내보낸 건수
+     */
+    public int releaseDue(long nowMs, Predicate<Message> sink) {
+        int moved = 0;
+        synchronized (this) {
+            wheel.advance(nowMs, due);
+            while (!due.isEmpty()) {
+                Message msg = due.peekFirst();
+                long delayOffset = msg.getOffset();
+                msg.setOffset(-1); // 메인 로그 오프셋은 적재 시 새로 부여
+                if (!sink.test(msg)) {
+                    msg.setOffset(delayOffset);
+                    break;
+                }
+                due.pollFirst();
+                markReleased(delayOffset);
+                moved++;
+            }
+            if (moved > 0 && delayLog != null) commitReleased();
+        }
+        return moved;
+    }
+
+    private void markReleased(long delayOffset) {
+        if (delayLog == null || delayOffset < commitBase) return;
+        released.set((int) (delayOffset - commitBase));
+    }
+
+    /** 앞에서부터 연속으로 내보낸 만큼 커밋 오프셋 전진 */
+    private void commitReleased() {
+        int advance = released.nextClearBit(0);
+        if (advance == 0) return;
+        released = released.get(advance, Math.max(advance, released.length()));
+        commitBase += advance;
+        wal.commit(delayLog.name(), commitBase);
+    }
+
+    public String topic() {
+        return topic;
+    }
+
+    /** 보류 중인 메시지 수 (시각이 됐지만 아직 못 나간 것 포함) */
+    public synchronized int size() {
+        return wheel.size() + due.size();
+    }
+}
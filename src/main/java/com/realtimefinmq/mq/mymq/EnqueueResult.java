@@ -0,0 +1,20 @@
+package com.realtimefinmq.mq.mymq;
+
+/**
+ * EnqueueResult
+ * - Broker.enqueue 결과 (프로듀서가 재시도 / 미커밋 집계 여부를 판단)
+ *
+ * 종류:
+ * - ENQUEUED      : 메인 큐(또는 지연 보류)에 들어감 → 컨슈머가 처리할 때까지 미커밋
+ * - DEAD_LETTERED : 큐가 꽉 차 DLQ(QUEUE_FULL)에 보관됨 → 받아들인 것 (재전송하면 중복, redrive로 메인 큐에 다시 들어감)
+ * - DUPLICATE     : 윈도우 안에서 이미 본 ID
+ * - REJECTED      : 없는 토픽 / 만료 / 큐·DLQ 모두 꽉 참 / 예외 → 받아들이지 않음 (ID를 잊으므로 재시도 가능)
+ */
+public enum EnqueueResult {
+    ENQUEUED, DEAD_LETTERED, DUPLICATE, REJECTED;
+
+    /** 브로커가 메시지를 받아들였는지 (메인 큐 또는 DLQ) */
+    public boolean accepted() {
+        return this == ENQUEUED || this == DEAD_LETTERED;
+    }
+}
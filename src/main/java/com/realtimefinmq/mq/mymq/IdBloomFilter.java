@@ -0,0 +1,74 @@
+package com.realtimefinmq.mq.mymq;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * IdBloomFilter
+ * - 128비트 메시지 ID 키(MessageIdSet.hi/lo)용 blocked Bloom 필터 (IdempotencyStore 버킷의 사전 필터)
+ * - "없음"은 확실, "있을 수도"만 정확한 집합(MessageIdSet)으로 다시 확인 → 대부분인 처음 보는 ID는 큰 테이블을 안 건드림
+ * - 키 하나의 비트 k개를 64바이트 블록(캐시 라인 1개) 안에만 둠 → 조회당 메모리 접근 1번
+ *   (같은 오탐률에 일반 Bloom보다 비트가 더 필요함: 목표가 낮을수록 더 → 1% 약 30%, 0.1% 약 50% 크게 잡음)
+ * - 삭제 불가: 만료는 버킷과 함께 필터를 통째로 버리는 것으로 처리, removeProcessed된 ID는 오탐으로만 남음
+ * - 예상 건수를 넘겨 넣으면 오탐률이 올라감 (정확도는 그대로, 걸러내는 비율만 줄어듦)
+ *
+ * 동기화: 비트 세우기는 원자적 OR (락 없음), 조회는 opaque 읽기
+ */
+final class IdBloomFilter {
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int WORDS_PER_BLOCK = 8;           // 512비트 = 64바이트
+    private static final int MAX_BLOCKS = 1 << 21;          // 128MB 상한
+
+    private final long[] words;
+    private final int blocks;
+    private final int hashes;
+
+    /**
+     * @param expectedEntries 예상 건수
+     * @param fpp             목표 오탐률 (0.000001 ~ 0.5로 보정)
+     */
+    IdBloomFilter(long expectedEntries, double fpp) {
+        double p = Math.max(1e-6, Math.min(0.5, fpp));
+        double bitsPerEntry = -Math.log(p) / (Math.log(2) * Math.log(2));
+        double overhead = 1 + 0.1 * Math.pow(-Math.log10(p), 1.5); // 블록 단위 편중 보정
+        long bits = (long) Math.ceil(Math.max(1, expectedEntries) * bitsPerEntry * overhead);
+        this.blocks = (int) Math.max(1, Math.min(MAX_BLOCKS, (bits + 511) / 512));
+        this.hashes = (int) Math.max(1, Math.min(16, Math.round(bitsPerEntry * Math.log(2))));
+        this.words = new long[blocks * WORDS_PER_BLOCK];
+    }
+
+    void put(long hi, long lo) {
+        long h = MessageIdSet.fmix(hi ^ lo * 0xC2B2AE3D27D4EB4FL);
+        int base = block(h);
+        long h2 = MessageIdSet.fmix(h);
+        int a = (int) h2, b = (int) (h2 >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (a + i * b) & 511;
+            int idx = base + (bit >>> 6);
+            long m = 1L << bit;
+            if (((long) WORDS.getOpaque(words, idx) & m) == 0) WORDS.getAndBitwiseOr(words, idx, m);
+        }
+    }
+
+    /** @return false → 확실히 없음, true → 있을 수도 있음 */
+    boolean mightContain(long hi, long lo) {
+        long h = MessageIdSet.fmix(hi ^ lo * 0xC2B2AE3D27D4EB4FL);
+        int base = block(h);
+        long h2 = MessageIdSet.fmix(h);
+        int a = (int) h2, b = (int) (h2 >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (a + i * b) & 511;
+            if (((long) WORDS.getOpaque(words, base + (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    long memoryBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    /** 블록 시작 인덱스 (상위 32비트로 [0, blocks) 범위 축소, 나눗셈 없음) */
+    private int block(long h) {
+        return (int) (((h >>> 32) * blocks) >>> 32) * WORDS_PER_BLOCK;
+    }
+}
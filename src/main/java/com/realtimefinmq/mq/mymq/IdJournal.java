@@ -0,0 +1,243 @@
+package com.realtimefinmq.mq.mymq;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * IdJournal
+ * - IdempotencyStore 시간 버킷 1개의 ID 기록 파일 (persistent 모드, 재시작 후 같은 윈도우를 되살리는 용도)
+ * - 레코드 = 128비트 키 16바이트 (hi, lo), 청크 파일({epoch}-{seq}.ids)을 고정 크기로 미리 늘려 READ_WRITE 매핑
+ *   → 추가는 위치 예약(CAS) + 메모리 쓰기뿐 (락/시스템 콜 없음), 청크가 차면 다음 청크 파일
+ * - 레코드 (0, 0) = 빈 칸 (미리 늘린 뒷부분, 예약만 하고 죽은 칸) → 읽을 때 건너뜀
+ * - 버킷이 윈도우 밖으로 나가면 파일째 삭제 (항목별 삭제 기록 없음)
+ *
+ * 내구성:
+ * - 매핑된 페이지는 프로세스가 죽어도 OS가 파일에 씀 → 재배포/프로세스 크래시는 잃지 않음
+ * - OS 장애까지 견디려면 force 필요 → 청크를 닫을 때(가득 참/종료)만 force
+ */
+@Slf4j
+final class IdJournal implements Closeable {
+    static final String SUFFIX = ".ids";
+    private static final int RECORD = 16;
+
+    private final Path dir;
+    private final long epoch;
+    private final int chunkBytes;
+    private final List<Path> files = new ArrayList<>(); // 이 버킷의 청크 파일 (이전 실행분 포함, seq 순)
+    private volatile Chunk current;                     // null = 아직 쓴 적 없음 (첫 추가 때 생성)
+    private int nextSeq;
+    private boolean closed;
+
+    /** 키 1개 방문 (replay용) */
+    interface KeyVisitor {
+        void visit(long hi, long lo);
+    }
+
+    /**
+     * @param existing   이전 실행이 남긴 이 epoch의 청크 파일 (새 버킷이면 빈 목록)
+     * @param chunkBytes 청크 파일 크기 (16바이트 배수로 내림)
+     */
+    IdJournal(Path dir, long epoch, List<Path> existing, int chunkBytes) {
+        this.dir = dir;
+        this.epoch = epoch;
+        this.chunkBytes = Math.max(RECORD, chunkBytes / RECORD * RECORD);
+        existing.stream().sorted(Comparator.comparingInt(IdJournal::seqOf)).forEach(files::add);
+        this.nextSeq = files.isEmpty() ? 0 : seqOf(files.get(files.size() - 1)) + 1;
+    }
+
+    /**
+     * 디렉터리의 기록 파일을 epoch별로 묶음 (시작 시 1번만 목록 조회)
+     *
+     * @return epoch → 청크 파일 목록 (epoch 오름차순)
+     */
+    static TreeMap<Long, List<Path>> listByEpoch(Path dir) {
+        TreeMap<Long, List<Path>> byEpoch = new TreeMap<>();
+        try (Stream<Path> s = Files.list(dir)) {
+            s.forEach(p -> {
+                long epoch = epochOf(p);
+                if (epoch >= 0) byEpoch.computeIfAbsent(epoch, e -> new ArrayList<>()).add(p);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("[Idempotency] 기록 파일 목록 실패 | dir=" + dir, e);
+        }
+        return byEpoch;
+    }
+
+    /**
+     * 이전 실행이 남긴 키 수 추정 (버킷/필터 크기용, 파일을 훑지 않음)
+     * - 레코드는 앞에서부터 차례로 채워지므로 "처음으로 빈 칸이 이어지는 위치"를 이진 탐색 (청크당 log n번 읽기)
+     * - 끝부분의 예약만 하고 죽은 칸 때문에 조금 모자랄 수 있음 (크기 힌트라 그대로 씀, 모자라면 집합이 자람)
+     */
+    long estimate() {
+        long total = 0;
+        for (Path p : files) {
+            try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+                long records = ch.size() / RECORD;
+                if (records == 0) continue;
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, records * RECORD);
+                long lo = 0, hi = records;
+                while (lo < hi) {
+                    long mid = (lo + hi) >>> 1;
+                    int at = (int) (mid * RECORD);
+                    if ((buf.getLong(at) | buf.getLong(at + 8)) == 0) hi = mid;
+                    else lo = mid + 1;
+                }
+                total += lo;
+            } catch (IOException e) {
+                // replay에서 다시 실패하면 거기서 기록
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 이전 실행이 남긴 키를 순서대로 방문 (시작 시 1번, 추가 전에 호출)
+     *
+     * @return 방문한 키 수
+     */
+    long replay(KeyVisitor visitor) {
+        long n = 0;
+        for (Path p : files) {
+            try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+                long size = ch.size() / RECORD * RECORD;
+                if (size == 0) continue;
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                for (int at = 0; at < size; at += RECORD) {
+                    long hi = buf.getLong(at), lo = buf.getLong(at + 8);
+                    if ((hi | lo) == 0) continue;
+                    visitor.visit(hi, lo);
+                    n++;
+                }
+            } catch (IOException e) {
+                log.warn("[Idempotency] 기록 파일 읽기 실패 → 건너뜀 | file={} | 이유={}", p, e.getMessage());
+            }
+        }
+        return n;
+    }
+
+    /** 키 1개 기록 (청크가 가득 차면 다음 청크, 닫힌 뒤면 버림) */
+    void append(long hi, long lo) {
+        if ((hi | lo) == 0) lo = 1; // (0, 0)은 빈 칸 표시 (MessageIdSet과 같은 보정)
+        while (true) {
+            Chunk c = current;
+            if (c != null) {
+                int at = c.reserve();
+                if (at >= 0) {
+                    c.buf.putLong(at, hi);
+                    c.buf.putLong(at + 8, lo);
+                    return;
+                }
+            }
+            if (!roll(c)) return;
+        }
+    }
+
+    /** 청크 교체 (다른 스레드가 이미 바꿨으면 그대로) @return false → 닫혔거나 파일 생성 실패 */
+    private synchronized boolean roll(Chunk full) {
+        if (closed) return false;
+        if (current != full) return true;
+        try {
+            Path p = dir.resolve(epoch + "-" + nextSeq++ + SUFFIX);
+            Chunk next = new Chunk(p, chunkBytes);
+            files.add(p);
+            current = next;
+            if (full != null) full.close();
+            return true;
+        } catch (IOException e) {
+            log.error("[Idempotency] 기록 청크 생성 실패 → 이 버킷은 메모리에만 보관 | epoch={} | 이유={}", epoch, e.getMessage());
+            closed = true;
+            return false;
+        }
+    }
+
+    /** force 후 닫음 (이후 추가는 버림, 파일은 남김 → 다음 시작 때 replay) */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        Chunk c = current;
+        current = null; // 이후 append는 roll에서 closed를 보고 버림
+        if (c != null) c.close();
+    }
+
+    /** 닫고 파일 삭제 (버킷이 윈도우 밖으로 나감) */
+    synchronized void delete() {
+        close();
+        for (Path p : files) {
+            try {
+                Files.deleteIfExists(p);
+            } catch (IOException e) {
+                log.warn("[Idempotency] 기록 파일 삭제 실패 | file={} | 이유={}", p, e.getMessage());
+            }
+        }
+        files.clear();
+    }
+
+    /** 파일 이름의 epoch (형식이 아니면 -1) */
+    static long epochOf(Path p) {
+        String n = name(p);
+        int dash = n.indexOf('-');
+        if (dash <= 0 || !n.endsWith(SUFFIX)) return -1;
+        try {
+            return Long.parseLong(n.substring(0, dash));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int seqOf(Path p) {
+        String n = name(p);
+        try {
+            return Integer.parseInt(n.substring(n.indexOf('-') + 1, n.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String name(Path p) {
+        return p.getFileName().toString();
+    }
+
+    /** 쓰기 중인 청크 파일 1개 */
+    private static final class Chunk {
+        final FileChannel channel;
+        final MappedByteBuffer buf;
+        final int capacity;
+        final AtomicInteger position = new AtomicInteger();
+
+        Chunk(Path path, int bytes) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            this.capacity = bytes;
+        }
+
+        /** 레코드 자리 예약 @return 바이트 위치, 가득 차면 -1 */
+        int reserve() {
+            int at = position.getAndAdd(RECORD);
+            return (at <= capacity - RECORD) ? at : -1;
+        }
+
+        void close() {
+            try {
+                buf.force();
+                channel.close();
+            } catch (IOException e) {
+                log.warn("[Idempotency] 기록 청크 닫기 실패 | 이유={}", e.getMessage());
+            }
+        }
+    }
+}
@@ -1,11 +1,24 @@
 package com.realtimefinmq.mq.mymq;
 
+import com.realtimefinmq.config.MyMqConfig;
 import com.realtimefinmq.metrics.MyMqMetricsService;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * IdempotencyStore
@@ -18,53 +31,418 @@ import java.util.concurrent.ConcurrentHashMap;
  * - 같은 메시지를 중복 처리하면 금액이 두 번 결제되는 등의 문제 발생 가능
  *
  * 역할:
- * 1. 이미 처리한 메시지 ID를 저장
- * 2. 새 메시지의 ID를 확인 → 이미 처리했다면 "중복"으로 판별
+ * 1. 최근 window-ms 동안 본 메시지 ID를 저장
+ * 2. 새 메시지의 ID를 확인 → 윈도우 안에서 이미 봤다면 "중복"으로 판별
  *
- * 구현 방식:
- * - ConcurrentHashMap.newKeySet() → 멀티스레드 환경에서도 안전
- * - add() 성공 시 → 처음 들어온 메시지 (false 반환)
- * - add() 실패 시 → 이미 존재하는 메시지 (true 반환 → 중복)
+ * 구현 방식 (시간 버킷 회전):
+ * - 윈도우를 buckets개의 시간 버킷으로 나눔 (버킷 = 그 구간에 처음 본 ID 집합, MessageIdSet)
+ * - ID는 문자열 대신 128비트 키(long 2개)로 보관 → 항목당 약 150바이트 → 약 30바이트, 조회는 배열 탐사라 캐시 미스 적음
+ *   키는 호출당 1번만 계산해서 모든 버킷 조회에 재사용
+ * - (filter-enabled) 버킷마다 Bloom 사전 필터(IdBloomFilter)를 둠
+ *   → 대부분인 처음 보는 ID는 필터(캐시 라인 1개)에서 "없음"으로 끝나고, "있을 수도"만 ID 테이블을 조회
+ *   → 필터는 버킷과 함께 회전/폐기되므로 만료를 따로 관리하지 않음 (필터 크기 = 버킷당 몫 또는 직전 버킷 크기)
+ * - 새 ID는 현재 버킷에만 추가, 중복 판별은 살아 있는 버킷 전체를 조회
+ * - 시간이 버킷 경계를 넘으면 새 버킷을 앞에 끼우고 윈도우 밖 버킷은 통째로 버림 (항목별 삭제 없음)
+ * - 보관 ID 수가 max-entries를 넘으면 기간이 남았어도 가장 오래된 버킷부터 버림 → 메모리 상한이 설정값으로 고정
+ *   → 거부되거나 소비되지 않아 removeProcessed가 불리지 않은 ID도 결국 사라짐
+ *
+ * 재시작 (persistent 모드):
+ * - 버킷마다 새로 본 ID를 메모리 매핑 기록 파일(IdJournal)에 16바이트씩 덧붙임 → 조회는 그대로 메모리, 추가만 매핑 쓰기 1번
+ * - 시작 시 윈도우 안 버킷의 기록을 순차로 읽어 버킷/필터를 다시 채움 (1천만 건 ≈ 160MB 순차 읽기, 수 초)
+ *   → 재배포 직후 프로듀서가 재시도해도 윈도우 안의 ID는 중복으로 걸러짐
+ * - 윈도우 밖으로 나간 버킷은 기록 파일째 삭제
+ * - persistent 모드에서는 removeProcessed가 아무것도 지우지 않음 → 재시작 전후 모두 "윈도우 안에서 본 ID = 중복"
+ *   (메모리에서만 지우면 재시작 전에는 재전송을 받고 재시작 후에는 거부해서 동작이 재시작 여부에 따라 달라짐)
+ *
+ * 적재 경로 (reserve → confirm / release):
+ * - reserve: 처음 본 ID를 메모리에만 등록 (기록 파일에는 아직 쓰지 않음, 같은 ID 동시 재전송은 하나만 통과)
+ * - confirm: 브로커가 받아들임 → 기록 파일에 씀 (이후엔 재시작해도 중복)
+ * - release: 브로커가 거부함(만료/큐·DLQ 꽉참 등) → 메모리에서 지움, 기록에 없으므로 persistent 모드에서도 어긋나지 않음
+ *   → 거부된 메시지의 재시도가 윈도우 내내 중복으로 막히지 않음
+ *
+ * 동기화:
+ * - 조회는 락 없음 (버킷 배열은 volatile 스냅샷, 버킷 집합은 낙관적 읽기), 추가는 버킷 집합의 스트라이프 락만
+ * - 회전/조기 폐기만 synchronized (버킷 경계마다 1번 + 상한 초과 시)
+ * - 회전 직전에 옛 버킷에 들어간 ID 몇 건은 함께 버려질 수 있음 (윈도우 경계의 근사, 중복 판별 누락 방향)
  */
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class IdempotencyStore {
-    // 처리된 메시지 ID를 저장하는 집합
-    private final Set<String> processedIds = ConcurrentHashMap.newKeySet();
     private final MyMqMetricsService metrics;
+    private final long bucketMs;
+    private final int bucketCount;
+    private final long maxEntries;
+    private final boolean filterEnabled;
+    private final double filterFpp;
+    private final long filterEntries;                      // 버킷 필터의 최소 예상 건수 (maxEntries / buckets)
+    private final Path journalDir;                         // null = 메모리 전용 (persistent 꺼짐)
+    private final int journalChunkBytes;
+
+    private volatile Bucket[] live;                       // 살아 있는 버킷 (최신 → 오래된 순, 회전 시 새 배열로 교체)
+    private final LongAdder entries = new LongAdder();     // 보관 ID 수 (근사, 회전 때마다 버킷 크기로 다시 맞춤)
+    private final AtomicLong evictedBuckets = new AtomicLong(); // 건수 상한으로 기간 전에 버린 버킷 수
+    private final LongAdder filterChecks = new LongAdder();   // 필터 조회 수 (버킷 단위)
+    private final LongAdder filterSkips = new LongAdder();    // 필터가 "없음"이라 ID 테이블 조회를 건너뜀
+    private final LongAdder filterFalsePositives = new LongAdder(); // 필터는 "있을 수도", ID 테이블엔 없음
+
+    public IdempotencyStore(MyMqMetricsService metrics, MyMqConfig cfg) {
+        MyMqConfig.Idempotency ic = cfg.getIdempotency();
+        this.metrics = metrics;
+        this.bucketCount = Math.max(1, ic.getBuckets());
+        this.bucketMs = Math.max(1, ic.getWindowMs() / bucketCount);
+        this.maxEntries = Math.max(1, ic.getMaxEntries());
+        this.filterEnabled = ic.isFilterEnabled();
+        this.filterFpp = ic.getFilterFpp();
+        this.filterEntries = Math.max(1024, maxEntries / bucketCount);
+        this.journalDir = ic.isPersistent() ? Paths.get(ic.getDir()) : null;
+        this.journalChunkBytes = ic.getJournalChunkBytes();
+        log.info("[Idempotency] 윈도우 | windowMs={} buckets={} bucketMs={} maxEntries={} filter={} fpp={} persistent={}",
+                ic.getWindowMs(), bucketCount, bucketMs, maxEntries, filterEnabled, filterFpp, journalDir);
+
+        long epoch = System.currentTimeMillis() / bucketMs;
+        if (journalDir == null) {
+            this.live = new Bucket[]{newBucket(epoch, 0)};
+        } else {
+            publish(load(epoch));
+            while (entries.sum() > maxEntries && live.length > 1) trim();
+        }
+    }
 
     /**
-     * 메시지가 이미 처리된 적 있는지 확인
+     * 메시지가 이미 처리된 적 있는지 확인 (처음 본 ID면 현재 버킷에 등록)
      *
      * @param id 메시지 고유 ID
-     * @return true → 이미 처리됨(중복)
+     * @return true → 윈도우 안에서 이미 봄(중복)
      *         false → 처음 처리됨
      */
     public boolean alreadyProcessed(String id) {
-        boolean duplicate = !processedIds.add(id);
-        if (duplicate && metrics != null) {
-            metrics.recordDuplicate();
+        return check(id, true);
+    }
+
+    /**
+     * 적재 전 예약: 처음 본 ID면 메모리에만 등록 (persistent여도 기록 파일에는 아직 쓰지 않음)
+     * - 적재 결과에 따라 confirm / release 중 하나를 반드시 호출
+     *
+     * @return true → 예약함 (처음 본 ID) / false → 윈도우 안에서 이미 봄(중복) 또는 다른 적재가 예약 중
+     */
+    public boolean reserve(String id) {
+        return !check(id, false);
+    }
+
+    /** 예약한 ID의 적재 성공 → persistent 모드면 기록 파일에 씀 (그 사이 버킷이 버려졌으면 그대로 잊음) */
+    public void confirm(String id) {
+        if (id == null || journalDir == null) return;
+        long hi = MessageIdSet.hi(id), lo = MessageIdSet.lo(id);
+        for (Bucket b : live) {
+            if (b.filter != null && !b.filter.mightContain(hi, lo)) continue;
+            if (b.ids.contains(hi, lo)) {
+                b.record(hi, lo);
+                return;
+            }
+        }
+    }
+
+    /** 예약한 ID의 적재 거부 → 메모리에서 지움 (기록 전이므로 persistent 모드에서도 지움, 재시도를 받을 수 있게) */
+    public void release(String id) {
+        if (id == null) return;
+        removeKey(MessageIdSet.hi(id), MessageIdSet.lo(id));
+    }
+
+    /**
+     * @param record persistent 모드에서 처음 본 ID를 바로 기록 파일에 쓸지 (false = reserve, confirm 때 기록)
+     * @return true → 중복
+     */
+    private boolean check(String id, boolean record) {
+        if (id == null) return false; // ID 없으면 중복 판별 불가 → 통과
+        long hi = MessageIdSet.hi(id), lo = MessageIdSet.lo(id);
+        Bucket head = current(System.currentTimeMillis());
+        boolean duplicate = seenBefore(hi, lo, head) || !head.add(hi, lo, record);
+        if (duplicate) {
+            if (metrics != null) metrics.recordDuplicate();
+            return true;
         }
-        return duplicate; // 이미 있으면 true
+        added();
+        return false;
+    }
+
+    /**
+     * 복구용: 지표 집계 없이 ID 등록 (WAL에서 되살린 미소비 메시지)
+     */
+    public void remember(String id) {
+        if (id == null) return;
+        long hi = MessageIdSet.hi(id), lo = MessageIdSet.lo(id);
+        Bucket head = current(System.currentTimeMillis());
+        if (!seenBefore(hi, lo, head) && head.add(hi, lo, true)) added();
     }
 
     /**
      * 처리 완료(커밋) 후, 멱등 저장소에서 ID를 제거한다.
      * - 실험/재처리를 위해 동일 ID의 재수용을 허용하고 싶을 때 사용
-     * - 운영에서 "영구 멱등"이 필요하면 제거하지 않는 전략 사용
+     * - 운영에서 "영구 멱등"이 필요하면 제거하지 않는 전략 사용 (그래도 윈도우가 지나면 사라짐)
      *
      * @param id 메시지 고유 ID
-     * @return true  → 이미 처리됨(중복)
-     *         false → 처음 처리됨
+     * @return true  → 있어서 제거함
+     *         false → 없음 (처음부터 없었거나 윈도우 밖으로 만료됨)
      */
     public boolean removeProcessed(String id) {
-        return processedIds.remove(id);
+        if (id == null || journalDir != null) return false; // persistent: 기록과 어긋나지 않도록 지우지 않음
+        return removeKey(MessageIdSet.hi(id), MessageIdSet.lo(id));
+    }
+
+    private boolean removeKey(long hi, long lo) {
+        for (Bucket b : live) {
+            if (b.filter != null && !b.filter.mightContain(hi, lo)) continue; // 확실히 없음
+            if (b.ids.remove(hi, lo)) {
+                entries.decrement();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 배치 처리 완료 후 여러 ID를 한 번에 제거
+     *
+     * @param ids 메시지 고유 ID 목록
+     */
+    public void removeProcessed(Collection<String> ids) {
+        if (journalDir != null) return;
+        for (String id : ids) {
+            removeProcessed(id);
+        }
     }
 
     /**
      * 테스트/리셋용: 모든 기록 초기화
      */
-    public void clear() {
-        processedIds.clear();
+    public synchronized void clear() {
+        for (Bucket b : live) b.deleteJournal();
+        live = new Bucket[]{newBucket(System.currentTimeMillis() / bucketMs, 0)};
+        entries.reset();
+    }
+
+    /** 종료: 기록 파일 force 후 닫음 (다음 시작 때 그대로 되살림) */
+    @PreDestroy
+    public synchronized void close() {
+        for (Bucket b : live) {
+            if (b.journal != null) b.journal.close();
+        }
+    }
+
+    /** persistent 모드인지 (removeProcessed가 아무것도 지우지 않음) */
+    public boolean isPersistent() {
+        return journalDir != null;
+    }
+
+    /** 보관 중인 ID 수 (근사) */
+    public long size() {
+        return Math.max(0, entries.sum());
+    }
+
+    /** ID 테이블이 차지하는 바이트 (살아 있는 버킷 합) */
+    public long memoryBytes() {
+        long total = 0;
+        for (Bucket b : live) total += b.ids.memoryBytes();
+        return total;
+    }
+
+    /** 필터 조회 수 (버킷 단위, 필터 꺼짐이면 0) */
+    public long filterChecks() {
+        return filterChecks.sum();
+    }
+
+    /** 필터가 "확실히 없음"으로 ID 테이블 조회를 건너뛴 수 */
+    public long filterSkips() {
+        return filterSkips.sum();
+    }
+
+    /** 필터 오탐 수 ("있을 수도"였지만 ID 테이블에 없음, 조회 1번이 헛수고된 경우) */
+    public long filterFalsePositives() {
+        return filterFalsePositives.sum();
+    }
+
+    /** 필터 비트 배열 바이트 (살아 있는 버킷 합) */
+    public long filterBytes() {
+        long total = 0;
+        for (Bucket b : live) {
+            if (b.filter != null) total += b.filter.memoryBytes();
+        }
+        return total;
+    }
+
+    /** 건수 상한으로 기간 전에 버린 버킷 누적 (0보다 크면 윈도우가 설정보다 짧게 동작한 적 있음) */
+    public long evictedBuckets() {
+        return evictedBuckets.get();
+    }
+
+    // ========================= 버킷 =========================
+
+    /** head를 뺀 살아 있는 버킷에 있는지 (필터가 있으면 "있을 수도"인 버킷만 ID 테이블 조회) */
+    private boolean seenBefore(long hi, long lo, Bucket head) {
+        int checks = 0, skips = 0, falsePositives = 0;
+        boolean found = false;
+        for (Bucket b : live) {
+            if (b == head) continue;
+            if (b.filter != null) {
+                checks++;
+                if (!b.filter.mightContain(hi, lo)) {
+                    skips++;
+                    continue;
+                }
+            }
+            if (b.ids.contains(hi, lo)) {
+                found = true;
+                break;
+            }
+            if (b.filter != null) falsePositives++;
+        }
+        // 통계는 호출당 한 번씩만 더함 (버킷마다 LongAdder를 건드리지 않음)
+        if (checks > 0) {
+            filterChecks.add(checks);
+            if (skips > 0) filterSkips.add(skips);
+            if (falsePositives > 0) filterFalsePositives.add(falsePositives);
+        }
+        return found;
+    }
+
+    private void added() {
+        entries.increment();
+        if (entries.sum() > maxEntries) trim();
+    }
+
+    /** 현재 시각의 버킷 (경계를 넘었으면 회전) */
+    private Bucket current(long now) {
+        Bucket head = live[0];
+        long epoch = now / bucketMs;
+        return (head.epoch >= epoch) ? head : rotate(epoch); // 시계가 뒤로 가면 기존 버킷 유지
+    }
+
+    /** 새 버킷을 앞에 끼우고 윈도우 밖 버킷은 통째로 버림 */
+    private synchronized Bucket rotate(long epoch) {
+        Bucket[] snap = live;
+        if (snap[0].epoch >= epoch) return snap[0];
+        List<Bucket> next = new ArrayList<>(bucketCount);
+        next.add(newBucket(epoch, snap[0].ids.size())); // 직전 버킷 크기로 미리 잡아 재해시를 줄임
+        for (Bucket b : snap) {
+            if (next.size() < bucketCount && b.epoch > epoch - bucketCount) next.add(b);
+            else b.deleteJournal();
+        }
+        publish(next.toArray(new Bucket[0]));
+        return next.get(0);
+    }
+
+    /** 건수 상한 초과: 가장 오래된 버킷 버림 (버킷이 하나뿐이면 그 버킷을 비운 새 버킷으로 교체) */
+    private synchronized void trim() {
+        Bucket[] snap = live;
+        if (entries.sum() <= maxEntries) return;
+        snap[snap.length - 1].deleteJournal(); // 같은 epoch로 새 버킷을 만들 수 있으므로 파일부터 지움
+        Bucket[] next = (snap.length > 1)
+                ? Arrays.copyOf(snap, snap.length - 1)
+                : new Bucket[]{newBucket(snap[0].epoch, 0)};
+        publish(next);
+        long n = evictedBuckets.incrementAndGet();
+        if (n == 1 || n % 100 == 0) {
+            log.warn("[Idempotency] 건수 상한으로 버킷 조기 폐기 | maxEntries={} evictedBuckets={} (윈도우가 설정보다 짧아짐)",
+                    maxEntries, n);
+        }
+    }
+
+    /** 버킷 배열 교체 + 보관 수를 실제 버킷 크기로 다시 맞춤 (락 안에서) */
+    private void publish(Bucket[] next) {
+        live = next;
+        long total = 0;
+        for (Bucket b : next) total += b.ids.size();
+        entries.reset();
+        entries.add(total);
+    }
+
+    /** 새 버킷 (필터는 버킷당 몫과 직전 버킷 크기 중 큰 쪽으로 잡음 → 부하가 몰려도 오탐률 유지) */
+    private Bucket newBucket(long epoch, int expectedSize) {
+        IdJournal journal = (journalDir != null) ? new IdJournal(journalDir, epoch, List.of(), journalChunkBytes) : null;
+        return newBucket(epoch, expectedSize, journal);
+    }
+
+    private Bucket newBucket(long epoch, int expectedSize, IdJournal journal) {
+        IdBloomFilter filter = filterEnabled
+                ? new IdBloomFilter(Math.max(filterEntries, expectedSize), filterFpp)
+                : null;
+        return new Bucket(epoch, expectedSize, filter, journal);
+    }
+
+    // ========================= 재시작 복구 (persistent) =========================
+
+    /**
+     * 기록 파일에서 윈도우 안 버킷을 되살림 (최신 → 오래된 순)
+     * - 윈도우 밖 / buckets개를 넘는 오래된 epoch의 파일은 삭제
+     * - 현재 epoch 버킷이 없으면 새로 만들어 맨 앞에 둠 (있으면 새 청크부터 이어 씀)
+     */
+    private Bucket[] load(long nowEpoch) {
+        long started = System.nanoTime();
+        try {
+            Files.createDirectories(journalDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("[Idempotency] 기록 디렉터리 준비 실패 | dir=" + journalDir, e);
+        }
+        TreeMap<Long, List<Path>> byEpoch = IdJournal.listByEpoch(journalDir); // 디렉터리 목록은 1번만
+
+        List<Bucket> loaded = new ArrayList<>(bucketCount);
+        long restored = 0;
+        for (Map.Entry<Long, List<Path>> e : byEpoch.descendingMap().entrySet()) {
+            long epoch = e.getKey();
+            IdJournal journal = new IdJournal(journalDir, epoch, e.getValue(), journalChunkBytes);
+            if (loaded.size() >= bucketCount || epoch <= nowEpoch - bucketCount) {
+                journal.delete();
+                continue;
+            }
+            int expected = (int) Math.min(Integer.MAX_VALUE, journal.estimate());
+            Bucket b = newBucket(epoch, expected, journal);
+            restored += journal.replay(b::restore); // 파일은 한 번만 훑음
+            loaded.add(b);
+        }
+        if (loaded.isEmpty() || loaded.get(0).epoch < nowEpoch) loaded.add(0, newBucket(nowEpoch, 0));
+        log.info("[Idempotency] 기록에서 복구 | dir={} buckets={} ids={} elapsedMs={}",
+                journalDir, loaded.size(), restored, (System.nanoTime() - started) / 1_000_000);
+        return loaded.toArray(new Bucket[0]);
+    }
+
+    /** 시간 버킷 1개 (epoch = 시각 / bucketMs) */
+    private static final class Bucket {
+        final long epoch;
+        final MessageIdSet ids;
+        final IdBloomFilter filter; // null = 필터 꺼짐
+        final IdJournal journal;    // null = 메모리 전용
+
+        Bucket(long epoch, int expectedSize, IdBloomFilter filter, IdJournal journal) {
+            this.epoch = epoch;
+            this.ids = new MessageIdSet(expectedSize);
+            this.filter = filter;
+            this.journal = journal;
+        }
+
+        /**
+         * 필터 비트를 먼저 세움 (필터 ⊇ ID 테이블 유지 → 다른 스레드가 필터만 보고 놓치지 않음)
+         *
+         * @param record 처음 본 ID면 바로 기록 파일에 씀 (false = 예약, confirm 때 record)
+         */
+        boolean add(long hi, long lo, boolean record) {
+            if (filter != null) filter.put(hi, lo);
+            if (!ids.add(hi, lo)) return false;
+            if (record) record(hi, lo); // 처음 본 ID만 기록
+            return true;
+        }
+
+        void record(long hi, long lo) {
+            if (journal != null) journal.append(hi, lo);
+        }
+
+        /** 기록 파일에서 되살린 키 (다시 기록하지 않음) */
+        void restore(long hi, long lo) {
+            if (filter != null) filter.put(hi, lo);
+            ids.add(hi, lo);
+        }
+
+        void deleteJournal() {
+            if (journal != null) journal.delete();
+        }
     }
-}
\ No newline at end of file
+}
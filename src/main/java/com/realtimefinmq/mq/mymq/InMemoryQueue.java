@@ -3,27 +3,70 @@ package com.realtimefinmq.mq.mymq;
 import com.realtimefinmq.config.MyMqConfig;
 import com.realtimefinmq.mq.Message;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Component;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * InMemoryQueue
  * - MyMQ에서 사용하는 실제 "메모리 기반 메시지 큐"
- * - Java의 BlockingQueue(LinkedBlockingQueue) 기반
+ * - 저장 엔진(MessageBuffer)은 설정으로 선택
+ *   - linked : LinkedBlockingQueue 기반 (기존 방식)
+ *   - ring   : 사전할당 링 버퍼 (RingBufferQueue) + 대기 전략(WaitStrategy)
  * - Producer → offer()로 메시지 적재
  * - Consumer → poll()로 메시지 가져오기
+ * - 파티션마다 하나씩 Broker가 생성 (스프링 Bean 아님)
+ * - spill 활성화 시 2계층 큐
+ *   - 메모리 적재량이 high-water mark에 닿으면 이후 메시지는 디스크 spill 파일(SpillFile)로
+ *   - spill이 남아있는 동안은 새 메시지도 계속 spill로 → 메모리 내용은 항상 spill보다 오래된 것
+ *   - 컨슈머가 메모리를 low-water mark(HWM의 절반) 아래로 비우면 spill 앞부분을 메모리 끝으로 옮김
+ *   → 계층을 넘나들어도 FIFO(키별 순서) 유지, 힙 사용량은 HWM 이하로 일정
+ * - WAL 복구(restore)는 용량을 넘어도 버리지 않음 (로그 커밋이 이미 지나가 다시 읽을 수 없으므로)
+ *   - 넘친 메시지는 overflow에 임시 보관, 남아있는 동안은 가득 찬 것으로 취급 (새 적재 거부 → backpressure)
+ *   - 메모리·spill이 비워지는 대로 overflow 앞부분을 메모리로 옮김 → 복구 순서 유지
  */
 @Slf4j
-@Component
 public class InMemoryQueue {
-    // 내부 큐 (최대 10,000개의 메시지를 저장 가능)
-    private final BlockingQueue<Message> queue;
+    // 내부 큐 (파티션당 최대 capacity개의 메시지를 저장 가능)
+    private final MessageBuffer queue;
 
-    public InMemoryQueue(MyMqConfig cfg) {
-        this.queue = new LinkedBlockingQueue<>(cfg.getQueueSize());
+    // ===== spill 계층 (비활성화 시 spill == null) =====
+    private final SpillFile spill;
+    private final int highWater;             // 메모리 적재 상한 (이상이면 spill)
+    private final int lowWater;              // 이 아래로 내려가면 spill → 메모리 보충
+    private final Object spillLock = new Object();
+    private volatile boolean spilling;       // spill에 메시지가 남아있음 (spillLock 안에서만 변경)
+    private Message carry;                   // spill에서 꺼냈지만 메모리에 못 넣은 1건 (다음 보충 때 먼저)
+    private volatile long spillRecords;      // 지표용 (spillLock 안에서 갱신)
+    private volatile long spillBytes;
+
+    // ===== 복구 overflow (spillLock으로 보호) =====
+    private final ArrayDeque<Message> overflow = new ArrayDeque<>();
+    private volatile boolean overflowing;    // overflow에 메시지가 남아있음
+    private volatile int overflowRecords;    // 지표용
+
+    /**
+     * @param spillMaxBytes 이 큐의 spill 최대 크기 (우선순위 레인은 파티션 한도를 나눠 가짐)
+     * @param name          파티션 로그 이름 (spill 하위 디렉터리 이름)
+     */
+    public InMemoryQueue(int capacity, long spillMaxBytes, MyMqConfig cfg, String name) {
+        this.queue = switch (cfg.getEngine()) {
+            case LINKED -> new LinkedMessageBuffer(capacity);
+            case RING -> new RingBufferQueue(capacity, WaitStrategy.create(cfg.getWaitStrategy()));
+        };
+
+        MyMqConfig.Spill sc = cfg.getSpill();
+        if (sc.isEnabled()) {
+            this.highWater = Math.max(1, Math.min(capacity, (int) (capacity * sc.getHighWaterRatio())));
+            this.lowWater = highWater / 2;
+            this.spill = new SpillFile(Paths.get(sc.getDir(), name), sc.getSegmentBytes(), spillMaxBytes);
+        } else {
+            this.highWater = capacity;
+            this.lowWater = 0;
+            this.spill = null;
+        }
     }
 
     /**
@@ -33,13 +76,90 @@ public class InMemoryQueue {
      * @return true → 성공적으로 큐에 삽입됨 / false → 큐가 가득 차서 삽입 실패
      */
     public boolean offer(Message msg) {
-        boolean check = queue.offer(msg);
+        boolean check = !overflowing && ((spill == null) ? queue.offer(msg) : offerTiered(msg));
         if (!check) {
             log.debug("[InMemoryQueue] 큐 가득참 -> 삽입 실패 | id={}", msg.getId());
         }
         return check;
     }
 
+    /**
+     * WAL 복구 적재 (시작 시, 컨슈머 시작 전)
+     * - 메모리/spill에 못 들어가면 overflow에 보관 → 복구한 메시지는 하나도 버리지 않음
+     *
+     * @return true → 큐(메모리/spill)에 들어감 / false → overflow에 보관 (용량 초과)
+     */
+    public boolean restore(Message msg) {
+        synchronized (spillLock) {
+            if (!overflowing && offer(msg)) return true;
+            overflow.addLast(msg);
+            overflowing = true;
+            overflowRecords = overflow.size();
+            return false;
+        }
+    }
+
+    /**
+     * overflow → 메모리 보충 (spill이 빈 뒤에만, 메모리 HWM까지)
+     * - overflow가 다 비면 overflowing 해제 → 이후 적재는 다시 정상 경로로
+     */
+    private void drainOverflow() {
+        if (!overflowing || queue.size() >= highWater) return;
+        synchronized (spillLock) {
+            if (spilling) return; // spill이 overflow보다 오래됨 → 먼저 비움
+            while (!overflow.isEmpty() && queue.size() < highWater && queue.offer(overflow.peekFirst())) {
+                overflow.pollFirst();
+            }
+            overflowRecords = overflow.size();
+            if (overflow.isEmpty()) overflowing = false;
+        }
+    }
+
+    /**
+     * 2계층 적재
+     * - spill이 비어 있고 메모리가 HWM 미만이면 메모리 (락 없는 fast path)
+     * - 아니면 spillLock 안에서 다시 판단 후 spill 파일로
+     */
+    private boolean offerTiered(Message msg) {
+        if (!spilling && queue.size() < highWater && queue.offer(msg)) return true;
+
+        synchronized (spillLock) {
+            if (!spilling && queue.size() < highWater && queue.offer(msg)) return true;
+            if (!spill.append(msg)) return false;
+            spilling = true;
+            updateSpillStats();
+            return true;
+        }
+    }
+
+    /**
+     * spill → 메모리 보충 (컨슈머 poll 직전에 호출)
+     * - 메모리가 lowWater 아래일 때만, HWM까지 채움
+     * - spill이 다 비면 spilling 해제 → 이후 적재는 다시 메모리로
+     */
+    private void refill() {
+        if (!spilling || queue.size() >= lowWater) return;
+        synchronized (spillLock) {
+            int room = highWater - queue.size();
+            for (int i = 0; i < room; i++) {
+                Message m = (carry != null) ? carry : spill.poll();
+                carry = null;
+                if (m == null) break;
+                if (!queue.offer(m)) {
+                    carry = m; // fast path 경합으로 메모리가 잠깐 가득 참 → 다음 보충 때 순서 그대로
+                    break;
+                }
+            }
+            if (carry == null && spill.isEmpty()) spilling = false;
+            updateSpillStats();
+        }
+    }
+
+    private void updateSpillStats() {
+        spillRecords = spill.records() + (carry != null ? 1 : 0);
+        spillBytes = spill.bytes();
+    }
+
     /**
      * 큐에서 메시지 꺼내기 (Consumer 호출)
      *
@@ -47,8 +167,10 @@ public class InMemoryQueue {
      * @return 메시지 (없으면 null)
      */
     public Message poll(long timeoutMs) {
+        if (spill != null) refill();
+        drainOverflow();
         try {
-            return queue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+            return queue.poll(timeoutMs);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.warn("[InMemoryQueue] poll 인터럽트 발생", e);
@@ -56,12 +178,112 @@ public class InMemoryQueue {
         }
     }
 
+    /**
+     * 큐에서 메시지 여러 건 꺼내기 (Consumer 배치 호출)
+     * - 첫 건은 최대 timeoutMs 대기, 나머지는 대기 없이 한 번에 drain
+     *
+     * @param sink        꺼낸 메시지를 담을 리스트
+     * @param maxMessages 최대 건수
+     * @param timeoutMs   첫 건 대기 시간 (밀리초)
+     * @return 꺼낸 건수 (없으면 0)
+     */
+    public int pollBatch(List<Message> sink, int maxMessages, long timeoutMs) {
+        Message first = poll(timeoutMs);
+        if (first == null) return 0;
+        sink.add(first);
+        return 1 + queue.drainTo(sink, maxMessages - 1);
+    }
+
+    /**
+     * 맨 앞 메시지 확인 (spill 계층 포함, 꺼내지 않음)
+     * - 메모리가 비어 있으면 spill 앞부분을 먼저 옮겨 와서 확인
+     * - 파티션 소비 락을 잡은 상태에서만 호출
+     */
+    public Message peek() {
+        if (spill != null) refill();
+        drainOverflow();
+        return queue.peek();
+    }
+
+    /**
+     * 맨 앞에서부터 만료된 메시지를 꺼냄 (TTL sweeper)
+     * - 만료되지 않은 메시지를 만나면 멈춤 (FIFO라 토픽 TTL이 같으면 앞쪽부터 만료됨)
+     * - peek 후 poll이므로 파티션 소비 락을 잡은 상태에서만 호출
+     *
+     * @param sink 꺼낸 만료 메시지를 담을 리스트
+     * @return 꺼낸 건수
+     */
+    public int pollExpired(long nowMs, int maxMessages, List<Message> sink) {
+        int n = 0;
+        while (n < maxMessages) {
+            Message head = peek();
+            if (head == null || !head.isExpired(nowMs)) break;
+            Message m = poll(0);
+            if (m == null) break;
+            sink.add(m);
+            n++;
+        }
+        return n;
+    }
+
     /**
      * 현재 큐에 쌓여있는 메시지 개수
      *
      * @return 큐 크기
      */
     public int size() {
-        return queue.size();
+        return queue.size() + (int) Math.min(Integer.MAX_VALUE, spillRecords) + overflowRecords;
+    }
+
+    /** spill 파일에 남은 메시지 수 */
+    public long spillRecords() {
+        return spillRecords;
+    }
+
+    /** spill 파일에 남은 바이트 */
+    public long spillBytes() {
+        return spillBytes;
+    }
+
+    /** spill 파일 정리 (종료 시) */
+    public void close() {
+        if (spill == null) return;
+        synchronized (spillLock) {
+            spill.close();
+        }
+    }
+
+    /**
+     * 빈 자리가 생길 때까지 대기 (BLOCK 정책)
+     * - 엔진과 무관하게 parkNanos 백오프(10µs → 최대 1ms)로 재확인
+     *   (컨슈머가 배치로 비우므로 자리는 한꺼번에 생김)
+     *
+     * @param msg           넣으려는 메시지 (spill 여유는 메시지 크기로 판단)
+     * @param deadlineNanos System.nanoTime() 기준 마감 시각
+     * @return true → 자리 있음 / false → 시간 초과 또는 인터럽트
+     */
+    public boolean awaitNotFull(Message msg, long deadlineNanos) {
+        long backoffNs = 10_000;
+        while (isFull(msg)) {
+            long remaining = deadlineNanos - System.nanoTime();
+            if (remaining <= 0 || Thread.currentThread().isInterrupted()) return false;
+            LockSupport.parkNanos(Math.min(backoffNs, remaining));
+            backoffNs = Math.min(backoffNs * 2, 1_000_000);
+        }
+        return true;
+    }
+
+    /**
+     * 이 메시지를 넣을 자리가 없는지 (적재가 직렬화된 상태에서 호출해야 정확)
+     * - spill 계층이면 offer와 같은 판단 (spill 여유는 메시지 크기 기준)
+     *   → false면 바로 이은 offer는 성공 (WAL 기록 후 큐 적재 실패가 없도록)
+     */
+    public boolean isFull(Message msg) {
+        if (overflowing) return true;
+        if (spill == null) return queue.size() >= queue.capacity();
+        if (!spilling && queue.size() < highWater) return false;
+        synchronized (spillLock) {
+            return !spill.canAppend(msg);
+        }
     }
 }
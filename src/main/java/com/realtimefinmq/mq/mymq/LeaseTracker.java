@@ -0,0 +1,295 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.mq.Message;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * LeaseTracker
+ * - 파티션 1개의 in-flight(전달됐지만 아직 ack 안 된) 메시지 추적
+ * - poll된 메시지는 lease(임대)가 되고, visibility timeout 안에 ack 하지 않으면 재전달 대상
+ *
+ * 구조 (메시지당 객체 할당 없음):
+ * - 슬롯 배열 : msgs[] / deadlines[] / generations[] + 빈 슬롯 스택(free[])
+ * - lease ID  : (generation << 32) | slot  → 슬롯 재사용 후 늦게 온 ack/nack는 세대가 달라 무시됨
+ * - 타이머 휠 : tickMs 단위 버킷 배열. 버킷마다 lease ID를 long[]에 쌓아두고,
+ *              reaper가 지나간 틱의 버킷만 훑어 만료 처리 (메시지별 ScheduledFuture 없음)
+ *   모든 lease가 같은 visibility timeout을 쓰므로 휠 한 바퀴(wheelSize * tickMs)를 넘는 만료는 없음
+ * - 재전달 큐 : 만료/nack된 메시지. 컨슈머 poll 시 메인 큐보다 먼저 꺼냄
+ * - 미완료 오프셋: 최소 힙 2개 (pending = 추적 시작, done = 추적 끝), 두 힙의 top이 같으면 함께 버림
+ *   → minPendingOffset이 슬롯 배열을 훑지 않음 (ack마다 호출되므로 O(log n)으로 유지)
+ *   → done이 남은 건수보다 훨씬 커지면 (오래 안 끝나는 메시지 뒤로 쌓임) 남은 메시지로 pending을 다시 만듦
+ *
+ * 동기화: 파티션당 락 1개 (컨슈머 워커 1개 + reaper 스레드만 접근하므로 경합 거의 없음)
+ */
+public class LeaseTracker {
+    private static final int INITIAL_SLOTS = 1024;
+
+    private final long visibilityTimeoutMs;
+    private final long tickMs;
+
+    // ===== 슬롯 =====
+    private Message[] msgs = new Message[INITIAL_SLOTS];
+    private long[] deadlines = new long[INITIAL_SLOTS];
+    private int[] generations = new int[INITIAL_SLOTS];
+    private int[] free = new int[INITIAL_SLOTS];
+    private int freeTop;
+    private int inflight;
+
+    // ===== 타이머 휠 =====
+    private final long[][] wheel;
+    private final int[] wheelSizes;
+    private final int wheelMask;
+    private long currentTick;
+
+    // ===== 재전달 대기 =====
+    private final ArrayDeque<Message> redelivery = new ArrayDeque<>();
+
+    // ===== 미완료 오프셋 (in-flight + 재전달 대기) =====
+    private final LongHeap pendingOffsets = new LongHeap();
+    private final LongHeap doneOffsets = new LongHeap();
+
+    public LeaseTracker(long visibilityTimeoutMs, long tickMs, long nowMs) {
+        this.visibilityTimeoutMs = Math.max(1, visibilityTimeoutMs);
+        this.tickMs = Math.max(1, tickMs);
+        int ticks = (int) Math.min(1 << 20, this.visibilityTimeoutMs / this.tickMs + 2);
+        int size = Integer.highestOneBit(ticks - 1) << 1;
+        this.wheel = new long[size][];
+        this.wheelSizes = new int[size];
+        this.wheelMask = size - 1;
+        this.currentTick = nowMs / this.tickMs;
+        for (int i = 0; i < INITIAL_SLOTS; i++) free[i] = INITIAL_SLOTS - 1 - i;
+        this.freeTop = INITIAL_SLOTS;
+    }
+
+    /**
+     * 메시지들을 lease로 등록
+     *
+     * @param batch    poll된 메시지
+     * @param leaseIds 메시지 순서대로 lease ID를 채울 배열
+     */
+    public synchronized void leaseAll(List<Message> batch, long[] leaseIds, long nowMs) {
+        long deadline = nowMs + visibilityTimeoutMs;
+        for (int i = 0; i < batch.size(); i++) {
+            Message msg = batch.get(i);
+            if (freeTop == 0) grow();
+            int slot = free[--freeTop];
+            int gen = ++generations[slot];
+            msgs[slot] = msg;
+            deadlines[slot] = deadline;
+            msg.setDeliveryCount(msg.getDeliveryCount() + 1);
+            long id = ((long) gen << 32) | slot;
+            schedule(id, deadline);
+            leaseIds[i] = id;
+            track(msg);
+        }
+        inflight += batch.size();
+    }
+
+    /**
+     * ack: 처리 완료된 lease 해제
+     *
+     * @return 실제로 해제된 건수 (이미 만료/재전달된 lease는 제외)
+     */
+    public synchronized int ackAll(long[] leaseIds, int n) {
+        int acked = 0;
+        for (int i = 0; i < n; i++) {
+            if (release(leaseIds[i]) != null) acked++;
+        }
+        return acked;
+    }
+
+    /**
+     * lease 해제 후 메시지 반환 (재전달 없이 호출자가 처분, 예: DLQ 이동)
+     *
+     * @return 해제된 메시지 (이미 만료/재전달됐으면 null)
+     */
+    public synchronized Message take(long leaseId) {
+        return release(leaseId);
+    }
+
+    /** take()로 꺼낸 메시지를 재전달 큐로 (nack) */
+    public synchronized void requeue(Message msg) {
+        redelivery.addLast(msg);
+        track(msg);
+    }
+
+    /**
+     * 타이머 휠을 nowMs까지 진행하며 만료된 lease를 재전달 큐로 이동
+     *
+     * @return 만료 처리한 건수
+     */
+    public synchronized int expire(long nowMs) {
+        long targetTick = nowMs / tickMs;
+        int expired = 0;
+        while (currentTick <= targetTick) {
+            int b = (int) (currentTick & wheelMask);
+            long[] bucket = wheel[b];
+            int size = wheelSizes[b];
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                long id = bucket[i];
+                int slot = (int) id;
+                if (generations[slot] != (int) (id >>> 32) || msgs[slot] == null) continue; // 이미 ack/nack
+                if (deadlines[slot] > nowMs) {
+                    bucket[kept++] = id; // 아직 남음 (같은 버킷, 다음 바퀴)
+                    continue;
+                }
+                Message msg = release(id);
+                redelivery.addLast(msg);
+                track(msg);
+                expired++;
+            }
+            wheelSizes[b] = kept;
+            if (currentTick == targetTick) break;
+            currentTick++;
+        }
+        return expired;
+    }
+
+    /** 재전달 대기 메시지를 최대 max건 꺼내기 */
+    public synchronized int drainRedelivery(Collection<? super Message> sink, int max) {
+        int n = 0;
+        while (n < max && !redelivery.isEmpty()) {
+            Message msg = redelivery.pollFirst();
+            untrack(msg); // 다시 lease될 때 leaseAll에서 추적 재개
+            sink.add(msg);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 아직 끝나지 않은(in-flight + 재전달 대기) 메시지의 최소 오프셋
+     *
+     * @return 최소 오프셋 (없으면 Long.MAX_VALUE)
+     */
+    public synchronized long minPendingOffset() {
+        while (!pendingOffsets.isEmpty() && !doneOffsets.isEmpty() && pendingOffsets.peek() == doneOffsets.peek()) {
+            pendingOffsets.poll();
+            doneOffsets.poll();
+        }
+        return pendingOffsets.isEmpty() ? Long.MAX_VALUE : pendingOffsets.peek();
+    }
+
+    public synchronized int inflightCount() {
+        return inflight;
+    }
+
+    public synchronized int redeliveryCount() {
+        return redelivery.size();
+    }
+
+    private Message release(long leaseId) {
+        int slot = (int) leaseId;
+        if (slot < 0 || slot >= msgs.length) return null;
+        if (generations[slot] != (int) (leaseId >>> 32)) return null;
+        Message msg = msgs[slot];
+        if (msg == null) return null;
+        msgs[slot] = null;
+        free[freeTop++] = slot;
+        inflight--;
+        untrack(msg);
+        return msg;
+    }
+
+    /** 미완료 오프셋 추적 시작 (lease 등록 / 재전달 대기 진입) */
+    private void track(Message msg) {
+        if (msg.getOffset() >= 0) pendingOffsets.add(msg.getOffset());
+    }
+
+    /** 미완료 오프셋 추적 끝 (lease 해제 / 재전달 대기에서 꺼냄) */
+    private void untrack(Message msg) {
+        if (msg.getOffset() < 0) return;
+        doneOffsets.add(msg.getOffset());
+        if (doneOffsets.size() > 1024 && doneOffsets.size() > 4 * (inflight + redelivery.size())) rebuildOffsets();
+    }
+
+    /** 남은 메시지(in-flight + 재전달 대기)로 pending을 다시 만들고 done은 비움 (분할 상환 O(1)) */
+    private void rebuildOffsets() {
+        pendingOffsets.clear();
+        doneOffsets.clear();
+        for (Message m : msgs) {
+            if (m != null && m.getOffset() >= 0) pendingOffsets.add(m.getOffset());
+        }
+        for (Message m : redelivery) {
+            if (m.getOffset() >= 0) pendingOffsets.add(m.getOffset());
+        }
+    }
+
+    private void schedule(long id, long deadline) {
+        int b = (int) ((deadline / tickMs) & wheelMask);
+        long[] bucket = wheel[b];
+        int size = wheelSizes[b];
+        if (bucket == null) {
+            bucket = wheel[b] = new long[64];
+        } else if (size == bucket.length) {
+            bucket = wheel[b] = Arrays.copyOf(bucket, size * 2);
+        }
+        bucket[size] = id;
+        wheelSizes[b] = size + 1;
+    }
+
+    /** long 최소 힙 (박싱 없음) */
+    private static final class LongHeap {
+        private long[] heap = new long[64];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long peek() {
+            return heap[0];
+        }
+
+        void add(long v) {
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= v) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = v;
+        }
+
+        long poll() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+                if (heap[child] >= last) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    private void grow() {
+        int old = msgs.length;
+        int cap = old * 2;
+        msgs = Arrays.copyOf(msgs, cap);
+        deadlines = Arrays.copyOf(deadlines, cap);
+        generations = Arrays.copyOf(generations, cap);
+        free = Arrays.copyOf(free, cap);
+        for (int s = cap - 1; s >= old; s--) free[freeTop++] = s;
+    }
+}
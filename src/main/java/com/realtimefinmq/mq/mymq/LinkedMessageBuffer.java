@@ -0,0 +1,53 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.mq.Message;
+
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LinkedMessageBuffer
+ * - 기존 방식: LinkedBlockingQueue 기반 (메시지마다 노드 할당, put/take 락)
+ * - 링 버퍼와 비교하기 위한 기준 엔진
+ */
+public class LinkedMessageBuffer implements MessageBuffer {
+    private final BlockingQueue<Message> queue;
+    private final int capacity;
+
+    public LinkedMessageBuffer(int capacity) {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean offer(Message msg) {
+        return queue.offer(msg);
+    }
+
+    @Override
+    public Message poll(long timeoutMs) throws InterruptedException {
+        return queue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Message> sink, int maxMessages) {
+        return queue.drainTo(sink, maxMessages); // takeLock 1회로 여러 건
+    }
+
+    @Override
+    public Message peek() {
+        return queue.peek();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,50 @@
+package com.realtimefinmq.mq.mymq;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * MappedBuffers
+ * - 메모리 매핑 명시적 해제 (sun.misc.Unsafe.invokeCleaner, JDK 9+)
+ * - 매핑은 원래 GC가 버퍼를 회수할 때 풀림 → 그 전까지는 파일을 지워도 디스크 공간이 반환되지 않음
+ *   → 다 쓴 파일을 지우기 직전에 바로 해제
+ * - 해제한 버퍼에 다시 접근하면 JVM이 죽음 → 버퍼를 아무도 참조하지 않는 것이 확실할 때만 호출 (호출자 락 안에서)
+ * - Unsafe를 쓸 수 없는 환경이면 GC에 맡김 (시작 시 1번 경고)
+ */
+@Slf4j
+final class MappedBuffers {
+    private static final MethodHandle INVOKE_CLEANER = lookupCleaner();
+
+    private MappedBuffers() {
+    }
+
+    /** 매핑 해제 (실패하면 GC에 맡김) */
+    static void unmap(MappedByteBuffer buf) {
+        if (buf == null || INVOKE_CLEANER == null) return;
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buf);
+        } catch (Throwable e) {
+            log.warn("[Mmap] 매핑 해제 실패 → GC 시 해제 | 이유={}", e.toString());
+        }
+    }
+
+    private static MethodHandle lookupCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field f = unsafeClass.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            MethodHandle h = MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner",
+                    MethodType.methodType(void.class, ByteBuffer.class));
+            return h.bindTo(f.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("[Mmap] 매핑 명시 해제 불가 → 지운 파일의 디스크 공간은 GC 후 반환 | 이유={}", e.toString());
+            return null;
+        }
+    }
+}
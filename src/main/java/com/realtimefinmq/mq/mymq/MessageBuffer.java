@@ -0,0 +1,49 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.mq.Message;
+
+import java.util.Collection;
+
+/**
+ * MessageBuffer
+ * - InMemoryQueue 내부의 실제 저장 엔진 추상화
+ * - LinkedMessageBuffer(LinkedBlockingQueue) / RingBufferQueue(사전할당 링 버퍼) 두 구현을
+ *   MyMqConfig.engine 설정으로 바꿔 끼워 같은 조건에서 비교 측정
+ */
+public interface MessageBuffer {
+
+    /**
+     * 비블로킹 적재
+     *
+     * @return true → 적재 성공 / false → 가득 참
+     */
+    boolean offer(Message msg);
+
+    /**
+     * 메시지 꺼내기 (최대 timeoutMs 대기, 0이면 즉시 반환)
+     *
+     * @return 메시지 (없으면 null)
+     */
+    Message poll(long timeoutMs) throws InterruptedException;
+
+    /**
+     * 대기 없이 최대 maxMessages건을 한 번에 꺼내 sink에 담기
+     *
+     * @return 꺼낸 건수
+     */
+    int drainTo(Collection<? super Message> sink, int maxMessages);
+
+    /**
+     * 맨 앞 메시지 확인 (꺼내지 않음)
+     * - 소비자가 하나일 때만 peek 후 poll이 같은 메시지를 가리킴 (호출자가 파티션 락으로 보장)
+     *
+     * @return 메시지 (없으면 null)
+     */
+    Message peek();
+
+    /** 현재 적재된 메시지 수 */
+    int size();
+
+    /** 최대 적재 가능 수 */
+    int capacity();
+}
@@ -0,0 +1,289 @@
+package com.realtimefinmq.mq.mymq;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * MessageIdSet
+ * - 메시지 ID 집합 (중복 판별 전용), 문자열 대신 128비트 키(long 2개)를 long[]에 직접 저장
+ *   → 항목당 슬롯 16바이트 (적재율 포함 약 20~40바이트, ConcurrentHashMap + String은 항목당 약 150바이트)
+ *   → 조회가 배열 연속 구간만 훑으므로 노드/문자열 포인터를 따라가는 캐시 미스가 없음
+ * - ID → 키: 표준 UUID 문자열(8-4-4-4-12)은 그 128비트 그대로 (충돌 없음)
+ *   그 밖의 ID는 서로 다른 64비트 해시 2개 (충돌 확률 약 n²/2^129, 사실상 0)
+ *
+ * 구조 (open addressing):
+ * - 해시 상위 6비트로 스트라이프(64개) 선택, 하위 비트로 스트라이프 안 슬롯 선택 (선형 탐사)
+ * - (0, 0)은 빈 슬롯 표시 → 실제 키 (0, 0)은 (0, 1)로 바꿔 저장
+ * - 삭제는 뒤쪽 항목을 당겨 채움 (backward shift, 묘비 없음 → 삭제가 많아도 탐사가 길어지지 않음)
+ * - 적재율 0.6을 넘으면 그 스트라이프만 2배로 재해시
+ *
+ * 동기화:
+ * - 추가/삭제는 스트라이프 쓰기 락 (스트라이프 64개 → 프로듀서끼리 거의 안 부딪힘)
+ * - 조회는 StampedLock 낙관적 읽기 (락 없이 탐사 후 검증, 그 사이 쓰기가 있었을 때만 읽기 락으로 재시도)
+ */
+public final class MessageIdSet {
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private static final int MIN_SLOTS = 16;
+    private static final double MAX_LOAD = 0.6;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * @param expectedSize 예상 항목 수 (초기 테이블 크기 힌트, 넘으면 스트라이프별로 자라남)
+     */
+    public MessageIdSet(int expectedSize) {
+        int slots = slotsFor(Math.max(0, expectedSize) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe(slots);
+    }
+
+    /** @return true → 새로 추가됨, false → 이미 있음 */
+    public boolean add(String id) {
+        return add(hi(id), lo(id));
+    }
+
+    public boolean contains(String id) {
+        return contains(hi(id), lo(id));
+    }
+
+    /** @return true → 있어서 제거함 */
+    public boolean remove(String id) {
+        return remove(hi(id), lo(id));
+    }
+
+    public boolean add(long hi, long lo) {
+        if ((hi | lo) == 0) lo = 1;
+        long h = mix(hi, lo);
+        return stripeOf(h).add(hi, lo, h);
+    }
+
+    public boolean contains(long hi, long lo) {
+        if ((hi | lo) == 0) lo = 1;
+        long h = mix(hi, lo);
+        return stripeOf(h).contains(hi, lo, h);
+    }
+
+    public boolean remove(long hi, long lo) {
+        if ((hi | lo) == 0) lo = 1;
+        long h = mix(hi, lo);
+        return stripeOf(h).remove(hi, lo, h);
+    }
+
+    /** 항목 수 (스트라이프별 값의 합, 동시 추가 중이면 근사) */
+    public int size() {
+        int total = 0;
+        for (Stripe s : stripes) total += s.size;
+        return total;
+    }
+
+    /** 테이블이 차지하는 바이트 (지표용) */
+    public long memoryBytes() {
+        long total = 0;
+        for (Stripe s : stripes) total += (long) s.table.length * Long.BYTES;
+        return total;
+    }
+
+    public void clear() {
+        for (Stripe s : stripes) s.clear();
+    }
+
+    private Stripe stripeOf(long h) {
+        return stripes[(int) (h >>> (64 - STRIPE_BITS))];
+    }
+
+    // ========================= ID → 128비트 키 =========================
+
+    /** 키 상위 64비트 (UUID면 most significant bits) */
+    public static long hi(String id) {
+        if (isUuid(id)) {
+            long a = hex(id, 0, 8), b = hex(id, 9, 13), c = hex(id, 14, 18);
+            if ((a | b | c) >= 0) return (a << 32) | (b << 16) | c;
+        }
+        return hash(id, 0x9E3779B97F4A7C15L);
+    }
+
+    /** 키 하위 64비트 (UUID면 least significant bits) */
+    public static long lo(String id) {
+        if (isUuid(id)) {
+            long a = hex(id, 19, 23), b = hex(id, 24, 36);
+            if ((a | b) >= 0) return (a << 48) | b;
+        }
+        return hash(id, 0xC2B2AE3D27D4EB4FL);
+    }
+
+    private static boolean isUuid(String id) {
+        return id.length() == 36
+                && id.charAt(8) == '-' && id.charAt(13) == '-' && id.charAt(18) == '-' && id.charAt(23) == '-';
+    }
+
+    /** id[from, to)를 16진수로 해석 (16진수가 아닌 글자가 있으면 -1) */
+    private static long hex(String id, int from, int to) {
+        long v = 0;
+        for (int i = from; i < to; i++) {
+            int d = Character.digit(id.charAt(i), 16);
+            if (d < 0) return -1;
+            v = (v << 4) | d;
+        }
+        return v;
+    }
+
+    /** UUID가 아닌 ID의 64비트 해시 (seed별로 독립) */
+    private static long hash(String id, long seed) {
+        long h = seed ^ id.length();
+        for (int i = 0; i < id.length(); i++) {
+            h = (h ^ id.charAt(i)) * 0x100000001B3L + seed;
+        }
+        return fmix(h);
+    }
+
+    /** 키 해시 (스트라이프/슬롯 선택용, 컨슈머 DedupeWindow도 사용) */
+    public static long mix(long hi, long lo) {
+        return fmix(hi * 0x9E3779B97F4A7C15L ^ lo);
+    }
+
+    /** murmur3 64비트 마무리 섞기 (IdBloomFilter도 사용) */
+    static long fmix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int slotsFor(int entries) {
+        long need = (long) Math.ceil(entries / MAX_LOAD);
+        int slots = MIN_SLOTS;
+        while (slots < need && slots < (1 << 29)) slots <<= 1;
+        return slots;
+    }
+
+    // ========================= 스트라이프 =========================
+
+    /** 선형 탐사 테이블 1개: table[2i] = hi, table[2i+1] = lo */
+    private static final class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private long[] table;
+        private volatile int size;
+        private int threshold;
+
+        Stripe(int slots) {
+            init(slots);
+        }
+
+        private void init(int slots) {
+            table = new long[slots * 2];
+            threshold = (int) (slots * MAX_LOAD);
+        }
+
+        boolean contains(long hi, long lo, long h) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                boolean found = find(table, hi, lo, h) >= 0;
+                if (lock.validate(stamp)) return found;
+            }
+            stamp = lock.readLock();
+            try {
+                return find(table, hi, lo, h) >= 0;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        boolean add(long hi, long lo, long h) {
+            long stamp = lock.writeLock();
+            try {
+                long[] t = table;
+                int mask = (t.length >>> 1) - 1;
+                for (int i = (int) h & mask, n = 0; n <= mask; i = (i + 1) & mask, n++) {
+                    long a = t[i << 1], b = t[(i << 1) + 1];
+                    if (a == hi && b == lo) return false;
+                    if ((a | b) == 0) {
+                        t[i << 1] = hi;
+                        t[(i << 1) + 1] = lo;
+                        if (++size > threshold) grow();
+                        return true;
+                    }
+                }
+                throw new IllegalStateException("MessageIdSet 스트라이프가 가득 참");
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        boolean remove(long hi, long lo, long h) {
+            long stamp = lock.writeLock();
+            try {
+                long[] t = table;
+                int i = find(t, hi, lo, h);
+                if (i < 0) return false;
+                shiftBack(t, i);
+                size--;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                init(MIN_SLOTS);
+                size = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * 슬롯 번호 (없으면 -1)
+         * - 낙관적 읽기 중엔 테이블이 바뀌고 있을 수 있음 → 탐사 횟수를 슬롯 수로 제한 (결과는 validate로 버려짐)
+         */
+        private static int find(long[] t, long hi, long lo, long h) {
+            int mask = (t.length >>> 1) - 1;
+            for (int i = (int) h & mask, n = 0; n <= mask; i = (i + 1) & mask, n++) {
+                long a = t[i << 1], b = t[(i << 1) + 1];
+                if (a == hi && b == lo) return i;
+                if ((a | b) == 0) return -1;
+            }
+            return -1;
+        }
+
+        /** 빈 슬롯 i 뒤의 연속 구간에서 제자리로 당길 수 있는 항목을 당겨 채움 (쓰기 락 안에서) */
+        private static void shiftBack(long[] t, int i) {
+            int mask = (t.length >>> 1) - 1;
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                long a = t[j << 1], b = t[(j << 1) + 1];
+                if ((a | b) == 0) break;
+                int home = (int) mix(a, b) & mask;
+                // home이 (i, j] 순환 구간 안이면 j 항목은 i로 옮기면 안 됨 (자기 자리보다 앞으로 가게 됨)
+                boolean between = (i <= j) ? (i < home && home <= j) : (i < home || home <= j);
+                if (between) continue;
+                t[i << 1] = a;
+                t[(i << 1) + 1] = b;
+                i = j;
+            }
+            t[i << 1] = 0;
+            t[(i << 1) + 1] = 0;
+        }
+
+        /** 2배 크기로 재해시 (쓰기 락 안에서, 새 배열 교체 → 낙관적 읽기는 validate 실패로 재시도) */
+        private void grow() {
+            long[] old = table;
+            int slots = old.length;          // 슬롯 수 2배 = 현재 배열 길이
+            if (slots > (1 << 29)) return;    // 상한 (호출자가 건수 상한을 따로 둠)
+            init(slots);
+            long[] t = table;
+            int mask = slots - 1;
+            for (int k = 0; k < old.length; k += 2) {
+                long a = old[k], b = old[k + 1];
+                if ((a | b) == 0) continue;
+                int i = (int) mix(a, b) & mask;
+                while ((t[i << 1] | t[(i << 1) + 1]) != 0) i = (i + 1) & mask;
+                t[i << 1] = a;
+                t[(i << 1) + 1] = b;
+            }
+        }
+    }
+}
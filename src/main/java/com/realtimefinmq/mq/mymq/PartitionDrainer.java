@@ -0,0 +1,14 @@
+package com.realtimefinmq.mq.mymq;
+
+/**
+ * CALLER_RUNS 정책용: 호출 스레드에서 파티션 1개를 한 배치 소비
+ * - 컨슈머가 Broker에 등록 (Broker는 컨슈머에 의존하지 않음)
+ */
+@FunctionalInterface
+public interface PartitionDrainer {
+
+    /**
+     * @return 처리한 메시지 수
+     */
+    int drain(Topic topic, int partition);
+}
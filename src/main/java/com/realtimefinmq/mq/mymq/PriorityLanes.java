@@ -0,0 +1,181 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.mq.Message;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * PriorityLanes
+ * - 파티션 1개의 우선순위 레인 묶음 (레인마다 InMemoryQueue 1개)
+ * - 파티션 큐 용량(queue-size)과 spill 한도(spill.max-bytes)를 레인 수로 나눠 가짐
+ *   → 레인을 늘려도 파티션 전체의 메모리/디스크 상한은 그대로 (레인 하나는 그 몫까지만 적재)
+ *   → bulk 레인에 수천 건이 밀려도 high 레인 메시지는 그 뒤에 줄 서지 않음
+ * - Message.priority = 레인 번호 (0이 가장 높음, 없으면 토픽 기본 레인)
+ * - 꺼내는 정책 (custom-mq.priority.policy)
+ *   - STRICT   : 높은 레인이 빌 때까지 낮은 레인은 꺼내지 않음 (낮은 레인 기아 가능)
+ *   - WEIGHTED : 배치 크기를 레인 가중치 비율로 나눠 꺼내고, 남는 자리는 높은 레인부터 채움 (기아 없음)
+ * - 순서는 레인 안에서만 보장 (같은 key를 다른 레인으로 보내면 레인 간 순서는 보장 안 됨)
+ * - 레인이 1개면 InMemoryQueue와 같은 동작 (첫 건 블로킹 대기 포함)
+ *
+ * 동기화: 적재는 여러 프로듀서, 꺼내기·peek은 파티션 소비 락을 잡은 한 스레드
+ */
+public class PriorityLanes {
+    private static final long MAX_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final InMemoryQueue[] lanes;
+    private final int[] weights;
+    private final int totalWeight;
+    private final boolean strict;
+    private final int defaultLane;
+
+    /**
+     * @param name        파티션 로그 이름 (레인별 spill 디렉터리 이름의 앞부분)
+     * @param defaultLane priority가 없는 메시지의 레인
+     */
+    public PriorityLanes(int capacity, MyMqConfig cfg, String name, int defaultLane) {
+        MyMqConfig.Priority pc = cfg.getPriority();
+        int n = Math.max(1, pc.getLanes().size());
+        this.lanes = new InMemoryQueue[n];
+        this.weights = new int[n];
+        long spillMaxBytes = cfg.getSpill().getMaxBytes() / n;
+        int sum = 0;
+        for (int l = 0; l < n; l++) {
+            int laneCapacity = Math.max(1, capacity / n + ((l < capacity % n) ? 1 : 0)); // 나머지는 높은 레인부터 1개씩
+            lanes[l] = new InMemoryQueue(laneCapacity, spillMaxBytes, cfg, (n == 1) ? name : name + "-" + pc.getLanes().get(l));
+            weights[l] = Math.max(1, (l < pc.getWeights().size()) ? pc.getWeights().get(l) : 1);
+            sum += weights[l];
+        }
+        this.totalWeight = sum;
+        this.strict = pc.getPolicy() == MyMqConfig.Priority.Policy.STRICT;
+        this.defaultLane = Math.max(0, Math.min(defaultLane, n - 1));
+    }
+
+    /** 메시지의 레인 번호 (범위 밖이면 가장 가까운 레인) */
+    public int laneOf(Message msg) {
+        Integer p = msg.getPriority();
+        if (p == null) return defaultLane;
+        return Math.max(0, Math.min(p, lanes.length - 1));
+    }
+
+    public boolean offer(Message msg) {
+        return lanes[laneOf(msg)].offer(msg);
+    }
+
+    /** WAL 복구 적재 (용량을 넘으면 레인 overflow에 보관, false 반환) */
+    public boolean restore(Message msg) {
+        return lanes[laneOf(msg)].restore(msg);
+    }
+
+    /** 메시지가 들어갈 레인이 가득 찼는지 */
+    public boolean isFull(Message msg) {
+        return lanes[laneOf(msg)].isFull(msg);
+    }
+
+    /** 메시지가 들어갈 레인에 빈 자리가 생길 때까지 대기 (BLOCK 정책) */
+    public boolean awaitNotFull(Message msg, long deadlineNanos) {
+        return lanes[laneOf(msg)].awaitNotFull(msg, deadlineNanos);
+    }
+
+    /** 메시지가 들어갈 레인의 가장 오래된 메시지 꺼내기 (DROP_OLDEST: 다른 레인은 건드리지 않음, 파티션 소비 락 안에서만 호출) */
+    public Message pollOldest(Message msg) {
+        return lanes[laneOf(msg)].poll(0);
+    }
+
+    /**
+     * 배치 꺼내기 (레인 정책 적용)
+     * - 레인이 여러 개면 비어 있을 때 timeoutMs까지 짧게 쉬며 재확인 (레인 하나에 블로킹하면 다른 레인을 못 봄)
+     *
+     * @return 꺼낸 건수
+     */
+    public int pollBatch(List<Message> sink, int maxMessages, long timeoutMs) {
+        if (lanes.length == 1) return lanes[0].pollBatch(sink, maxMessages, timeoutMs);
+
+        int n = drain(sink, maxMessages);
+        if (n > 0 || timeoutMs <= 0) return n;
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        long backoffNs = 10_000;
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || Thread.currentThread().isInterrupted()) return 0;
+            LockSupport.parkNanos(Math.min(backoffNs, remaining));
+            backoffNs = Math.min(backoffNs * 2, MAX_IDLE_PARK_NANOS);
+            n = drain(sink, maxMessages);
+            if (n > 0) return n;
+        }
+    }
+
+    private int drain(List<Message> sink, int maxMessages) {
+        int taken = 0;
+        if (!strict) {
+            // 1차: 가중치 몫만큼 (몫이 0이 되지 않도록 최소 1, 뒤 레인마다 1자리는 남김 → 배치가 작아도 기아 없음)
+            for (int l = 0; l < lanes.length && taken < maxMessages; l++) {
+                int share = Math.max(1, (int) ((long) maxMessages * weights[l] / totalWeight));
+                int limit = Math.min(share, maxMessages - taken - (lanes.length - 1 - l));
+                if (limit > 0) taken += lanes[l].pollBatch(sink, limit, 0);
+            }
+        }
+        // 2차(STRICT는 전부): 남은 자리를 높은 레인부터 채움 (작업 보존, 빈 레인 몫을 놀리지 않음)
+        for (int l = 0; l < lanes.length && taken < maxMessages; l++) {
+            taken += lanes[l].pollBatch(sink, maxMessages - taken, 0);
+        }
+        return taken;
+    }
+
+    /** 레인마다 앞쪽의 만료 메시지 회수 (TTL sweeper) */
+    public int pollExpired(long nowMs, int maxMessages, List<Message> sink) {
+        int n = 0;
+        for (int l = 0; l < lanes.length && n < maxMessages; l++) {
+            n += lanes[l].pollExpired(nowMs, maxMessages - n, sink);
+        }
+        return n;
+    }
+
+    /**
+     * 아직 꺼내지 않은 메시지 중 가장 작은 오프셋 (커밋 상한)
+     * - 레인 간에는 오프셋 순서로 꺼내지 않으므로 "꺼낸 위치"만으로는 커밋할 수 없음
+     *
+     * @return 모두 비었으면 Long.MAX_VALUE
+     */
+    public long minHeadOffset() {
+        long min = Long.MAX_VALUE;
+        for (InMemoryQueue q : lanes) {
+            Message head = q.peek();
+            if (head != null && head.getOffset() >= 0 && head.getOffset() < min) min = head.getOffset();
+        }
+        return min;
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    public int laneSize(int lane) {
+        return lanes[lane].size();
+    }
+
+    public int size() {
+        int total = 0;
+        for (InMemoryQueue q : lanes) total += q.size();
+        return total;
+    }
+
+    public long spillRecords() {
+        long total = 0;
+        for (InMemoryQueue q : lanes) total += q.spillRecords();
+        return total;
+    }
+
+    public long spillBytes() {
+        long total = 0;
+        for (InMemoryQueue q : lanes) total += q.spillBytes();
+        return total;
+    }
+
+    public void close() {
+        for (InMemoryQueue q : lanes) q.close();
+    }
+}
@@ -0,0 +1,51 @@
+package com.realtimefinmq.mq.mymq;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Sequence
+ * - 링 버퍼의 생산/소비 커서
+ * - 앞뒤로 long 7개씩 패딩해서 커서 하나가 캐시 라인(64B)을 혼자 쓰도록 함
+ *   → 생산자 커서와 소비자 커서가 같은 캐시 라인에 올라가 서로를 무효화하는 false sharing 방지
+ * - 패딩 필드 순서를 JVM이 재배치하지 않도록 상속 계층으로 분리 (Disruptor 방식)
+ */
+public final class Sequence extends SequenceRhsPadding {
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public Sequence(long initial) {
+        VALUE.setRelease(this, initial);
+    }
+
+    public long get() {
+        return value;
+    }
+
+    public void set(long v) {
+        value = v;
+    }
+
+    public boolean compareAndSet(long expected, long next) {
+        return VALUE.compareAndSet(this, expected, next);
+    }
+}
+
+abstract class SequenceLhsPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+abstract class SequenceValue extends SequenceLhsPadding {
+    protected volatile long value;
+}
+
+abstract class SequenceRhsPadding extends SequenceValue {
+    protected long p9, p10, p11, p12, p13, p14, p15;
+}
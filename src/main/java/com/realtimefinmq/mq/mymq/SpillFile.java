@@ -0,0 +1,165 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.mq.Message;
+import com.realtimefinmq.mq.mymq.wal.RecordCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.stream.Stream;
+
+/**
+ * SpillFile
+ * - InMemoryQueue의 디스크 넘침(overflow) 계층: 메모리 매핑된 세그먼트 파일에 FIFO로 적재/소비
+ * - 힙에는 세그먼트 핸들만 남고 메시지 본문은 페이지 캐시에 있음 → 대량 버스트에도 힙 일정
+ * - 레코드 포맷은 WAL과 같은 RecordCodec 사용 (오프셋/타임스탬프 보존)
+ * - 다 읽은 세그먼트는 매핑 해제 후 삭제 (디스크 공간 즉시 반환), 마지막 세그먼트는 비면 처음부터 재사용
+ * - 내구성 대상 아님 (내구성은 WAL 담당) → 시작 시 이전 파일 삭제
+ *
+ * 동기화: 호출자(InMemoryQueue)가 락으로 직렬화
+ */
+@Slf4j
+public class SpillFile implements Closeable {
+    private static final String SUFFIX = ".spill";
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final long maxBytes;
+
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>(); // head(읽기) ~ tail(쓰기)
+    private long nextSegmentId;
+    private long records;   // 남은 레코드 수
+    private long bytes;     // 남은 레코드 바이트 합
+
+    public SpillFile(Path dir, int segmentBytes, long maxBytes) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = Math.max(segmentBytes, maxBytes);
+        try {
+            Files.createDirectories(dir);
+            deleteSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("[Spill] 디렉터리 준비 실패 | dir=" + dir, e);
+        }
+    }
+
+    /**
+     * 메시지 1건 적재
+     *
+     * @return false → maxBytes 한도 초과 (또는 세그먼트보다 큰 메시지)
+     */
+    public boolean append(Message msg) {
+        if (!canAppend(msg)) return false;
+
+        int max = RecordCodec.maxEncodedSize(msg);
+        Segment tail = segments.peekLast();
+        if (tail == null || segmentBytes - tail.writePos < max) tail = openSegment();
+        tail.buf.position(tail.writePos);
+        int n = RecordCodec.encode(tail.buf, msg.getOffset(), msg);
+        tail.writePos += n;
+        records++;
+        bytes += n;
+        return true;
+    }
+
+    /** 가장 오래된 메시지 1건 꺼내기 (없으면 null) */
+    public Message poll() {
+        Segment head = segments.peekFirst();
+        while (head != null && head.readPos == head.writePos) {
+            if (head == segments.peekLast()) {
+                head.readPos = head.writePos = 0; // 마지막 세그먼트는 재사용
+                return null;
+            }
+            segments.pollFirst();
+            head.delete();
+            head = segments.peekFirst();
+        }
+        if (head == null) return null;
+
+        head.buf.position(head.readPos);
+        Message msg = RecordCodec.decode(head.buf).message();
+        bytes -= head.buf.position() - head.readPos;
+        head.readPos = head.buf.position();
+        records--;
+        return msg;
+    }
+
+    public long records() {
+        return records;
+    }
+
+    public long bytes() {
+        return bytes;
+    }
+
+    public boolean isEmpty() {
+        return records == 0;
+    }
+
+    /** 이 메시지를 지금 append할 수 있는지 (append와 같은 판단, 기록하지 않음) */
+    public boolean canAppend(Message msg) {
+        int max = RecordCodec.maxEncodedSize(msg);
+        if (max > segmentBytes) return false;
+        Segment tail = segments.peekLast();
+        if (tail != null && segmentBytes - tail.writePos >= max) return true;
+        return (long) (segments.size() + 1) * segmentBytes <= maxBytes;
+    }
+
+    private Segment openSegment() {
+        Path path = dir.resolve(String.format("%020d%s", nextSegmentId++, SUFFIX));
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Segment s = new Segment(path, ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+            segments.addLast(s);
+            log.debug("[Spill] 세그먼트 생성 | file={}", path);
+            return s;
+        } catch (IOException e) {
+            throw new UncheckedIOException("[Spill] 세그먼트 생성 실패 | file=" + path, e);
+        }
+    }
+
+    private void deleteSegments() throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            for (Path p : s.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Segment s : segments) s.delete();
+        segments.clear();
+        records = 0;
+        bytes = 0;
+    }
+
+    /** 매핑된 세그먼트 1개 (삭제 시 매핑도 바로 해제 → GC를 기다리지 않고 디스크 공간 반환) */
+    private static final class Segment {
+        final Path path;
+        final MappedByteBuffer buf;
+        int writePos;
+        int readPos;
+
+        Segment(Path path, MappedByteBuffer buf) {
+            this.path = path;
+            this.buf = buf;
+        }
+
+        void delete() {
+            MappedBuffers.unmap(buf);
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("[Spill] 세그먼트 삭제 실패 | file={} | 이유={}", path, e.getMessage());
+            }
+        }
+    }
+}
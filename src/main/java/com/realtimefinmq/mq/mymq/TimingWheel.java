@@ -0,0 +1,133 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.mq.Message;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * TimingWheel (계층형 타이머 휠)
+ * - 지연 메시지(Message.deliverAt)를 전달 시각까지 보관하다가 advance()에서 꺼내줌
+ * - 4단 휠 × 256칸: 1단 = tickMs, 2단 = 256틱, 3단 = 256²틱, 4단 = 256³틱 (tickMs=10ms면 약 46시간)
+ *   → 그보다 먼 메시지는 overflow 목록에 두고 4단 휠이 돌 때마다 다시 배치
+ * - 배치 단(level) = 전달 틱과 현재 틱의 상위 자릿수가 처음 같아지는 단, 칸 = 그 단의 자릿수
+ *   → 현재 틱이 그 칸에 닿으면(하위 자릿수가 모두 0) 한 단 아래로 내려보냄(cascade)
+ * - 등록/만료 모두 O(1), 메시지당 객체 할당 없음 (칸마다 Message[]를 재사용, 타이머 작업 객체 없음)
+ *
+ * 동기화: 호출자(DelayedMessages)가 락으로 직렬화
+ */
+public class TimingWheel {
+    private static final int LEVELS = 4;
+    private static final int BITS = 8;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+
+    private final long tickMs;
+    private final Message[][] buckets = new Message[LEVELS * SLOTS][];
+    private final int[] counts = new int[LEVELS * SLOTS];
+    private final List<Message> overflow = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(long tickMs, long nowMs) {
+        this.tickMs = Math.max(1, tickMs);
+        this.currentTick = nowMs / this.tickMs;
+    }
+
+    /**
+     * 메시지 등록
+     *
+     * @return false → 이미 전달 시각이 지남 (호출자가 바로 전달)
+     */
+    public boolean add(Message msg) {
+        long t = msg.getDeliverAt() / tickMs;
+        if (t <= currentTick) return false;
+        place(msg, t);
+        size++;
+        return true;
+    }
+
+    private void place(Message msg, long t) {
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = BITS * (level + 1);
+            if ((t >>> shift) == (currentTick >>> shift)) {
+                push(level * SLOTS + (int) ((t >>> (BITS * level)) & MASK), msg);
+                return;
+            }
+        }
+        overflow.add(msg);
+    }
+
+    private void push(int bucket, Message msg) {
+        Message[] b = buckets[bucket];
+        int n = counts[bucket];
+        if (b == null) {
+            b = buckets[bucket] = new Message[16];
+        } else if (n == b.length) {
+            b = buckets[bucket] = Arrays.copyOf(b, n * 2);
+        }
+        b[n] = msg;
+        counts[bucket] = n + 1;
+    }
+
+    /**
+     * 시계를 nowMs까지 진행하며 전달 시각이 된 메시지를 due에 추가
+     * - 지나간 틱마다 상위 단 칸을 내려보내고 1단 칸을 비움 (멈춰 있던 시간이 길어도 틱 수만큼만)
+     *
+     * @return 꺼낸 건수
+     */
+    public int advance(long nowMs, Collection<Message> due) {
+        long target = nowMs / tickMs;
+        int released = 0;
+        while (currentTick < target) {
+            currentTick++;
+            cascade();
+            int bucket = (int) (currentTick & MASK);
+            int n = counts[bucket];
+            if (n == 0) continue;
+            Message[] b = buckets[bucket];
+            for (int i = 0; i < n; i++) {
+                due.add(b[i]);
+                b[i] = null;
+            }
+            counts[bucket] = 0;
+            released += n;
+        }
+        size -= released;
+        return released;
+    }
+
+    /**
+     * 현재 틱의 하위 자릿수가 0이 된 단의 칸을 아래 단으로 재배치
+     * - 위 단부터 내려옴 (위에서 내려온 메시지가 이번 틱에 비울 아래 칸에 들어갈 수 있으므로)
+     */
+    private void cascade() {
+        int top = 0;
+        while (top + 1 < LEVELS && (currentTick & ((1L << (BITS * (top + 1))) - 1)) == 0) top++;
+        if (top == 0) return;
+
+        // 4단 휠이 한 칸 돌 때마다 overflow 재배치
+        if (top == LEVELS - 1 && !overflow.isEmpty()) {
+            Message[] far = overflow.toArray(new Message[0]);
+            overflow.clear();
+            for (Message m : far) place(m, m.getDeliverAt() / tickMs);
+        }
+        for (int level = top; level >= 1; level--) {
+            int bucket = level * SLOTS + (int) ((currentTick >>> (BITS * level)) & MASK);
+            int n = counts[bucket];
+            Message[] b = buckets[bucket];
+            counts[bucket] = 0;
+            for (int i = 0; i < n; i++) {
+                place(b[i], b[i].getDeliverAt() / tickMs); // 항상 더 아래 단으로 감
+                b[i] = null;
+            }
+        }
+    }
+
+    /** 보관 중인 메시지 수 */
+    public int size() {
+        return size;
+    }
+}
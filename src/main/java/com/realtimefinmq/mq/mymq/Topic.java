@@ -0,0 +1,688 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.metrics.MyMqMetricsService;
+import com.realtimefinmq.mq.Message;
+import com.realtimefinmq.mq.mymq.wal.SegmentedLog;
+import com.realtimefinmq.mq.mymq.wal.WriteAheadLog;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Topic
+ * - 이름 있는 메시지 스트림 1개 (파티션 큐 + WAL + lease + DLQ 묶음)
+ * - 토픽마다 파티션 수 / 큐 용량 / 보존 설정이 독립적 → 한 토픽이 밀려도 다른 토픽은 영향 없음 (head-of-line blocking 방지)
+ * - Broker가 시작 시 생성해 불변 레지스트리에 등록 (스프링 Bean 아님)
+ * - 컨슈머는 Topic 참조를 들고 파티션 단위로 pollBatch → ack/nack (핫패스에 이름 조회 없음)
+ * - 컨슈머 그룹(ConsumerGroup)은 메인 큐와 별개로 파티션 WAL을 자기 오프셋으로 읽음 (WAL 필요)
+ */
+@Slf4j
+public class Topic {
+    private final String name;
+    private final Settings settings;
+
+    private final PriorityLanes[] partitions; // 파티션별 메시지 큐 (우선순위 레인 묶음)
+    private final SegmentedLog[] logs;        // 파티션별 WAL (비활성화 시 null)
+    private final Object[] appendLocks;       // 파티션별 "WAL 기록 + 큐 적재" 원자화용
+    private final LeaseTracker[] leases;      // 파티션별 in-flight lease (ack/nack/재전달)
+    private final long[] polledUpTo;          // 파티션별 메인 큐에서 꺼낸 마지막 오프셋 + 1 (소비 락 안에서 갱신)
+    private final ReentrantLock[] consumeLocks; // 파티션 소비 직렬화 (담당 워커 + CALLER_RUNS 프로듀서 + TTL sweeper)
+    private final DeadLetterQueue dlq;        // 토픽 DLQ
+    private final DelayedMessages delayed;    // deliverAt 전까지 보류하는 지연 메시지
+    private final Map<String, ConsumerGroup> groups = new ConcurrentHashMap<>(); // 로그를 공유하는 컨슈머 그룹
+
+    private final IdempotencyStore idem;
+    private final MyMqMetricsService metrics;
+    private final WriteAheadLog wal;
+    private final int maxDeliveryAttempts;
+    private final BackpressurePolicy backpressure;
+    private final long blockTimeoutNanos;
+    private final long maxDelayMs;
+    private volatile PartitionDrainer drainer; // CALLER_RUNS용 (컨슈머가 등록)
+
+    // key 없는 메시지용 라운드로빈 카운터
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    /**
+     * 토픽별 설정 (상위 custom-mq 값을 기본으로 custom-mq.topics.{이름}에서 덮어씀)
+     *
+     * @param partitions     파티션 수
+     * @param queueSize      파티션당 큐 용량
+     * @param retentionMs    로그 보존 기간 (-1 = 무제한)
+     * @param retentionBytes 파티션 로그 최대 크기 (-1 = 무제한)
+     * @param ttlMs          메시지 TTL (0 = 만료 없음, 메시지에 expiresAt이 있으면 그 값 우선)
+     * @param priorityLane   priority 없는 메시지의 기본 레인 번호 (custom-mq.priority.lanes 순서)
+     * @param compact           key 기반 로그 압축 대상
+     * @param retentionConsumed 모든 컨슈머(메인 큐 + 컨슈머 그룹)가 커밋한 구간의 세그먼트 삭제
+     */
+    public record Settings(int partitions, int queueSize, long retentionMs, long retentionBytes, long ttlMs,
+                           int priorityLane, boolean compact, boolean retentionConsumed) {
+    }
+
+    Topic(String name, Settings settings, MyMqConfig cfg, IdempotencyStore idem,
+          MyMqMetricsService metrics, WriteAheadLog wal) {
+        this.name = name;
+        this.settings = settings;
+        this.idem = idem;
+        this.metrics = metrics;
+        this.wal = wal;
+        this.maxDeliveryAttempts = Math.max(1, cfg.getDlq().getMaxDeliveryAttempts());
+        this.backpressure = cfg.getBackpressure().getPolicy();
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, cfg.getBackpressure().getBlockTimeoutMs()));
+        this.maxDelayMs = cfg.getDelay().getMaxDelayMs();
+
+        int n = settings.partitions();
+        this.partitions = new PriorityLanes[n];
+        this.logs = wal.isEnabled() ? new SegmentedLog[n] : null;
+        this.appendLocks = new Object[n];
+        this.leases = new LeaseTracker[n];
+        this.polledUpTo = new long[n];
+        this.consumeLocks = new ReentrantLock[n];
+        long leaseTickMs = Math.max(1, cfg.getLeaseTickMs());
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < n; i++) {
+            partitions[i] = new PriorityLanes(settings.queueSize(), cfg, logName(i), settings.priorityLane());
+            appendLocks[i] = new Object();
+            consumeLocks[i] = new ReentrantLock();
+            leases[i] = new LeaseTracker(cfg.getVisibilityTimeoutMs(), leaseTickMs, now);
+            if (logs != null) logs[i] = wal.open(logName(i));
+        }
+        this.dlq = new DeadLetterQueue(name, cfg.getDlq().getCapacity(),
+                wal.isEnabled() ? wal.open(DeadLetterQueue.logName(name)) : null, wal);
+        this.delayed = new DelayedMessages(name, cfg.getDelay().getTickMs(), cfg.getDelay().getMaxPending(),
+                wal.isEnabled() ? wal.open(DelayedMessages.logName(name)) : null, wal);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Settings settings() {
+        return settings;
+    }
+
+    /** 파티션 로그 이름 ({토픽}-{파티션}) */
+    public String logName(int partition) {
+        return name + "-" + partition;
+    }
+
+    /** 파티션 수 */
+    public int partitionCount() {
+        return partitions.length;
+    }
+
+    // ========================= 복구 =========================
+
+    /** 파티션 WAL (비활성화 시 null) */
+    SegmentedLog log(int partition) {
+        return (logs == null) ? null : logs[partition];
+    }
+
+    /**
+     * 복구 시작 오프셋 = 커밋 오프셋 (로그 끝보다 크면 로그 끝으로 보정)
+     * - 메인 큐에서 꺼낸 위치도 여기서 시작
+     */
+    long recoveryStart(int p) {
+        String logName = logName(p);
+        long committed = wal.committedOffset(logName);
+        long end = logs[p].nextOffset();
+        if (committed > end) {
+            // fsync 전에 죽어 로그가 커밋 위치보다 짧아진 경우 → 로그 끝으로 되돌림 (오프셋 재사용 대비)
+            log.warn("[Broker] 커밋 오프셋이 로그 끝보다 큼 → 보정 | log={} committed={} end={}", logName, committed, end);
+            wal.resetCommitted(logName, end);
+            committed = end;
+        }
+        polledUpTo[p] = committed;
+        return committed;
+    }
+
+    /**
+     * WAL에서 되살린 메시지를 큐에 다시 적재 (로그에는 다시 쓰지 않음)
+     * - 용량을 넘어도 버리지 않고 큐 overflow에 보관 (커밋 오프셋 이후라 다시 읽을 기회가 없음)
+     *
+     * @return true → 큐에 들어감 / false → 용량 초과로 overflow에 보관
+     */
+    boolean restore(int p, Message msg) {
+        return partitions[p].restore(msg);
+    }
+
+    // ========================= 적재 =========================
+
+    /**
+     * 파티션 큐 적재 (멱등 체크는 Broker에서 끝난 상태)
+     * - deliverAt이 미래면 지연 메시지로 보류 (시각이 되면 releaseDelayed가 큐에 적재)
+     * - 가득 차면 backpressure 정책 적용, 그래도 안 되면 DLQ(QUEUE_FULL)
+     *
+     * @return ENQUEUED(메인 큐 / 지연 보류) / DEAD_LETTERED(DLQ 보관) / REJECTED
+     */
+    EnqueueResult enqueue(Message msg) {
+        long now = System.currentTimeMillis();
+        if (settings.ttlMs() > 0 && msg.getExpiresAt() == 0) {
+            // 토픽 TTL: 전달 가능 시점(지연 메시지는 deliverAt)부터
+            msg.setExpiresAt(Math.max(msg.getTimestamp(), msg.getDeliverAt()) + settings.ttlMs());
+        }
+        if (msg.isExpired(now)) {
+            metrics.recordExpired(1);
+            log.warn("[Broker] 이미 만료된 메시지 → 거부 | topic={} id={} expiresAt={}", name, msg.getId(), msg.getExpiresAt());
+            return EnqueueResult.REJECTED;
+        }
+        if (msg.getDeliverAt() > now) return schedule(msg) ? EnqueueResult.ENQUEUED : EnqueueResult.REJECTED;
+
+        int p = partitionFor(msg.getKey());
+        if (tryOffer(p, msg) || applyBackpressure(p, msg)) return EnqueueResult.ENQUEUED;
+
+        if (deadLetter(msg, p, "QUEUE_FULL", 0)) {
+            log.error("[Broker] 큐 꽉참 → DLQ 이동 | topic={} id={} partition={}", name, msg.getId(), p);
+            return EnqueueResult.DEAD_LETTERED;
+        }
+        log.error("[Broker] 큐 꽉참 + DLQ 꽉참 → 거부 | topic={} id={} partition={}", name, msg.getId(), p);
+        return EnqueueResult.REJECTED;
+    }
+
+    /**
+     * key → 파티션 번호
+     * - String.hashCode()의 상위 비트를 섞어 파티션 수가 작아도 고르게 분산
+     * - key가 없으면 라운드로빈 (순서 보장 대상 아님)
+     */
+    public int partitionFor(String key) {
+        if (key == null) {
+            return Math.floorMod(roundRobin.getAndIncrement(), partitions.length);
+        }
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return Math.floorMod(h, partitions.length);
+    }
+
+    /** 파티션 큐 적재 1회 시도 (WAL 활성화 시 로그 기록 포함) */
+    private boolean tryOffer(int p, Message msg) {
+        return (logs == null) ? partitions[p].offer(msg) : appendAndOffer(p, msg);
+    }
+
+    /**
+     * 큐가 가득 찼을 때 정책별 처리
+     *
+     * @return 결국 적재했으면 true (false면 호출자가 DLQ로)
+     */
+    private boolean applyBackpressure(int p, Message msg) {
+        boolean ok = switch (backpressure) {
+            case REJECT -> false;
+            case BLOCK -> blockAndOffer(p, msg);
+            case DROP_OLDEST -> dropOldestAndOffer(p, msg);
+            case CALLER_RUNS -> callerRunsAndOffer(p, msg);
+        };
+        if (!ok) metrics.recordBackpressureRejected();
+        return ok;
+    }
+
+    /** BLOCK: 빈 자리가 생길 때까지 최대 blockTimeoutMs 대기하며 재시도 */
+    private boolean blockAndOffer(int p, Message msg) {
+        long start = System.nanoTime();
+        long deadline = start + blockTimeoutNanos;
+        try {
+            while (partitions[p].awaitNotFull(msg, deadline)) {
+                if (tryOffer(p, msg)) return true; // 다른 프로듀서가 먼저 차지했으면 다시 대기
+            }
+            return false;
+        } finally {
+            metrics.recordBackpressureBlocked(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * DROP_OLDEST: 같은 레인의 가장 오래된 메시지를 DLQ로 빼고 재시도
+     * - 큐 앞을 꺼내는 것이므로 파티션 소비 락 안에서 (컨슈머 배치 / polledUpTo 갱신과 겹치지 않도록)
+     *   → 락을 못 잡으면(컨슈머가 처리 중) 곧 자리가 나므로 밀어내지 않고 REJECT와 같게 (호출자가 DLQ로)
+     * - 밀려난 메시지는 WAL에는 이미 있지만 lease를 받지 않으므로 커밋은 그 위를 지나감
+     *   (DLQ 로그에 따로 남으므로 유실 아님, DLQ도 가득 차면 유실)
+     */
+    private boolean dropOldestAndOffer(int p, Message msg) {
+        ReentrantLock lock = consumeLocks[p];
+        for (int attempt = 0; attempt < 3; attempt++) {
+            if (!lock.tryLock()) return false;
+            Message oldest;
+            try {
+                oldest = partitions[p].pollOldest(msg);
+                if (oldest != null && oldest.getOffset() >= 0) {
+                    polledUpTo[p] = Math.max(polledUpTo[p], oldest.getOffset() + 1);
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (oldest != null) { // DLQ 기록(내구화 대기 포함)은 소비 락 밖에서
+                metrics.recordBackpressureDroppedOldest();
+                metrics.decUncommitted(1);
+                if (!deadLetter(oldest, p, "DROPPED_OLDEST", oldest.getDeliveryCount())) {
+                    log.error("[Broker] DROP_OLDEST + DLQ 꽉참 → 유실 | topic={} id={} partition={}", name, oldest.getId(), p);
+                }
+            }
+            if (tryOffer(p, msg)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * CALLER_RUNS: 프로듀서 스레드가 그 파티션의 컨슈머 배치 1회를 직접 처리한 뒤 재시도
+     * - 파티션 소비는 컨슈머 쪽 파티션 락으로 직렬화되므로 키별 순서는 유지
+     * - 컨슈머가 등록되지 않았으면 REJECT와 같음
+     */
+    private boolean callerRunsAndOffer(int p, Message msg) {
+        PartitionDrainer d = drainer;
+        if (d == null) return false;
+        long start = System.nanoTime();
+        try {
+            int processed = d.drain(this, p);
+            metrics.recordBackpressureCallerRuns(processed);
+        } finally {
+            metrics.recordBackpressureBlocked(System.nanoTime() - start);
+        }
+        return tryOffer(p, msg);
+    }
+
+    void setDrainer(PartitionDrainer drainer) {
+        this.drainer = drainer;
+    }
+
+    /**
+     * WAL 기록 후 큐 적재
+     * - 파티션 단위로 직렬화해서 로그 오프셋 순서 = 큐 순서가 되도록 함
+     * - 큐가 가득 차면 로그에도 남기지 않음 (복구 시 되살아나지 않도록)
+     * - 내구화(fsync 정책) 대기는 파티션 락을 놓은 뒤 (그동안 같은 파티션의 다른 프로듀서가 같은 fsync에 합류)
+     */
+    private boolean appendAndOffer(int p, Message msg) {
+        boolean ok;
+        long offset;
+        synchronized (appendLocks[p]) {
+            if (partitions[p].isFull(msg)) return false;
+            offset = logs[p].append(msg);
+            msg.setOffset(offset);
+            ok = partitions[p].offer(msg);
+        }
+        logs[p].awaitDurable(offset);
+        return ok;
+    }
+
+    // ========================= 소비 =========================
+
+    /**
+     * 컨슈머용 배치 poll (파티션 지정)
+     * - 재전달 대기(만료/nack) 메시지를 먼저, 나머지는 메인 큐에서
+     * - 메인 큐는 첫 건만 timeoutMs 대기, 이후는 drainTo/링 버퍼 배치 획득으로 락·CAS 1회에 여러 건
+     * - 꺼낸 메시지는 모두 lease가 되며, visibility timeout 안에 ack 하지 않으면 재전달됨
+     * - 한 파티션은 한 컨슈머 스레드만 poll 해야 키별 순서가 유지됨
+     *
+     * @param sink     꺼낸 메시지를 담을 리스트 (호출자가 재사용, 비어 있어야 함)
+     * @param leaseIds sink 순서대로 lease ID를 채울 배열 (길이 >= maxMessages)
+     * @return 꺼낸 건수
+     */
+    public int pollBatch(int partition, int maxMessages, long timeoutMs, List<Message> sink, long[] leaseIds) {
+        int max = Math.max(1, Math.min(maxMessages, leaseIds.length));
+        LeaseTracker tracker = leases[partition];
+
+        int redelivered = tracker.drainRedelivery(sink, max);
+        if (redelivered > 0) {
+            metrics.recordRedelivered(redelivered);
+            redelivered -= deadLetterExhausted(partition, sink);
+        }
+
+        long now = System.currentTimeMillis();
+        if (redelivered < max) {
+            int from = sink.size();
+            int n = partitions[partition].pollBatch(sink, max - redelivered, (redelivered > 0) ? 0 : timeoutMs);
+            if (n > 0) {
+                // 레인이 여러 개면 오프셋 순이 아니므로 최댓값 기준 (커밋은 ack 시 레인 head와 함께 판단)
+                long last = polledUpTo[partition] - 1;
+                for (int i = from; i < sink.size(); i++) {
+                    Message m = sink.get(i);
+                    last = Math.max(last, m.getOffset());
+                    metrics.recordLaneLatency(partitions[partition].laneOf(m),
+                            Math.max(0, now - Math.max(m.getTimestamp(), m.getDeliverAt())));
+                }
+                if (last >= 0) polledUpTo[partition] = last + 1;
+            }
+        }
+
+        int expired = removeExpired(sink, now);
+        if (expired > 0) {
+            metrics.recordExpired(expired);
+            metrics.decUncommitted(expired);
+        }
+
+        if (!sink.isEmpty()) tracker.leaseAll(sink, leaseIds, now);
+        return sink.size();
+    }
+
+    /**
+     * 만료된 메시지를 sink에서 제거 (순서 유지, 한 번 훑기)
+     *
+     * @return 제거한 건수
+     */
+    static int removeExpired(List<Message> sink, long now) {
+        int kept = 0;
+        int size = sink.size();
+        for (int i = 0; i < size; i++) {
+            Message m = sink.get(i);
+            if (m.isExpired(now)) continue;
+            if (kept != i) sink.set(kept, m);
+            kept++;
+        }
+        if (kept < size) sink.subList(kept, size).clear();
+        return size - kept;
+    }
+
+    /**
+     * TTL sweeper: 파티션 큐 앞쪽의 만료 메시지를 꺼내 버림 (컨슈머가 밀린 깊은 큐의 메모리/spill 회수)
+     * - 소비 락을 못 잡으면(컨슈머가 처리 중) 이번엔 건너뜀 → 그 컨슈머가 poll 시 어차피 걸러냄
+     *
+     * @return 회수한 건수
+     */
+    int sweepExpired(int partition, long now, int maxMessages, List<Message> scratch) {
+        ReentrantLock lock = consumeLocks[partition];
+        if (!lock.tryLock()) return 0;
+        try {
+            int n = partitions[partition].pollExpired(now, maxMessages, scratch);
+            if (n == 0) return 0;
+            // 레인이 여러 개면 오프셋 순이 아님 + 이미 더 앞까지 꺼냈을 수 있음 → 뒤로 물리지 않음
+            long last = -1;
+            for (int i = scratch.size() - n; i < scratch.size(); i++) last = Math.max(last, scratch.get(i).getOffset());
+            if (last >= 0) {
+                polledUpTo[partition] = Math.max(polledUpTo[partition], last + 1);
+                commit(partition);
+            }
+            metrics.recordExpired(n);
+            metrics.decUncommitted(n);
+            return n;
+        } finally {
+            lock.unlock();
+            scratch.clear();
+        }
+    }
+
+    /**
+     * 파티션 소비 락 (컨슈머 워커·CALLER_RUNS·TTL sweeper가 같은 파티션을 동시에 꺼내지 않도록)
+     * - pollBatch ~ ack를 이 락 안에서 하면 키별 순서 유지
+     */
+    public ReentrantLock consumeLock(int partition) {
+        return consumeLocks[partition];
+    }
+
+    /**
+     * ack: 처리 완료된 lease 해제 + 커밋 오프셋 전진 (재시작 시 여기서부터 복구)
+     * - 커밋 = min(아직 끝나지 않은 메시지의 최소 오프셋, 메인 큐에서 꺼낸 위치)
+     *   → 재전달 대기 중인 메시지가 있으면 그 앞에서 멈춤
+     *
+     * @return 실제로 ack된 건수 (이미 만료되어 재전달 대기로 간 lease는 제외)
+     */
+    public int ack(int partition, long[] leaseIds, int n) {
+        LeaseTracker tracker = leases[partition];
+        int acked = tracker.ackAll(leaseIds, n);
+        commit(partition);
+        return acked;
+    }
+
+    /**
+     * 커밋 = min(아직 끝나지 않은 메시지의 최소 오프셋, 메인 큐에서 꺼낸 위치, 레인에 남은 최소 오프셋)
+     * - 레인이 1개면 레인 head는 항상 꺼낸 위치 이상이라 앞의 두 값으로 정해짐
+     */
+    private void commit(int partition) {
+        if (logs == null) return;
+        long committed = Math.min(leases[partition].minPendingOffset(), polledUpTo[partition]);
+        committed = Math.min(committed, partitions[partition].minHeadOffset());
+        if (committed > 0) wal.commit(logName(partition), committed);
+    }
+
+    /**
+     * nack: lease 해제 후 즉시 재전달 대기로 (다음 poll에서 다시 전달)
+     * - 최대 전달 횟수에 도달한 메시지는 재전달 대신 DLQ로 (DLQ가 가득 차면 재전달 유지)
+     *
+     * @param reason 실패 사유 (DLQ에 기록)
+     * @return 처리했으면 true (이미 만료/재전달된 lease면 false)
+     */
+    public boolean nack(int partition, long leaseId, String reason) {
+        LeaseTracker tracker = leases[partition];
+        Message msg = tracker.take(leaseId);
+        if (msg == null) return false;
+        metrics.recordNack();
+
+        if (msg.getDeliveryCount() >= maxDeliveryAttempts && deadLetter(msg, partition, reason, msg.getDeliveryCount())) {
+            metrics.decUncommitted(1); // 메인 큐 기준으로는 처리 끝 (DLQ로 이동)
+            log.warn("[Broker] 최대 전달 횟수 초과 → DLQ 이동 | topic={} id={} partition={} attempts={} reason={}",
+                    name, msg.getId(), partition, msg.getDeliveryCount(), reason);
+            return true;
+        }
+        tracker.requeue(msg);
+        return true;
+    }
+
+    /**
+     * 재전달로 꺼낸 메시지 중 최대 전달 횟수에 도달한 것(lease 만료 반복)을 DLQ로 이동
+     *
+     * @return sink에서 제거한 건수
+     */
+    private int deadLetterExhausted(int partition, List<Message> sink) {
+        int removed = 0;
+        for (int i = sink.size() - 1; i >= 0; i--) {
+            Message msg = sink.get(i);
+            if (msg.getDeliveryCount() < maxDeliveryAttempts) continue;
+            if (!deadLetter(msg, partition, "VISIBILITY_TIMEOUT", msg.getDeliveryCount())) continue;
+            sink.remove(i);
+            metrics.decUncommitted(1);
+            removed++;
+            log.warn("[Broker] lease 만료 반복 → DLQ 이동 | topic={} id={} partition={} attempts={}",
+                    name, msg.getId(), partition, msg.getDeliveryCount());
+        }
+        return removed;
+    }
+
+    /** reaper 주기 작업: 타이머 휠을 진행해 만료된 lease를 재전달 대기로 이동 */
+    void expireLeases(long now) {
+        for (int p = 0; p < leases.length; p++) {
+            try {
+                int expired = leases[p].expire(now);
+                if (expired > 0) {
+                    metrics.recordLeaseExpired(expired);
+                    log.warn("[Broker] lease 만료 → 재전달 대기 | topic={} partition={} count={}", name, p, expired);
+                }
+            } catch (Exception e) {
+                log.error("[Broker] lease 만료 처리 실패 | topic={} partition={} | 이유={}", name, p, e.getMessage(), e);
+            }
+        }
+    }
+
+    // ========================= 지연 메시지 =========================
+
+    /** 지연 메시지 보류 (최대 지연 / 보류 한도 초과면 거부) */
+    private boolean schedule(Message msg) {
+        if (msg.getDeliverAt() - System.currentTimeMillis() > maxDelayMs) {
+            log.warn("[Broker] 최대 지연 초과 → 거부 | topic={} id={} deliverAt={}", name, msg.getId(), msg.getDeliverAt());
+            return false;
+        }
+        if (!delayed.schedule(msg)) {
+            log.error("[Broker] 지연 메시지 보류 한도 초과 → 거부 | topic={} id={}", name, msg.getId());
+            return false;
+        }
+        metrics.recordDelayScheduled();
+        return true;
+    }
+
+    /**
+     * scheduler 주기 작업: 시각이 된 지연 메시지를 파티션 큐로 (WAL 기록 포함)
+     * - 큐가 가득 차면 backpressure 정책 대신 다음 틱에 재시도 (스케줄러 스레드를 막지 않음)
+     */
+    void releaseDelayed(long now) {
+        try {
+            int[] expired = new int[1];
+            int moved = delayed.releaseDue(now, msg -> {
+                if (msg.isExpired(now)) {
+                    expired[0]++; // 보류 중 만료 → 큐에 넣지 않고 버림
+                    return true;
+                }
+                return tryOffer(partitionFor(msg.getKey()), msg);
+            });
+            if (moved > 0) metrics.recordDelayReleased(moved - expired[0]);
+            if (expired[0] > 0) {
+                metrics.recordExpired(expired[0]);
+                metrics.decUncommitted(expired[0]);
+            }
+        } catch (Exception e) {
+            log.error("[Broker] 지연 메시지 내보내기 실패 | topic={} | 이유={}", name, e.getMessage(), e);
+        }
+    }
+
+    /** 시작 시 지연 로그 복구 (WAL 비활성화면 0) */
+    int recoverDelayed() {
+        return delayed.recover(msg -> idem.remember(msg.getId()));
+    }
+
+    /** 컨슈머 그룹이 읽다가 건너뛴 만료 메시지 */
+    void recordExpired(int n) {
+        metrics.recordExpired(n);
+    }
+
+    /** 보류 중인 지연 메시지 수 */
+    public long delayedCount() {
+        return delayed.size();
+    }
+
+    // ========================= 컨슈머 그룹 =========================
+
+    /**
+     * 컨슈머 그룹 조회 (없으면 커밋 오프셋에서 시작하는 새 그룹 생성)
+     *
+     * @throws IllegalStateException WAL 비활성화 (그룹이 읽을 로그가 없음)
+     */
+    public ConsumerGroup group(String groupName) {
+        if (logs == null) {
+            throw new IllegalStateException("consumer groups require custom-mq.wal.enabled=true (topic=" + name + ")");
+        }
+        if (groupName == null || groupName.isBlank() || groupName.contains(" ")
+                || groupName.contains("/") || groupName.contains("@")) {
+            throw new IllegalArgumentException("invalid consumer group name: " + groupName);
+        }
+        return groups.computeIfAbsent(groupName, g -> new ConsumerGroup(g, this, wal));
+    }
+
+    /**
+     * 이미 있는 컨슈머 그룹만 조회 (생성하지 않음 → 관리 API가 보존 정리를 붙잡는 빈 그룹을 만들지 않도록)
+     *
+     * @return 없으면 null
+     */
+    public ConsumerGroup findGroup(String groupName) {
+        return (groupName == null) ? null : groups.get(groupName);
+    }
+
+    /**
+     * 가장 느린 컨슈머의 커밋 오프셋 (메인 큐 커밋 + 컨슈머 그룹 커밋 중 최소, 보존 정리 기준)
+     */
+    public long minConsumerOffset(int partition) {
+        long min = wal.committedOffset(logName(partition));
+        for (ConsumerGroup g : groups.values()) min = Math.min(min, g.committed(partition));
+        return min;
+    }
+
+    /** 파티션 로그 디스크 사용량 (바이트, WAL 비활성화 시 0) */
+    public long diskBytes() {
+        if (logs == null) return 0;
+        long total = 0;
+        for (SegmentedLog l : logs) total += l.sizeInBytes();
+        return total;
+    }
+
+    /** 이 토픽을 읽는 컨슈머 그룹들 */
+    public Collection<ConsumerGroup> groups() {
+        return groups.values();
+    }
+
+    // ========================= DLQ =========================
+
+    public DeadLetterQueue deadLetterQueue() {
+        return dlq;
+    }
+
+    /** DLQ 적재 + 지표 (DLQ가 가득 차면 false) */
+    private boolean deadLetter(Message msg, int partition, String reason, int attempts) {
+        if (dlq.add(msg, partition, reason, attempts)) {
+            metrics.recordDeadLetter();
+            return true;
+        }
+        metrics.recordDlqRejected();
+        return false;
+    }
+
+    /** scheduler 주기 작업: 재투입 요청이 있으면 rate 한도 안에서 DLQ → 메인 큐 */
+    void redriveDeadLetters(double ratePerSec, long elapsedMs) {
+        try {
+            int moved = dlq.redriveTick(ratePerSec, elapsedMs, this::redrive);
+            if (moved > 0) {
+                metrics.recordRedriven(moved);
+                log.info("[Broker] DLQ 재투입 | topic={} moved={} remaining={}", name, moved, dlq.redriveRemaining());
+            }
+        } catch (Exception e) {
+            log.error("[Broker] DLQ 재투입 실패 | topic={} | 이유={}", name, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * DLQ 메시지를 메인 큐로 되돌림 (멱등 체크 없이, 새 오프셋으로 WAL 재기록)
+     *
+     * @return 메인 큐가 가득 차면 false (DLQ에 그대로 남음)
+     */
+    private boolean redrive(Message msg) {
+        int p = partitionFor(msg.getKey());
+        boolean ok = tryOffer(p, msg);
+        if (ok) {
+            idem.remember(msg.getId());
+            metrics.incUncommitted();
+        }
+        return ok;
+    }
+
+    // ========================= 상태 =========================
+
+    /** in-flight(ack 대기) 메시지 수 */
+    public long inflightCount() {
+        long total = 0;
+        for (LeaseTracker t : leases) total += t.inflightCount();
+        return total;
+    }
+
+    /** spill 파일에 남은 메시지 수 */
+    public long spillRecords() {
+        long total = 0;
+        for (PriorityLanes q : partitions) total += q.spillRecords();
+        return total;
+    }
+
+    /** spill 파일에 남은 바이트 */
+    public long spillBytes() {
+        long total = 0;
+        for (PriorityLanes q : partitions) total += q.spillBytes();
+        return total;
+    }
+
+    /** 전체 파티션에 쌓여있는 메시지 수 */
+    public int size() {
+        int total = 0;
+        for (PriorityLanes q : partitions) total += q.size();
+        return total;
+    }
+
+    /** 레인별 적재 수 (전체 파티션 합) */
+    public long laneSize(int lane) {
+        long total = 0;
+        for (PriorityLanes q : partitions) {
+            if (lane < q.laneCount()) total += q.laneSize(lane);
+        }
+        return total;
+    }
+
+    void close() {
+        for (PriorityLanes q : partitions) q.close();
+    }
+}
@@ -0,0 +1,145 @@
+package com.realtimefinmq.mq.mymq;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * WaitStrategy
+ * - 링 버퍼가 비었을 때(또는 가득 찼을 때) 대기하는 방식
+ * - 지연 vs CPU 사용량 트레이드오프를 배포 환경별로 고를 수 있도록 분리
+ *
+ * 종류:
+ * - BUSY_SPIN : 계속 재확인 (지연 최저, 코어 1개 점유)
+ * - YIELD     : 잠깐 스핀 후 Thread.yield() (지연 낮음, CPU 높음)
+ * - PARK      : 잠깐 스핀 후 parkNanos (CPU 낮음, 지연 수십 µs)
+ * - BLOCKING  : Lock/Condition으로 대기, 적재 시 깨움 (CPU 최저, 지연 가장 큼)
+ */
+public interface WaitStrategy {
+
+    /**
+     * ready가 true가 될 때까지 대기
+     *
+     * @param ready         대기 해제 조건
+     * @param deadlineNanos System.nanoTime() 기준 마감 시각
+     * @return true → 조건 충족 / false → 시간 초과
+     */
+    boolean await(BooleanSupplier ready, long deadlineNanos) throws InterruptedException;
+
+    /** 상태 변화 알림 (BLOCKING만 실제로 깨움, 나머지는 no-op) */
+    default void signalAll() { }
+
+    enum Type { BUSY_SPIN, YIELD, PARK, BLOCKING }
+
+    static WaitStrategy create(Type type) {
+        return switch (type) {
+            case BUSY_SPIN -> new BusySpin();
+            case YIELD -> new Yielding();
+            case PARK -> new Parking();
+            case BLOCKING -> new Blocking();
+        };
+    }
+
+    /** 스핀 전용 */
+    final class BusySpin implements WaitStrategy {
+        @Override
+        public boolean await(BooleanSupplier ready, long deadlineNanos) throws InterruptedException {
+            while (!ready.getAsBoolean()) {
+                if (Thread.interrupted()) throw new InterruptedException();
+                if (System.nanoTime() - deadlineNanos >= 0) return false;
+                Thread.onSpinWait();
+            }
+            return true;
+        }
+    }
+
+    /** 스핀 → yield */
+    final class Yielding implements WaitStrategy {
+        private static final int SPIN_TRIES = 100;
+
+        @Override
+        public boolean await(BooleanSupplier ready, long deadlineNanos) throws InterruptedException {
+            int counter = SPIN_TRIES;
+            while (!ready.getAsBoolean()) {
+                if (Thread.interrupted()) throw new InterruptedException();
+                if (System.nanoTime() - deadlineNanos >= 0) return false;
+                if (counter > 0) {
+                    counter--;
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return true;
+        }
+    }
+
+    /** 스핀 → yield → parkNanos */
+    final class Parking implements WaitStrategy {
+        private static final int SPIN_TRIES = 100;
+        private static final int YIELD_TRIES = 100;
+        private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+        @Override
+        public boolean await(BooleanSupplier ready, long deadlineNanos) throws InterruptedException {
+            int counter = SPIN_TRIES + YIELD_TRIES;
+            while (!ready.getAsBoolean()) {
+                if (Thread.interrupted()) throw new InterruptedException();
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) return false;
+                if (counter > YIELD_TRIES) {
+                    counter--;
+                    Thread.onSpinWait();
+                } else if (counter > 0) {
+                    counter--;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(Math.min(PARK_NANOS, remaining));
+                }
+            }
+            return true;
+        }
+    }
+
+    /** Lock/Condition 대기 (대기자가 있을 때만 signal 비용 지불) */
+    final class Blocking implements WaitStrategy {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        @Override
+        public boolean await(BooleanSupplier ready, long deadlineNanos) throws InterruptedException {
+            if (ready.getAsBoolean()) return true;
+            waiters.incrementAndGet();
+            lock.lock();
+            try {
+                while (!ready.getAsBoolean()) {
+                    long remaining = deadlineNanos - System.nanoTime();
+                    if (remaining <= 0) return false;
+                    changed.awaitNanos(remaining);
+                }
+                return true;
+            } finally {
+                lock.unlock();
+                waiters.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void signalAll() {
+            // 적재(publish) 쓰기와 waiters 읽기 사이 StoreLoad 순서 보장 → 깨우기 누락 방지
+            VarHandle.fullFence();
+            if (waiters.get() == 0) return;
+            lock.lock();
+            try {
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
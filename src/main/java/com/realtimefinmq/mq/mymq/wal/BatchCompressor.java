@@ -0,0 +1,59 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import com.realtimefinmq.config.MyMqConfig;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+/**
+ * BatchCompressor
+ * - 레코드 묶음(쓰기 버퍼 1회 flush분 / 압축 임시 파일 버퍼) → 압축 배치 프레임 1개
+ * - 거래 payload는 비슷한 JSON이 반복되므로 레코드 1건씩보다 묶음으로 압축해야 사전이 공유되어 잘 줄어듦
+ * - 작은 묶음(compression-min-bytes 미만)이나 줄지 않는 묶음은 원본 그대로 기록 (호출자가 false를 보고 처리)
+ *
+ * 동기화: Deflater를 재사용하므로 한 스레드 전용 (SegmentedLog 락 안 / 압축 스레드)
+ */
+final class BatchCompressor {
+    private final Deflater deflater;
+    private final int minBytes;
+    private final CompressionStats stats;
+
+    private BatchCompressor(int level, int minBytes, CompressionStats stats) {
+        this.deflater = new Deflater(Math.max(Deflater.BEST_SPEED, Math.min(level, Deflater.BEST_COMPRESSION)), false);
+        this.minBytes = Math.max(RecordCodec.BATCH_HEADER_SIZE, minBytes);
+        this.stats = stats;
+    }
+
+    /** 설정에 맞는 압축기 (압축을 끄면 null) */
+    static BatchCompressor of(MyMqConfig.Wal cfg, CompressionStats stats) {
+        if (cfg.getCompression() == null || cfg.getCompression() == CompressionType.NONE) return null;
+        return new BatchCompressor(cfg.getCompressionLevel(), cfg.getCompressionMinBytes(), stats);
+    }
+
+    /**
+     * records(position ~ limit)를 압축 프레임으로 dst에 기록 (records 위치는 움직이지 않음)
+     *
+     * @return true: dst에 기록함 (dst는 flip된 상태) / false: 원본 그대로 써야 함 (dst 비움)
+     */
+    boolean compress(ByteBuffer records, ByteBuffer dst) {
+        dst.clear();
+        int raw = records.remaining();
+        if (raw < minBytes) return false;
+        long t0 = System.nanoTime();
+        int n = RecordCodec.encodeBatch(dst, records, deflater);
+        long took = System.nanoTime() - t0;
+        if (n == 0) {
+            stats.recordSkipped(took);
+            dst.clear();
+            return false;
+        }
+        stats.recordCompress(raw, n, took);
+        dst.flip();
+        return true;
+    }
+
+    /** Deflater 네이티브 메모리 해제 */
+    void close() {
+        deflater.end();
+    }
+}
@@ -0,0 +1,71 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CompressionStats (WAL 배치 압축 누적 지표, 모든 로그 공유)
+ * - 압축: 원본 바이트 / 기록 바이트 / 배치 수 / 소요 시간 (flush 스레드)
+ * - 해제: 푼 바이트 / 소요 시간 (컨슈머 그룹 리더)
+ * - 시간은 압축·해제 호출 구간의 nanoTime 합 (CPU만 쓰는 구간이라 CPU 시간과 거의 같음)
+ */
+public class CompressionStats {
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+    private final LongAdder inflatedBytes = new LongAdder();
+    private final LongAdder decompressNanos = new LongAdder();
+
+    void recordCompress(int raw, int stored, long nanos) {
+        rawBytes.add(raw);
+        storedBytes.add(stored);
+        batches.increment();
+        compressNanos.add(nanos);
+    }
+
+    /** 압축을 시도했지만 작아지지 않아 원본으로 기록한 묶음 */
+    void recordSkipped(long nanos) {
+        skipped.increment();
+        compressNanos.add(nanos);
+    }
+
+    void recordDecompress(int raw, long nanos) {
+        inflatedBytes.add(raw);
+        decompressNanos.add(nanos);
+    }
+
+    public long rawBytes() {
+        return rawBytes.sum();
+    }
+
+    public long storedBytes() {
+        return storedBytes.sum();
+    }
+
+    /** 압축률 = 원본 / 기록 (압축한 배치 기준, 없으면 1) */
+    public double ratio() {
+        long stored = storedBytes.sum();
+        return (stored == 0) ? 1.0 : (double) rawBytes.sum() / stored;
+    }
+
+    public long batches() {
+        return batches.sum();
+    }
+
+    public long skipped() {
+        return skipped.sum();
+    }
+
+    public long compressMs() {
+        return compressNanos.sum() / 1_000_000;
+    }
+
+    public long inflatedBytes() {
+        return inflatedBytes.sum();
+    }
+
+    public long decompressMs() {
+        return decompressNanos.sum() / 1_000_000;
+    }
+}
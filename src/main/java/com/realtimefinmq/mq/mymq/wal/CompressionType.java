@@ -0,0 +1,11 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+/**
+ * WAL 배치 압축 방식
+ * - NONE    : 레코드를 그대로 기록
+ * - DEFLATE : flush 때 쓰기 버퍼에 모인 레코드 묶음을 JDK Deflater로 압축해 프레임 1개로 기록 (읽을 때만 풂)
+ */
+public enum CompressionType {
+    NONE,
+    DEFLATE
+}
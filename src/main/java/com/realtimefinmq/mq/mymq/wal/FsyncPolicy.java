@@ -0,0 +1,15 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+/**
+ * WAL fsync(그룹 커밋) 정책 - 프로듀서는 적재 후 자기 오프셋이 아래 수준까지 내려갈 때까지 기다린 뒤 반환
+ * - EVERY_N  : N건 적재마다 fsync (늦어도 fsync-interval-ms마다), 그 fsync가 자기 오프셋을 덮을 때까지 대기
+ *              → 그 사이 동시 프로듀서들의 기록이 한 번의 fsync로 묶임 (OS 장애 방어)
+ * - INTERVAL : T ms마다 백그라운드 flusher가 fsync, 프로듀서는 그 fsync까지 대기 (최대 T ms, OS 장애 방어)
+ * - NEVER    : fsync 하지 않음. 반환 전에 쓰기 버퍼를 파일(페이지 캐시)로 write
+ *              → 프로세스 크래시는 방어, OS 장애/정전 시 마지막 구간 유실 가능
+ */
+public enum FsyncPolicy {
+    EVERY_N,
+    INTERVAL,
+    NEVER
+}
@@ -0,0 +1,47 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IoThrottler
+ * - 백그라운드 디스크 작업(로그 압축 등)의 초당 바이트 한도
+ * - 읽고/쓴 바이트를 acquire()로 알리면 한도를 넘은 만큼 호출 스레드를 재움
+ *   → 압축이 프로듀서 fsync / 컨슈머 그룹 읽기와 디스크 대역폭을 다투지 않도록
+ * - 1초 구간마다 누적을 초기화 (오래 쉬었다고 한꺼번에 몰아 쓰지 않도록)
+ *
+ * 동기화: 없음 (작업 스레드 1개 전용)
+ */
+public class IoThrottler {
+    private static final long PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long bytesPerSec;  // 0 이하 = 무제한
+    private long periodStart = System.nanoTime();
+    private long periodBytes;
+    private long throttledNanos;     // 누적 대기 시간
+
+    public IoThrottler(long bytesPerSec) {
+        this.bytesPerSec = bytesPerSec;
+    }
+
+    /** bytes만큼 I/O 했음을 알리고, 한도를 넘었으면 그만큼 대기 */
+    public void acquire(long bytes) throws InterruptedException {
+        if (bytesPerSec <= 0 || bytes <= 0) return;
+        periodBytes += bytes;
+        long elapsed = System.nanoTime() - periodStart;
+        long allowedAt = (long) (periodBytes * (double) PERIOD_NANOS / bytesPerSec); // 이만큼 시간이 지나야 periodBytes가 한도 안
+        if (allowedAt > elapsed) {
+            long wait = allowedAt - elapsed;
+            TimeUnit.NANOSECONDS.sleep(wait);
+            throttledNanos += wait;
+        }
+        if (System.nanoTime() - periodStart >= PERIOD_NANOS) {
+            periodStart = System.nanoTime();
+            periodBytes = 0;
+        }
+    }
+
+    /** 한도 때문에 기다린 누적 시간 (ms) */
+    public long throttledMs() {
+        return TimeUnit.NANOSECONDS.toMillis(throttledNanos);
+    }
+}
@@ -0,0 +1,256 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import com.realtimefinmq.mq.Message;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Inflater;
+
+/**
+ * LogCompactor (키 기반 로그 압축)
+ * - 상태 토픽(계좌 잔액 등)은 key별 최신 메시지만 의미가 있으므로, 닫힌 세그먼트에서 같은 key의 이전 버전을 지움
+ *   → 복구/재생 시간이 이력 길이가 아니라 살아 있는 key 수에 비례
+ * - 활성 세그먼트는 건드리지 않음 (쓰는 중 + 최신 구간)
+ * - 오프셋은 그대로 유지 (지워진 자리는 빈 번호로 남음, 리더/복구는 오프셋 순서만 가정)
+ * - tombstone(key 있고 payload null) = key 삭제 표시
+ *   → 이전 버전을 지운 뒤에도 tombstone-retention-ms 동안은 남겨 두고(컨슈머가 삭제를 볼 시간), 그 뒤에 지움
+ * - key 없는 메시지는 압축 대상이 아님 (항상 유지)
+ *
+ * 한 번의 압축:
+ * 1. 지난 압축 이후 닫힌 세그먼트(dirty)만 읽어 key → 최신 오프셋 맵 작성
+ *    (이미 압축한 구간은 key당 1건이므로, 그 구간의 레코드를 밀어낼 수 있는 건 dirty 구간의 key뿐)
+ * 2. 닫힌 세그먼트를 하나씩 다시 쓰기: 남길 레코드의 원본 바이트를 임시 파일({base}.log.cleaned)에 복사
+ *    → fsync 후 원자적 rename으로 교체 (지운 게 없으면 임시 파일 버림, 다 지워졌으면 세그먼트 삭제)
+ * 3. 읽기/쓰기 바이트는 IoThrottler로 초당 한도 적용
+ * 4. 압축 배치는 풀어서 레코드 단위로 판단하고, 남긴 레코드는 로그와 같은 방식으로 다시 묶어 압축
+ *
+ * 주의: 압축은 메인 큐 커밋과 무관하게 진행 → 재시작 복구 시 같은 key의 이전 버전은 되살아나지 않음 (상태 토픽 의미상 정상)
+ *
+ * 동기화: 압축 스레드 1개 전용, 세그먼트 교체는 SegmentedLog.replaceSegment가 담당
+ */
+@Slf4j
+public class LogCompactor {
+    public static final String CLEANED_SUFFIX = ".cleaned";
+    private static final int CHUNK = 256 * 1024;
+
+    private final IoThrottler throttler;
+    private final long tombstoneRetentionMs;
+
+    // ===== 로그별 압축 상태 (메모리, 재시작하면 처음부터 한 번 더 압축) =====
+    private final Map<String, Long> cleanedBase = new HashMap<>();   // 압축을 마친 마지막 닫힌 세그먼트 baseOffset
+    private final Map<String, Long> tombstoneDue = new HashMap<>();  // 남아 있는 tombstone 중 가장 이른 삭제 시각
+
+    private ByteBuffer readBuf = ByteBuffer.allocate(CHUNK);
+    private final ByteBuffer writeBuf = ByteBuffer.allocate(CHUNK);
+    private final ByteBuffer batchBuf = ByteBuffer.allocate(CHUNK);
+    private final Inflater inflater = new Inflater();
+    private BatchCompressor compressor; // 다시 쓰는 중인 로그의 압축기 (null = 압축 안 함)
+
+    public LogCompactor(IoThrottler throttler, long tombstoneRetentionMs) {
+        this.throttler = throttler;
+        this.tombstoneRetentionMs = Math.max(0, tombstoneRetentionMs);
+    }
+
+    /** tombstone = key 삭제 표시 (key 있고 payload 없음) */
+    public static boolean isTombstone(Message msg) {
+        return msg.getKey() != null && msg.getPayload() == null;
+    }
+
+    /**
+     * 압축 결과
+     *
+     * @param segmentsRewritten 다시 쓴 세그먼트 수 (삭제 포함)
+     * @param bytesBefore       다시 쓴 세그먼트의 원래 크기 합
+     * @param bytesAfter        다시 쓴 뒤 크기 합
+     * @param recordsRemoved    지운 레코드 수 (이전 버전 + 만료 tombstone)
+     * @param durationMs        소요 시간 (I/O 한도 대기 포함)
+     */
+    public record Result(int segmentsRewritten, long bytesBefore, long bytesAfter, long recordsRemoved, long durationMs) {
+        public static final Result NONE = new Result(0, 0, 0, 0, 0);
+    }
+
+    /**
+     * 로그 1개 압축 (새로 닫힌 세그먼트가 없고 지울 tombstone도 없으면 아무것도 안 함)
+     */
+    public Result compact(SegmentedLog segLog, long nowMs) throws IOException, InterruptedException {
+        String name = segLog.name();
+        List<LogSegment> closed = segLog.closedSegments();
+        if (closed.isEmpty()) return Result.NONE;
+
+        long cleaned = cleanedBase.getOrDefault(name, -1L);
+        long lastClosed = closed.get(closed.size() - 1).baseOffset();
+        boolean dirty = lastClosed > cleaned;
+        if (!dirty && nowMs < tombstoneDue.getOrDefault(name, Long.MAX_VALUE)) return Result.NONE;
+
+        long start = System.currentTimeMillis();
+
+        // 1) dirty 구간의 key → 최신 오프셋
+        Map<String, Long> latest = new HashMap<>();
+        for (LogSegment seg : closed) {
+            if (seg.baseOffset() <= cleaned) continue;
+            forEachRecord(seg, (rec, buf, len) -> {
+                if (rec.message().getKey() != null) latest.put(rec.message().getKey(), rec.offset());
+            });
+        }
+
+        // 2) 닫힌 세그먼트 다시 쓰기
+        int rewritten = 0;
+        long before = 0, after = 0, removed = 0;
+        long nextDue = Long.MAX_VALUE;
+        for (LogSegment seg : closed) {
+            Rewrite r = rewrite(segLog, seg, latest, nowMs);
+            nextDue = Math.min(nextDue, r.tombstoneDue());
+            if (r.removed() == 0) continue;
+            rewritten++;
+            before += seg.size();
+            after += r.bytes();
+            removed += r.removed();
+        }
+
+        cleanedBase.put(name, lastClosed);
+        if (nextDue == Long.MAX_VALUE) tombstoneDue.remove(name); else tombstoneDue.put(name, nextDue);
+
+        Result result = new Result(rewritten, before, after, removed, System.currentTimeMillis() - start);
+        if (rewritten > 0) {
+            log.info("[WAL-Compact] 압축 완료 | log={} keys={} segments={} removed={} bytes={}→{} took={}ms",
+                    name, latest.size(), rewritten, removed, before, after, result.durationMs());
+        }
+        return result;
+    }
+
+    /** 세그먼트 1개 다시 쓰기 (지운 게 있을 때만 교체) */
+    private Rewrite rewrite(SegmentedLog segLog, LogSegment seg, Map<String, Long> latest, long nowMs)
+            throws IOException, InterruptedException {
+        Path tmp = seg.path().resolveSibling(seg.path().getFileName() + CLEANED_SUFFIX);
+        long[] stats = new long[3]; // 지운 수, 남긴 바이트, 가장 이른 tombstone 삭제 시각
+        stats[2] = Long.MAX_VALUE;
+
+        compressor = segLog.newCompressor();
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeBuf.clear();
+            forEachRecord(seg, (rec, buf, len) -> {
+                Message msg = rec.message();
+                String key = msg.getKey();
+                if (key != null) {
+                    Long newest = latest.get(key);
+                    if (newest != null && newest > rec.offset()) {
+                        stats[0]++; // 같은 key의 더 최신 버전이 있음
+                        return;
+                    }
+                    if (isTombstone(msg)) {
+                        long due = msg.getTimestamp() + tombstoneRetentionMs;
+                        if (due <= nowMs) {
+                            stats[0]++; // 보존 기간이 지난 tombstone
+                            return;
+                        }
+                        stats[2] = Math.min(stats[2], due);
+                    }
+                }
+                if (writeBuf.remaining() < len) stats[1] += drain(out);
+                if (len > writeBuf.capacity()) {
+                    out.write(buf.duplicate().limit(buf.position() + len));
+                    throttler.acquire(len);
+                    stats[1] += len;
+                } else {
+                    writeBuf.put(buf.duplicate().limit(buf.position() + len));
+                }
+            });
+            stats[1] += drain(out);
+            if (stats[0] > 0) out.force(true);
+        } finally {
+            if (compressor != null) compressor.close();
+            compressor = null;
+        }
+
+        if (stats[0] == 0) {
+            Files.deleteIfExists(tmp);
+        } else {
+            segLog.replaceSegment(seg, tmp);
+        }
+        return new Rewrite(stats[0], stats[1], stats[2]);
+    }
+
+    /** 모은 레코드 기록 (압축하는 로그면 배치 프레임 1개로) */
+    private long drain(FileChannel out) throws IOException, InterruptedException {
+        writeBuf.flip();
+        ByteBuffer src = writeBuf;
+        if (compressor != null && compressor.compress(writeBuf, batchBuf)) src = batchBuf;
+        int n = src.remaining();
+        while (src.hasRemaining()) out.write(src);
+        writeBuf.clear();
+        throttler.acquire(n);
+        return n;
+    }
+
+    /**
+     * 세그먼트의 유효 레코드를 순서대로 방문 (읽기 바이트에 I/O 한도 적용)
+     * - 세그먼트마다 읽기 전용 채널을 따로 엶 → 압축 스레드 인터럽트가 공유 채널을 닫지 않음
+     */
+    private void forEachRecord(LogSegment seg, RecordVisitor visitor) throws IOException, InterruptedException {
+        long end = seg.size();
+        try (FileChannel in = FileChannel.open(seg.path(), StandardOpenOption.READ)) {
+            ByteBuffer buf = readBuf;
+            buf.clear().limit(0);
+            long filePos = 0;
+            while (true) {
+                int len = RecordCodec.validate(buf);
+                if (len == RecordCodec.INCOMPLETE) {
+                    if (filePos >= end) break;
+                    buf.compact();
+                    if (!buf.hasRemaining()) {
+                        // 청크보다 큰 레코드 → 버퍼 확장
+                        ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2);
+                        buf.flip();
+                        bigger.put(buf);
+                        buf = readBuf = bigger;
+                    }
+                    if (buf.remaining() > end - filePos) buf.limit(buf.position() + (int) (end - filePos));
+                    int r = in.read(buf, filePos);
+                    buf.flip();
+                    if (r <= 0) break;
+                    filePos += r;
+                    throttler.acquire(r);
+                    continue;
+                }
+                if (len == RecordCodec.CORRUPT) {
+                    throw new IOException("corrupt record in " + seg.path() + " near " + (filePos - buf.remaining()));
+                }
+                int recStart = buf.position();
+                if (RecordCodec.isBatch(buf)) {
+                    ByteBuffer batch = RecordCodec.inflateBatch(buf, inflater);
+                    while (batch.hasRemaining()) visitRecord(batch, 4 + batch.getInt(batch.position()), visitor);
+                } else {
+                    visitRecord(buf, len, visitor);
+                }
+                buf.position(recStart + len);
+            }
+        }
+    }
+
+    /** buf 위치의 레코드 1건 방문 (끝나면 레코드 끝으로) */
+    private static void visitRecord(ByteBuffer buf, int len, RecordVisitor visitor) throws IOException, InterruptedException {
+        int recStart = buf.position();
+        LogRecord rec = RecordCodec.decode(buf);
+        buf.position(recStart);
+        visitor.visit(rec, buf, len);
+        buf.position(recStart + len);
+    }
+
+    /** 레코드 방문자 (buf 위치 = 레코드 시작, len = 레코드 전체 길이, 위치를 바꿔도 됨) */
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(LogRecord rec, ByteBuffer buf, int len) throws IOException, InterruptedException;
+    }
+
+    private record Rewrite(long removed, long bytes, long tombstoneDue) {
+    }
+}
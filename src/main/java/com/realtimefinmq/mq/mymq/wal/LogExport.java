@@ -0,0 +1,64 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+/**
+ * LogExport (로그 구간 원본 바이트 내보내기)
+ * - 세그먼트 파일의 프레임(레코드 / 압축 배치)을 디코딩 없이 FileChannel.transferTo로 그대로 전송
+ *   → 백업, 새 노드 시딩, 외부 프로세스 컨슈머 공급을 디스크 대역폭으로 (Message 객체를 만들지 않음)
+ * - 내용은 세그먼트 파일과 같은 포맷: 받은 쪽은 RecordCodec으로 읽고, 파일로 받았으면 {firstOffset}.log 이름으로 세그먼트로 씀
+ * - 범위 경계는 프레임 단위: 요청 구간에 걸친 압축 배치는 통째로 포함
+ *   → 받는 쪽은 자기 위치보다 작은 오프셋을 건너뜀 (LogReader와 같은 방식)
+ *
+ * 범위는 SegmentedLog.export() 호출 시점의 기록된 끝에서 고정 (그 뒤 적재분은 다음 내보내기에서)
+ */
+public final class LogExport {
+    private final List<Slice> slices;
+    private final long firstOffset;
+    private final long nextOffset;
+    private final long bytes;
+
+    LogExport(List<Slice> slices, long firstOffset, long nextOffset) {
+        this.slices = slices;
+        this.firstOffset = firstOffset;
+        this.nextOffset = nextOffset;
+        this.bytes = slices.stream().mapToLong(s -> s.to() - s.from()).sum();
+    }
+
+    /** 첫 프레임의 첫 오프셋 (-1: 빈 범위) */
+    public long firstOffset() {
+        return firstOffset;
+    }
+
+    /** 이어서 내보낼 오프셋 (다음 호출의 fromOffset) */
+    public long nextOffset() {
+        return nextOffset;
+    }
+
+    /** 전송할 바이트 수 */
+    public long bytes() {
+        return bytes;
+    }
+
+    public int segmentCount() {
+        return slices.size();
+    }
+
+    /**
+     * target으로 전송 (blocking 채널: 파일 / 소켓)
+     * - 전송 중 보존 정리·압축으로 세그먼트가 바뀌면 ClosedChannelException → 호출자가 nextOffset 기준으로 다시 요청
+     *
+     * @return 전송한 바이트 수
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        long total = 0;
+        for (Slice s : slices) total += s.segment().transferTo(s.from(), s.to(), target);
+        return total;
+    }
+
+    /** 세그먼트 1개의 [from, to) 바이트 구간 */
+    record Slice(LogSegment segment, long from, long to) {
+    }
+}
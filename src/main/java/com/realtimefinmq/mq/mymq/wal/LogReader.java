@@ -0,0 +1,164 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import com.realtimefinmq.mq.Message;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.List;
+import java.util.zip.Inflater;
+
+/**
+ * LogReader
+ * - SegmentedLog 1개를 앞에서 뒤로 읽는 커서 (세그먼트 + 파일 위치 + 다음 오프셋)
+ * - 컨슈머 그룹마다 자기 리더를 가짐 → 메시지는 로그에 한 번만 저장되고 그룹 수만큼 복사되지 않음
+ * - 파일에 기록된 구간까지만 보임 (쓰기 버퍼에 있는 레코드는 flush 후에 보임)
+ * - 세그먼트 끝에 닿으면 다음 세그먼트로 넘어감 (다음 세그먼트가 생겼다 = 이전 세그먼트는 더 안 자람)
+ * - 압축 배치는 여기서 풂 (로그·페이지 캐시에는 압축된 채로 있고, 읽는 그룹만 CPU를 씀)
+ *
+ * 동기화: 리더 1개는 한 스레드만 사용 (그룹 파티션 담당 워커)
+ */
+public class LogReader {
+    private static final int READ_CHUNK = 64 * 1024;
+
+    private final SegmentedLog log;
+    private ByteBuffer buf = ByteBuffer.allocate(READ_CHUNK);
+
+    private LogSegment segment;  // 읽고 있는 세그먼트
+    private long filePos;        // 세그먼트 안에서 다음에 읽을 파일 위치
+    private long nextOffset;     // 다음에 돌려줄 오프셋
+    private ByteBuffer batch;    // 풀어 놓은 압축 배치의 남은 레코드 (null = 없음)
+    private Inflater inflater;
+
+    LogReader(SegmentedLog log, long fromOffset) {
+        this.log = log;
+        seek(fromOffset);
+    }
+
+    /**
+     * 위치 이동 (오프셋 인덱스로 찾은 가장 가까운 앞 위치부터 읽으며 남은 앞부분은 건너뜀)
+     * - 로그 시작보다 앞이면 시작으로, 끝보다 뒤면 끝으로 보정
+     */
+    public void seek(long offset) {
+        long start = log.startOffset();
+        long end = log.nextOffset();
+        this.nextOffset = Math.max(start, Math.min(offset, end));
+        this.segment = log.segmentFor(nextOffset);
+        this.filePos = segment.positionForOffset(nextOffset);
+        this.batch = null;
+        buf.clear().limit(0);
+    }
+
+    /**
+     * 다음 레코드들을 최대 max건 읽어 sink에 추가 (Message.offset 채움)
+     *
+     * @return 읽은 건수 (0 = 기록된 끝까지 다 읽음)
+     */
+    public int read(int max, List<Message> sink) {
+        int n = 0;
+        try {
+            while (n < max) {
+                if (batch != null) {
+                    n += drainBatch(max - n, sink);
+                    continue;
+                }
+                int len = RecordCodec.validate(buf);
+                if (len == RecordCodec.INCOMPLETE) {
+                    if (!fill()) break;
+                    continue;
+                }
+                if (len == RecordCodec.CORRUPT) {
+                    throw new IllegalStateException("[WAL] 손상된 레코드 | log=" + log.name()
+                            + " segment=" + segment.baseOffset() + " pos=" + (filePos - buf.remaining()));
+                }
+                if (RecordCodec.peekLastOffset(buf) < nextOffset) {
+                    buf.position(buf.position() + len); // seek 위치 앞부분 건너뜀
+                    continue;
+                }
+                if (RecordCodec.isBatch(buf)) {
+                    batch = inflate(buf);
+                    continue;
+                }
+                LogRecord rec = RecordCodec.decode(buf);
+                sink.add(rec.message());
+                nextOffset = rec.offset() + 1;
+                n++;
+            }
+        } catch (ClosedChannelException e) {
+            if (log.segmentFor(segment.baseOffset()) == segment) {
+                throw new UncheckedIOException("[WAL] 읽기 실패 (채널 닫힘) | log=" + log.name(), e);
+            }
+            // 압축으로 세그먼트가 교체/삭제됨 → 다음 오프셋부터 새 세그먼트에서 다시 읽음
+            seek(nextOffset);
+            return n + read(max - n, sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException("[WAL] 읽기 실패 | log=" + log.name(), e);
+        }
+        return n;
+    }
+
+    /** 풀어 놓은 배치에서 최대 max건 (배치를 다 읽으면 batch = null) */
+    private int drainBatch(int max, List<Message> sink) {
+        int n = 0;
+        while (n < max && batch.hasRemaining()) {
+            if (RecordCodec.peekOffset(batch) < nextOffset) {
+                batch.position(batch.position() + 4 + batch.getInt(batch.position())); // seek 위치 앞부분 건너뜀
+                continue;
+            }
+            LogRecord rec = RecordCodec.decode(batch); // 배치 프레임 CRC로 이미 검증됨
+            sink.add(rec.message());
+            nextOffset = rec.offset() + 1;
+            n++;
+        }
+        if (!batch.hasRemaining()) batch = null;
+        return n;
+    }
+
+    private ByteBuffer inflate(ByteBuffer frame) {
+        if (inflater == null) inflater = new Inflater();
+        long t0 = System.nanoTime();
+        ByteBuffer records = RecordCodec.inflateBatch(frame, inflater);
+        log.compressionStats().recordDecompress(records.remaining(), System.nanoTime() - t0);
+        return records;
+    }
+
+    /**
+     * 버퍼에 파일 내용을 더 채움 (현재 세그먼트 끝이면 다음 세그먼트로)
+     *
+     * @return 더 읽을 게 없으면 false
+     */
+    private boolean fill() throws IOException {
+        buf.compact();
+        if (!buf.hasRemaining()) {
+            // 청크보다 큰 레코드 → 버퍼 확장
+            ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2);
+            buf.flip();
+            bigger.put(buf);
+            buf = bigger;
+        }
+        int r = segment.read(buf, filePos);
+        if (r <= 0) {
+            buf.flip();
+            LogSegment next = log.nextSegment(segment);
+            // 다음 세그먼트가 있으면 현재 세그먼트는 끝난 것, 단 그 사이 마지막 flush가 들어왔을 수 있으니 한 번 더 확인
+            if (next == null || filePos < segment.size()) return false;
+            if (buf.hasRemaining()) {
+                throw new IllegalStateException("[WAL] 세그먼트 끝이 잘린 레코드 | log=" + log.name()
+                        + " segment=" + segment.baseOffset());
+            }
+            segment = next;
+            filePos = 0;
+            buf.clear().limit(0);
+            return true;
+        }
+        filePos += r;
+        buf.flip();
+        return true;
+    }
+
+    /** 다음에 읽을 오프셋 */
+    public long position() {
+        return nextOffset;
+    }
+}
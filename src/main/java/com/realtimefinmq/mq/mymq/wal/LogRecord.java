@@ -0,0 +1,13 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import com.realtimefinmq.mq.Message;
+
+/**
+ * WAL에서 읽어낸 레코드 1건
+ *
+ * @param offset    파티션 로그 내 오프셋 (0부터 증가)
+ * @param timestamp 메시지 생성 시각 (epoch millis)
+ * @param message   복원된 메시지
+ */
+public record LogRecord(long offset, long timestamp, Message message) {
+}
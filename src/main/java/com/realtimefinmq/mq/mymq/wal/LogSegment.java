@@ -0,0 +1,501 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.Inflater;
+
+/**
+ * LogSegment
+ * - 세그먼트 파일 1개 ({baseOffset 20자리}.log) + 희소 인덱스 2개 (.index 오프셋 → 위치, .timeindex 시각 → 오프셋)
+ * - FileChannel로 끝에만 이어 쓰기 (append-only)
+ * - 인덱스는 적재 시 index-interval-bytes마다 엔트리 추가 (메모리 매핑, 시스템 콜 없음)
+ *   → 오프셋/시각 조회 = 인덱스 이진 탐색 + 그 위치부터 짧은 스캔 (세그먼트 처음부터 읽지 않음)
+ *   → 롤링 시 봉인(seal), 봉인 안 된/없는/깨진 인덱스는 열 때 세그먼트를 스캔해 재생성
+ * - 쓰기 동기화는 SegmentedLog가 담당, 읽기(scan/read)는 별도 위치 지정 read라 쓰기와 동시에 가능
+ */
+@Slf4j
+public class LogSegment implements Closeable {
+    public static final String SUFFIX = ".log";
+    private static final int READ_CHUNK = 256 * 1024;
+
+    private final Path path;
+    private final long baseOffset;
+    private final FileChannel channel;
+    private final OffsetIndex offsetIndex;
+    private final TimeIndex timeIndex;
+    private final int indexIntervalBytes;
+
+    // ===== 인덱스 엔트리 간격 (적재 스레드 / 재생성에서만 사용) =====
+    private long bytesSinceIndex;
+    private long indexMaxTimestamp = -1;
+
+    private volatile long size;              // 채널에 기록된 바이트 수
+    private volatile long lastOffset = -1;   // 마지막 레코드 오프셋 (없으면 -1)
+    private volatile long maxTimestamp = -1; // 최대 메시지 타임스탬프
+    private volatile long firstTimestamp = -1; // 첫 레코드 타임스탬프 (처음 조회 시 헤더만 읽어 캐시)
+
+    private LogSegment(Path path, long baseOffset, FileChannel channel, long size,
+                       OffsetIndex offsetIndex, TimeIndex timeIndex, int indexIntervalBytes) {
+        this.path = path;
+        this.baseOffset = baseOffset;
+        this.channel = channel;
+        this.size = size;
+        this.offsetIndex = offsetIndex;
+        this.timeIndex = timeIndex;
+        this.indexIntervalBytes = Math.max(1, indexIntervalBytes);
+    }
+
+    /**
+     * 세그먼트 파일 열기 (없으면 생성)
+     * - 인덱스는 봉인된 파일이 있으면 읽기 전용으로 매핑, 새 세그먼트면 activate()로 쓰기 시작
+     *
+     * @param indexIntervalBytes 인덱스 엔트리 간격 (바이트)
+     * @param maxIndexEntries    인덱스 파일 최대 엔트리 수 (활성 세그먼트 매핑 크기)
+     */
+    public static LogSegment open(Path dir, long baseOffset, int indexIntervalBytes, int maxIndexEntries) throws IOException {
+        return open(dir, baseOffset, "", indexIntervalBytes, maxIndexEntries);
+    }
+
+    /**
+     * 파일 이름 뒤에 suffix를 붙여 열기 (압축 결과를 로그 목록 밖의 임시 이름으로 준비할 때)
+     * - 로그/인덱스 모두 {정식 이름}{suffix} → 교체 전에 죽으면 다음 시작 때 임시 파일로 정리됨
+     */
+    static LogSegment open(Path dir, long baseOffset, String suffix, int indexIntervalBytes, int maxIndexEntries) throws IOException {
+        Path path = dir.resolve(fileName(baseOffset) + suffix);
+        FileChannel ch = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        OffsetIndex oi = new OffsetIndex(dir.resolve(indexFileName(baseOffset, OffsetIndex.SUFFIX) + suffix), baseOffset, maxIndexEntries);
+        TimeIndex ti = new TimeIndex(dir.resolve(indexFileName(baseOffset, TimeIndex.SUFFIX) + suffix), baseOffset, maxIndexEntries);
+        return new LogSegment(path, baseOffset, ch, ch.size(), oi, ti, indexIntervalBytes);
+    }
+
+    public static String fileName(long baseOffset) {
+        return String.format("%020d%s", baseOffset, SUFFIX);
+    }
+
+    static String indexFileName(long baseOffset, String suffix) {
+        return String.format("%020d%s", baseOffset, suffix);
+    }
+
+    /** 인덱스 파일인지 (.index / .timeindex) */
+    static boolean isIndexFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(OffsetIndex.SUFFIX) || name.endsWith(TimeIndex.SUFFIX);
+    }
+
+    /** 인덱스 파일이 가리키는 세그먼트 파일 ({baseOffset}.log) */
+    static Path logFileOf(Path indexFile) {
+        String name = indexFile.getFileName().toString();
+        return indexFile.resolveSibling(name.substring(0, name.indexOf('.')) + SUFFIX);
+    }
+
+    // ========================= 인덱스 =========================
+
+    /** 새 활성 세그먼트: 인덱스를 비우고 쓰기 가능하게 매핑 */
+    void activate() throws IOException {
+        offsetIndex.reset();
+        timeIndex.reset();
+        bytesSinceIndex = 0;
+        indexMaxTimestamp = -1;
+    }
+
+    /**
+     * 레코드 1건 적재 알림 (SegmentedLog 락 안, 쓰기 버퍼에 인코딩한 직후)
+     * - 마지막 엔트리 이후 index-interval-bytes가 쌓였으면 이 레코드 위치로 엔트리 추가
+     *
+     * @param position 이 레코드의 파일 위치 (flush 후 기준)
+     */
+    void onAppend(long offset, long timestamp, long position, int length) {
+        if (timestamp > indexMaxTimestamp) indexMaxTimestamp = timestamp;
+        if (bytesSinceIndex >= indexIntervalBytes) {
+            offsetIndex.append(offset, position);
+            timeIndex.maybeAppend(indexMaxTimestamp, offset);
+            bytesSinceIndex = 0;
+        }
+        bytesSinceIndex += length;
+    }
+
+    /** 롤링으로 닫힐 때: 인덱스를 실제 크기로 자르고 읽기 전용으로 */
+    void seal() throws IOException {
+        offsetIndex.seal();
+        timeIndex.seal();
+    }
+
+    /**
+     * 닫힌 세그먼트 인덱스 확인 (시작 시): 없거나 봉인 전에 죽어 깨졌으면 스캔해서 재생성
+     */
+    void ensureIndexes() throws IOException {
+        if (size <= indexIntervalBytes) return; // 엔트리가 생길 수 없는 크기 (조회는 처음부터 스캔)
+        if (offsetIndex.sane(size) && timeIndex.sane(size)) return;
+        log.warn("[WAL] 인덱스 재생성 | segment={}", path.getFileName());
+        activate();
+        walk(0, size, (frame, pos, len) -> {
+            onAppend(RecordCodec.peekOffset(frame), RecordCodec.peekTimestamp(frame), pos, len);
+            return false;
+        });
+        seal();
+    }
+
+    /**
+     * offset 이전에서 가장 가까운 인덱스 위치 (LogReader seek 시작점)
+     * - 파일에 아직 안 쓰인 구간을 가리키는 엔트리는 무시
+     */
+    long positionForOffset(long offset) {
+        return offsetIndex.floorPosition(offset, size);
+    }
+
+    /** 파일 이름에서 baseOffset 추출 */
+    public static long parseBaseOffset(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * 인코딩된 레코드 묶음을 파일 끝에 기록
+     *
+     * @param src          기록할 바이트 (position ~ limit)
+     * @param lastOffset   묶음의 마지막 오프셋
+     * @param maxTimestamp 묶음의 최대 타임스탬프
+     */
+    void write(ByteBuffer src, long lastOffset, long maxTimestamp) throws IOException {
+        long pos = size;
+        while (src.hasRemaining()) {
+            pos += channel.write(src, pos);
+        }
+        this.size = pos;
+        this.lastOffset = lastOffset;
+        if (maxTimestamp > this.maxTimestamp) this.maxTimestamp = maxTimestamp;
+    }
+
+    /**
+     * 위치 지정 읽기 (LogReader용, 쓰기와 동시에 가능)
+     * - 기록 완료된 구간(size)까지만 읽음 → 쓰는 중인 바이트는 보이지 않음
+     *
+     * @return 읽은 바이트 수 (size 이상 위치면 -1)
+     */
+    int read(ByteBuffer dst, long position) throws IOException {
+        long end = size;
+        if (position >= end) return -1;
+        int saved = dst.limit();
+        long room = end - position;
+        if (room < dst.remaining()) dst.limit(dst.position() + (int) room);
+        try {
+            return channel.read(dst, position);
+        } finally {
+            dst.limit(saved);
+        }
+    }
+
+    /**
+     * 첫 레코드의 타임스탬프 (헤더만 읽음, 시각 검색에서 세그먼트 이진 탐색용)
+     *
+     * @return 레코드가 없으면 -1
+     */
+    long firstTimestamp() throws IOException {
+        long cached = firstTimestamp;
+        if (cached >= 0 || size < RecordCodec.HEADER_SIZE) return cached;
+        // 압축 배치면 배치 헤더까지 (첫 레코드 타임스탬프는 배치 헤더에 있음)
+        ByteBuffer header = ByteBuffer.allocate((int) Math.min(size, RecordCodec.BATCH_HEADER_SIZE));
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) return -1;
+        }
+        header.flip();
+        return firstTimestamp = RecordCodec.peekFirstTimestamp(header);
+    }
+
+    /**
+     * 타임스탬프가 timestampMs 이상인 첫 레코드의 오프셋 (헤더만 보고 넘어감, 디코딩 없음, 압축 배치는 해당 배치 1개만 풂)
+     *
+     * @return 이 세그먼트에 없으면 -1
+     */
+    long offsetForTimestamp(long timestampMs) throws IOException {
+        // 시각 인덱스: 이 오프셋까지는 모두 timestampMs보다 이름 → 그 다음부터 스캔
+        long before = timeIndex.lastOffsetBefore(timestampMs);
+        long from = (before < 0) ? 0 : positionForOffset(before + 1);
+        long[] found = {-1};
+        walk(from, size, (frame, pos, len) -> {
+            if (RecordCodec.peekTimestamp(frame) < timestampMs) return false; // 배치면 최대값 → 배치 전체가 이름
+            if (!RecordCodec.isBatch(frame)) {
+                found[0] = RecordCodec.peekOffset(frame);
+                return true;
+            }
+            Inflater inflater = new Inflater();
+            try {
+                ByteBuffer records = RecordCodec.inflateBatch(frame.duplicate(), inflater);
+                while (records.hasRemaining()) {
+                    if (RecordCodec.peekTimestamp(records) >= timestampMs) {
+                        found[0] = RecordCodec.peekOffset(records);
+                        return true;
+                    }
+                    records.position(records.position() + 4 + records.getInt(records.position()));
+                }
+            } finally {
+                inflater.end();
+            }
+            return false;
+        });
+        return found[0];
+    }
+
+    /**
+     * offset 기준 프레임 경계 찾기 (인덱스 위치부터 헤더만 훑음, 내보내기 범위 계산용)
+     *
+     * @param containing true: 마지막 오프셋이 offset 이상인 첫 프레임 (offset이 든 압축 배치 포함)
+     *                   false: 첫 오프셋이 offset 이상인 첫 프레임
+     * @param end        이 위치까지만 (호출 시점의 기록된 끝)
+     * @return 프레임 위치와 첫 오프셋 (없으면 유효 구간 끝, 오프셋 -1)
+     */
+    FramePosition findFrame(long offset, boolean containing, long end) throws IOException {
+        long[] first = {-1};
+        long pos = walk(positionForOffset(offset), end, (frame, p, len) -> {
+            long o = containing ? RecordCodec.peekLastOffset(frame) : RecordCodec.peekOffset(frame);
+            if (o < offset) return false;
+            first[0] = RecordCodec.peekOffset(frame);
+            return true;
+        });
+        return new FramePosition(pos, first[0]);
+    }
+
+    /**
+     * [from, to) 바이트를 target으로 그대로 전송 (FileChannel.transferTo: 커널이 페이지 캐시에서 바로 복사, 디코딩 없음)
+     * - target은 blocking 채널이어야 함 (논블로킹 소켓이 가득 차면 0을 돌려받아 계속 재시도하게 됨)
+     *
+     * @return 전송한 바이트 수
+     */
+    long transferTo(long from, long to, WritableByteChannel target) throws IOException {
+        long pos = from;
+        while (pos < to) {
+            pos += channel.transferTo(pos, to - pos, target);
+        }
+        return pos - from;
+    }
+
+    /** 프레임(레코드 또는 압축 배치) 방문자, frame 위치 = 프레임 시작 (true를 돌려주면 거기서 멈춤) */
+    @FunctionalInterface
+    private interface RecordWalker {
+        boolean visit(ByteBuffer frame, long position, int length) throws IOException;
+    }
+
+    /**
+     * fromPos부터 end까지 프레임 헤더만 훑음 (CRC 검증, 디코딩·압축 해제 없음)
+     * - 손상/잘린 레코드를 만나면 거기서 멈춤
+     *
+     * @return 마지막으로 방문한 유효 레코드의 끝 위치 (방문자가 멈추면 그 레코드의 시작 위치)
+     */
+    private long walk(long fromPos, long end, RecordWalker walker) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(READ_CHUNK);
+        buf.limit(0);
+        long filePos = fromPos;
+        long validEnd = fromPos;
+        while (true) {
+            int len = RecordCodec.validate(buf);
+            if (len == RecordCodec.INCOMPLETE) {
+                if (filePos >= end) return validEnd;
+                buf.compact();
+                if (!buf.hasRemaining()) {
+                    ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2);
+                    buf.flip();
+                    bigger.put(buf);
+                    buf = bigger;
+                }
+                if (buf.remaining() > end - filePos) buf.limit(buf.position() + (int) (end - filePos));
+                int r = channel.read(buf, filePos);
+                buf.flip();
+                if (r <= 0) return validEnd;
+                filePos += r;
+                continue;
+            }
+            if (len == RecordCodec.CORRUPT) return validEnd;
+            long recPos = filePos - buf.remaining();
+            if (walker.visit(buf, recPos, len)) return recPos;
+            buf.position(buf.position() + len);
+            validEnd = recPos + len;
+        }
+    }
+
+    /** 디스크 동기화 (fsync, 메타데이터 제외) */
+    public void force() throws IOException {
+        if (channel.isOpen()) channel.force(false);
+    }
+
+    /**
+     * 세그먼트를 처음부터 순회하며 레코드 검증 (CRC)
+     * - 손상/잘린 레코드를 만나면 거기서 멈춤 (그 앞까지가 유효 구간)
+     * - 압축 배치는 visitor가 있을 때만 풀어서 안의 레코드를 하나씩 넘김
+     *
+     * @param visitor 유효 레코드마다 호출 (null이면 디코딩 생략)
+     */
+    public ScanResult scan(Consumer<LogRecord> visitor) throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer buf = ByteBuffer.allocate(READ_CHUNK);
+        buf.limit(0);
+
+        long filePos = 0;
+        long validBytes = 0;
+        long last = -1;
+        long maxTs = -1;
+        int records = 0;
+        Inflater inflater = null;
+
+        try {
+            while (true) {
+                int len = RecordCodec.validate(buf);
+                if (len == RecordCodec.INCOMPLETE) {
+                    if (filePos >= fileSize) break;
+                    buf.compact();
+                    if (!buf.hasRemaining()) {
+                        // 청크보다 큰 레코드 → 버퍼 확장
+                        ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2);
+                        buf.flip();
+                        bigger.put(buf);
+                        buf = bigger;
+                    }
+                    int r = channel.read(buf, filePos);
+                    buf.flip();
+                    if (r <= 0) break;
+                    filePos += r;
+                    continue;
+                }
+                if (len == RecordCodec.CORRUPT) break;
+
+                last = RecordCodec.peekLastOffset(buf);
+                maxTs = Math.max(maxTs, RecordCodec.peekTimestamp(buf));
+                records += RecordCodec.peekCount(buf);
+                if (visitor == null) {
+                    buf.position(buf.position() + len);
+                } else if (RecordCodec.isBatch(buf)) {
+                    if (inflater == null) inflater = new Inflater();
+                    ByteBuffer batch = RecordCodec.inflateBatch(buf, inflater);
+                    while (batch.hasRemaining()) visitor.accept(RecordCodec.decode(batch));
+                } else {
+                    visitor.accept(RecordCodec.decode(buf));
+                }
+                validBytes += len;
+            }
+        } finally {
+            if (inflater != null) inflater.end();
+        }
+        return new ScanResult(validBytes, last, maxTs, records, validBytes < fileSize);
+    }
+
+    /**
+     * 세그먼트 복구: 유효 구간 뒤(torn write 꼬리)를 잘라내고 메타데이터 갱신
+     * - 같은 스캔에서 인덱스를 처음부터 다시 만듦 (활성 세그먼트 인덱스는 봉인 전이라 믿지 않음)
+     * - 인덱스는 쓰기 가능 상태로 남음 (활성 세그먼트로 이어 쓰거나, 호출자가 seal)
+     */
+    public ScanResult recover() throws IOException {
+        activate();
+        long fileSize = channel.size();
+        long[] st = {-1, -1, 0}; // 마지막 오프셋, 최대 타임스탬프, 레코드 수
+        long valid = walk(0, fileSize, (frame, pos, len) -> {
+            long ts = RecordCodec.peekTimestamp(frame);
+            st[0] = RecordCodec.peekLastOffset(frame);
+            st[1] = Math.max(st[1], ts);
+            st[2] += RecordCodec.peekCount(frame);
+            onAppend(RecordCodec.peekOffset(frame), ts, pos, len);
+            return false;
+        });
+        ScanResult r = new ScanResult(valid, st[0], st[1], (int) st[2], valid < fileSize);
+        if (r.truncated()) {
+            log.warn("[WAL] 손상된 꼬리 레코드 제거 | file={} valid={}B size={}B",
+                    path.getFileName(), r.validBytes(), fileSize);
+            channel.truncate(r.validBytes());
+        }
+        this.size = r.validBytes();
+        this.lastOffset = r.lastOffset();
+        this.maxTimestamp = r.maxTimestamp();
+        return r;
+    }
+
+    /**
+     * 닫힌 세그먼트의 메타데이터(마지막 오프셋 / 최대 타임스탬프) 채우기
+     * - 시작 시에는 마지막(활성) 세그먼트만 스캔하므로, 이전 세그먼트는 처음 필요할 때 한 번 스캔 (보존 정리용)
+     * - recover()와 달리 파일을 자르지 않음
+     */
+    void loadMetaIfMissing() throws IOException {
+        if (lastOffset >= 0 || size == 0) return;
+        ScanResult r = scan(null);
+        this.lastOffset = r.lastOffset();
+        this.maxTimestamp = r.maxTimestamp();
+    }
+
+    /** 다른 LogSegment 객체가 이미 스캔한 같은 파일의 메타데이터 사용 (압축 교체 시 락 안에서 다시 스캔하지 않도록) */
+    void adoptMeta(ScanResult r) {
+        this.lastOffset = r.lastOffset();
+        this.maxTimestamp = r.maxTimestamp();
+    }
+
+    public long baseOffset() {
+        return baseOffset;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long lastOffset() {
+        return lastOffset;
+    }
+
+    public long maxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        offsetIndex.close();
+        timeIndex.close();
+    }
+
+    /** 세그먼트 삭제 (닫은 뒤 로그 → 인덱스 순으로 파일 제거, 중간에 죽어 남은 인덱스는 다음 시작 때 정리) */
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+        offsetIndex.delete();
+        timeIndex.delete();
+    }
+
+    /**
+     * 인덱스 파일만 제거 (압축으로 같은 이름의 로그 파일이 교체될 때)
+     * - 이 세그먼트를 아직 읽는 쪽은 이미 잡은 매핑으로 옛 내용을 계속 봄
+     */
+    void deleteIndexFiles() throws IOException {
+        offsetIndex.delete();
+        timeIndex.delete();
+    }
+
+    /**
+     * 프레임 경계
+     *
+     * @param position    파일 위치
+     * @param firstOffset 그 프레임의 첫 오프셋 (-1: 프레임 없음 = 유효 구간 끝)
+     */
+    record FramePosition(long position, long firstOffset) {
+    }
+
+    /**
+     * scan 결과
+     *
+     * @param validBytes   유효 레코드 바이트 수
+     * @param lastOffset   마지막 유효 오프셋 (-1: 없음)
+     * @param maxTimestamp 최대 타임스탬프 (-1: 없음)
+     * @param records      유효 레코드 수
+     * @param truncated    유효 구간 뒤에 손상/잘린 바이트가 남아 있음
+     */
+    public record ScanResult(long validBytes, long lastOffset, long maxTimestamp, int records, boolean truncated) {
+    }
+}
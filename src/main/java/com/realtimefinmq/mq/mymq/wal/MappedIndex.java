@@ -0,0 +1,109 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * MappedIndex (세그먼트 희소 인덱스 파일 공통)
+ * - 고정 크기 엔트리 배열을 메모리 매핑한 파일 (조회는 이진 탐색, 페이지 캐시만 사용)
+ * - 활성 세그먼트: 최대 엔트리 수만큼 미리 늘려 READ_WRITE 매핑 → 적재 경로에서 시스템 콜 없이 엔트리 추가
+ * - 봉인(seal, 롤링 시): 실제 엔트리 수만큼 파일을 잘라 READ_ONLY로 다시 매핑
+ *   → 다음 시작 때 파일 크기 = 엔트리 수 (봉인 전에 죽었거나 없는 파일은 sane() 실패 → 세그먼트 스캔으로 재생성)
+ *
+ * 동기화: 추가는 SegmentedLog 락 안의 한 스레드, 조회는 여러 스레드
+ *   → 엔트리 바이트를 쓴 뒤 volatile entries를 올려 조회 스레드에 공개 (조회는 절대 위치 get만 사용)
+ */
+abstract class MappedIndex implements Closeable {
+    protected final Path path;
+    protected final long baseOffset;
+    private final int entrySize;
+    private final int maxEntries;
+
+    private FileChannel channel;
+    protected volatile ByteBuffer mmap;   // null = 아직 로드 못 함 (재생성 필요)
+    protected volatile int entries;
+    private boolean writable;
+
+    MappedIndex(Path path, long baseOffset, int entrySize, int maxEntries) throws IOException {
+        this.path = path;
+        this.baseOffset = baseOffset;
+        this.entrySize = entrySize;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size > 0 && size % entrySize == 0 && size / entrySize <= this.maxEntries) {
+            this.mmap = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            this.entries = (int) (size / entrySize);
+        }
+    }
+
+    /** 봉인된 인덱스를 문제없이 읽었는지 (엔트리 순서 / 세그먼트 크기 범위 확인) */
+    boolean sane(long segmentSize) {
+        if (mmap == null) return false;
+        for (int i = 0; i < entries; i++) {
+            if (!entryValid(i, segmentSize)) return false;
+        }
+        return true;
+    }
+
+    /** i번째 엔트리가 앞 엔트리보다 크고 세그먼트 범위 안인지 */
+    protected abstract boolean entryValid(int i, long segmentSize);
+
+    /** 엔트리를 비우고 추가 가능한 상태로 (활성 세그먼트 / 재생성) */
+    void reset() throws IOException {
+        MappedByteBuffer rw = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) maxEntries * entrySize);
+        this.entries = 0;
+        this.mmap = rw;
+        this.writable = true;
+    }
+
+    /** 엔트리 추가 공간 확보 (가득 찼거나 읽기 전용이면 false → 호출자는 건너뜀, 인덱스가 더 성길 뿐) */
+    protected boolean canAppend() {
+        return writable && entries < maxEntries;
+    }
+
+    protected int slot(int i) {
+        return i * entrySize;
+    }
+
+    /** 엔트리 공개 (바이트를 쓴 뒤 호출) */
+    protected void published() {
+        entries = entries + 1;
+    }
+
+    /** 실제 엔트리 수만큼 자르고 읽기 전용으로 다시 매핑 */
+    void seal() throws IOException {
+        if (!writable) return;
+        ((MappedByteBuffer) mmap).force();
+        long size = (long) entries * entrySize;
+        channel.truncate(size);
+        this.mmap = (size == 0) ? ByteBuffer.allocate(0) : channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        this.writable = false;
+    }
+
+    /** 디스크 동기화 (활성 인덱스) */
+    void force() {
+        if (writable) ((MappedByteBuffer) mmap).force();
+    }
+
+    int entries() {
+        return entries;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** 파일 삭제 (매핑은 GC 때 해제, 이미 매핑을 잡은 조회는 끝까지 옛 내용을 봄) */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,73 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OffsetCheckpoint
+ * - 로그별 커밋 오프셋(컨슈머가 처리 완료한 다음 위치)을 파일 1개에 저장
+ * - 임시 파일에 쓰고 fsync 후 원자적 rename → 쓰다가 죽어도 이전 체크포인트가 온전히 남음
+ *
+ * 파일 포맷 (텍스트):
+ * <pre>
+ * 0            // 버전
+ * 2            // 항목 수
+ * default-0 1234
+ * default-1 987
+ * </pre>
+ */
+public class OffsetCheckpoint {
+    private static final int VERSION = 0;
+
+    private final Path file;
+
+    public OffsetCheckpoint(Path file) {
+        this.file = file;
+    }
+
+    public synchronized void write(Map<String, Long> offsets) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            w.write(Integer.toString(VERSION));
+            w.newLine();
+            w.write(Integer.toString(offsets.size()));
+            w.newLine();
+            for (Map.Entry<String, Long> e : offsets.entrySet()) {
+                w.write(e.getKey() + " " + e.getValue());
+                w.newLine();
+            }
+        }
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** 체크포인트 읽기 (파일 없으면 빈 맵) */
+    public synchronized Map<String, Long> read() throws IOException {
+        Map<String, Long> offsets = new HashMap<>();
+        if (!Files.exists(file)) return offsets;
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.size() < 2 || Integer.parseInt(lines.get(0).trim()) != VERSION) {
+            throw new IOException("unsupported checkpoint format: " + file);
+        }
+        int count = Integer.parseInt(lines.get(1).trim());
+        for (int i = 0; i < count && i + 2 < lines.size(); i++) {
+            String line = lines.get(i + 2).trim();
+            int sp = line.lastIndexOf(' ');
+            offsets.put(line.substring(0, sp), Long.parseLong(line.substring(sp + 1)));
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,63 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * OffsetIndex ({baseOffset}.index)
+ * - 희소 오프셋 인덱스: index-interval-bytes마다 (상대 오프셋 int, 파일 위치 int) 1개
+ * - 조회: 찾는 오프셋 이하인 마지막 엔트리를 이진 탐색 → 그 위치부터 짧게 스캔 (세그먼트 처음부터 읽지 않음)
+ */
+class OffsetIndex extends MappedIndex {
+    public static final String SUFFIX = ".index";
+    private static final int ENTRY = 8;
+
+    OffsetIndex(Path path, long baseOffset, int maxEntries) throws IOException {
+        super(path, baseOffset, ENTRY, maxEntries);
+    }
+
+    /** 엔트리 추가 (오프셋·위치 모두 앞 엔트리보다 커야 함) */
+    void append(long offset, long position) {
+        if (!canAppend() || position > Integer.MAX_VALUE) return;
+        ByteBuffer b = mmap;
+        int at = slot(entries);
+        b.putInt(at, (int) (offset - baseOffset));
+        b.putInt(at + 4, (int) position);
+        published();
+    }
+
+    /**
+     * offset 이하인 마지막 엔트리의 파일 위치
+     *
+     * @param maxPosition 이 위치를 넘는 엔트리는 무시 (쓰기 버퍼에만 있고 아직 파일에 없는 구간)
+     * @return 해당 엔트리가 없으면 0 (세그먼트 처음)
+     */
+    long floorPosition(long offset, long maxPosition) {
+        ByteBuffer b = mmap;
+        int n = entries;
+        if (b == null || n == 0) return 0;
+        long rel = offset - baseOffset;
+        int lo = 0, hi = n - 1, found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (b.getInt(slot(mid)) <= rel) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        while (found >= 0 && b.getInt(slot(found) + 4) > maxPosition) found--;
+        return (found < 0) ? 0 : b.getInt(slot(found) + 4);
+    }
+
+    @Override
+    protected boolean entryValid(int i, long segmentSize) {
+        ByteBuffer b = mmap;
+        int rel = b.getInt(slot(i));
+        int pos = b.getInt(slot(i) + 4);
+        if (pos <= 0 || pos >= segmentSize || rel <= 0) return false; // 첫 레코드(위치 0)는 인덱싱하지 않음
+        return i == 0 || (rel > b.getInt(slot(i - 1)) && pos > b.getInt(slot(i - 1) + 4));
+    }
+}
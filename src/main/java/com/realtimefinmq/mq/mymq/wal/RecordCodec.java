@@ -0,0 +1,300 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import com.realtimefinmq.mq.Message;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * RecordCodec
+ * - WAL 레코드 바이너리 포맷 인코딩/디코딩
+ *
+ * 레코드 포맷 (big-endian):
+ * <pre>
+ * int   size        // 이후 바이트 수 (crc ~ 끝)
+ * int   crc         // CRC32C(magic ~ 끝)
+ * byte  magic       // 포맷 버전
+ * byte  attributes  // 레코드 속성 (예약)
+ * long  offset
+ * long  timestamp   // 메시지 생성 시각 (Message.timestamp)
+ * byte  fields      // 선택 필드 존재 비트
+ * str   id, key, payload   (int 길이 + UTF-8, null이면 길이 -1)
+ * long  sequence    // fields & HAS_SEQUENCE
+ * long  deliverAt   // fields & HAS_DELIVER_AT (지연 메시지 전달 예정 시각)
+ * long  expiresAt   // fields & HAS_EXPIRES_AT (TTL 만료 시각)
+ * int   priority    // fields & HAS_PRIORITY (우선순위 레인)
+ * </pre>
+ *
+ * 압축 배치 프레임 (attributes & ATTR_DEFLATE, 헤더는 레코드와 같아 size/CRC 검증·오프셋 peek을 그대로 씀):
+ * <pre>
+ * int   size, crc; byte magic, attributes
+ * long  offset          // 배치 첫 오프셋
+ * long  timestamp       // 배치 최대 타임스탬프
+ * int   lastOffsetDelta // 마지막 오프셋 - 첫 오프셋 (압축으로 빈 번호가 생길 수 있어 건수와 별도)
+ * int   count           // 안에 든 레코드 수
+ * int   rawSize         // 푼 크기
+ * long  firstTimestamp  // 첫 레코드 타임스탬프
+ * byte[] deflated       // 위 레코드 포맷 그대로 이어 붙인 묶음을 Deflater로 압축
+ * </pre>
+ */
+public final class RecordCodec {
+    public static final byte MAGIC = 1;
+
+    /** size + crc */
+    public static final int LENGTH_OVERHEAD = 8;
+    /** size ~ timestamp */
+    public static final int HEADER_SIZE = LENGTH_OVERHEAD + 1 + 1 + 8 + 8;
+    /** 레코드 1건 최대 크기 (손상된 size 값으로 거대한 버퍼를 잡지 않도록) */
+    public static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+    /** 압축 배치 프레임 헤더 (레코드 헤더 + lastOffsetDelta ~ firstTimestamp) */
+    public static final int BATCH_HEADER_SIZE = HEADER_SIZE + 4 + 4 + 4 + 8;
+
+    /** attributes: Deflater로 압축한 레코드 묶음 */
+    public static final byte ATTR_DEFLATE = 1;
+
+    /** validate() 결과: 버퍼에 레코드 전체가 아직 없음 */
+    public static final int INCOMPLETE = -1;
+    /** validate() 결과: size/CRC/magic 불일치 (torn write 또는 손상) */
+    public static final int CORRUPT = -2;
+
+    private static final byte HAS_SEQUENCE = 1;
+    private static final byte HAS_DELIVER_AT = 2;
+    private static final byte HAS_EXPIRES_AT = 4;
+    private static final byte HAS_PRIORITY = 8;
+
+    private RecordCodec() { }
+
+    /** 인코딩 결과 크기의 상한 (버퍼 여유 공간 판단용, UTF-8 최대 3바이트/char 가정) */
+    public static int maxEncodedSize(Message msg) {
+        return HEADER_SIZE + 1 + maxStr(msg.getId()) + maxStr(msg.getKey()) + maxStr(msg.getPayload()) + 8 + 8 + 8 + 4;
+    }
+
+    /**
+     * dst의 현재 위치에 레코드 1건 기록
+     *
+     * @return 기록한 바이트 수
+     */
+    public static int encode(ByteBuffer dst, long offset, Message msg) {
+        int start = dst.position();
+        dst.position(start + LENGTH_OVERHEAD);
+        dst.put(MAGIC);
+        dst.put((byte) 0);
+        dst.putLong(offset);
+        dst.putLong(msg.getTimestamp());
+
+        byte fields = 0;
+        if (msg.getSequence() != null) fields |= HAS_SEQUENCE;
+        if (msg.getDeliverAt() > 0) fields |= HAS_DELIVER_AT;
+        if (msg.getExpiresAt() > 0) fields |= HAS_EXPIRES_AT;
+        if (msg.getPriority() != null) fields |= HAS_PRIORITY;
+        dst.put(fields);
+        putStr(dst, msg.getId());
+        putStr(dst, msg.getKey());
+        putStr(dst, msg.getPayload());
+        if (msg.getSequence() != null) dst.putLong(msg.getSequence());
+        if (msg.getDeliverAt() > 0) dst.putLong(msg.getDeliverAt());
+        if (msg.getExpiresAt() > 0) dst.putLong(msg.getExpiresAt());
+        if (msg.getPriority() != null) dst.putInt(msg.getPriority());
+
+        int end = dst.position();
+        dst.putInt(start, end - start - 4);
+        dst.putInt(start + 4, crcOf(dst, start + LENGTH_OVERHEAD, end));
+        return end - start;
+    }
+
+    /**
+     * src의 현재 위치에 온전한 레코드가 있는지 확인 (위치는 움직이지 않음)
+     *
+     * @return 레코드 전체 길이 / INCOMPLETE / CORRUPT
+     */
+    public static int validate(ByteBuffer src) {
+        int pos = src.position();
+        if (src.remaining() < 4) return INCOMPLETE;
+        int size = src.getInt(pos);
+        if (size < HEADER_SIZE - 4 || size > MAX_RECORD_SIZE) return CORRUPT;
+        if (src.remaining() < 4 + size) return INCOMPLETE;
+        int end = pos + 4 + size;
+        if (src.get(pos + LENGTH_OVERHEAD) != MAGIC) return CORRUPT;
+        if (src.getInt(pos + 4) != crcOf(src, pos + LENGTH_OVERHEAD, end)) return CORRUPT;
+        return 4 + size;
+    }
+
+    /** 레코드 오프셋만 읽기 (validate 통과한 위치 기준, 위치는 움직이지 않음) */
+    public static long peekOffset(ByteBuffer src) {
+        return peekOffset(src, src.position());
+    }
+
+    /** at 위치 레코드의 오프셋 (절대 위치 읽기) */
+    public static long peekOffset(ByteBuffer src, int at) {
+        return src.getLong(at + LENGTH_OVERHEAD + 2);
+    }
+
+    /** 레코드 타임스탬프만 읽기 (validate 통과한 위치 기준, 위치는 움직이지 않음) */
+    public static long peekTimestamp(ByteBuffer src) {
+        return peekTimestamp(src, src.position());
+    }
+
+    /** at 위치 레코드의 타임스탬프 (절대 위치 읽기) */
+    public static long peekTimestamp(ByteBuffer src, int at) {
+        return src.getLong(at + LENGTH_OVERHEAD + 10);
+    }
+
+    /** 압축 배치 프레임인지 (validate 통과한 위치 기준) */
+    public static boolean isBatch(ByteBuffer src) {
+        return (src.get(src.position() + LENGTH_OVERHEAD + 1) & ATTR_DEFLATE) != 0;
+    }
+
+    /** 프레임의 마지막 오프셋 (레코드면 자기 오프셋) */
+    public static long peekLastOffset(ByteBuffer src) {
+        long offset = peekOffset(src);
+        return isBatch(src) ? offset + src.getInt(src.position() + HEADER_SIZE) : offset;
+    }
+
+    /** 프레임에 든 레코드 수 (레코드면 1) */
+    public static int peekCount(ByteBuffer src) {
+        return isBatch(src) ? src.getInt(src.position() + HEADER_SIZE + 4) : 1;
+    }
+
+    /** 프레임 첫 레코드의 타임스탬프 (레코드면 자기 타임스탬프, 배치 헤더의 timestamp는 최대값) */
+    public static long peekFirstTimestamp(ByteBuffer src) {
+        return isBatch(src) ? src.getLong(src.position() + HEADER_SIZE + 12) : peekTimestamp(src);
+    }
+
+    /**
+     * 레코드 묶음을 압축 배치 프레임 1개로 dst에 기록
+     * - records: 위 레코드 포맷으로 이어 붙인 묶음 (position ~ limit, 위치는 움직이지 않음)
+     * - 압축 결과가 원본보다 작지 않으면 기록하지 않음 (호출자가 원본을 그대로 씀)
+     *
+     * @return 기록한 바이트 수 (0 = 기록 안 함, dst 위치 그대로)
+     */
+    public static int encodeBatch(ByteBuffer dst, ByteBuffer records, Deflater deflater) {
+        int from = records.position();
+        int to = records.limit();
+        int rawSize = to - from;
+        long firstOffset = peekOffset(records, from);
+        long firstTs = peekTimestamp(records, from);
+        long lastOffset = firstOffset;
+        long maxTs = firstTs;
+        int count = 0;
+        for (int p = from; p < to; p += 4 + records.getInt(p)) {
+            lastOffset = peekOffset(records, p);
+            maxTs = Math.max(maxTs, peekTimestamp(records, p));
+            count++;
+        }
+
+        int start = dst.position();
+        int budget = Math.min(dst.remaining(), rawSize - 1); // 헤더 포함 프레임 전체가 원본보다 1바이트라도 작아야 함
+        if (budget <= BATCH_HEADER_SIZE || rawSize > MAX_RECORD_SIZE) return 0;
+        ByteBuffer out = dst.duplicate();
+        out.limit(start + budget).position(start + BATCH_HEADER_SIZE);
+        deflater.reset();
+        deflater.setInput(records.duplicate());
+        deflater.finish();
+        while (!deflater.finished() && out.hasRemaining()) deflater.deflate(out);
+        if (!deflater.finished()) return 0;
+
+        int end = out.position();
+        dst.position(start + LENGTH_OVERHEAD);
+        dst.put(MAGIC);
+        dst.put(ATTR_DEFLATE);
+        dst.putLong(firstOffset);
+        dst.putLong(maxTs);
+        dst.putInt((int) (lastOffset - firstOffset));
+        dst.putInt(count);
+        dst.putInt(rawSize);
+        dst.putLong(firstTs);
+        dst.position(end);
+        dst.putInt(start, end - start - 4);
+        dst.putInt(start + 4, crcOf(dst, start + LENGTH_OVERHEAD, end));
+        return end - start;
+    }
+
+    /**
+     * 압축 배치 프레임을 풀어 레코드 묶음으로 (validate 통과한 위치 기준, 위치는 프레임 끝으로 이동)
+     *
+     * @return 레코드 포맷으로 이어 붙인 묶음 (position 0 ~ limit), 안의 레코드는 validate/decode로 읽음
+     */
+    public static ByteBuffer inflateBatch(ByteBuffer src, Inflater inflater) {
+        int start = src.position();
+        int end = start + 4 + src.getInt(start);
+        int rawSize = src.getInt(start + HEADER_SIZE + 8);
+        if (rawSize < 0 || rawSize > MAX_RECORD_SIZE) throw new IllegalStateException("[WAL] 잘못된 배치 크기: " + rawSize);
+        ByteBuffer raw = ByteBuffer.allocate(rawSize);
+        ByteBuffer in = src.duplicate();
+        in.limit(end).position(start + BATCH_HEADER_SIZE);
+        inflater.reset();
+        inflater.setInput(in);
+        try {
+            while (raw.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(raw) == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("[WAL] 배치 압축 해제 실패 | offset=" + peekOffset(src), e);
+        }
+        if (raw.hasRemaining()) throw new IllegalStateException("[WAL] 배치 압축 해제 크기 불일치 | offset=" + peekOffset(src));
+        src.position(end);
+        return raw.flip();
+    }
+
+    /**
+     * 레코드 1건 디코딩 (validate 통과한 위치 기준, 위치는 레코드 끝으로 이동)
+     */
+    public static LogRecord decode(ByteBuffer src) {
+        int start = src.position();
+        int size = src.getInt();
+        src.getInt();   // crc (validate에서 확인)
+        src.get();      // magic
+        src.get();      // attributes
+        long offset = src.getLong();
+        long timestamp = src.getLong();
+
+        byte fields = src.get();
+        Message msg = new Message();
+        msg.setId(getStr(src));
+        msg.setKey(getStr(src));
+        msg.setPayload(getStr(src));
+        if ((fields & HAS_SEQUENCE) != 0) msg.setSequence(src.getLong());
+        if ((fields & HAS_DELIVER_AT) != 0) msg.setDeliverAt(src.getLong());
+        if ((fields & HAS_EXPIRES_AT) != 0) msg.setExpiresAt(src.getLong());
+        if ((fields & HAS_PRIORITY) != 0) msg.setPriority(src.getInt());
+        msg.setTimestamp(timestamp);
+        msg.setOffset(offset);
+
+        src.position(start + 4 + size);
+        return new LogRecord(offset, timestamp, msg);
+    }
+
+    private static int crcOf(ByteBuffer buf, int from, int to) {
+        CRC32C crc = new CRC32C();
+        ByteBuffer view = buf.duplicate();
+        view.limit(to).position(from);
+        crc.update(view);
+        return (int) crc.getValue();
+    }
+
+    private static int maxStr(String s) {
+        return 4 + (s == null ? 0 : s.length() * 3);
+    }
+
+    private static void putStr(ByteBuffer dst, String s) {
+        if (s == null) {
+            dst.putInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        dst.putInt(b.length);
+        dst.put(b);
+    }
+
+    private static String getStr(ByteBuffer src) {
+        int len = src.getInt();
+        if (len < 0) return null;
+        byte[] b = new byte[len];
+        src.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
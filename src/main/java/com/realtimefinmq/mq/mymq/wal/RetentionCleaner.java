@@ -0,0 +1,82 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * RetentionCleaner (보존 정책에 따른 세그먼트 삭제)
+ * - 로그 앞쪽부터 닫힌 세그먼트를 통째로 삭제 (레코드 단위로 자르지 않음, 활성 세그먼트는 제외)
+ * - 삭제 조건 (하나라도 맞으면 삭제, 맞지 않는 세그먼트를 만나면 거기서 멈춤 → 로그는 항상 연속 구간)
+ *   - 나이: 세그먼트의 최대 타임스탬프가 retention-ms보다 오래됨
+ *   - 크기: 이 세그먼트를 지워도 로그 크기가 retention-bytes 이상
+ *   - 소비 완료: 세그먼트 전체가 모든 컨슈머(메인 큐 + 컨슈머 그룹)의 커밋 오프셋보다 앞
+ * - 보호 오프셋: 이 오프셋 이상을 담은 세그먼트는 나이/크기 조건이 맞아도 지우지 않음 (미소비 메시지 보호)
+ * - 프로듀서 적재 경로와 락을 공유하지 않음 (세그먼트 목록에서 빼고 파일 삭제만)
+ *
+ * 동기화: 정리 스레드 1개 전용
+ */
+@Slf4j
+public class RetentionCleaner {
+
+    /**
+     * 로그 1개의 보존 정책
+     *
+     * @param retentionMs       최대 나이 (0 이하 = 무제한)
+     * @param retentionBytes    최대 크기 (0 이하 = 무제한)
+     * @param deleteBelowOffset 이 오프셋 앞에서 끝나는 세그먼트는 삭제 (소비 완료, -1 = 사용 안 함)
+     * @param protectFromOffset 이 오프셋 이상을 담은 세그먼트는 삭제하지 않음 (Long.MAX_VALUE = 보호 없음)
+     */
+    public record Policy(long retentionMs, long retentionBytes, long deleteBelowOffset, long protectFromOffset) {
+    }
+
+    /**
+     * 정리 결과
+     *
+     * @param segments 삭제한 세그먼트 수
+     * @param bytes    삭제한 바이트
+     */
+    public record Result(int segments, long bytes) {
+        public static final Result NONE = new Result(0, 0);
+    }
+
+    public Result clean(SegmentedLog segLog, Policy policy, long nowMs) throws IOException {
+        List<LogSegment> closed = segLog.closedSegments();
+        if (closed.isEmpty()) return Result.NONE;
+
+        long total = segLog.sizeInBytes();
+        int deleted = 0;
+        long freed = 0;
+        for (int i = 0; i < closed.size(); i++) {
+            LogSegment seg = closed.get(i);
+            long end = (i + 1 < closed.size()) ? closed.get(i + 1).baseOffset() : segLog.activeBaseOffset(); // 이 세그먼트 오프셋 < end
+            if (end > policy.protectFromOffset()) break;
+
+            String reason = reason(seg, end, total, policy, nowMs);
+            if (reason == null) break;
+
+            segLog.deleteSegment(seg);
+            total -= seg.size();
+            freed += seg.size();
+            deleted++;
+            log.debug("[WAL-Retention] 세그먼트 삭제 | log={} base={} end={} reason={}", segLog.name(), seg.baseOffset(), end, reason);
+        }
+        if (deleted > 0) {
+            log.info("[WAL-Retention] 보존 정리 | log={} segments={} freed={}B start={}",
+                    segLog.name(), deleted, freed, segLog.startOffset());
+        }
+        return new Result(deleted, freed);
+    }
+
+    /** 삭제 사유 (삭제 대상이 아니면 null) */
+    private static String reason(LogSegment seg, long end, long total, Policy policy, long nowMs) throws IOException {
+        if (policy.deleteBelowOffset() >= 0 && end <= policy.deleteBelowOffset()) return "consumed";
+        if (policy.retentionBytes() > 0 && total - seg.size() >= policy.retentionBytes()) return "bytes";
+        if (policy.retentionMs() > 0) {
+            seg.loadMetaIfMissing();
+            if (seg.size() == 0 || seg.maxTimestamp() < nowMs - policy.retentionMs()) return "age";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,551 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.mq.Message;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * SegmentedLog
+ * - 파티션 1개의 append-only 로그 (디렉터리 1개 = 세그먼트 파일 여러 개)
+ * - 활성 세그먼트가 segmentBytes를 넘으면 새 세그먼트로 롤링
+ * - 닫힌 세그먼트는 압축(LogCompactor)으로 다시 쓴 파일과 교체될 수 있음 (오프셋은 유지)
+ * - 세그먼트마다 희소 오프셋/시각 인덱스 (기록 시 갱신, 롤링 시 봉인) → seek이 세그먼트 크기와 무관
+ * - 배치 압축(compression=deflate)이면 flush 1회분 레코드 묶음을 압축 프레임 1개로 기록 (읽는 쪽이 풂)
+ *
+ * 쓰기 경로 (그룹 커밋):
+ * 1. append(): 락 안에서 오프셋 부여 + 쓰기 버퍼에 인코딩 (시스템 콜 없음)
+ * 2. flush(): 버퍼에 모인 레코드를 FileChannel.write 1회로 기록 (버퍼 가득 참 / flusher 주기 / sync 시)
+ * 3. sync(): flush + fsync. 락 밖에서 수행하므로 fsync 중에도 다른 프로듀서는 계속 append
+ *    → 그 사이 쌓인 레코드는 다음 fsync 한 번에 같이 내구화 (fsync 비용 분산)
+ * 4. awaitDurable(offset): 프로듀서가 자기 오프셋이 정책만큼 내구화될 때까지 대기 (적재 락 밖)
+ *    - NEVER: 직접 flush (그 사이 다른 프로듀서가 버퍼에 넣은 레코드도 같은 write 1회로)
+ *    - EVERY_N / INTERVAL: 자기 오프셋을 덮는 fsync가 끝날 때까지 조건 대기
+ *      (fsync는 N건째 프로듀서 또는 flusher 주기가 수행, 한 번에 여러 프로듀서를 깨움)
+ */
+@Slf4j
+public class SegmentedLog implements Closeable {
+    private final String name;
+    private final Path dir;
+    private final long segmentBytes;
+    private final FsyncPolicy fsyncPolicy;
+    private final int fsyncEveryRecords;
+    private final int indexIntervalBytes;
+    private final int maxIndexEntries;
+
+    private final ConcurrentSkipListMap<Long, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ByteBuffer writeBuffer;
+    private final MyMqConfig.Wal cfg;
+    private final CompressionStats compressionStats;
+    private final BatchCompressor compressor; // null = 압축 안 함
+    private final ByteBuffer batchBuffer;     // 압축 프레임 (압축할 때만)
+
+    // ===== lock으로 보호 =====
+    private LogSegment active;
+    private long nextOffset;          // 다음에 부여할 오프셋
+    private long bufferedLastOffset;  // 버퍼에 있는 마지막 오프셋
+    private long bufferedMaxTs = -1;  // 버퍼에 있는 최대 타임스탬프
+    private volatile int unsyncedRecords; // 마지막 fsync 이후 적재 건수 (awaitDurable은 락 없이 읽음)
+
+    // ===== 내구화 위치 (그룹 커밋) =====
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableAdvanced = durableLock.newCondition();
+    private volatile long durableOffset;  // 이 오프셋 미만은 정책만큼 내구화 (NEVER: 파일 기록, 그 외: fsync)
+    private volatile boolean closed;
+
+    private SegmentedLog(String name, Path dir, MyMqConfig.Wal cfg, CompressionStats compressionStats) {
+        this.name = name;
+        this.dir = dir;
+        this.segmentBytes = cfg.getSegmentBytes();
+        this.fsyncPolicy = cfg.getFsyncPolicy();
+        this.fsyncEveryRecords = Math.max(1, cfg.getFsyncEveryRecords());
+        this.indexIntervalBytes = Math.max(1, cfg.getIndexIntervalBytes());
+        // 세그먼트 하나에 생길 수 있는 최대 엔트리 수 (+ 마지막 레코드가 segmentBytes를 넘는 경우 여유분)
+        this.maxIndexEntries = (int) Math.min(segmentBytes / indexIntervalBytes + 2, 1 << 22);
+        this.writeBuffer = ByteBuffer.allocateDirect(cfg.getWriteBufferBytes());
+        this.cfg = cfg;
+        this.compressionStats = compressionStats;
+        this.compressor = BatchCompressor.of(cfg, compressionStats);
+        this.batchBuffer = (compressor == null) ? null : ByteBuffer.allocateDirect(cfg.getWriteBufferBytes());
+    }
+
+    /**
+     * 로그 디렉터리 열기
+     * - 기존 세그먼트를 baseOffset 순으로 로드
+     * - 마지막 세그먼트는 CRC 검증 후 잘린 꼬리를 잘라내고 다음 오프셋 계산 (인덱스도 같은 스캔에서 재생성)
+     * - 닫힌 세그먼트는 봉인된 인덱스를 그대로 쓰고, 없거나 깨졌으면 재생성
+     */
+    public static SegmentedLog open(String name, Path dir, MyMqConfig.Wal cfg) throws IOException {
+        return open(name, dir, cfg, new CompressionStats());
+    }
+
+    /**
+     * @param compressionStats 배치 압축 지표 (WriteAheadLog가 모든 로그에 같은 객체를 넘김)
+     */
+    public static SegmentedLog open(String name, Path dir, MyMqConfig.Wal cfg, CompressionStats compressionStats) throws IOException {
+        Files.createDirectories(dir);
+        SegmentedLog sl = new SegmentedLog(name, dir, cfg, compressionStats);
+
+        List<Path> all;
+        try (Stream<Path> s = Files.list(dir)) {
+            all = s.toList();
+        }
+        for (Path f : all) {
+            // 압축 중 죽어서 남은 임시 파일 (원본 세그먼트는 그대로 있음)
+            if (f.getFileName().toString().endsWith(LogCompactor.CLEANED_SUFFIX)) Files.deleteIfExists(f);
+            // 세그먼트 삭제 중 죽어서 남은 인덱스
+            if (LogSegment.isIndexFile(f) && !Files.exists(LogSegment.logFileOf(f))) Files.deleteIfExists(f);
+        }
+        List<Path> files = all.stream().filter(p -> p.getFileName().toString().endsWith(LogSegment.SUFFIX)).sorted().toList();
+        for (Path f : files) {
+            long base = LogSegment.parseBaseOffset(f);
+            sl.segments.put(base, sl.openSegment(base));
+        }
+
+        if (sl.segments.isEmpty()) {
+            sl.active = sl.openSegment(0);
+            sl.active.activate();
+            sl.segments.put(0L, sl.active);
+            sl.nextOffset = 0;
+        } else {
+            sl.active = sl.segments.lastEntry().getValue();
+            LogSegment.ScanResult r = sl.active.recover();
+            sl.nextOffset = (r.lastOffset() >= 0) ? r.lastOffset() + 1 : sl.active.baseOffset();
+            for (LogSegment seg : sl.segments.headMap(sl.active.baseOffset()).values()) seg.ensureIndexes();
+        }
+        sl.durableOffset = sl.nextOffset;
+        log.info("[WAL] 로그 열기 | name={} segments={} nextOffset={}", name, sl.segments.size(), sl.nextOffset);
+        return sl;
+    }
+
+    private LogSegment openSegment(long baseOffset) throws IOException {
+        return LogSegment.open(dir, baseOffset, indexIntervalBytes, maxIndexEntries);
+    }
+
+    /**
+     * 메시지 1건 적재 (버퍼에 인코딩만, 디스크 기록은 flush/sync 때 → 프로듀서는 락 밖에서 awaitDurable)
+     *
+     * @return 부여된 오프셋
+     */
+    public long append(Message msg) {
+        lock.lock();
+        try {
+            int max = RecordCodec.maxEncodedSize(msg);
+            if (max > writeBuffer.remaining()) {
+                flushLocked();
+                if (max > writeBuffer.capacity()) {
+                    throw new IllegalArgumentException("record too large for WAL write buffer: " + max + "B");
+                }
+            }
+            if (active.size() + writeBuffer.position() + max > segmentBytes && active.size() + writeBuffer.position() > 0) {
+                flushLocked();
+                roll();
+            }
+
+            long offset = nextOffset++;
+            RecordCodec.encode(writeBuffer, offset, msg);
+            bufferedLastOffset = offset;
+            if (msg.getTimestamp() > bufferedMaxTs) bufferedMaxTs = msg.getTimestamp();
+            unsyncedRecords++;
+            return offset;
+        } catch (IOException e) {
+            throw new UncheckedIOException("[WAL] append 실패 | log=" + name, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * offset까지 정책만큼 내구화될 때까지 대기 (그룹 커밋)
+     * - 프로듀서가 파티션 락을 놓은 뒤 호출 (대기/fsync 동안 같은 파티션 적재를 막지 않도록)
+     * - NEVER: 아직 버퍼에 있으면 flush → 돌아올 때는 파일(페이지 캐시)에 있음 = 프로세스 크래시 방어
+     * - EVERY_N: N건 이상 쌓였으면 직접 fsync, 아니면 다른 프로듀서의 N건째 fsync / flusher 주기 fsync를 기다림
+     * - INTERVAL: flusher 주기 fsync를 기다림 (최대 fsync-interval-ms)
+     * - 로그가 닫히거나 인터럽트되면 내구화를 확인하지 못한 채 반환 (인터럽트 상태는 유지)
+     */
+    public void awaitDurable(long offset) {
+        if (offset < durableOffset) return;
+        if (fsyncPolicy == FsyncPolicy.NEVER) {
+            flush();
+            return;
+        }
+        if (fsyncPolicy == FsyncPolicy.EVERY_N && unsyncedRecords >= fsyncEveryRecords) {
+            sync();
+            if (offset < durableOffset) return;
+        }
+        durableLock.lock();
+        try {
+            while (offset >= durableOffset && !closed) {
+                durableAdvanced.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    /** fsync 완료 → 내구화 위치를 올리고 대기 중인 프로듀서를 깨움 */
+    private void advanceDurable(long end) {
+        durableLock.lock();
+        try {
+            if (end > durableOffset) {
+                durableOffset = end;
+                durableAdvanced.signalAll();
+            }
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    /** 내구화된 위치 (이 오프셋 미만은 정책만큼 디스크에 있음) */
+    public long durableOffset() {
+        return durableOffset;
+    }
+
+    /** 쓰기 버퍼 → 파일 (페이지 캐시까지) */
+    public void flush() {
+        lock.lock();
+        try {
+            flushLocked();
+        } catch (IOException e) {
+            throw new UncheckedIOException("[WAL] flush 실패 | log=" + name, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * flush + fsync (fsync는 락 밖에서)
+     * - fsync는 호출 시점까지 채널에 쓴 전부를 덮음 → 끝나면 그때의 로그 끝까지 내구화 위치를 올림
+     *   (그 전 롤링된 세그먼트는 roll()에서 이미 fsync)
+     */
+    public void sync() {
+        LogSegment target;
+        long end;
+        lock.lock();
+        try {
+            if (unsyncedRecords == 0 && writeBuffer.position() == 0) return;
+            flushLocked();
+            unsyncedRecords = 0;
+            target = active;
+            end = nextOffset;
+        } catch (IOException e) {
+            throw new UncheckedIOException("[WAL] flush 실패 | log=" + name, e);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            target.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException("[WAL] fsync 실패 | log=" + name, e);
+        }
+        advanceDurable(end);
+    }
+
+    /**
+     * 쓰기 버퍼 → 활성 세그먼트 (압축 가능하면 묶음 전체를 압축 프레임 1개로)
+     * - 인덱스 엔트리는 실제로 기록되는 프레임 위치 기준으로 추가 (압축 배치는 배치 첫 오프셋 → 배치 위치)
+     */
+    private void flushLocked() throws IOException {
+        if (writeBuffer.position() == 0) return;
+        writeBuffer.flip();
+        long pos = active.size();
+        ByteBuffer out = writeBuffer;
+        if (compressor != null && compressor.compress(writeBuffer, batchBuffer)) out = batchBuffer;
+        for (int p = out.position(); p < out.limit(); ) {
+            int len = 4 + out.getInt(p);
+            active.onAppend(RecordCodec.peekOffset(out, p), RecordCodec.peekTimestamp(out, p), pos + p, len);
+            p += len;
+        }
+        active.write(out, bufferedLastOffset, bufferedMaxTs);
+        writeBuffer.clear();
+        bufferedMaxTs = -1;
+        if (fsyncPolicy == FsyncPolicy.NEVER) durableOffset = nextOffset; // 파일 기록까지가 NEVER의 내구화 (대기자 없음)
+    }
+
+    /**
+     * 같은 설정의 압축기 새로 만들기 (로그 압축이 다시 쓰는 세그먼트도 같은 방식으로 압축, 호출 스레드 전용)
+     *
+     * @return 압축을 끈 로그면 null
+     */
+    BatchCompressor newCompressor() {
+        return BatchCompressor.of(cfg, compressionStats);
+    }
+
+    CompressionStats compressionStats() {
+        return compressionStats;
+    }
+
+    /** 새 활성 세그먼트로 교체 (이전 세그먼트는 정책에 따라 fsync 후 닫힌 세그먼트가 됨) */
+    private void roll() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NEVER) {
+            active.force();
+            advanceDurable(nextOffset); // 지금까지의 레코드는 전부 이 세그먼트에 있음
+        }
+        active.seal();
+        LogSegment next = openSegment(nextOffset);
+        next.activate();
+        segments.put(nextOffset, next);
+        active = next;
+        log.debug("[WAL] 세그먼트 롤링 | name={} base={}", name, nextOffset);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    /** 다음에 부여할 오프셋 (= 로그 끝) */
+    public long nextOffset() {
+        lock.lock();
+        try {
+            return nextOffset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 활성 세그먼트 baseOffset (이 앞은 닫힌 세그먼트) */
+    public long activeBaseOffset() {
+        lock.lock();
+        try {
+            return active.baseOffset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 로그 시작 오프셋 (첫 세그먼트의 baseOffset) */
+    public long startOffset() {
+        return segments.firstKey();
+    }
+
+    /**
+     * [fromOffset, toOffset) 구간을 원본 바이트 그대로 내보낼 범위 계산 (쓰기 버퍼는 먼저 flush)
+     * - fromOffset은 로그 범위로 보정, toOffset이 로그 끝을 넘으면 지금의 로그 끝까지
+     * - 경계는 인덱스 + 짧은 헤더 스캔으로 찾고, 그 사이 바이트는 읽지 않음 (전송은 LogExport.transferTo)
+     */
+    public LogExport export(long fromOffset, long toOffset) throws IOException {
+        long end;
+        lock.lock();
+        try {
+            flushLocked();
+            end = nextOffset;
+        } finally {
+            lock.unlock();
+        }
+        long from = Math.max(startOffset(), Math.min(fromOffset, end));
+        long to = Math.min(toOffset, end);
+
+        List<LogExport.Slice> slices = new ArrayList<>();
+        long first = -1;
+        if (from < to) {
+            for (Map.Entry<Long, LogSegment> e : segments.tailMap(segmentFor(from).baseOffset()).entrySet()) {
+                LogSegment seg = e.getValue();
+                if (seg.baseOffset() >= to) break;
+                long size = seg.size();
+                long start = 0;
+                if (first < 0) {
+                    LogSegment.FramePosition fp = seg.findFrame(from, true, size);
+                    if (fp.firstOffset() < 0) continue; // 압축으로 from 이후가 비어 있는 세그먼트
+                    start = fp.position();
+                    first = fp.firstOffset();
+                }
+                Long nextBase = segments.higherKey(seg.baseOffset());
+                long stop = (nextBase == null || nextBase > to) ? seg.findFrame(to, false, size).position() : size;
+                if (start < stop) slices.add(new LogExport.Slice(seg, start, stop));
+            }
+        }
+        return new LogExport(slices, first, Math.max(from, to));
+    }
+
+    /**
+     * 오프셋부터 순차로 읽는 리더 생성 (컨슈머 그룹용, 리더마다 독립 위치)
+     * - 로그 시작보다 앞이면 시작부터, 끝보다 뒤면 끝부터
+     */
+    public LogReader reader(long fromOffset) {
+        return new LogReader(this, fromOffset);
+    }
+
+    /** offset을 담고 있는 세그먼트 (로그 시작보다 앞이면 첫 세그먼트) */
+    LogSegment segmentFor(long offset) {
+        Map.Entry<Long, LogSegment> e = segments.floorEntry(offset);
+        return (e != null) ? e.getValue() : segments.firstEntry().getValue();
+    }
+
+    /** 다음 세그먼트 (없으면 null = segment가 활성 세그먼트) */
+    LogSegment nextSegment(LogSegment segment) {
+        Map.Entry<Long, LogSegment> e = segments.higherEntry(segment.baseOffset());
+        return (e == null) ? null : e.getValue();
+    }
+
+    /** 세그먼트 목록 (baseOffset 오름차순) */
+    public Collection<LogSegment> segments() {
+        return segments.values();
+    }
+
+    /**
+     * 타임스탬프가 timestampMs 이상인 첫 메시지의 오프셋 (시각 기준 재생 시작점)
+     * - 세그먼트 첫 레코드 타임스탬프로 이진 탐색 → 그 세그먼트부터 헤더만 훑음 (세그먼트 1~2개만 읽음)
+     * - 타임스탬프는 대체로 오프셋 순서지만 엄격하지 않으므로(지연 메시지 등) 조건에 맞는 첫 레코드 기준
+     *
+     * @return 없으면 로그 끝 (nextOffset)
+     */
+    public long offsetForTimestamp(long timestampMs) {
+        List<LogSegment> segs = new ArrayList<>(segments.values());
+        try {
+            int lo = 0, hi = segs.size() - 1, from = 0;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                long first = segs.get(mid).firstTimestamp();
+                if (first >= 0 && first < timestampMs) {
+                    from = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            for (int i = from; i < segs.size(); i++) {
+                long offset = segs.get(i).offsetForTimestamp(timestampMs);
+                if (offset >= 0) return offset;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("[WAL] 시각 검색 실패 | log=" + name, e);
+        }
+        return nextOffset();
+    }
+
+    /** 닫힌 세그먼트 목록 (활성 세그먼트 제외, baseOffset 오름차순 스냅샷) */
+    public List<LogSegment> closedSegments() {
+        lock.lock();
+        try {
+            return new ArrayList<>(segments.headMap(active.baseOffset()).values());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 닫힌 세그먼트를 다시 쓴 파일로 교체 (로그 압축)
+     * - 락 밖: cleaned를 임시 이름 그대로 세그먼트로 열어 스캔 → 인덱스 생성 → 봉인 (파일 전체를 읽는 작업)
+     * - 락 안: 옛 인덱스 삭제 → 로그 / 인덱스 파일 rename → 열기(봉인된 인덱스 매핑만) → 목록 교체 → 원본 채널 닫음
+     *   (로그 rename 뒤 인덱스 rename 전에 죽으면 인덱스가 없는 닫힌 세그먼트 → 다음 시작 때 재생성)
+     * - 다 지워져 빈 파일이면 세그먼트 자체를 삭제
+     * - 원본을 읽던 LogReader는 채널이 닫힌 것을 보고 같은 오프셋부터 새 세그먼트에서 다시 읽음
+     *
+     * @param cleaned 원본 옆의 {base}.log.cleaned
+     */
+    void replaceSegment(LogSegment old, Path cleaned) throws IOException {
+        long base = old.baseOffset();
+        String suffix = LogCompactor.CLEANED_SUFFIX;
+        List<Path[]> indexMoves = List.of(
+                new Path[]{dir.resolve(LogSegment.indexFileName(base, OffsetIndex.SUFFIX) + suffix), dir.resolve(LogSegment.indexFileName(base, OffsetIndex.SUFFIX))},
+                new Path[]{dir.resolve(LogSegment.indexFileName(base, TimeIndex.SUFFIX) + suffix), dir.resolve(LogSegment.indexFileName(base, TimeIndex.SUFFIX))});
+
+        LogSegment.ScanResult scanned = null;
+        if (Files.size(cleaned) > 0) {
+            try (LogSegment staged = LogSegment.open(dir, base, suffix, indexIntervalBytes, maxIndexEntries)) {
+                scanned = staged.recover();
+                staged.seal();
+            }
+        }
+
+        lock.lock();
+        try {
+            if (old == active || segments.get(base) != old) {
+                Files.deleteIfExists(cleaned);
+                for (Path[] m : indexMoves) Files.deleteIfExists(m[0]);
+                throw new IllegalStateException("[WAL] 교체할 수 없는 세그먼트 | log=" + name + " base=" + base);
+            }
+            if (scanned == null) {
+                segments.remove(base);
+                old.delete();
+                Files.deleteIfExists(cleaned);
+                log.debug("[WAL] 빈 세그먼트 삭제 | name={} base={}", name, base);
+                return;
+            }
+            old.deleteIndexFiles(); // 옛 인덱스는 새 파일 위치와 맞지 않음
+            Files.move(cleaned, old.path(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            for (Path[] m : indexMoves) Files.move(m[0], m[1], StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            LogSegment fresh = openSegment(base);
+            fresh.adoptMeta(scanned);
+            segments.put(base, fresh);
+            old.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 로그 앞쪽의 닫힌 세그먼트 삭제 (보존 정리)
+     * - 적재 락을 잡지 않음 (활성 세그먼트가 아니면 프로듀서와 겹치지 않음)
+     * - 읽던 LogReader는 채널이 닫힌 것을 보고 남은 로그 시작부터 다시 읽음
+     */
+    void deleteSegment(LogSegment seg) throws IOException {
+        if (seg == active || !segments.remove(seg.baseOffset(), seg)) {
+            throw new IllegalStateException("[WAL] 삭제할 수 없는 세그먼트 | log=" + name + " base=" + seg.baseOffset());
+        }
+        seg.delete();
+        log.debug("[WAL] 세그먼트 삭제 | name={} base={}", name, seg.baseOffset());
+    }
+
+    /** 세그먼트 수 */
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /** 전체 세그먼트 크기 합 (바이트) */
+    public long sizeInBytes() {
+        long total = 0;
+        for (Map.Entry<Long, LogSegment> e : segments.entrySet()) total += e.getValue().size();
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            flushLocked();
+            if (fsyncPolicy != FsyncPolicy.NEVER) active.force();
+            if (compressor != null) compressor.close();
+            List<IOException> errors = new ArrayList<>();
+            for (LogSegment s : segments.values()) {
+                try {
+                    s.close();
+                } catch (IOException e) {
+                    errors.add(e);
+                }
+            }
+            if (!errors.isEmpty()) throw errors.get(0);
+        } finally {
+            lock.unlock();
+            closed = true;
+            durableLock.lock();
+            try {
+                durableAdvanced.signalAll(); // 대기 중인 프로듀서 해제
+            } finally {
+                durableLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * TimeIndex ({baseOffset}.timeindex)
+ * - 희소 시각 인덱스: 오프셋 인덱스 엔트리를 만들 때 (그때까지의 최대 타임스탬프 long, 상대 오프셋 int) 1개
+ *   → 엔트리 (T, O) = "O 이하 레코드는 모두 타임스탬프 ≤ T" (타임스탬프가 오프셋 순서가 아니어도 성립)
+ * - 최대 타임스탬프가 늘어날 때만 추가 → T, O 모두 증가 순서라 이진 탐색 가능
+ * - 조회: T < 찾는 시각인 마지막 엔트리 → 그 O 다음부터 스캔하면 됨 (그 앞에는 조건에 맞는 레코드가 없음)
+ */
+class TimeIndex extends MappedIndex {
+    public static final String SUFFIX = ".timeindex";
+    private static final int ENTRY = 12;
+
+    TimeIndex(Path path, long baseOffset, int maxEntries) throws IOException {
+        super(path, baseOffset, ENTRY, maxEntries);
+    }
+
+    /** 최대 타임스탬프가 마지막 엔트리보다 클 때만 추가 */
+    void maybeAppend(long maxTimestamp, long offset) {
+        if (!canAppend()) return;
+        ByteBuffer b = mmap;
+        int n = entries;
+        if (n > 0 && b.getLong(slot(n - 1)) >= maxTimestamp) return;
+        int at = slot(n);
+        b.putLong(at, maxTimestamp);
+        b.putInt(at + 8, (int) (offset - baseOffset));
+        published();
+    }
+
+    /**
+     * 최대 타임스탬프가 timestampMs보다 작은 마지막 엔트리의 오프셋
+     *
+     * @return 없으면 -1 (세그먼트 처음부터 스캔)
+     */
+    long lastOffsetBefore(long timestampMs) {
+        ByteBuffer b = mmap;
+        int n = entries;
+        if (b == null || n == 0) return -1;
+        int lo = 0, hi = n - 1, found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (b.getLong(slot(mid)) < timestampMs) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return (found < 0) ? -1 : baseOffset + b.getInt(slot(found) + 8);
+    }
+
+    @Override
+    protected boolean entryValid(int i, long segmentSize) {
+        ByteBuffer b = mmap;
+        long ts = b.getLong(slot(i));
+        int rel = b.getInt(slot(i) + 8);
+        if (rel <= 0) return false;
+        return i == 0 || (ts > b.getLong(slot(i - 1)) && rel > b.getInt(slot(i - 1) + 8));
+    }
+}
@@ -0,0 +1,176 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import com.realtimefinmq.config.MyMqConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WriteAheadLog
+ * - 파티션별 SegmentedLog를 열고 관리하는 컴포넌트 ({dir}/{로그 이름}/)
+ * - 백그라운드 flusher가 fsync-interval-ms마다 쓰기 버퍼를 파일로 내리고,
+ *   INTERVAL / EVERY_N 정책이면 fsync까지 수행 → 대기 중인 프로듀서를 한 번에 깨움 (그룹 커밋)
+ * - 로그별 컨슈머 커밋 오프셋을 보관하고 checkpoint-interval-ms마다 체크포인트 파일로 저장 (복구 시작점)
+ * - custom-mq.wal.enabled=false면 아무 파일도 만들지 않음 (기존 메모리 전용 동작)
+ */
+@Slf4j
+@Component
+public class WriteAheadLog {
+    private static final String CHECKPOINT_FILE = "consumer-offsets.checkpoint";
+
+    private final MyMqConfig.Wal cfg;
+    private final Map<String, SegmentedLog> logs = new ConcurrentHashMap<>();
+    private final Map<String, Long> committed = new ConcurrentHashMap<>(); // 로그별 커밋 오프셋
+    private final CompressionStats compressionStats = new CompressionStats(); // 모든 로그 공유
+    private volatile boolean committedDirty;
+    private OffsetCheckpoint checkpoint;
+    private ScheduledExecutorService flusher;
+
+    public WriteAheadLog(MyMqConfig cfg) {
+        this.cfg = cfg.getWal();
+    }
+
+    @PostConstruct
+    void start() {
+        if (!cfg.isEnabled()) {
+            log.info("[WAL] 비활성화 (custom-mq.wal.enabled=false)");
+            return;
+        }
+        checkpoint = new OffsetCheckpoint(baseDir().resolve(CHECKPOINT_FILE));
+        try {
+            committed.putAll(checkpoint.read());
+        } catch (IOException e) {
+            throw new UncheckedIOException("[WAL] 커밋 체크포인트 읽기 실패", e);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mymq-wal-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, cfg.getFsyncIntervalMs());
+        flusher.scheduleWithFixedDelay(this::flushAll, interval, interval, TimeUnit.MILLISECONDS);
+        long cpInterval = Math.max(1, cfg.getCheckpointIntervalMs());
+        flusher.scheduleWithFixedDelay(this::writeCheckpoint, cpInterval, cpInterval, TimeUnit.MILLISECONDS);
+        log.info("[WAL] 시작 | dir={} fsync={} everyRecords={} intervalMs={} compression={}",
+                baseDir().toAbsolutePath(), cfg.getFsyncPolicy(), cfg.getFsyncEveryRecords(), interval, cfg.getCompression());
+    }
+
+    public boolean isEnabled() {
+        return cfg.isEnabled();
+    }
+
+    /** 로그 열기 (이미 열려 있으면 그대로 반환) */
+    public SegmentedLog open(String name) {
+        return logs.computeIfAbsent(name, n -> {
+            try {
+                return SegmentedLog.open(n, baseDir().resolve(n), cfg, compressionStats);
+            } catch (IOException e) {
+                throw new UncheckedIOException("[WAL] 로그 열기 실패 | name=" + n, e);
+            }
+        });
+    }
+
+    /**
+     * 컨슈머 커밋 위치 기록 (메모리 반영 후 checkpoint-interval-ms마다 파일로 저장)
+     *
+     * @param name   로그 이름
+     * @param offset 처리 완료한 다음 오프셋 (복구는 여기서부터)
+     */
+    public void commit(String name, long offset) {
+        committed.merge(name, offset, Math::max);
+        committedDirty = true;
+    }
+
+    /** 마지막 커밋 오프셋 (없으면 0 = 로그 처음부터) */
+    public long committedOffset(String name) {
+        return committed.getOrDefault(name, 0L);
+    }
+
+    /**
+     * 커밋 오프셋 강제 설정 (복구 시 로그 끝보다 앞서 있는 커밋을 되돌릴 때)
+     */
+    public void resetCommitted(String name, long offset) {
+        committed.put(name, offset);
+        committedDirty = true;
+    }
+
+    /** 열린 로그 전체 디스크 사용량 (바이트) */
+    public long diskBytes() {
+        long total = 0;
+        for (SegmentedLog l : logs.values()) total += l.sizeInBytes();
+        return total;
+    }
+
+    /** 열린 로그 전체 세그먼트 수 */
+    public long segmentCount() {
+        long total = 0;
+        for (SegmentedLog l : logs.values()) total += l.segmentCount();
+        return total;
+    }
+
+    /** 배치 압축 누적 지표 (압축률 / 압축·해제 시간) */
+    public CompressionStats compressionStats() {
+        return compressionStats;
+    }
+
+    public Path baseDir() {
+        return Paths.get(cfg.getDir());
+    }
+
+    /** flusher 주기 작업: 버퍼 → 파일, fsync 정책이면 fsync (EVERY_N은 N건이 안 찬 프로듀서의 대기 상한) */
+    private void flushAll() {
+        for (SegmentedLog l : logs.values()) {
+            try {
+                if (cfg.getFsyncPolicy() != FsyncPolicy.NEVER) {
+                    l.sync();
+                } else {
+                    l.flush();
+                }
+            } catch (Exception e) {
+                log.error("[WAL] 주기 flush 실패 | name={} | 이유={}", l.name(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /** 커밋 오프셋 체크포인트 저장 (바뀐 게 있을 때만) */
+    private void writeCheckpoint() {
+        if (!committedDirty) return;
+        committedDirty = false;
+        try {
+            checkpoint.write(new TreeMap<>(committed));
+        } catch (Exception e) {
+            committedDirty = true;
+            log.error("[WAL] 커밋 체크포인트 저장 실패 | 이유={}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            writeCheckpoint();
+        }
+        for (SegmentedLog l : logs.values()) {
+            try {
+                l.close();
+            } catch (IOException e) {
+                log.error("[WAL] 로그 닫기 실패 | name={} | 이유={}", l.name(), e.getMessage(), e);
+            }
+        }
+        logs.clear();
+        log.info("[WAL] 종료");
+    }
+}
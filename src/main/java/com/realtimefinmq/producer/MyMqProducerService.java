@@ -3,6 +3,7 @@ package com.realtimefinmq.producer;
 import com.realtimefinmq.metrics.MyMqMetricsService;
 import com.realtimefinmq.mq.Message;              // 공용 메시지 DTO(id, payload, ts)
 import com.realtimefinmq.mq.mymq.Broker;     // MyMQ 브로커(큐/WAL/멱등/DLQ 오케스트레이션)
+import com.realtimefinmq.mq.mymq.EnqueueResult; // 적재 결과(메인 큐 / DLQ 보관 / 중복 / 거부)
 import lombok.RequiredArgsConstructor;           // 생성자 주입(@RequiredArgsConstructor)
 import lombok.extern.slf4j.Slf4j;                // 로그 사용용(@Slf4j)
 import org.springframework.stereotype.Service;   // 스프링 빈 등록(@Service)
@@ -31,7 +32,8 @@ public class MyMqProducerService {
 
     private final Broker broker;
     private final MyMqMetricsService metrics;
-    private final ConcurrentMap<String, AtomicLong> seqByKey = new ConcurrentHashMap<>(); // 시퀀스 저장소
+    // 시퀀스 저장소 (토픽별 → key별)
+    private final ConcurrentMap<String, ConcurrentMap<String, AtomicLong>> seqByTopic = new ConcurrentHashMap<>();
 
 
     /** payload로부터 기본 키를 유도 (동일 payload → 동일 키가 되도록) */
@@ -41,18 +43,86 @@ public class MyMqProducerService {
         return "key-" + bucket;
     }
 
-    /** 키별 다음 시퀀스 */
-    private long nextSeq(String key) {
-        return seqByKey.computeIfAbsent(key, k -> new AtomicLong(0)).incrementAndGet();
+    /** 토픽 안에서 키별 다음 시퀀스 */
+    private long nextSeq(String topic, String key) {
+        return seqByTopic.computeIfAbsent(topic, t -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key, k -> new AtomicLong(0))
+                .incrementAndGet();
     }
 
     /**
-     * 단일 메시지 발행 (UUID 자동 생성).
+     * 단일 메시지 발행 (default 토픽)
      *
      * @param payload 전송할 데이터
-     * @return true: enqueue 성공(큐에 들어감) / false: 중복·용량초과·예외 등으로 미수용
+     * @return true: 수용(큐 적재 또는 큐 꽉참으로 DLQ 보관) / false: 중복·큐와 DLQ 모두 꽉참·예외 등으로 미수용
      */
     public boolean publish(String key, String payload) {
+        return publish(Broker.DEFAULT_TOPIC, key, payload);
+    }
+
+    /**
+     * 단일 메시지 발행 (UUID 자동 생성).
+     *
+     * @param topic   대상 토픽 (custom-mq.topics에 등록된 이름)
+     * @param payload 전송할 데이터
+     * @return true: 수용(큐 적재 또는 큐 꽉참으로 DLQ 보관) / false: 없는 토픽·중복·큐와 DLQ 모두 꽉참·예외 등으로 미수용
+     */
+    public boolean publish(String topic, String key, String payload) {
+        return publish(topic, key, payload, 0);
+    }
+
+    /**
+     * 지연 발행: delayMs 뒤에 컨슈머에게 전달 (브로커가 타이머 휠에 보류)
+     *
+     * @param delayMs 0 이하면 즉시 전달
+     * @return true: 수용(큐 적재 또는 지연 보류) / false: 미수용
+     */
+    public boolean publish(String topic, String key, String payload, long delayMs) {
+        return publish(topic, key, payload, delayMs, 0);
+    }
+
+    /**
+     * 지연 + TTL 발행
+     *
+     * @param ttlMs 0 이하면 토픽 TTL (전달 가능 시점부터 ttlMs 지나면 컨슈머에게 전달하지 않음)
+     */
+    public boolean publish(String topic, String key, String payload, long delayMs, long ttlMs) {
+        return publish(topic, key, payload, delayMs, ttlMs, null);
+    }
+
+    /**
+     * tombstone 발행: key 삭제 표시 (payload 없음)
+     * - compact 토픽은 압축 시 이 key의 이전 버전을 모두 지우고, tombstone도 보존 기간이 지나면 지움
+     *
+     * @return true: 수용(큐 적재 또는 DLQ 보관) / false: 미수용
+     */
+    public boolean publishTombstone(String topic, String key) {
+        if (key == null || key.isBlank()) {
+            log.warn("[MyMQ-Producer] key 없는 tombstone 스킵 | topic={}", topic);
+            return false;
+        }
+        final String id = UUID.randomUUID().toString();
+        final Message msg = new Message(id, null, System.currentTimeMillis(), key, nextSeq(topic, key));
+        try {
+            EnqueueResult result = broker.enqueue(topic, msg);
+            if (!result.accepted()) {
+                log.warn("[MyMQ-Producer] tombstone enqueue 실패 | topic={} id={} key={} result={}", topic, id, key, result);
+                return false;
+            }
+            if (result == EnqueueResult.ENQUEUED) metrics.incUncommitted(); // DLQ 보관분은 redrive 때 집계
+            return true;
+        } catch (Exception e) {
+            log.error("[MyMQ-Producer] tombstone 발행 실패 | id={} key={} | 이유={}", id, key, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 지연 + TTL + 우선순위 레인 발행
+     *
+     * @param lane 우선순위 레인 이름 (custom-mq.priority.lanes, null이면 토픽 기본 레인)
+     */
+    public boolean publish(String topic, String key, String payload, long delayMs, long ttlMs, String lane) {
         // null 또는 비어있는 payload 스킵
         if (payload == null || payload.isBlank()) {
             log.warn("[MyMQ-Producer] 비어있는 payload 스킵");
@@ -62,25 +132,38 @@ public class MyMqProducerService {
             key = "key-default";
         }
 
+        Integer priority = null;
+        if (lane != null && !lane.isBlank()) {
+            int idx = broker.priorityLane(lane);
+            if (idx < 0) {
+                log.warn("[MyMQ-Producer] 없는 우선순위 레인 | topic={} lane={}", topic, lane);
+                return false;
+            }
+            priority = idx;
+        }
+
         // 메세지 생성
         final String id = UUID.randomUUID().toString();     // 메시지 ID
         final long ts = System.currentTimeMillis();         // 전송 타임스탬프
-        final long seq = nextSeq(key);                      // 시퀀스
+        final long seq = nextSeq(topic, key);                      // 시퀀스
         final Message msg = new Message(id, payload, ts, key, seq);   // 공용 DTO
+        if (delayMs > 0) msg.setDeliverAt(ts + delayMs);           // 전달 예정 시각
+        if (ttlMs > 0) msg.setExpiresAt(ts + Math.max(0, delayMs) + ttlMs); // 만료 시각
+        msg.setPriority(priority);                                 // 우선순위 레인 (null = 토픽 기본)
 
-        log.debug("[MyMQ-Producer] 생성 | id={} key={} seq={} ts={} payload={}", id, key, seq, ts, payload);
+        log.debug("[MyMQ-Producer] 생성 | topic={} id={} key={} seq={} ts={} payload={}", topic, id, key, seq, ts, payload);
 
         try {
             // 브로커 enqueue
-            final boolean accepted = broker.enqueue(msg);
+            final EnqueueResult result = broker.enqueue(topic, msg);
 
             // 결과 로그
-            if (!accepted) {
-                log.warn("[MyMQ-Producer] enqueue 실패 | id={} key={} seq={}", id, key, seq);
+            if (!result.accepted()) {
+                log.warn("[MyMQ-Producer] enqueue 실패 | topic={} id={} key={} seq={} result={}", topic, id, key, seq, result);
                 return false;
             } else {
-                log.debug("[MyMQ-Producer] 메시지 발행 완료 | id={} key={} seq={}", id, key, seq);
-                metrics.incUncommitted(); // 언커밋 +1
+                log.debug("[MyMQ-Producer] 메시지 발행 완료 | id={} key={} seq={} result={}", id, key, seq, result);
+                if (result == EnqueueResult.ENQUEUED) metrics.incUncommitted(); // 언커밋 +1 (DLQ 보관분은 redrive 때 집계)
                 return true;
             }
         } catch (Exception e) {
@@ -16,4 +16,13 @@ public final class JsonUtils {
             throw new RuntimeException("JSON serialize failed: " + e.getMessage(), e);
         }
     }
+
+    /** JSON 문자열 -> 객체 (실패 시 RuntimeException) */
+    public static <T> T fromJson(String json, Class<T> type) {
+        try {
+            return MAPPER.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("JSON deserialize failed: " + e.getMessage(), e);
+        }
+    }
 }
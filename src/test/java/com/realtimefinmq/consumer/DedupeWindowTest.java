@@ -0,0 +1,102 @@
+package com.realtimefinmq.consumer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DedupeWindowTest {
+
+    @Test
+    void detectsDuplicatesUntilRemoved() {
+        DedupeWindow w = new DedupeWindow(100);
+        assertTrue(w.add("tx-1"));
+        assertFalse(w.add("tx-1"));
+        assertTrue(w.remove("tx-1"));
+        assertFalse(w.remove("tx-1"));
+        assertTrue(w.add("tx-1")); // 처리 실패 후 재전달은 다시 수용
+        assertEquals(1, w.size());
+    }
+
+    @Test
+    void evictsOldestWhenFull() {
+        DedupeWindow w = new DedupeWindow(100);
+        for (int i = 0; i < 150; i++) assertTrue(w.add("tx-" + i));
+        assertEquals(100, w.size());
+        for (int i = 50; i < 150; i++) assertFalse(w.add("tx-" + i), "tx-" + i);
+        assertTrue(w.add("tx-0")); // 밀려난 ID는 다시 새 ID
+        assertTrue(w.add("tx-50")); // 방금 추가로 가장 오래된 tx-50이 밀려남
+    }
+
+    @Test
+    void removedSlotsAreReclaimedBeforeEvictingLiveIds() {
+        DedupeWindow w = new DedupeWindow(100);
+        for (int i = 0; i < 100; i++) w.add("tx-" + i);
+        for (int i = 20; i < 70; i++) assertTrue(w.remove("tx-" + i)); // 가운데 빈 칸 50개
+        assertEquals(50, w.size());
+
+        for (int i = 100; i < 150; i++) assertTrue(w.add("tx-" + i));
+        assertEquals(100, w.size());
+        for (int i = 0; i < 20; i++) assertFalse(w.add("tx-" + i), "밀려나면 안 됨 tx-" + i);
+        for (int i = 70; i < 150; i++) assertFalse(w.add("tx-" + i), "밀려나면 안 됨 tx-" + i);
+
+        // 방금 등록한 ID(끝 칸) 삭제는 바로 회수
+        w.remove("tx-149");
+        assertTrue(w.add("tx-new"));
+        assertFalse(w.add("tx-0"));
+    }
+
+    @Test
+    void matchesFifoModelAcrossWrapAroundsAndCompactions() {
+        int cap = 64;
+        Random rnd = new Random(11);
+        DedupeWindow w = new DedupeWindow(cap);
+        List<String> ring = new ArrayList<>(); // 등록 순서, 삭제한 칸은 "" (구현과 같은 규칙의 기준 모델)
+        int dead = 0;
+
+        for (int step = 0; step < 200_000; step++) {
+            String id = "tx-" + rnd.nextInt(200);
+            if (rnd.nextInt(4) == 0) {
+                int at = ring.indexOf(id);
+                assertEquals(at >= 0, w.remove(id), "step " + step);
+                if (at < 0) continue;
+                ring.set(at, "");
+                dead++;
+                while (!ring.isEmpty() && ring.get(ring.size() - 1).isEmpty()) { ring.remove(ring.size() - 1); dead--; }
+                while (!ring.isEmpty() && ring.get(0).isEmpty()) { ring.remove(0); dead--; }
+            } else {
+                boolean fresh = !ring.contains(id);
+                assertEquals(fresh, w.add(id), "step " + step + " " + id);
+                if (!fresh) continue;
+                if (ring.size() == cap && dead > 0 && dead >= cap / 8) {
+                    ring.removeIf(String::isEmpty);
+                    dead = 0;
+                }
+                if (ring.size() == cap && ring.remove(0).isEmpty()) dead--;
+                ring.add(id);
+            }
+            assertEquals(ring.size() - dead, w.size());
+        }
+    }
+
+    @Test
+    void shardedWindowKeepsAboutCapacityIds() {
+        int cap = 8192; // 샤드 8개
+        DedupeWindow w = new DedupeWindow(cap);
+        // 샤드별로 용량을 나누므로 전체 용량의 절반이면 어느 샤드도 넘치지 않음
+        for (int i = 0; i < cap / 2; i++) assertTrue(w.add("tx-" + i));
+        for (int i = 0; i < cap / 2; i++) assertFalse(w.add("tx-" + i));
+        for (int i = cap / 2; i < cap * 3; i++) w.add("tx-" + i);
+        assertTrue(w.size() <= cap && w.size() >= cap * 7 / 8, "size=" + w.size());
+        assertFalse(w.add("tx-" + (cap * 3 - 1)));
+
+        w.clear();
+        assertEquals(0, w.size());
+        assertTrue(w.add("tx-0"));
+    }
+}
@@ -0,0 +1,126 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.metrics.MyMqMetricsService;
+import com.realtimefinmq.mq.Message;
+import com.realtimefinmq.mq.mymq.wal.FsyncPolicy;
+import com.realtimefinmq.mq.mymq.wal.WalTestSupport;
+import com.realtimefinmq.mq.mymq.wal.WriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class BrokerRecoveryTest {
+
+    @TempDir
+    Path dir;
+
+    private MyMqMetricsService metrics;
+    private WriteAheadLog wal;
+    private Broker broker;
+
+    /** 같은 디렉터리로 WAL + Broker를 새로 띄움 (재시작) */
+    private Broker startBroker(int queueSize) {
+        MyMqConfig cfg = new MyMqConfig();
+        cfg.setPartitions(1);
+        cfg.setQueueSize(queueSize);
+        cfg.getWal().setEnabled(true);
+        cfg.getWal().setDir(dir.resolve("wal").toString());
+        cfg.getWal().setFsyncPolicy(FsyncPolicy.NEVER);
+        cfg.getWal().setRecoveryThreads(1);
+        metrics = new MyMqMetricsService();
+        wal = new WriteAheadLog(cfg);
+        WalTestSupport.start(wal);
+        broker = new Broker(new IdempotencyStore(metrics, cfg), metrics, cfg, wal);
+        broker.start();
+        return broker;
+    }
+
+    private void stopBroker() {
+        if (broker == null) return;
+        broker.stop();
+        WalTestSupport.close(wal); // 로그 닫기 + 커밋 체크포인트 저장
+        broker = null;
+    }
+
+    @AfterEach
+    void tearDown() {
+        stopBroker();
+    }
+
+    private static Message msg(int i) {
+        return new Message("m" + i, "payload-" + i, System.currentTimeMillis(), "acct", null);
+    }
+
+    /** 남은 메시지를 모두 꺼내 ack (꺼낸 id 순서대로 반환) */
+    private static List<String> drainAndAck(Topic topic) {
+        List<String> ids = new ArrayList<>();
+        List<Message> sink = new ArrayList<>();
+        long[] leaseIds = new long[100];
+        int n;
+        while ((n = topic.pollBatch(0, 100, 0, sink, leaseIds)) > 0) {
+            for (Message m : sink) ids.add(m.getId());
+            topic.ack(0, leaseIds, n);
+            sink.clear();
+        }
+        return ids;
+    }
+
+    @Test
+    void restartRestoresExactlyTheUncommittedMessagesAndRemembersTheirIds() {
+        Broker b = startBroker(100);
+        Topic topic = b.topic(Broker.DEFAULT_TOPIC);
+        for (int i = 0; i < 10; i++) assertEquals(EnqueueResult.ENQUEUED, b.enqueue(msg(i)));
+
+        List<Message> sink = new ArrayList<>();
+        long[] leaseIds = new long[100];
+        assertEquals(4, topic.pollBatch(0, 4, 0, sink, leaseIds));
+        assertEquals(4, topic.ack(0, leaseIds, 4));   // m0~m3 처리 완료 → 커밋 4
+        sink.clear();
+        assertEquals(3, topic.pollBatch(0, 3, 0, sink, leaseIds)); // m4~m6은 lease만 받고 ack 전에 종료
+        stopBroker();
+
+        b = startBroker(100);
+        topic = b.topic(Broker.DEFAULT_TOPIC);
+        assertEquals(6, metrics.getBrokerMetrics().getRecoveredRecords());
+        assertEquals(0, metrics.getBrokerMetrics().getRecoveryOverflow());
+
+        // 되살린 메시지의 ID는 멱등 저장소에 다시 등록 → 재전송은 중복
+        for (int i = 4; i < 10; i++) assertEquals(EnqueueResult.DUPLICATE, b.enqueue(msg(i)));
+        // 커밋된 메시지는 되살리지 않음 (메모리 전용 멱등 저장소는 재시작 시 잊음)
+        assertEquals(EnqueueResult.ENQUEUED, b.enqueue(msg(0)));
+
+        assertEquals(List.of("m4", "m5", "m6", "m7", "m8", "m9", "m0"), drainAndAck(topic));
+    }
+
+    @Test
+    void recoveryBeyondQueueCapacityKeepsEveryRecordInOrder() {
+        Broker b = startBroker(6);
+        for (int i = 0; i < 6; i++) assertEquals(EnqueueResult.ENQUEUED, b.enqueue(msg(i)));
+        stopBroker();
+
+        // 큐를 줄여 재시작 → 3건은 큐, 3건은 overflow (버리지 않음)
+        b = startBroker(3);
+        Topic topic = b.topic(Broker.DEFAULT_TOPIC);
+        assertEquals(6, topic.size());
+        assertEquals(6, metrics.getBrokerMetrics().getRecoveredRecords());
+        assertEquals(3, metrics.getBrokerMetrics().getRecoveryOverflow());
+        // overflow가 남아 있는 동안은 가득 찬 큐 → 새 메시지는 메인 큐에 못 들어감
+        assertNotEquals(EnqueueResult.ENQUEUED, b.enqueue(msg(100)));
+
+        assertEquals(List.of("m0", "m1", "m2", "m3", "m4", "m5"), drainAndAck(topic));
+        assertEquals(EnqueueResult.ENQUEUED, b.enqueue(msg(101))); // 다 비운 뒤엔 정상 적재
+        stopBroker();
+
+        // 모두 ack된 뒤 재시작 → m101만 남음
+        b = startBroker(3);
+        assertEquals(List.of("m101"), drainAndAck(b.topic(Broker.DEFAULT_TOPIC)));
+    }
+}
@@ -0,0 +1,128 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.metrics.MyMqMetricsService;
+import com.realtimefinmq.mq.Message;
+import com.realtimefinmq.mq.mymq.wal.FsyncPolicy;
+import com.realtimefinmq.mq.mymq.wal.SegmentedLog;
+import com.realtimefinmq.mq.mymq.wal.WalTestSupport;
+import com.realtimefinmq.mq.mymq.wal.WriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BrokerRetentionTest {
+    private static final long CHECK_MS = 20;
+
+    @TempDir
+    Path dir;
+
+    private WriteAheadLog wal;
+    private Broker broker;
+
+    /** 파티션 1개짜리 토픽 audit (1KB 세그먼트, 보존 주기 20ms) */
+    private Broker startBroker(long retentionMs, boolean retentionConsumed, boolean protectUnconsumed) {
+        MyMqConfig cfg = new MyMqConfig();
+        cfg.setPartitions(1);
+        cfg.getWal().setEnabled(true);
+        cfg.getWal().setDir(dir.resolve("wal").toString());
+        cfg.getWal().setSegmentBytes(1024);
+        cfg.getWal().setFsyncPolicy(FsyncPolicy.NEVER);
+        cfg.getRetention().setCheckIntervalMs(CHECK_MS);
+        cfg.getRetention().setProtectUnconsumed(protectUnconsumed);
+        MyMqConfig.TopicProps audit = new MyMqConfig.TopicProps();
+        audit.setRetentionMs(retentionMs);
+        audit.setRetentionConsumed(retentionConsumed);
+        cfg.getTopics().put("audit", audit);
+
+        MyMqMetricsService metrics = new MyMqMetricsService();
+        wal = new WriteAheadLog(cfg);
+        WalTestSupport.start(wal);
+        broker = new Broker(new IdempotencyStore(metrics, cfg), metrics, cfg, wal);
+        broker.start();
+        return broker;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (broker == null) return;
+        broker.stop();
+        WalTestSupport.close(wal);
+    }
+
+    private static void enqueue(Broker b, int n, long ts) {
+        for (int i = 0; i < n; i++) {
+            assertEquals(EnqueueResult.ENQUEUED, b.enqueue("audit", new Message("m" + i, "payload-" + i, ts, "acct", null)));
+        }
+    }
+
+    private static void drainAndAck(Topic topic) {
+        List<Message> sink = new ArrayList<>();
+        long[] leaseIds = new long[100];
+        int n;
+        while ((n = topic.pollBatch(0, 100, 0, sink, leaseIds)) > 0) {
+            topic.ack(0, leaseIds, n);
+            sink.clear();
+        }
+    }
+
+    private static boolean waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) return false;
+            Thread.sleep(CHECK_MS);
+        }
+        return true;
+    }
+
+    @Test
+    void oldSegmentsWaitForTheConsumerThenAreDeletedExceptTheActiveOne() throws Exception {
+        Broker b = startBroker(60_000, false, true);
+        Topic topic = b.topic("audit");
+        SegmentedLog log = topic.log(0);
+        enqueue(b, 100, System.currentTimeMillis() - 3_600_000); // 1시간 전 레코드 → 나이 조건 충족
+        int segments = log.segmentCount();
+        assertTrue(segments > 2);
+
+        // 아무도 소비하지 않았으므로 나이 조건이 맞아도 보호
+        Thread.sleep(CHECK_MS * 5);
+        assertEquals(segments, log.segmentCount());
+        assertEquals(0, log.startOffset());
+
+        drainAndAck(topic);
+        assertTrue(waitUntil(() -> log.segmentCount() == 1));
+        assertEquals(log.activeBaseOffset(), log.startOffset()); // 활성 세그먼트는 남음
+    }
+
+    @Test
+    void retentionConsumedDeletesCommittedSegmentsRegardlessOfAge() throws Exception {
+        Broker b = startBroker(-1, true, true);
+        Topic topic = b.topic("audit");
+        SegmentedLog log = topic.log(0);
+        enqueue(b, 100, System.currentTimeMillis());
+        assertTrue(log.segmentCount() > 2);
+
+        drainAndAck(topic);
+        assertTrue(waitUntil(() -> log.segmentCount() == 1));
+        assertEquals(log.activeBaseOffset(), log.startOffset());
+    }
+
+    @Test
+    void withoutProtectionAgeDeletesUnconsumedSegments() throws Exception {
+        Broker b = startBroker(60_000, false, false);
+        SegmentedLog log = b.topic("audit").log(0);
+        enqueue(b, 100, System.currentTimeMillis() - 3_600_000);
+        assertTrue(log.segmentCount() > 2);
+
+        assertTrue(waitUntil(() -> log.segmentCount() == 1));
+        assertTrue(log.startOffset() > 0);
+    }
+}
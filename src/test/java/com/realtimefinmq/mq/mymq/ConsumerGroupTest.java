@@ -0,0 +1,146 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.metrics.MyMqMetricsService;
+import com.realtimefinmq.mq.Message;
+import com.realtimefinmq.mq.mymq.wal.FsyncPolicy;
+import com.realtimefinmq.mq.mymq.wal.WriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ConsumerGroupTest {
+
+    @TempDir
+    Path dir;
+
+    private WriteAheadLog wal;
+    private Topic topic;
+
+    /** 파티션 1개 토픽 (WAL never → 적재 즉시 파일에 보임, flusher 없음) */
+    @BeforeEach
+    void setUp() {
+        MyMqConfig cfg = new MyMqConfig();
+        cfg.getWal().setEnabled(true);
+        cfg.getWal().setDir(dir.toString());
+        cfg.getWal().setSegmentBytes(1024);
+        cfg.getWal().setIndexIntervalBytes(128);
+        cfg.getWal().setFsyncPolicy(FsyncPolicy.NEVER);
+        wal = new WriteAheadLog(cfg);
+        Topic.Settings s = new Topic.Settings(1, 1000, -1, -1, 0, 0, false, false);
+        topic = new Topic("orders", s, cfg, new IdempotencyStore(null, cfg), new MyMqMetricsService(), wal);
+        for (int i = 0; i < 20; i++) append(i);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        topic.close();
+        topic.log(0).close();
+    }
+
+    /** i번째 메시지 (timestamp = 1000 + i * 10) */
+    private void append(int i) {
+        assertEquals(EnqueueResult.ENQUEUED, topic.enqueue(new Message("m" + i, "payload-" + i, 1000 + i * 10L, "acct", null)));
+    }
+
+    private static List<Long> poll(ConsumerGroup g, int max) {
+        List<Message> sink = new ArrayList<>();
+        g.poll(0, max, 0, sink);
+        List<Long> offsets = new ArrayList<>();
+        for (Message m : sink) offsets.add(m.getOffset());
+        return offsets;
+    }
+
+    private static List<Long> range(long from, long to) {
+        List<Long> out = new ArrayList<>();
+        for (long o = from; o < to; o++) out.add(o);
+        return out;
+    }
+
+    @Test
+    void seekMovesReadPositionAndCommittedOffset() {
+        ConsumerGroup g = topic.group("ledger");
+        assertEquals(range(0, 10), poll(g, 10));
+        g.commit(0, 10);
+        assertEquals(10, wal.committedOffset(g.offsetKey(0)));
+
+        assertEquals(3, g.seek(0, 3));
+        // 커밋은 바로 되돌아감 (워커가 없어도 재시작하면 여기서부터)
+        assertEquals(3, g.committed(0));
+        assertEquals(3, wal.committedOffset(g.offsetKey(0)));
+        assertEquals(17, g.lag(0));
+
+        assertEquals(range(3, 8), poll(g, 5)); // 읽기 위치는 다음 poll에서 적용
+        g.commit(0, 8);
+        assertEquals(8, g.committed(0));
+    }
+
+    @Test
+    void seekClampsToTheLogRange() {
+        ConsumerGroup g = topic.group("ledger");
+        assertEquals(0, g.seek(0, -5));
+        assertEquals(20, g.seek(0, 1_000));
+        assertEquals(List.of(), poll(g, 10));
+    }
+
+    @Test
+    void seekToTimestampStartsAtTheFirstMessageAtOrAfterIt() {
+        ConsumerGroup g = topic.group("ledger");
+        assertEquals(6, g.seekToTimestamp(0, 1055)); // m6 = 1060
+        assertEquals(range(6, 9), poll(g, 3));
+
+        assertEquals(5, g.seekToTimestamp(0, 1050)); // 정확히 같은 시각 포함
+        assertEquals(range(5, 7), poll(g, 2));
+
+        assertEquals(20, g.seekToTimestamp(0, 999_999)); // 이후 메시지 없음 → 로그 끝
+        assertEquals(List.of(), poll(g, 2));
+    }
+
+    @Test
+    void seekToBeginningAndEnd() {
+        ConsumerGroup g = topic.group("ledger");
+        assertEquals(20, g.seekToEnd(0));
+        assertEquals(0, g.lag(0));
+        assertEquals(List.of(), poll(g, 10));
+        append(20);
+        assertEquals(List.of(20L), poll(g, 10)); // 끝 이후 새 메시지부터
+
+        assertEquals(0, g.seekToBeginning(0));
+        assertEquals(range(0, 21), poll(g, 100));
+    }
+
+    @Test
+    void commitOfBatchReadBeforeSeekIsIgnored() {
+        ConsumerGroup g = topic.group("ledger");
+        assertEquals(range(0, 10), poll(g, 10)); // 워커가 배치 처리 중
+
+        g.seek(0, 2);                            // 그 사이 관리 API가 seek
+        g.commit(0, 10);                         // seek 전에 읽은 배치의 커밋 → 무시
+        assertEquals(2, g.committed(0));
+        assertEquals(2, wal.committedOffset(g.offsetKey(0)));
+
+        assertEquals(range(2, 6), poll(g, 4));   // 다음 poll에서 seek 적용
+        g.commit(0, 6);
+        assertEquals(6, g.committed(0));
+        assertEquals(6, wal.committedOffset(g.offsetKey(0)));
+    }
+
+    @Test
+    void findGroupDoesNotCreateAndNewGroupStartsFromCommittedOffset() {
+        assertNull(topic.findGroup("audit"));
+        ConsumerGroup g = topic.group("audit");
+        assertSame(g, topic.findGroup("audit"));
+
+        wal.commit(topic.logName(0) + "@replay", 7); // 체크포인트에 남은 커밋 (재시작 후)
+        assertEquals(range(7, 10), poll(topic.group("replay"), 3));
+    }
+}
@@ -0,0 +1,165 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.mq.Message;
+import com.realtimefinmq.mq.mymq.wal.FsyncPolicy;
+import com.realtimefinmq.mq.mymq.wal.SegmentedLog;
+import com.realtimefinmq.mq.mymq.wal.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadLetterQueueTest {
+
+    @TempDir
+    Path dir;
+
+    // 커밋 오프셋은 WAL 메모리에만 둠 (같은 객체를 재시작 후에도 넘겨 체크포인트를 흉내 냄)
+    private final WriteAheadLog wal = new WriteAheadLog(new MyMqConfig());
+
+    private SegmentedLog openLog() throws Exception {
+        MyMqConfig.Wal cfg = new MyMqConfig.Wal();
+        cfg.setSegmentBytes(64 * 1024);
+        cfg.setFsyncPolicy(FsyncPolicy.NEVER);
+        return SegmentedLog.open(DeadLetterQueue.logName("t"), dir, cfg);
+    }
+
+    private static Message msg(int i) {
+        return new Message("m" + i, "payload-" + i, 1000 + i, "k" + i, null);
+    }
+
+    /** 모든 항목을 받아 id를 모으는 재투입 (rate는 넉넉히) */
+    private static List<String> redriveAll(DeadLetterQueue dlq) {
+        List<String> out = new ArrayList<>();
+        dlq.requestRedrive(0);
+        while (dlq.redriveTick(1_000_000, 1000, m -> out.add(m.getId())) > 0) {
+        }
+        return out;
+    }
+
+    @Test
+    void fullQueueRejectsAndCountsDropped() {
+        DeadLetterQueue dlq = new DeadLetterQueue("t", 3, null, null); // 메모리 전용
+        for (int i = 0; i < 3; i++) assertTrue(dlq.add(msg(i), 0, "QUEUE_FULL", 0));
+
+        assertFalse(dlq.add(msg(3), 0, "QUEUE_FULL", 0));
+        assertFalse(dlq.add(msg(4), 1, "MAX_DELIVERY", 5));
+        assertEquals(3, dlq.size());
+        assertEquals(2, dlq.dropped());
+        assertEquals("m0", dlq.list(0, 10).get(0).getMessage().getId());
+
+        // 재투입으로 자리가 나면 다시 받음
+        dlq.requestRedrive(1);
+        assertEquals(1, dlq.redriveTick(1000, 1000, m -> true));
+        assertTrue(dlq.add(msg(5), 0, "QUEUE_FULL", 0));
+        assertEquals(2, dlq.dropped());
+    }
+
+    @Test
+    void redriveTickIsLimitedByTokenBucket() {
+        DeadLetterQueue dlq = new DeadLetterQueue("t", 100, null, null);
+        for (int i = 0; i < 50; i++) dlq.add(msg(i), 0, "QUEUE_FULL", 0);
+        assertEquals(50, dlq.requestRedrive(0));
+
+        List<String> out = new ArrayList<>();
+        assertEquals(1, dlq.redriveTick(10, 100, m -> out.add(m.getId())));   // 10/s * 0.1s = 1
+        assertEquals(0, dlq.redriveTick(10, 50, m -> out.add(m.getId())));    // 0.5 토큰 → 아직 못 꺼냄
+        assertEquals(1, dlq.redriveTick(10, 50, m -> out.add(m.getId())));    // 누적 1
+        assertEquals(10, dlq.redriveTick(10, 60_000, m -> out.add(m.getId()))); // 오래 쉬어도 버스트는 1초치
+        assertEquals(12, out.size());
+        assertEquals("m11", out.get(11));                                    // 오래된 순
+        assertEquals(38, dlq.redriveRemaining());
+
+        // sink가 거절하면 그 항목에서 멈추고 남겨 둠
+        assertEquals(0, dlq.redriveTick(10, 1000, m -> false));
+        assertEquals(38, dlq.size());
+        assertEquals("m12", dlq.list(0, 1).get(0).getMessage().getId());
+    }
+
+    @Test
+    void redriveRequestIsBoundedByMax() {
+        DeadLetterQueue dlq = new DeadLetterQueue("t", 100, null, null);
+        for (int i = 0; i < 10; i++) dlq.add(msg(i), 0, "QUEUE_FULL", 0);
+        assertEquals(4, dlq.requestRedrive(4));
+
+        assertEquals(4, dlq.redriveTick(1000, 1000, m -> true));
+        assertEquals(0, dlq.redriveTick(1000, 1000, m -> true));
+        assertEquals(6, dlq.size());
+        assertEquals(0, dlq.redriveRemaining());
+    }
+
+    @Test
+    void commitFollowsOldestRemainingEntryAndRecoveryResumesThere() throws Exception {
+        String name = DeadLetterQueue.logName("t");
+        try (SegmentedLog log = openLog()) {
+            DeadLetterQueue dlq = new DeadLetterQueue("t", 10, log, wal);
+            for (int i = 0; i < 5; i++) dlq.add(msg(i), i % 2, "QUEUE_FULL", i);
+            assertEquals(0, wal.committedOffset(name));
+
+            dlq.requestRedrive(2);
+            assertEquals(2, dlq.redriveTick(1000, 1000, m -> true));
+            assertEquals(2, wal.committedOffset(name)); // 남은 가장 오래된 항목 위치
+        }
+
+        try (SegmentedLog log = openLog()) {
+            DeadLetterQueue dlq = new DeadLetterQueue("t", 10, log, wal);
+            assertEquals(3, dlq.recover());
+            List<DeadLetter> left = dlq.list(0, 10);
+            assertEquals("m2", left.get(0).getMessage().getId());
+            assertEquals("payload-2", left.get(0).getMessage().getPayload());
+            assertEquals(2, left.get(0).getDlqOffset());
+            assertEquals(0, left.get(0).getPartition());
+            assertEquals(2, left.get(0).getAttempts());
+            assertEquals("m4", left.get(2).getMessage().getId());
+
+            // 복구 후 새 항목은 로그 끝에 이어 붙음
+            assertTrue(dlq.add(msg(5), 0, "QUEUE_FULL", 0));
+            assertEquals(5, dlq.list(0, 10).get(3).getDlqOffset());
+
+            assertEquals(List.of("m2", "m3", "m4", "m5"), redriveAll(dlq));
+            assertEquals(6, wal.committedOffset(name)); // 다 비우면 마지막 다음 위치
+        }
+    }
+
+    @Test
+    void recoveryOverflowStaysInLogAndIsReloadedInOrder() throws Exception {
+        String name = DeadLetterQueue.logName("t");
+        try (SegmentedLog log = openLog()) {
+            DeadLetterQueue dlq = new DeadLetterQueue("t", 10, log, wal);
+            for (int i = 0; i < 10; i++) dlq.add(msg(i), 0, "QUEUE_FULL", 0);
+        }
+
+        // 용량을 줄여 재시작 → 4건만 메모리, 6건은 로그에 남김
+        try (SegmentedLog log = openLog()) {
+            DeadLetterQueue dlq = new DeadLetterQueue("t", 4, log, wal);
+            assertEquals(4, dlq.recover());
+            assertEquals(10, dlq.size());
+            assertFalse(dlq.add(msg(99), 0, "QUEUE_FULL", 0)); // 넘친 구간이 있는 동안은 가득 참
+
+            List<String> moved = new ArrayList<>();
+            dlq.requestRedrive(0);
+            assertEquals(2, dlq.redriveTick(2, 1000, m -> moved.add(m.getId())));
+            assertEquals(List.of("m0", "m1"), moved);
+            assertEquals(2, wal.committedOffset(name)); // 넘친 구간(4~) 앞까지만 커밋
+
+            moved.addAll(redriveAll(dlq));
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 10; i++) expected.add("m" + i);
+            assertEquals(expected, moved);                // 하나도 잃지 않고 로그 순서대로
+            assertEquals(10, wal.committedOffset(name));
+            assertEquals(0, dlq.size());
+        }
+
+        // 다 재투입한 뒤 재시작하면 되살릴 항목 없음
+        try (SegmentedLog log = openLog()) {
+            assertEquals(0, new DeadLetterQueue("t", 4, log, wal).recover());
+        }
+    }
+}
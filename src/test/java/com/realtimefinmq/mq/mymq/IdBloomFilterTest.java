@@ -0,0 +1,47 @@
+package com.realtimefinmq.mq.mymq;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdBloomFilterTest {
+
+    @Test
+    void neverMissesAnAddedKey() {
+        IdBloomFilter f = new IdBloomFilter(100_000, 0.01);
+        SplittableRandom rnd = new SplittableRandom(3);
+        long[] keys = new long[200_000];
+        for (int i = 0; i < keys.length; i++) keys[i] = rnd.nextLong();
+        // 예상 건수의 2배까지 넣어도 "없음"은 항상 정확
+        for (int i = 0; i < keys.length; i += 2) f.put(keys[i], keys[i + 1]);
+        for (int i = 0; i < keys.length; i += 2) assertTrue(f.mightContain(keys[i], keys[i + 1]));
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        for (double fpp : new double[]{0.01, 0.001}) {
+            int n = 200_000;
+            IdBloomFilter f = new IdBloomFilter(n, fpp);
+            for (long i = 0; i < n; i++) f.put(i, i * 31 + 7);
+
+            int probes = 1_000_000;
+            int hits = 0;
+            for (long i = 0; i < probes; i++) {
+                if (f.mightContain(n + i, i ^ 0x5DEECE66DL)) hits++;
+            }
+            double rate = (double) hits / probes;
+            assertTrue(rate < fpp * 1.5, "fpp=" + fpp + " 실측=" + rate);
+        }
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        IdBloomFilter f = new IdBloomFilter(0, 0.01);
+        assertFalse(f.mightContain(1, 2));
+        f.put(1, 2);
+        assertTrue(f.mightContain(1, 2));
+    }
+}
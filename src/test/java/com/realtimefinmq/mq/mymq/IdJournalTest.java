@@ -0,0 +1,82 @@
+package com.realtimefinmq.mq.mymq;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdJournalTest {
+    private static final int CHUNK = 16 * 64; // 청크당 64건 → 여러 청크로 나뉨
+
+    @TempDir
+    Path dir;
+
+    private List<long[]> replay(long epoch) {
+        List<long[]> keys = new ArrayList<>();
+        IdJournal j = new IdJournal(dir, epoch, IdJournal.listByEpoch(dir).getOrDefault(epoch, List.of()), CHUNK);
+        j.replay((hi, lo) -> keys.add(new long[]{hi, lo}));
+        return keys;
+    }
+
+    @Test
+    void replaysEveryKeyInOrderAcrossChunks() {
+        IdJournal j = new IdJournal(dir, 42, List.of(), CHUNK);
+        for (long i = 1; i <= 200; i++) j.append(i, -i);
+        j.close();
+        j.append(999, 999); // 닫힌 뒤 추가는 버림
+
+        TreeMap<Long, List<Path>> byEpoch = IdJournal.listByEpoch(dir);
+        assertEquals(1, byEpoch.size());
+        assertEquals(4, byEpoch.get(42L).size()); // 64 + 64 + 64 + 8
+
+        IdJournal reopened = new IdJournal(dir, 42, byEpoch.get(42L), CHUNK);
+        assertEquals(200, reopened.estimate());
+        List<long[]> keys = replay(42);
+        assertEquals(200, keys.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i + 1, keys.get(i)[0]);
+            assertEquals(-(i + 1), keys.get(i)[1]);
+        }
+    }
+
+    @Test
+    void reopenedJournalAppendsToNewChunk() {
+        IdJournal first = new IdJournal(dir, 7, List.of(), CHUNK);
+        first.append(1, 1);
+        first.close();
+
+        IdJournal second = new IdJournal(dir, 7, IdJournal.listByEpoch(dir).get(7L), CHUNK);
+        second.append(2, 2);
+        second.close();
+
+        assertEquals(2, IdJournal.listByEpoch(dir).get(7L).size());
+        assertEquals(2, replay(7).size());
+    }
+
+    @Test
+    void zeroKeyIsNotMistakenForEmptySlot() {
+        IdJournal j = new IdJournal(dir, 1, List.of(), CHUNK);
+        j.append(0, 0);
+        j.close();
+        List<long[]> keys = replay(1);
+        assertEquals(1, keys.size());
+        assertEquals(1, keys.get(0)[1]); // MessageIdSet과 같은 (0, 1) 보정
+    }
+
+    @Test
+    void deleteRemovesAllChunksAndIgnoresOtherFiles() throws Exception {
+        Files.writeString(dir.resolve("notes.txt"), "x");
+        IdJournal j = new IdJournal(dir, 5, List.of(), CHUNK);
+        for (long i = 1; i <= 100; i++) j.append(i, i);
+        j.delete();
+        assertTrue(IdJournal.listByEpoch(dir).isEmpty());
+        assertTrue(Files.exists(dir.resolve("notes.txt")));
+    }
+}
@@ -0,0 +1,127 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.config.MyMqConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private MyMqConfig config(boolean persistent) {
+        MyMqConfig cfg = new MyMqConfig();
+        MyMqConfig.Idempotency ic = cfg.getIdempotency();
+        ic.setWindowMs(10 * 60 * 1000);
+        ic.setBuckets(10);
+        ic.setPersistent(persistent);
+        ic.setDir(dir.toString());
+        ic.setJournalChunkBytes(16 * 256);
+        return cfg;
+    }
+
+    @Test
+    void detectsDuplicatesAndAllowsReacceptAfterRemove() {
+        IdempotencyStore store = new IdempotencyStore(null, config(false));
+        assertFalse(store.alreadyProcessed("tx-1"));
+        assertTrue(store.alreadyProcessed("tx-1"));
+        assertFalse(store.alreadyProcessed(null)); // ID 없으면 판별 불가 → 통과
+
+        assertTrue(store.removeProcessed("tx-1"));
+        assertFalse(store.removeProcessed("tx-1"));
+        assertFalse(store.alreadyProcessed("tx-1"));
+        assertEquals(1, store.size());
+
+        store.clear();
+        assertEquals(0, store.size());
+        assertFalse(store.alreadyProcessed("tx-1"));
+    }
+
+    @Test
+    void filterDoesNotChangeAnswers() {
+        MyMqConfig cfg = config(false);
+        cfg.getIdempotency().setFilterEnabled(true);
+        IdempotencyStore store = new IdempotencyStore(null, cfg);
+        for (int i = 0; i < 5000; i++) assertFalse(store.alreadyProcessed("tx-" + i));
+        for (int i = 0; i < 5000; i++) assertTrue(store.alreadyProcessed("tx-" + i));
+        assertTrue(store.removeProcessed("tx-0"));
+        assertFalse(store.alreadyProcessed("tx-0"));
+        assertTrue(store.filterBytes() > 0);
+    }
+
+    @Test
+    void persistentWindowSurvivesRestart() {
+        IdempotencyStore before = new IdempotencyStore(null, config(true));
+        assertTrue(before.isPersistent());
+        for (int i = 0; i < 1000; i++) assertFalse(before.alreadyProcessed("tx-" + i));
+        before.remember("recovered-1");
+        assertFalse(before.removeProcessed("tx-0")); // persistent: 기록과 어긋나지 않도록 지우지 않음
+        before.close();
+
+        IdempotencyStore after = new IdempotencyStore(null, config(true));
+        assertEquals(1001, after.size());
+        for (int i = 0; i < 1000; i++) assertTrue(after.alreadyProcessed("tx-" + i), "tx-" + i);
+        assertTrue(after.alreadyProcessed("recovered-1"));
+        assertFalse(after.alreadyProcessed("tx-new"));
+        after.close();
+
+        // 재시작 후 새로 본 ID도 다음 재시작에 남음
+        IdempotencyStore again = new IdempotencyStore(null, config(true));
+        assertTrue(again.alreadyProcessed("tx-new"));
+        again.close();
+    }
+
+    @Test
+    void rejectedAdmissionIsReleasedEvenInPersistentMode() {
+        IdempotencyStore before = new IdempotencyStore(null, config(true));
+        assertTrue(before.reserve("tx-accepted"));
+        assertFalse(before.reserve("tx-accepted")); // 예약 중에도 중복
+        before.confirm("tx-accepted");
+
+        assertTrue(before.reserve("tx-rejected"));
+        before.release("tx-rejected");              // 브로커가 거부 → 재시도는 받아야 함
+        assertTrue(before.reserve("tx-rejected"));
+        before.release("tx-rejected");
+
+        assertTrue(before.reserve("tx-pending"));   // 확정 전에 죽음 → 기록에 없음
+        before.close();
+
+        IdempotencyStore after = new IdempotencyStore(null, config(true));
+        assertFalse(after.reserve("tx-accepted"));
+        assertTrue(after.reserve("tx-rejected"));
+        assertTrue(after.reserve("tx-pending"));
+        after.close();
+    }
+
+    @Test
+    void journalsOutsideTheWindowAreDeletedOnStart() {
+        MyMqConfig cfg = config(true);
+        long bucketMs = cfg.getIdempotency().getWindowMs() / cfg.getIdempotency().getBuckets();
+        long expired = System.currentTimeMillis() / bucketMs - cfg.getIdempotency().getBuckets() - 1;
+        IdJournal old = new IdJournal(dir, expired, List.of(), 16 * 256);
+        old.append(MessageIdSet.hi("tx-old"), MessageIdSet.lo("tx-old"));
+        old.close();
+
+        IdempotencyStore store = new IdempotencyStore(null, cfg);
+        assertFalse(IdJournal.listByEpoch(dir).containsKey(expired));
+        assertFalse(store.alreadyProcessed("tx-old"));
+        store.close();
+    }
+
+    @Test
+    void maxEntriesCapsTheWindow() {
+        MyMqConfig cfg = config(false);
+        cfg.getIdempotency().setMaxEntries(100);
+        IdempotencyStore store = new IdempotencyStore(null, cfg);
+        for (int i = 0; i < 1000; i++) store.alreadyProcessed("tx-" + i);
+        assertTrue(store.size() <= 100);
+        assertTrue(store.evictedBuckets() > 0);
+    }
+}
@@ -0,0 +1,163 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.mq.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryQueueTest {
+    private static final String PAYLOAD = "x".repeat(100);
+
+    @TempDir
+    Path dir;
+
+    private InMemoryQueue queue;
+
+    /** spill 활성화 큐 (HWM = capacity * ratio, spill 세그먼트 4KB) */
+    private InMemoryQueue spillQueue(int capacity, double highWaterRatio, long spillMaxBytes) {
+        MyMqConfig cfg = new MyMqConfig();
+        cfg.getSpill().setEnabled(true);
+        cfg.getSpill().setDir(dir.toString());
+        cfg.getSpill().setHighWaterRatio(highWaterRatio);
+        cfg.getSpill().setSegmentBytes(4096);
+        cfg.getSpill().setMaxBytes(spillMaxBytes);
+        queue = new InMemoryQueue(capacity, spillMaxBytes, cfg, "q-0");
+        return queue;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) queue.close();
+    }
+
+    private static Message msg(String key, long seq) {
+        return new Message(key + "-" + seq, PAYLOAD, System.currentTimeMillis(), key, seq);
+    }
+
+    @Test
+    void keepsFifoAcrossMemoryAndSpillTiers() {
+        InMemoryQueue q = spillQueue(10, 0.5, 1 << 20); // HWM 5, LWM 2
+        String[] keys = {"a", "b", "c"};
+        List<String> offered = new ArrayList<>();
+        List<String> polled = new ArrayList<>();
+        long seq = 0;
+
+        for (int i = 0; i < 30; i++, seq++) {
+            Message m = msg(keys[i % 3], seq);
+            assertTrue(q.offer(m));
+            offered.add(m.getId());
+        }
+        assertTrue(q.spillRecords() > 0);
+        assertEquals(30, q.size());
+
+        // 일부 소비 → 메모리 보충 중에도 새 적재는 spill 뒤로
+        for (int i = 0; i < 7; i++) polled.add(q.poll(0).getId());
+        for (int i = 0; i < 10; i++, seq++) {
+            Message m = msg(keys[i % 3], seq);
+            assertTrue(q.offer(m));
+            offered.add(m.getId());
+        }
+
+        List<Message> sink = new ArrayList<>();
+        while (q.pollBatch(sink, 4, 0) > 0) {
+            for (Message m : sink) polled.add(m.getId());
+            sink.clear();
+        }
+        assertEquals(offered, polled);
+        assertEquals(0, q.spillRecords());
+        assertEquals(0, q.spillBytes());
+
+        // spill이 다 비면 다시 메모리로
+        assertTrue(q.offer(msg("a", seq)));
+        assertEquals(0, q.spillRecords());
+    }
+
+    @Test
+    void refillRacingProducersKeepsPerKeyOrderWithoutLoss() throws Exception {
+        // HWM = capacity → fast path 적재와 보충이 겹치면 메모리가 가득 차 carry 슬롯으로 넘어감
+        InMemoryQueue q = spillQueue(8, 1.0, 64L << 20);
+        int producers = 4;
+        int perProducer = 5_000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String key = "k" + p;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int s = 0; s < perProducer; s++) {
+                    if (!q.offer(msg(key, s))) rejected.incrementAndGet();
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+
+        Map<String, Long> lastSeq = new HashMap<>();
+        int received = 0;
+        List<Message> sink = new ArrayList<>();
+        start.countDown();
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (received < producers * perProducer && System.currentTimeMillis() < deadline) {
+            q.pollBatch(sink, 3, 1);
+            for (Message m : sink) {
+                Long prev = lastSeq.put(m.getKey(), m.getSequence());
+                assertTrue(prev == null || prev < m.getSequence(), "키별 순서 위반: " + m.getId() + " after " + prev);
+            }
+            received += sink.size();
+            sink.clear();
+        }
+        for (Thread t : threads) t.join();
+
+        assertEquals(0, rejected.get());
+        assertEquals(producers * perProducer, received);
+        for (int p = 0; p < producers; p++) assertEquals(perProducer - 1, (long) lastSeq.get("k" + p));
+        assertEquals(0, q.size());
+        assertEquals(0, q.spillRecords());
+    }
+
+    @Test
+    void rejectsOnceSpillReachesMaxBytesAndAcceptsAgainAfterDraining() {
+        InMemoryQueue q = spillQueue(4, 0.5, 8192); // HWM 2, spill 세그먼트 2개까지
+        List<String> accepted = new ArrayList<>();
+        long seq = 0;
+        while (true) {
+            Message m = msg("a", seq++);
+            if (!q.offer(m)) break;
+            accepted.add(m.getId());
+            assertTrue(seq < 1_000, "spill 한도에서 멈춰야 함");
+        }
+        assertTrue(accepted.size() > 2);                       // 메모리 HWM 이후 spill까지 받음
+        assertTrue(q.spillBytes() <= 8192);
+        assertEquals(accepted.size(), q.size());
+        assertTrue(q.isFull(msg("a", seq)));
+        assertFalse(q.offer(msg("a", seq)));                   // 계속 거부 (backpressure 대상)
+
+        List<String> polled = new ArrayList<>();
+        Message m;
+        while ((m = q.poll(0)) != null) polled.add(m.getId());
+        assertEquals(accepted, polled);
+        assertNull(q.poll(0));
+
+        assertFalse(q.isFull(msg("a", seq)));
+        assertTrue(q.offer(msg("a", seq)));
+    }
+}
@@ -0,0 +1,171 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.mq.Message;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class LeaseTrackerTest {
+
+    private static Message msg(long offset) {
+        Message m = new Message("id-" + offset, "p", 0, null, null);
+        m.setOffset(offset);
+        return m;
+    }
+
+    private static long[] lease(LeaseTracker t, long nowMs, Message... batch) {
+        long[] ids = new long[batch.length];
+        t.leaseAll(List.of(batch), ids, nowMs);
+        return ids;
+    }
+
+    @Test
+    void ackReleasesOnceAndIgnoresStaleLeaseIds() {
+        LeaseTracker t = new LeaseTracker(1000, 10, 0);
+        long[] ids = lease(t, 0, msg(0), msg(1), msg(2));
+        assertEquals(3, t.inflightCount());
+
+        assertEquals(1, t.ackAll(new long[]{ids[1]}, 1));
+        assertEquals(0, t.ackAll(new long[]{ids[1]}, 1)); // 같은 lease 두 번째 ack
+        assertEquals(2, t.inflightCount());
+
+        // 해제된 슬롯을 재사용해도 옛 lease ID는 세대가 달라 무시됨
+        long[] reused = lease(t, 0, msg(3));
+        assertEquals(0, t.ackAll(new long[]{ids[1]}, 1));
+        assertEquals(1, t.ackAll(reused, 1));
+    }
+
+    @Test
+    void expiredLeaseIsRedeliveredAndLateAckIsIgnored() {
+        LeaseTracker t = new LeaseTracker(100, 10, 0);
+        Message m = msg(7);
+        long[] ids = lease(t, 0, m);
+
+        assertEquals(0, t.expire(90));
+        assertEquals(1, t.expire(100));
+        assertEquals(0, t.inflightCount());
+        assertEquals(1, t.redeliveryCount());
+        assertEquals(0, t.ackAll(ids, 1));
+        assertNull(t.take(ids[0]));
+
+        List<Message> sink = new ArrayList<>();
+        assertEquals(1, t.drainRedelivery(sink, 10));
+        assertSame(m, sink.get(0));
+        lease(t, 200, m);
+        assertEquals(2, m.getDeliveryCount());
+    }
+
+    @Test
+    void minPendingOffsetFollowsAckTakeRequeueAndRedelivery() {
+        LeaseTracker t = new LeaseTracker(1000, 10, 0);
+        Message[] m = {msg(10), msg(11), msg(12), msg(13), msg(14)};
+        long[] ids = lease(t, 0, m);
+        lease(t, 0, msg(-1)); // WAL 없는 메시지(-1)는 커밋 상한에 영향 없음
+        assertEquals(10, t.minPendingOffset());
+
+        t.ackAll(new long[]{ids[0]}, 1);
+        assertEquals(11, t.minPendingOffset());
+        t.ackAll(new long[]{ids[2]}, 1);
+        assertEquals(11, t.minPendingOffset());
+
+        Message taken = t.take(ids[1]);
+        assertEquals(13, t.minPendingOffset());
+        t.requeue(taken);
+        assertEquals(11, t.minPendingOffset()); // 재전달 대기도 미완료
+
+        List<Message> sink = new ArrayList<>();
+        t.drainRedelivery(sink, 1);
+        long[] again = new long[1];
+        t.leaseAll(sink, again, 0);
+        assertEquals(11, t.minPendingOffset());
+
+        t.ackAll(again, 1);
+        t.ackAll(new long[]{ids[3], ids[4]}, 2);
+        assertEquals(Long.MAX_VALUE, t.minPendingOffset());
+    }
+
+    @Test
+    void oldestLeaseHoldsMinPendingOffsetWhileDoneHeapIsRebuilt() {
+        // 끝까지 ack 안 되는 오래된 lease 하나 뒤로 완료 오프셋이 쌓여 재구성 경로를 탐
+        LeaseTracker t = new LeaseTracker(1_000_000, 1000, 0);
+        long[] oldest = lease(t, 0, msg(0));
+        for (int i = 1; i <= 10_000; i++) {
+            t.ackAll(lease(t, 0, msg(i)), 1);
+            assertEquals(0, t.minPendingOffset());
+        }
+        t.ackAll(oldest, 1);
+        assertEquals(Long.MAX_VALUE, t.minPendingOffset());
+    }
+
+    @Test
+    void minPendingOffsetMatchesModelUnderRandomOperations() {
+        Random rnd = new Random(42);
+        LeaseTracker t = new LeaseTracker(50, 5, 0);
+        Map<Long, long[]> leased = new HashMap<>();      // lease ID → {offset, deadline}
+        TreeMap<Long, Integer> waiting = new TreeMap<>();  // 재전달 대기 오프셋 (multiset)
+        List<Message> taken = new ArrayList<>();
+        long now = 0;
+        long next = 0;
+
+        for (int step = 0; step < 50_000; step++) {
+            int op = rnd.nextInt(10);
+            if (op < 3) {
+                List<Message> batch = new ArrayList<>();
+                t.drainRedelivery(batch, 1 + rnd.nextInt(8));
+                for (Message m : batch) remove(waiting, m.getOffset());
+                for (int i = rnd.nextInt(4); i > 0; i--) batch.add(msg(next++));
+                long[] ids = new long[batch.size()];
+                t.leaseAll(batch, ids, now);
+                for (int i = 0; i < ids.length; i++) leased.put(ids[i], new long[]{batch.get(i).getOffset(), now + 50});
+            } else if (op < 7 && !leased.isEmpty()) {
+                long id = pick(leased, rnd);
+                assertEquals(1, t.ackAll(new long[]{id}, 1));
+                leased.remove(id);
+            } else if (op == 7 && !leased.isEmpty()) {
+                long id = pick(leased, rnd);
+                taken.add(t.take(id));
+                leased.remove(id);
+            } else if (op == 8 && !taken.isEmpty()) {
+                Message m = taken.remove(taken.size() - 1);
+                t.requeue(m);
+                waiting.merge(m.getOffset(), 1, Integer::sum);
+            } else {
+                now += rnd.nextInt(8);
+                int expired = 0;
+                for (var it = leased.values().iterator(); it.hasNext(); ) {
+                    long[] l = it.next();
+                    if (l[1] > now) continue;
+                    waiting.merge(l[0], 1, Integer::sum);
+                    it.remove();
+                    expired++;
+                }
+                assertEquals(expired, t.expire(now));
+            }
+
+            long expected = waiting.isEmpty() ? Long.MAX_VALUE : waiting.firstKey();
+            for (long[] l : leased.values()) expected = Math.min(expected, l[0]);
+            assertEquals(expected, t.minPendingOffset(), "step " + step);
+        }
+    }
+
+    private static long pick(Map<Long, long[]> leased, Random rnd) {
+        int skip = rnd.nextInt(leased.size());
+        for (long id : leased.keySet()) {
+            if (skip-- == 0) return id;
+        }
+        throw new IllegalStateException();
+    }
+
+    private static void remove(TreeMap<Long, Integer> multiset, long key) {
+        multiset.computeIfPresent(key, (k, n) -> (n == 1) ? null : n - 1);
+    }
+}
@@ -0,0 +1,126 @@
+package com.realtimefinmq.mq.mymq;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageIdSetTest {
+
+    @Test
+    void addContainsRemove() {
+        MessageIdSet set = new MessageIdSet(16);
+        assertTrue(set.add("tx-1"));
+        assertFalse(set.add("tx-1"));
+        assertTrue(set.contains("tx-1"));
+        assertFalse(set.contains("tx-2"));
+        assertEquals(1, set.size());
+
+        assertTrue(set.remove("tx-1"));
+        assertFalse(set.remove("tx-1"));
+        assertFalse(set.contains("tx-1"));
+        assertEquals(0, set.size());
+        assertTrue(set.add("tx-1")); // 지운 뒤 다시 추가 가능
+    }
+
+    @Test
+    void uuidIdsMapToTheirOwn128Bits() {
+        UUID u = UUID.randomUUID();
+        assertEquals(u.getMostSignificantBits(), MessageIdSet.hi(u.toString()));
+        assertEquals(u.getLeastSignificantBits(), MessageIdSet.lo(u.toString()));
+        assertEquals(MessageIdSet.hi(u.toString()), MessageIdSet.hi(u.toString().toUpperCase()));
+
+        // UUID 모양이지만 16진수가 아닌 ID는 해시 키로 → 다른 ID와 섞이지 않음
+        String fake = "zzzzzzzz-zzzz-zzzz-zzzz-zzzzzzzzzzzz";
+        MessageIdSet set = new MessageIdSet(16);
+        assertTrue(set.add(fake));
+        assertTrue(set.add("00000000-0000-0000-0000-000000000000"));
+        assertTrue(set.contains(fake));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    void hashedIdsUseIndependentHalves() {
+        assertNotEquals(MessageIdSet.hi("order-1"), MessageIdSet.lo("order-1"));
+        assertNotEquals(MessageIdSet.hi("order-1"), MessageIdSet.hi("order-2"));
+    }
+
+    @Test
+    void zeroKeyIsStorable() {
+        // (0, 0)은 빈 슬롯 표시라 내부에서 바꿔 저장
+        MessageIdSet set = new MessageIdSet(16);
+        assertTrue(set.add(0, 0));
+        assertTrue(set.contains(0, 0));
+        assertFalse(set.add(0, 0));
+        assertTrue(set.remove(0, 0));
+        assertFalse(set.contains(0, 0));
+    }
+
+    @Test
+    void growsPastExpectedSize() {
+        MessageIdSet set = new MessageIdSet(0);
+        long before = set.memoryBytes();
+        for (int i = 0; i < 200_000; i++) assertTrue(set.add("id-" + i));
+        assertEquals(200_000, set.size());
+        assertTrue(set.memoryBytes() > before);
+        for (int i = 0; i < 200_000; i++) assertTrue(set.contains("id-" + i), "id-" + i);
+        assertFalse(set.contains("id-200000"));
+
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.contains("id-0"));
+    }
+
+    @Test
+    void randomAddRemoveMatchesHashSet() {
+        // 작은 키 공간 + 작은 테이블 → 탐사 구간이 길게 겹쳐 backward shift 경계(순환 포함)를 많이 탐
+        Random rnd = new Random(1);
+        MessageIdSet set = new MessageIdSet(0);
+        Set<Long> model = new HashSet<>();
+        for (int step = 0; step < 300_000; step++) {
+            long k = rnd.nextInt(3000);
+            switch (rnd.nextInt(3)) {
+                case 0 -> assertEquals(model.add(k), set.add(k, ~k));
+                case 1 -> assertEquals(model.remove(k), set.remove(k, ~k));
+                default -> assertEquals(model.contains(k), set.contains(k, ~k), "step " + step);
+            }
+            if (step % 50_000 == 0) {
+                for (long key = 0; key < 3000; key++) assertEquals(model.contains(key), set.contains(key, ~key));
+            }
+        }
+        assertEquals(model.size(), set.size());
+    }
+
+    @Test
+    void concurrentWritersAndReadersSeeEveryAdd() throws Exception {
+        MessageIdSet set = new MessageIdSet(1024);
+        int writers = 4;
+        int perWriter = 50_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perWriter; i++) {
+                    String id = writer + "-" + i;
+                    set.add(id);
+                    if (!set.contains(id)) throw new AssertionError("방금 넣은 ID가 안 보임: " + id);
+                }
+            }));
+        }
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        assertEquals(writers * perWriter, set.size());
+        for (int w = 0; w < writers; w++) {
+            for (int i = 0; i < perWriter; i++) assertTrue(set.contains(w + "-" + i));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.metrics.MyMqMetricsService;
+import com.realtimefinmq.mq.Message;
+import com.realtimefinmq.mq.mymq.wal.FsyncPolicy;
+import com.realtimefinmq.mq.mymq.wal.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriorityLanesTest {
+    private static final int HIGH = 0, NORMAL = 1, BULK = 2;
+
+    @TempDir
+    Path dir;
+
+    private static MyMqConfig config(MyMqConfig.Priority.Policy policy) {
+        MyMqConfig cfg = new MyMqConfig();
+        cfg.getPriority().setLanes(List.of("high", "normal", "bulk"));
+        cfg.getPriority().setWeights(List.of(8, 3, 1));
+        cfg.getPriority().setPolicy(policy);
+        return cfg;
+    }
+
+    private static PriorityLanes lanes(int capacity, MyMqConfig.Priority.Policy policy) {
+        return new PriorityLanes(capacity, config(policy), "p-0", NORMAL);
+    }
+
+    private static Message msg(int lane, int i) {
+        Message m = new Message(lane + "-" + i, "payload", System.currentTimeMillis(), "k", null);
+        m.setPriority(lane);
+        return m;
+    }
+
+    private static void fill(PriorityLanes q, int lane, int n) {
+        for (int i = 0; i < n; i++) assertTrue(q.offer(msg(lane, i)));
+    }
+
+    /** 배치에서 레인별 건수 */
+    private static int[] countByLane(List<Message> batch) {
+        int[] counts = new int[3];
+        for (Message m : batch) counts[m.getPriority()]++;
+        return counts;
+    }
+
+    @Test
+    void weightedSplitsBatchByWeightAndKeepsFifoWithinLane() {
+        PriorityLanes q = lanes(3000, MyMqConfig.Priority.Policy.WEIGHTED);
+        fill(q, HIGH, 100);
+        fill(q, NORMAL, 100);
+        fill(q, BULK, 100);
+
+        List<Message> batch = new ArrayList<>();
+        assertEquals(12, q.pollBatch(batch, 12, 0));
+        assertArrayEquals(new int[]{8, 3, 1}, countByLane(batch)); // 8:3:1
+        assertEquals("0-0", batch.get(0).getId());
+        assertEquals("0-7", batch.get(7).getId());
+        assertEquals("1-0", batch.get(8).getId());
+        assertEquals("2-0", batch.get(11).getId());
+
+        // 배치가 가중치 합보다 작아도 모든 레인이 최소 1건 → 기아 없음
+        batch.clear();
+        assertEquals(3, q.pollBatch(batch, 3, 0));
+        assertArrayEquals(new int[]{1, 1, 1}, countByLane(batch));
+    }
+
+    @Test
+    void weightedGivesEmptyLaneSharesToOthers() {
+        PriorityLanes q = lanes(3000, MyMqConfig.Priority.Policy.WEIGHTED);
+        fill(q, NORMAL, 5);
+        fill(q, BULK, 100);
+
+        List<Message> batch = new ArrayList<>();
+        assertEquals(12, q.pollBatch(batch, 12, 0)); // high 몫(8)을 놀리지 않음
+        assertArrayEquals(new int[]{0, 5, 7}, countByLane(batch));
+    }
+
+    @Test
+    void strictServesLowerLanesOnlyWhenHigherOnesAreEmpty() {
+        PriorityLanes q = lanes(3000, MyMqConfig.Priority.Policy.STRICT);
+        fill(q, BULK, 10);
+        fill(q, NORMAL, 10);
+        fill(q, HIGH, 15);
+
+        List<Message> batch = new ArrayList<>();
+        assertEquals(10, q.pollBatch(batch, 10, 0));
+        assertArrayEquals(new int[]{10, 0, 0}, countByLane(batch));
+
+        batch.clear();
+        assertEquals(10, q.pollBatch(batch, 10, 0));
+        assertArrayEquals(new int[]{5, 5, 0}, countByLane(batch)); // high를 비운 뒤에야 normal
+
+        // high가 계속 들어오면 bulk는 기아 (strict의 의도된 동작)
+        for (int round = 0; round < 5; round++) {
+            fill(q, HIGH, 10);
+            batch.clear();
+            q.pollBatch(batch, 10, 0);
+            assertEquals(0, countByLane(batch)[BULK]);
+        }
+        batch.clear();
+        assertEquals(10, q.pollBatch(batch, 10, 0));
+        assertArrayEquals(new int[]{0, 5, 5}, countByLane(batch));
+    }
+
+    @Test
+    void lanesShareThePartitionCapacity() {
+        PriorityLanes q = lanes(10, MyMqConfig.Priority.Policy.WEIGHTED); // 4 / 3 / 3
+        fill(q, HIGH, 4);
+        assertFalse(q.offer(msg(HIGH, 99)));
+        assertTrue(q.isFull(msg(HIGH, 99)));
+        assertFalse(q.isFull(msg(BULK, 0)));   // 다른 레인은 영향 없음
+        fill(q, BULK, 3);
+        assertFalse(q.offer(msg(BULK, 99)));
+        assertEquals(7, q.size());
+        assertEquals(4, q.laneSize(HIGH));
+
+        // priority 없음 → 기본 레인, 범위 밖 → 가까운 레인
+        Message none = new Message("none", "p", 0, "k", null);
+        assertEquals(NORMAL, q.laneOf(none));
+        none.setPriority(-3);
+        assertEquals(HIGH, q.laneOf(none));
+        none.setPriority(42);
+        assertEquals(BULK, q.laneOf(none));
+    }
+
+    @Test
+    void minHeadOffsetIsTheSmallestUnpolledOffsetAcrossLanes() {
+        PriorityLanes q = lanes(3000, MyMqConfig.Priority.Policy.STRICT);
+        assertEquals(Long.MAX_VALUE, q.minHeadOffset());
+        long offset = 0;
+        for (int lane : new int[]{BULK, BULK, HIGH, NORMAL}) {
+            Message m = msg(lane, (int) offset);
+            m.setOffset(offset++);
+            q.offer(m);
+        }
+        assertEquals(0, q.minHeadOffset());
+
+        List<Message> batch = new ArrayList<>();
+        q.pollBatch(batch, 2, 0); // high(2), normal(3) 먼저
+        assertEquals(0, q.minHeadOffset()); // bulk의 0, 1은 아직 남음
+        batch.clear();
+        q.pollBatch(batch, 1, 0);
+        assertEquals(1, q.minHeadOffset());
+        q.pollBatch(batch, 1, 0);
+        assertEquals(Long.MAX_VALUE, q.minHeadOffset());
+    }
+
+    @Test
+    void commitWaitsForLowerLaneMessagesWrittenEarlier() throws Exception {
+        MyMqConfig cfg = config(MyMqConfig.Priority.Policy.STRICT);
+        cfg.getWal().setEnabled(true);
+        cfg.getWal().setDir(dir.toString());
+        cfg.getWal().setFsyncPolicy(FsyncPolicy.NEVER);
+        WriteAheadLog wal = new WriteAheadLog(cfg);
+        Topic topic = new Topic("pay", new Topic.Settings(1, 300, -1, -1, 0, NORMAL, false, false),
+                cfg, new IdempotencyStore(null, cfg), new MyMqMetricsService(), wal);
+        try {
+            // 로그 순서: bulk 0, 1 → high 2, 3
+            for (int i = 0; i < 4; i++) {
+                assertEquals(EnqueueResult.ENQUEUED, topic.enqueue(msg(i < 2 ? BULK : HIGH, i)));
+            }
+            String logName = topic.logName(0);
+            List<Message> sink = new ArrayList<>();
+            long[] leaseIds = new long[10];
+
+            // high(2, 3)를 먼저 처리해도 bulk 0이 남아 있으므로 커밋은 0에 머묾 (재시작 시 0, 1 유실 방지)
+            assertEquals(2, topic.pollBatch(0, 2, 0, sink, leaseIds));
+            assertEquals(List.of(2L, 3L), List.of(sink.get(0).getOffset(), sink.get(1).getOffset()));
+            topic.ack(0, leaseIds, 2);
+            assertEquals(0, wal.committedOffset(logName));
+
+            sink.clear();
+            assertEquals(1, topic.pollBatch(0, 1, 0, sink, leaseIds));
+            topic.ack(0, leaseIds, 1);
+            assertEquals(1, wal.committedOffset(logName));
+
+            sink.clear();
+            assertEquals(1, topic.pollBatch(0, 1, 0, sink, leaseIds));
+            topic.ack(0, leaseIds, 1);
+            assertEquals(4, wal.committedOffset(logName)); // 모든 레인이 비면 꺼낸 위치까지
+        } finally {
+            topic.close();
+            topic.log(0).close();
+        }
+    }
+}
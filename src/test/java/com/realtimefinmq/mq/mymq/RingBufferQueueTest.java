@@ -0,0 +1,101 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.mq.Message;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferQueueTest {
+
+    private static Message msg(String id) {
+        return new Message(id, "p", 0, null, null);
+    }
+
+    @Test
+    void offerStopsAtConfiguredCapacityNotArraySize() throws Exception {
+        RingBufferQueue q = new RingBufferQueue(5, WaitStrategy.create(WaitStrategy.Type.BLOCKING)); // 배열은 8칸
+        for (int i = 0; i < 5; i++) assertTrue(q.offer(msg("m" + i)));
+        assertFalse(q.offer(msg("m5")));
+        assertEquals(5, q.size());
+
+        assertEquals("m0", q.poll(0).getId());
+        assertTrue(q.offer(msg("m5")));
+        for (int i = 1; i <= 5; i++) assertEquals("m" + i, q.poll(0).getId());
+        assertNull(q.poll(0));
+        assertEquals(0, q.size());
+    }
+
+    @Test
+    void keepsFifoAcrossManyWrapArounds() throws Exception {
+        RingBufferQueue q = new RingBufferQueue(4, WaitStrategy.create(WaitStrategy.Type.YIELD));
+        List<Message> sink = new ArrayList<>();
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 1000; round++) {
+            int burst = 1 + round % 4;
+            for (int i = 0; i < burst; i++) assertTrue(q.offer(msg(Integer.toString(next++))));
+            sink.clear();
+            assertEquals(burst, q.drainTo(sink, 10));
+            for (Message m : sink) assertEquals(Integer.toString(expected++), m.getId());
+        }
+        assertEquals(next, expected);
+        assertNull(q.peek());
+    }
+
+    @Test
+    void concurrentProducersLoseNothingAndKeepPerProducerOrder() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        RingBufferQueue q = new RingBufferQueue(1024, WaitStrategy.create(WaitStrategy.Type.BLOCKING));
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perProducer; i++) {
+                        Message m = new Message(producer + ":" + i, "p", 0, null, (long) i);
+                        while (!q.offer(m)) Thread.onSpinWait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+
+        long[] lastSeq = new long[producers];
+        Arrays.fill(lastSeq, -1);
+        List<Message> sink = new ArrayList<>();
+        int received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received < producers * perProducer && System.nanoTime() < deadline) {
+            Message first = q.poll(100);
+            if (first == null) continue;
+            sink.clear();
+            sink.add(first);
+            q.drainTo(sink, 256);
+            for (Message m : sink) {
+                int producer = Integer.parseInt(m.getId().substring(0, m.getId().indexOf(':')));
+                assertEquals(lastSeq[producer] + 1, m.getSequence().longValue(), "생산자별 순서");
+                lastSeq[producer] = m.getSequence();
+                received++;
+            }
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(producers * perProducer, received);
+        assertNull(q.poll(0));
+    }
+}
@@ -0,0 +1,109 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.mq.Message;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static Message delayed(long deliverAt) {
+        Message m = new Message("d-" + deliverAt, "p", 0, null, null);
+        m.setDeliverAt(deliverAt);
+        return m;
+    }
+
+    /** 한 틱 전에는 안 나오고 정확히 전달 틱에 나오는지 */
+    private static void assertReleasedExactlyAt(TimingWheel wheel, Message m) {
+        List<Message> due = new ArrayList<>();
+        assertEquals(0, wheel.advance(m.getDeliverAt() - 1, due), "이른 전달 " + m.getDeliverAt());
+        assertEquals(1, wheel.advance(m.getDeliverAt(), due), "늦은 전달 " + m.getDeliverAt());
+        assertSame(m, due.get(0));
+    }
+
+    @Test
+    void pastOrCurrentTickIsRejected() {
+        TimingWheel wheel = new TimingWheel(10, 1000);
+        assertFalse(wheel.add(delayed(999)));
+        assertFalse(wheel.add(delayed(1009))); // 같은 틱
+        assertTrue(wheel.add(delayed(1010)));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void releasesOnEachSideOfLevelBoundaries() {
+        long[] ticks = {1, 255, 256, 257, 65_535, 65_536, 65_537, (1L << 24) - 1, 1L << 24, (1L << 24) + 1};
+        for (long t : ticks) {
+            TimingWheel wheel = new TimingWheel(1, 0);
+            Message m = delayed(t);
+            assertTrue(wheel.add(m));
+            assertReleasedExactlyAt(wheel, m);
+            assertEquals(0, wheel.size());
+        }
+    }
+
+    @Test
+    void cascadesFromUnalignedStart() {
+        // 현재 틱이 칸 경계에 있지 않아도 상위 단에서 내려와 정확한 틱에 나옴
+        long start = 65_536 * 3 + 250;
+        for (long delay : new long[]{5, 6, 300, 65_286, 65_287, 70_000}) {
+            TimingWheel wheel = new TimingWheel(1, start);
+            Message m = delayed(start + delay);
+            assertTrue(wheel.add(m));
+            assertReleasedExactlyAt(wheel, m);
+        }
+    }
+
+    @Test
+    void overflowBeyondTopLevelIsReplacedWhenTopLevelTurns() {
+        long boundary = 1L << 32; // 4단 휠 한 바퀴
+        TimingWheel wheel = new TimingWheel(1, boundary - 300);
+        Message far = delayed(boundary + 5);
+        Message near = delayed(boundary - 10);
+        assertTrue(wheel.add(far));
+        assertTrue(wheel.add(near));
+
+        assertReleasedExactlyAt(wheel, near);
+        assertReleasedExactlyAt(wheel, far);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void randomDelaysAreReleasedInTheAdvanceThatReachesThem() {
+        Random rnd = new Random(7);
+        long tickMs = 10;
+        long now = 1_000_000_007L;
+        TimingWheel wheel = new TimingWheel(tickMs, now);
+        int added = 0;
+        int released = 0;
+        List<Message> due = new ArrayList<>();
+
+        for (int round = 0; round < 2000; round++) {
+            for (int i = rnd.nextInt(20); i > 0; i--) {
+                long delay = rnd.nextInt(4) == 0 ? rnd.nextInt(3_000_000) : rnd.nextInt(5000);
+                if (wheel.add(delayed(now + delay))) added++;
+            }
+            long prev = now;
+            now += rnd.nextInt(3000);
+            due.clear();
+            released += wheel.advance(now, due);
+            for (Message m : due) {
+                long t = m.getDeliverAt() / tickMs;
+                assertTrue(t > prev / tickMs && t <= now / tickMs, "전달 틱 " + t);
+            }
+            assertEquals(added - released, wheel.size());
+        }
+
+        due.clear();
+        released += wheel.advance(now + 3_000_000, due);
+        assertEquals(added, released);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,207 @@
+package com.realtimefinmq.mq.mymq;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.metrics.BrokerMetricsDto;
+import com.realtimefinmq.metrics.MyMqMetricsService;
+import com.realtimefinmq.mq.Message;
+import com.realtimefinmq.mq.mymq.wal.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopicBackpressureTest {
+    private static final int QUEUE_SIZE = 2;
+
+    private final MyMqMetricsService metrics = new MyMqMetricsService();
+
+    /** 파티션 1개, 큐 2칸, WAL 없는 토픽 */
+    private Topic topic(BackpressurePolicy policy, long blockTimeoutMs) {
+        MyMqConfig cfg = new MyMqConfig();
+        cfg.getBackpressure().setPolicy(policy);
+        cfg.getBackpressure().setBlockTimeoutMs(blockTimeoutMs);
+        Topic.Settings s = new Topic.Settings(1, QUEUE_SIZE, -1, -1, 0, 0, false, false);
+        return new Topic("bp", s, cfg, new IdempotencyStore(null, cfg), metrics, new WriteAheadLog(cfg));
+    }
+
+    private static Message msg(int i) {
+        return new Message("m" + i, "payload-" + i, System.currentTimeMillis(), "acct", null);
+    }
+
+    private static void fill(Topic t) {
+        for (int i = 0; i < QUEUE_SIZE; i++) assertEquals(EnqueueResult.ENQUEUED, t.enqueue(msg(i)));
+    }
+
+    /** 파티션 0의 남은 메시지를 모두 꺼내 ack (id 순서대로) */
+    private static List<String> drain(Topic t) {
+        List<String> ids = new ArrayList<>();
+        List<Message> sink = new ArrayList<>();
+        long[] leaseIds = new long[16];
+        int n;
+        while ((n = t.pollBatch(0, 16, 0, sink, leaseIds)) > 0) {
+            for (Message m : sink) ids.add(m.getId());
+            t.ack(0, leaseIds, n);
+            sink.clear();
+        }
+        return ids;
+    }
+
+    private static List<String> deadLetterIds(Topic t) {
+        List<String> ids = new ArrayList<>();
+        for (DeadLetter d : t.deadLetterQueue().list(0, 100)) ids.add(d.getMessage().getId() + ":" + d.getReason());
+        return ids;
+    }
+
+    @Test
+    void rejectGoesStraightToDlq() {
+        Topic t = topic(BackpressurePolicy.REJECT, 0);
+        fill(t);
+
+        assertEquals(EnqueueResult.DEAD_LETTERED, t.enqueue(msg(2)));
+        assertEquals(List.of("m2:QUEUE_FULL"), deadLetterIds(t));
+        BrokerMetricsDto m = metrics.getBrokerMetrics();
+        assertEquals(1, m.getBackpressureRejected());
+        assertEquals(0, m.getBackpressureBlocked());
+    }
+
+    @Test
+    void blockWaitsUpToTimeoutThenDeadLetters() {
+        Topic t = topic(BackpressurePolicy.BLOCK, 50);
+        fill(t);
+
+        long start = System.nanoTime();
+        assertEquals(EnqueueResult.DEAD_LETTERED, t.enqueue(msg(2)));
+        long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(tookMs >= 45, "block-timeout-ms만큼 기다려야 함: " + tookMs);
+
+        BrokerMetricsDto m = metrics.getBrokerMetrics();
+        assertEquals(1, m.getBackpressureBlocked());
+        assertEquals(1, m.getBackpressureRejected());
+        assertTrue(m.getBackpressureBlockedMs() >= 45);
+        assertEquals(List.of("m2:QUEUE_FULL"), deadLetterIds(t));
+    }
+
+    @Test
+    void blockEnqueuesOnceConsumerFreesSpace() throws Exception {
+        Topic t = topic(BackpressurePolicy.BLOCK, 5_000);
+        fill(t);
+
+        Thread consumer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<Message> sink = new ArrayList<>();
+            long[] leaseIds = new long[1];
+            int n = t.pollBatch(0, 1, 0, sink, leaseIds);
+            t.ack(0, leaseIds, n);
+        });
+        consumer.start();
+
+        assertEquals(EnqueueResult.ENQUEUED, t.enqueue(msg(2)));
+        consumer.join();
+        assertEquals(List.of("m1", "m2"), drain(t));
+        assertEquals(0, metrics.getBrokerMetrics().getBackpressureRejected());
+        assertEquals(1, metrics.getBrokerMetrics().getBackpressureBlocked());
+    }
+
+    @Test
+    void dropOldestMovesHeadToDlq() {
+        Topic t = topic(BackpressurePolicy.DROP_OLDEST, 0);
+        fill(t);
+
+        assertEquals(EnqueueResult.ENQUEUED, t.enqueue(msg(2)));
+        assertEquals(List.of("m0:DROPPED_OLDEST"), deadLetterIds(t));
+        assertEquals(List.of("m1", "m2"), drain(t));
+        assertEquals(1, metrics.getBrokerMetrics().getBackpressureDroppedOldest());
+        assertEquals(0, metrics.getBrokerMetrics().getBackpressureRejected());
+    }
+
+    @Test
+    void dropOldestDoesNotTouchQueueWhileConsumerHoldsPartition() throws Exception {
+        Topic t = topic(BackpressurePolicy.DROP_OLDEST, 0);
+        fill(t);
+
+        // 다른 스레드(컨슈머)가 소비 락을 잡고 있는 동안 (ReentrantLock이라 같은 스레드로는 흉내 못 냄)
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread consumer = new Thread(() -> {
+            ReentrantLock lock = t.consumeLock(0);
+            lock.lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException ignored) {
+            } finally {
+                lock.unlock();
+            }
+        });
+        consumer.start();
+        locked.await();
+        try {
+            // 큐 앞은 건드리지 않고 새 메시지를 DLQ로 (REJECT와 같음)
+            assertEquals(EnqueueResult.DEAD_LETTERED, t.enqueue(msg(2)));
+        } finally {
+            release.countDown();
+            consumer.join();
+        }
+        assertEquals(List.of("m2:QUEUE_FULL"), deadLetterIds(t));
+        assertEquals(List.of("m0", "m1"), drain(t));
+        assertEquals(0, metrics.getBrokerMetrics().getBackpressureDroppedOldest());
+        assertEquals(1, metrics.getBrokerMetrics().getBackpressureRejected());
+    }
+
+    @Test
+    void callerRunsDrainsPartitionOnProducerThreadUnderConsumeLock() {
+        Topic t = topic(BackpressurePolicy.CALLER_RUNS, 0);
+        List<String> processed = new ArrayList<>();
+        AtomicBoolean lockHeld = new AtomicBoolean();
+        Thread producer = Thread.currentThread();
+        // 컨슈머 서비스의 drainOnCaller와 같은 모양: 소비 락 안에서 한 배치 poll → ack
+        t.setDrainer((topic, p) -> {
+            ReentrantLock lock = topic.consumeLock(p);
+            lock.lock();
+            try {
+                lockHeld.set(lock.isHeldByCurrentThread() && Thread.currentThread() == producer);
+                List<Message> sink = new ArrayList<>();
+                long[] leaseIds = new long[16];
+                int n = topic.pollBatch(p, 16, 0, sink, leaseIds);
+                for (Message m : sink) processed.add(m.getId());
+                topic.ack(p, leaseIds, n);
+                return n;
+            } finally {
+                lock.unlock();
+            }
+        });
+        fill(t);
+
+        assertEquals(EnqueueResult.ENQUEUED, t.enqueue(msg(2)));
+        assertTrue(lockHeld.get());
+        assertEquals(List.of("m0", "m1"), processed);       // 프로듀서가 앞 배치를 순서대로 처리
+        assertFalse(t.consumeLock(0).isLocked());
+        assertEquals(List.of("m2"), drain(t));
+        BrokerMetricsDto m = metrics.getBrokerMetrics();
+        assertEquals(2, m.getBackpressureCallerRuns());
+        assertEquals(1, m.getBackpressureBlocked());
+        assertEquals(0, m.getBackpressureRejected());
+    }
+
+    @Test
+    void callerRunsWithoutDrainerActsLikeReject() {
+        Topic t = topic(BackpressurePolicy.CALLER_RUNS, 0);
+        fill(t);
+
+        assertEquals(EnqueueResult.DEAD_LETTERED, t.enqueue(msg(2)));
+        assertEquals(1, metrics.getBrokerMetrics().getBackpressureRejected());
+        assertEquals(0, metrics.getBrokerMetrics().getBackpressureCallerRuns());
+    }
+}
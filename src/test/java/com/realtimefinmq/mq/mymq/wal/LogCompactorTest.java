@@ -0,0 +1,146 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.mq.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogCompactorTest {
+    private static final long RETENTION_MS = 60_000;
+
+    @TempDir
+    Path dir;
+
+    private SegmentedLog open() throws Exception {
+        MyMqConfig.Wal cfg = new MyMqConfig.Wal();
+        cfg.setSegmentBytes(1024); // 작은 세그먼트 → 금방 닫힘
+        cfg.setFsyncPolicy(FsyncPolicy.NEVER);
+        return SegmentedLog.open("compact-test", dir, cfg);
+    }
+
+    private static Message msg(String id, String key, String payload, long ts) {
+        return new Message(id, payload, ts, key, null);
+    }
+
+    /** 대상 레코드가 닫힌 세그먼트에 들어가도록 key가 모두 다른 레코드로 밀어냄 */
+    private static void fill(SegmentedLog log, String prefix, int n) {
+        for (int i = 0; i < n; i++) log.append(msg(prefix + i, prefix + "-" + i, "x", 0));
+        log.flush();
+    }
+
+    private static Map<Long, Message> readAll(SegmentedLog log) {
+        Map<Long, Message> byOffset = new HashMap<>();
+        LogReader reader = log.reader(0);
+        List<Message> sink = new ArrayList<>();
+        while (reader.read(100, sink) > 0) {
+            for (Message m : sink) byOffset.put(m.getOffset(), m);
+            sink.clear();
+        }
+        return byOffset;
+    }
+
+    @Test
+    void keepsNewestVersionPerKeyAtItsOriginalOffset() throws Exception {
+        try (SegmentedLog log = open()) {
+            long a1 = log.append(msg("a1", "acct-a", "100", 0));
+            long b1 = log.append(msg("b1", "acct-b", "200", 0));
+            long plain = log.append(msg("n1", null, "no-key", 0));
+            long a2 = log.append(msg("a2", "acct-a", "150", 0));
+            fill(log, "fill", 100);
+            assertTrue(log.closedSegments().size() > 1);
+
+            LogCompactor compactor = new LogCompactor(new IoThrottler(0), RETENTION_MS);
+            LogCompactor.Result r = compactor.compact(log, 0);
+            assertEquals(1, r.recordsRemoved());
+
+            Map<Long, Message> after = readAll(log);
+            assertFalse(after.containsKey(a1));
+            assertEquals("150", after.get(a2).getPayload());
+            assertEquals("200", after.get(b1).getPayload());
+            assertEquals("no-key", after.get(plain).getPayload()); // key 없는 메시지는 유지
+            assertEquals(log.nextOffset() - 1, after.size());
+
+            // 새로 닫힌 세그먼트가 없으면 다시 돌려도 아무것도 안 함
+            assertEquals(0, compactor.compact(log, 0).recordsRemoved());
+        }
+    }
+
+    @Test
+    void newerVersionInLaterSegmentRemovesAlreadyCompactedOne() throws Exception {
+        try (SegmentedLog log = open()) {
+            long a1 = log.append(msg("a1", "acct-a", "100", 0));
+            fill(log, "fill", 100);
+            LogCompactor compactor = new LogCompactor(new IoThrottler(0), RETENTION_MS);
+            assertEquals(0, compactor.compact(log, 0).recordsRemoved());
+
+            long a2 = log.append(msg("a2", "acct-a", "150", 0));
+            fill(log, "more", 100);
+            assertEquals(1, compactor.compact(log, 0).recordsRemoved());
+
+            Map<Long, Message> after = readAll(log);
+            assertFalse(after.containsKey(a1));
+            assertEquals("150", after.get(a2).getPayload());
+        }
+    }
+
+    @Test
+    void replacedSegmentKeepsIndexesAndLeavesNoStagingFiles() throws Exception {
+        long target;
+        try (SegmentedLog log = open()) {
+            log.append(msg("a1", "acct-a", "100", 0));
+            fill(log, "fill", 60);
+            log.append(msg("a2", "acct-a", "150", 0));
+            fill(log, "more", 60);
+            LogSegment first = log.closedSegments().get(0);
+            assertEquals(1, new LogCompactor(new IoThrottler(0), RETENTION_MS).compact(log, 0).recordsRemoved());
+
+            LogSegment replaced = log.closedSegments().get(0);
+            assertTrue(replaced != first);
+            assertEquals(first.baseOffset(), replaced.baseOffset());
+            assertTrue(replaced.lastOffset() >= 0); // 락 밖 스캔 결과를 그대로 씀
+            target = replaced.lastOffset();
+            try (Stream<Path> files = Files.list(dir)) {
+                assertFalse(files.anyMatch(f -> f.getFileName().toString().endsWith(LogCompactor.CLEANED_SUFFIX)));
+            }
+        }
+        try (SegmentedLog log = open()) {
+            List<Message> got = new ArrayList<>();
+            log.reader(target).read(1, got);
+            assertEquals(target, got.get(0).getOffset());
+        }
+    }
+
+    @Test
+    void tombstoneRemovesOlderVersionsAndExpiresAfterRetention() throws Exception {
+        long deletedAt = 1_000;
+        try (SegmentedLog log = open()) {
+            long a1 = log.append(msg("a1", "acct-a", "100", 0));
+            long tomb = log.append(msg("a-del", "acct-a", null, deletedAt));
+            fill(log, "fill", 100);
+
+            LogCompactor compactor = new LogCompactor(new IoThrottler(0), RETENTION_MS);
+            assertEquals(1, compactor.compact(log, deletedAt + RETENTION_MS - 1).recordsRemoved());
+            Map<Long, Message> kept = readAll(log);
+            assertFalse(kept.containsKey(a1));
+            assertTrue(LogCompactor.isTombstone(kept.get(tomb))); // 보존 기간 안에는 tombstone 유지
+            assertNull(kept.get(tomb).getPayload());
+
+            // 새로 닫힌 세그먼트가 없어도 보존 기간이 지나면 tombstone 제거
+            assertEquals(1, compactor.compact(log, deletedAt + RETENTION_MS).recordsRemoved());
+            assertFalse(readAll(log).containsKey(tomb));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.mq.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogExportTest {
+
+    @TempDir
+    Path dir;
+
+    private static MyMqConfig.Wal config(long segmentBytes, CompressionType compression) {
+        MyMqConfig.Wal cfg = new MyMqConfig.Wal();
+        cfg.setSegmentBytes(segmentBytes);
+        cfg.setIndexIntervalBytes(128);
+        cfg.setFsyncPolicy(FsyncPolicy.NEVER);
+        cfg.setCompression(compression);
+        cfg.setCompressionMinBytes(0);
+        return cfg;
+    }
+
+    private static Message msg(int i) {
+        return new Message("m" + i, "payload-" + i, 1000 + i, "k" + (i % 3), null);
+    }
+
+    /** [from, to) 적재 후 flush (압축이면 이 구간이 배치 프레임 1개) */
+    private static void appendBatch(SegmentedLog log, int from, int to) {
+        for (int i = from; i < to; i++) assertEquals(i, log.append(msg(i)));
+        log.flush();
+    }
+
+    /** 내보낸 바이트를 새 디렉터리에 {firstOffset}.log로 쓰고 세그먼트로 열 준비 (Broker.exportLogToFile과 같은 이름) */
+    private Path writeExport(LogExport export, String name) throws Exception {
+        Path target = Files.createDirectories(dir.resolve(name));
+        Path file = target.resolve(String.format("%020d%s", export.firstOffset(), LogSegment.SUFFIX));
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            assertEquals(export.bytes(), export.transferTo(out));
+        }
+        assertEquals(export.bytes(), Files.size(file));
+        return target;
+    }
+
+    private static List<Message> readAll(SegmentedLog log, long from) {
+        List<Message> out = new ArrayList<>();
+        LogReader reader = log.reader(from);
+        while (reader.read(100, out) > 0) {
+        }
+        return out;
+    }
+
+    @Test
+    void exportedBytesReopenAsValidSegmentAcrossSegmentBoundaries() throws Exception {
+        LogExport export;
+        try (SegmentedLog log = SegmentedLog.open("src", dir.resolve("src"), config(1024, CompressionType.NONE))) {
+            appendBatch(log, 0, 100);
+            assertTrue(log.segmentCount() > 3);
+
+            export = log.export(5, 60); // 여러 세그먼트에 걸친 구간
+            assertEquals(5, export.firstOffset());
+            assertEquals(60, export.nextOffset());
+            assertTrue(export.segmentCount() > 1);
+
+            Path copy = writeExport(export, "copy");
+            try (SegmentedLog seeded = SegmentedLog.open("copy", copy, config(1024, CompressionType.NONE))) {
+                assertEquals(5, seeded.startOffset());
+                assertEquals(60, seeded.nextOffset());
+                List<Message> read = readAll(seeded, 0);
+                assertEquals(55, read.size());
+                for (int i = 0; i < read.size(); i++) {
+                    assertEquals(5 + i, read.get(i).getOffset());
+                    assertEquals("payload-" + (5 + i), read.get(i).getPayload());
+                    assertEquals("k" + ((5 + i) % 3), read.get(i).getKey());
+                }
+                appendBatch(seeded, 60, 65); // 시딩한 노드는 이어서 적재
+            }
+        }
+    }
+
+    @Test
+    void partialCompressedBatchesAtBothEndsAreExportedWhole() throws Exception {
+        try (SegmentedLog log = SegmentedLog.open("src", dir.resolve("src"), config(1 << 20, CompressionType.DEFLATE))) {
+            for (int b = 0; b < 5; b++) appendBatch(log, b * 10, b * 10 + 10); // 배치 [0,10) [10,20) ... [40,50)
+
+            // 5와 25는 배치 중간 → 걸친 배치를 통째로 포함
+            LogExport export = log.export(5, 25);
+            assertEquals(0, export.firstOffset());
+            assertEquals(25, export.nextOffset());
+
+            Path copy = writeExport(export, "copy");
+            try (SegmentedLog seeded = SegmentedLog.open("copy", copy, config(1 << 20, CompressionType.DEFLATE))) {
+                assertEquals(30, seeded.nextOffset()); // 배치 [20,30) 끝까지 들어 있음
+                // 받는 쪽은 자기 위치보다 앞은 건너뜀
+                List<Message> read = readAll(seeded, 5);
+                assertEquals(25, read.size());
+                for (int i = 0; i < read.size(); i++) assertEquals(5 + i, read.get(i).getOffset());
+            }
+
+            // 이어서 내보내기: 이전 nextOffset부터 → 겹친 배치 [20,30)는 다시 포함, 빠진 오프셋 없음
+            LogExport next = log.export(export.nextOffset(), Long.MAX_VALUE);
+            assertEquals(20, next.firstOffset());
+            assertEquals(50, next.nextOffset());
+        }
+    }
+
+    @Test
+    void emptyAndOutOfRangeRequestsAreClamped() throws Exception {
+        try (SegmentedLog log = SegmentedLog.open("src", dir.resolve("src"), config(1024, CompressionType.NONE))) {
+            appendBatch(log, 0, 20);
+
+            LogExport empty = log.export(10, 10);
+            assertEquals(0, empty.bytes());
+            assertEquals(-1, empty.firstOffset());
+            assertEquals(10, empty.nextOffset());
+
+            LogExport beyond = log.export(100, 200); // 로그 끝 뒤 → 빈 범위, 다음 위치는 로그 끝
+            assertEquals(0, beyond.bytes());
+            assertEquals(20, beyond.nextOffset());
+
+            log.append(msg(20)); // 쓰기 버퍼에만 있어도 export가 먼저 flush
+            LogExport all = log.export(-5, Long.MAX_VALUE);
+            assertEquals(0, all.firstOffset());
+            assertEquals(21, all.nextOffset());
+            assertEquals(log.sizeInBytes(), all.bytes());
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.mq.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordCodecTest {
+
+    @TempDir
+    Path dir;
+
+    private static Message full() {
+        Message m = new Message("id-1", "결제 승인 {\"amount\":1000}", 1_700_000_000_000L, "acct-42", 7L);
+        m.setDeliverAt(1_700_000_005_000L);
+        m.setExpiresAt(1_700_000_060_000L);
+        m.setPriority(2);
+        return m;
+    }
+
+    private static ByteBuffer encoded(long offset, Message msg) {
+        ByteBuffer buf = ByteBuffer.allocate(RecordCodec.maxEncodedSize(msg));
+        int n = RecordCodec.encode(buf, offset, msg);
+        assertEquals(n, buf.position());
+        return buf.flip();
+    }
+
+    @Test
+    void roundTripsAllFields() {
+        Message in = full();
+        ByteBuffer buf = encoded(123, in);
+        assertEquals(buf.remaining(), RecordCodec.validate(buf));
+        assertEquals(123, RecordCodec.peekOffset(buf));
+        assertEquals(in.getTimestamp(), RecordCodec.peekTimestamp(buf));
+
+        LogRecord rec = RecordCodec.decode(buf);
+        assertFalse(buf.hasRemaining());
+        Message out = rec.message();
+        assertEquals(123, rec.offset());
+        assertEquals(123, out.getOffset());
+        assertEquals(in.getId(), out.getId());
+        assertEquals(in.getPayload(), out.getPayload());
+        assertEquals(in.getKey(), out.getKey());
+        assertEquals(in.getTimestamp(), out.getTimestamp());
+        assertEquals(7L, out.getSequence().longValue());
+        assertEquals(in.getDeliverAt(), out.getDeliverAt());
+        assertEquals(in.getExpiresAt(), out.getExpiresAt());
+        assertEquals(2, out.getPriority().intValue());
+    }
+
+    @Test
+    void roundTripsNullsAndEmptyStrings() {
+        Message in = new Message("", null, 0, null, null);
+        Message out = RecordCodec.decode(encoded(0, in)).message();
+        assertEquals("", out.getId());
+        assertNull(out.getPayload());
+        assertNull(out.getKey());
+        assertNull(out.getSequence());
+        assertNull(out.getPriority());
+        assertEquals(0, out.getDeliverAt());
+        assertEquals(0, out.getExpiresAt());
+    }
+
+    @Test
+    void everyFlippedByteIsDetected() {
+        ByteBuffer clean = encoded(5, full());
+        for (int i = 4; i < clean.limit(); i++) { // size 필드(0~3)는 길이로 따로 검증
+            ByteBuffer buf = ByteBuffer.allocate(clean.limit()).put(clean.duplicate()).flip();
+            buf.put(i, (byte) (buf.get(i) ^ 0x01));
+            assertEquals(RecordCodec.CORRUPT, RecordCodec.validate(buf), "byte " + i);
+        }
+    }
+
+    @Test
+    void truncatedRecordIsIncompleteAndBadSizeIsCorrupt() {
+        ByteBuffer clean = encoded(5, full());
+        for (int cut : new int[]{0, 3, 4, RecordCodec.HEADER_SIZE, clean.limit() - 1}) {
+            assertEquals(RecordCodec.INCOMPLETE, RecordCodec.validate(clean.duplicate().limit(cut)), "cut " + cut);
+        }
+        ByteBuffer zeroed = ByteBuffer.allocate(64); // 0으로 채워진 꼬리 (미리 할당된 파일 영역)
+        assertEquals(RecordCodec.CORRUPT, RecordCodec.validate(zeroed));
+        ByteBuffer huge = ByteBuffer.allocate(8).putInt(0, RecordCodec.MAX_RECORD_SIZE + 1);
+        assertEquals(RecordCodec.CORRUPT, RecordCodec.validate(huge));
+    }
+
+    @Test
+    void batchRoundTripKeepsEveryRecord() {
+        ByteBuffer records = ByteBuffer.allocate(64 * 1024);
+        for (int i = 0; i < 200; i++) {
+            RecordCodec.encode(records, 1000 + i, new Message("id-" + i, "{\"amount\":" + i + ",\"currency\":\"KRW\"}", 5000 - i, "acct-" + (i % 7), null));
+        }
+        records.flip();
+        int rawSize = records.remaining();
+
+        ByteBuffer frame = ByteBuffer.allocate(rawSize + RecordCodec.BATCH_HEADER_SIZE);
+        Deflater deflater = new Deflater(1);
+        int n = RecordCodec.encodeBatch(frame, records, deflater);
+        assertTrue(n > 0 && n < rawSize);
+        assertEquals(0, records.position()); // 원본 위치는 그대로
+        frame.flip();
+
+        assertEquals(n, RecordCodec.validate(frame));
+        assertTrue(RecordCodec.isBatch(frame));
+        assertEquals(1000, RecordCodec.peekOffset(frame));
+        assertEquals(1199, RecordCodec.peekLastOffset(frame));
+        assertEquals(200, RecordCodec.peekCount(frame));
+        assertEquals(5000, RecordCodec.peekFirstTimestamp(frame));
+        assertEquals(5000, RecordCodec.peekTimestamp(frame)); // 배치 헤더 = 최대 타임스탬프
+
+        ByteBuffer raw = RecordCodec.inflateBatch(frame, new Inflater());
+        assertFalse(frame.hasRemaining());
+        assertEquals(rawSize, raw.remaining());
+        for (int i = 0; i < 200; i++) {
+            assertTrue(RecordCodec.validate(raw) > 0);
+            LogRecord rec = RecordCodec.decode(raw);
+            assertEquals(1000 + i, rec.offset());
+            assertEquals("id-" + i, rec.message().getId());
+        }
+        assertFalse(raw.hasRemaining());
+        deflater.end();
+    }
+
+    @Test
+    void incompressibleBatchIsNotWritten() {
+        Message m = new Message("x", "q", 0, null, null);
+        ByteBuffer records = encoded(0, m);
+        ByteBuffer frame = ByteBuffer.allocate(1024);
+        assertEquals(0, RecordCodec.encodeBatch(frame, records, new Deflater(1)));
+        assertEquals(0, frame.position());
+    }
+
+    @Test
+    void compressedLogReadsBackAndSurvivesReopen() throws Exception {
+        MyMqConfig.Wal cfg = new MyMqConfig.Wal();
+        cfg.setSegmentBytes(16 * 1024);
+        cfg.setWriteBufferBytes(4096);
+        cfg.setIndexIntervalBytes(256);
+        cfg.setFsyncPolicy(FsyncPolicy.NEVER);
+        cfg.setCompression(CompressionType.DEFLATE);
+        cfg.setCompressionMinBytes(256);
+
+        CompressionStats stats = new CompressionStats();
+        try (SegmentedLog log = SegmentedLog.open("deflate", dir, cfg, stats)) {
+            for (int i = 0; i < 2000; i++) {
+                log.append(new Message("id-" + i, "{\"account\":\"acct-" + (i % 10) + "\",\"amount\":" + i + "}", 1000 + i, null, null));
+            }
+            log.flush();
+            assertTrue(stats.batches() > 0);
+            assertTrue(stats.storedBytes() < stats.rawBytes());
+        }
+
+        try (SegmentedLog log = SegmentedLog.open("deflate", dir, cfg)) {
+            assertEquals(2000, log.nextOffset());
+            List<Message> out = new ArrayList<>();
+            LogReader reader = log.reader(1234); // 배치 중간으로 seek
+            while (reader.read(500, out) > 0) {
+            }
+            assertEquals(766, out.size());
+            for (int i = 0; i < out.size(); i++) {
+                assertEquals(1234 + i, out.get(i).getOffset());
+                assertEquals("id-" + (1234 + i), out.get(i).getId());
+            }
+            assertEquals(1500, log.offsetForTimestamp(2500));
+        }
+    }
+}
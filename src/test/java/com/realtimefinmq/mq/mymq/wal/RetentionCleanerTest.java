@@ -0,0 +1,162 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.mq.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetentionCleanerTest {
+    private static final long NOW = 10_000_000;
+    private static final long OLD = NOW - 3_600_000; // 1시간 전
+    private static final long HOUR = 3_600_000;
+
+    @TempDir
+    Path dir;
+
+    private final RetentionCleaner cleaner = new RetentionCleaner();
+    private int seq;
+
+    private SegmentedLog open() throws Exception {
+        MyMqConfig.Wal cfg = new MyMqConfig.Wal();
+        cfg.setSegmentBytes(1024); // 작은 세그먼트 → 레코드 수십 건마다 닫힘
+        cfg.setFsyncPolicy(FsyncPolicy.NEVER);
+        return SegmentedLog.open("retention-test", dir, cfg);
+    }
+
+    /** 세그먼트 수가 n이 될 때까지 ts 시각 레코드를 씀 (n번째 세그먼트에는 레코드 1건) */
+    private void appendUntilSegments(SegmentedLog log, int n, long ts) {
+        while (log.segmentCount() < n) log.append(new Message("m" + seq++, "payload", ts, null, null));
+        log.flush();
+    }
+
+    private static List<Long> bases(SegmentedLog log) {
+        List<Long> out = new ArrayList<>();
+        for (LogSegment s : log.segments()) out.add(s.baseOffset());
+        return out;
+    }
+
+    private static RetentionCleaner.Policy age(long retentionMs, long protectFromOffset) {
+        return new RetentionCleaner.Policy(retentionMs, -1, -1, protectFromOffset);
+    }
+
+    @Test
+    void ageDeletesOldSegmentsFromTheFrontAndStopsAtTheFirstYoungOne() throws Exception {
+        try (SegmentedLog log = open()) {
+            appendUntilSegments(log, 4, OLD);  // 닫힌 세그먼트 3개는 오래된 레코드만
+            appendUntilSegments(log, 6, NOW);  // 4번째 세그먼트부터 최신 레코드 섞임
+            List<Long> before = bases(log);
+
+            RetentionCleaner.Result r = cleaner.clean(log, age(HOUR / 2, Long.MAX_VALUE), NOW);
+
+            assertEquals(3, r.segments());
+            assertTrue(r.bytes() > 0);
+            assertEquals(before.subList(3, 6), bases(log));
+            assertEquals((long) before.get(3), log.startOffset());
+        }
+    }
+
+    @Test
+    void bytesDeletesOnlyWhileTheRestStaysAboveTheLimit() throws Exception {
+        try (SegmentedLog log = open()) {
+            appendUntilSegments(log, 6, NOW);
+            List<LogSegment> closed = log.closedSegments();
+            long limit = log.sizeInBytes() - closed.get(0).size() - closed.get(1).size();
+
+            RetentionCleaner.Result r = cleaner.clean(log, new RetentionCleaner.Policy(-1, limit, -1, Long.MAX_VALUE), NOW);
+
+            assertEquals(2, r.segments());
+            assertEquals(closed.get(2).baseOffset(), log.startOffset());
+            assertTrue(log.sizeInBytes() >= limit);
+        }
+    }
+
+    @Test
+    void consumedDeletesSegmentsEntirelyBelowTheOffset() throws Exception {
+        try (SegmentedLog log = open()) {
+            appendUntilSegments(log, 5, NOW);
+            List<Long> before = bases(log);
+
+            // 세 번째 세그먼트 중간까지 소비 → 앞의 두 세그먼트만 통째로 소비 완료
+            long consumed = before.get(2) + 1;
+            RetentionCleaner.Result r = cleaner.clean(log, new RetentionCleaner.Policy(-1, -1, consumed, consumed), NOW);
+
+            assertEquals(2, r.segments());
+            assertEquals((long) before.get(2), log.startOffset());
+        }
+    }
+
+    @Test
+    void protectFromOffsetStopsAgeDeletionAtTheFirstUnconsumedSegment() throws Exception {
+        try (SegmentedLog log = open()) {
+            appendUntilSegments(log, 5, OLD); // 닫힌 세그먼트 4개 모두 나이 조건 충족
+            List<Long> before = bases(log);
+
+            // 두 번째 세그먼트 안에 가장 느린 컨슈머의 커밋 → 첫 세그먼트만 삭제 가능
+            RetentionCleaner.Result r = cleaner.clean(log, age(HOUR / 2, before.get(1) + 1), NOW);
+            assertEquals(1, r.segments());
+            assertEquals((long) before.get(1), log.startOffset());
+
+            // 보호 오프셋이 세그먼트 경계와 정확히 같으면 그 앞 세그먼트까지 삭제
+            r = cleaner.clean(log, age(HOUR / 2, before.get(3)), NOW);
+            assertEquals(2, r.segments());
+            assertEquals((long) before.get(3), log.startOffset());
+        }
+    }
+
+    @Test
+    void activeSegmentIsNeverDeleted() throws Exception {
+        try (SegmentedLog log = open()) {
+            // 활성 세그먼트만 있으면 어떤 조건이어도 그대로
+            appendUntilSegments(log, 1, OLD);
+            log.append(new Message("m" + seq++, "payload", OLD, null, null));
+            RetentionCleaner.Policy all = new RetentionCleaner.Policy(1, 1, Long.MAX_VALUE, Long.MAX_VALUE);
+            assertEquals(RetentionCleaner.Result.NONE, cleaner.clean(log, all, NOW));
+            assertEquals(1, log.segmentCount());
+
+            // 닫힌 세그먼트는 모두 지워도 활성 세그먼트는 남고 이어서 쓸 수 있음
+            appendUntilSegments(log, 4, OLD);
+            long active = log.activeBaseOffset();
+            long next = log.nextOffset();
+            assertEquals(3, cleaner.clean(log, all, NOW).segments());
+            assertEquals(List.of(active), bases(log));
+            assertEquals(active, log.startOffset());
+            assertEquals(next, log.append(new Message("m" + seq++, "payload", NOW, null, null)));
+        }
+    }
+
+    @Test
+    void readerSkipsToTheNewLogStartAfterDeletion() throws Exception {
+        try (SegmentedLog log = open()) {
+            appendUntilSegments(log, 4, OLD);
+            long end = log.nextOffset();
+            long firstSegmentEnd = bases(log).get(1);
+            LogReader reader = log.reader(0);
+            List<Message> sink = new ArrayList<>();
+            assertTrue(reader.read(1, sink) > 0);
+
+            cleaner.clean(log, age(HOUR / 2, Long.MAX_VALUE), NOW);
+            long start = log.startOffset();
+            assertTrue(start > firstSegmentEnd);
+
+            // 이미 버퍼에 읽어 둔 첫 세그먼트 나머지 → 지워진 구간은 건너뛰고 새 시작부터
+            while (reader.read(100, sink) > 0) {
+            }
+            List<Long> offsets = new ArrayList<>();
+            for (Message m : sink) offsets.add(m.getOffset());
+            int jump = offsets.indexOf(start);
+            assertTrue(jump > 0);
+            for (int i = 0; i < offsets.size(); i++) {
+                long expected = (i < jump) ? i : start + (i - jump);
+                assertEquals(expected, (long) offsets.get(i));
+            }
+            assertEquals(end - 1, (long) offsets.get(offsets.size() - 1));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+import com.realtimefinmq.config.MyMqConfig;
+import com.realtimefinmq.mq.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentedLogTest {
+
+    @TempDir
+    Path dir;
+
+    private static MyMqConfig.Wal config(long segmentBytes) {
+        MyMqConfig.Wal cfg = new MyMqConfig.Wal();
+        cfg.setSegmentBytes(segmentBytes);
+        cfg.setIndexIntervalBytes(128);
+        cfg.setFsyncPolicy(FsyncPolicy.NEVER);
+        return cfg;
+    }
+
+    private static void appendRange(SegmentedLog log, int from, int to) {
+        for (int i = from; i < to; i++) {
+            assertEquals(i, log.append(new Message("m" + i, "payload-" + i, 1000 + i * 10L, null, null)));
+        }
+        log.flush();
+    }
+
+    private static List<Message> readFrom(SegmentedLog log, long offset, int max) {
+        List<Message> out = new ArrayList<>();
+        LogReader reader = log.reader(offset);
+        while (out.size() < max && reader.read(max - out.size(), out) > 0) {
+        }
+        return out;
+    }
+
+    private static Path lastSegmentFile(SegmentedLog log) {
+        List<LogSegment> segs = new ArrayList<>(log.segments());
+        return segs.get(segs.size() - 1).path();
+    }
+
+    @Test
+    void tornTailIsTruncatedOnReopenAndAppendContinues() throws Exception {
+        Path tail;
+        try (SegmentedLog log = SegmentedLog.open("torn", dir, config(64 * 1024))) {
+            appendRange(log, 0, 200);
+            tail = lastSegmentFile(log);
+        }
+        // 마지막 레코드 기록 도중 죽은 것처럼 꼬리를 반쯤 잘라냄
+        long size = Files.size(tail);
+        try (FileChannel ch = FileChannel.open(tail, StandardOpenOption.WRITE)) {
+            ch.truncate(size - 10);
+        }
+
+        try (SegmentedLog log = SegmentedLog.open("torn", dir, config(64 * 1024))) {
+            assertEquals(199, log.nextOffset());
+            assertTrue(Files.size(tail) < size - 10); // 반쪽 레코드는 파일에서도 잘림
+
+            List<Message> all = readFrom(log, 0, 1000);
+            assertEquals(199, all.size());
+            for (int i = 0; i < all.size(); i++) {
+                assertEquals(i, all.get(i).getOffset());
+                assertEquals("payload-" + i, all.get(i).getPayload());
+            }
+
+            appendRange(log, 199, 210); // 잘린 자리부터 이어 씀
+            List<Message> rest = readFrom(log, 195, 1000);
+            assertEquals(15, rest.size());
+            assertEquals(209, rest.get(rest.size() - 1).getOffset());
+        }
+    }
+
+    @Test
+    void garbageAfterLastRecordIsDropped() throws Exception {
+        Path tail;
+        try (SegmentedLog log = SegmentedLog.open("garbage", dir, config(64 * 1024))) {
+            appendRange(log, 0, 50);
+            tail = lastSegmentFile(log);
+        }
+        try (FileChannel ch = FileChannel.open(tail, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ch.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2, 3, 4, 5, 6, 7, 8}));
+        }
+        try (SegmentedLog log = SegmentedLog.open("garbage", dir, config(64 * 1024))) {
+            assertEquals(50, log.nextOffset());
+            assertEquals(50, readFrom(log, 0, 1000).size());
+        }
+    }
+
+    @Test
+    void seekAndTimestampLookupUseIndexesAfterReopen() throws Exception {
+        try (SegmentedLog log = SegmentedLog.open("seek", dir, config(4096))) {
+            appendRange(log, 0, 500);
+            assertTrue(log.segmentCount() > 3);
+        }
+        // 닫힌 세그먼트 인덱스 하나를 지워도 열 때 다시 만듦
+        LogSegment second;
+        try (SegmentedLog log = SegmentedLog.open("seek", dir, config(4096))) {
+            second = new ArrayList<>(log.segments()).get(1);
+        }
+        Files.delete(dir.resolve(LogSegment.indexFileName(second.baseOffset(), OffsetIndex.SUFFIX)));
+
+        try (SegmentedLog log = SegmentedLog.open("seek", dir, config(4096))) {
+            long rebuilt = second.baseOffset() + 20;
+            assertTrue(log.segmentFor(rebuilt).positionForOffset(rebuilt) > 0);   // 재생성한 닫힌 세그먼트 인덱스
+            assertTrue(log.segmentFor(498).positionForOffset(498) > 0);           // 복구 스캔에서 만든 활성 세그먼트 인덱스
+            for (long target : new long[]{0, rebuilt, 137, 311, 498, 499}) {
+                List<Message> got = readFrom(log, target, 1);
+                assertEquals(target, got.get(0).getOffset());
+            }
+            assertEquals(56, log.offsetForTimestamp(1555));  // 1560 = 56번째 레코드
+            assertEquals(300, log.offsetForTimestamp(4000));
+            assertEquals(500, log.offsetForTimestamp(99_999)); // 없으면 로그 끝
+        }
+    }
+
+    @Test
+    void recoveryStartsFromCommittedOffsetAndStopsAtMidSegmentCorruption() throws Exception {
+        List<SegmentedLog> logs = new ArrayList<>();
+        try {
+            logs.add(SegmentedLog.open("clean", dir.resolve("clean"), config(4096)));
+            logs.add(SegmentedLog.open("broken", dir.resolve("broken"), config(4096)));
+            appendRange(logs.get(0), 0, 300);
+            appendRange(logs.get(1), 0, 300);
+
+            // 두 번째 로그의 첫 세그먼트 한가운데 바이트를 뒤집음 (CRC 불일치)
+            Path first = logs.get(1).segments().iterator().next().path();
+            try (FileChannel ch = FileChannel.open(first, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long pos = ch.size() / 2;
+                ByteBuffer b = ByteBuffer.allocate(1);
+                ch.read(b, pos);
+                b.put(0, (byte) (b.get(0) ^ 0x5A)).rewind();
+                ch.write(b, pos);
+            }
+
+            long[] last = {-1, -1};
+            int[] counts = new int[2];
+            WalRecovery.Result r = WalRecovery.recover(logs, new long[]{250, 0}, 4, (i, rec) -> {
+                assertTrue(rec.offset() > last[i], "오프셋 순서");
+                last[i] = rec.offset();
+                counts[i]++;
+            });
+
+            assertEquals(50, counts[0]);
+            assertEquals(299, last[0]);
+            assertEquals(1, r.corruptSegments());
+            assertTrue(counts[1] < 300); // 손상 지점 뒤 레코드는 유실
+            assertEquals(299, last[1]);  // 다음 세그먼트부터는 다시 전달
+        } finally {
+            for (SegmentedLog log : logs) log.close();
+        }
+    }
+
+    @Test
+    void neverPolicyWritesToFileBeforeReturning() throws Exception {
+        try (SegmentedLog log = SegmentedLog.open("never", dir, config(64 * 1024))) {
+            long offset = log.append(new Message("m0", "payload-0", 1000, null, null));
+            assertEquals(0, Files.size(lastSegmentFile(log))); // append만으로는 쓰기 버퍼
+            log.awaitDurable(offset);
+            assertTrue(Files.size(lastSegmentFile(log)) > 0);  // 반환 시점에 파일에 있음 (프로세스 크래시 방어)
+            assertEquals(1, log.durableOffset());
+            assertEquals(1, readFrom(log, 0, 10).size());
+        }
+    }
+
+    @Test
+    void intervalPolicyProducersWaitForTheCoveringSync() throws Exception {
+        MyMqConfig.Wal cfg = config(64 * 1024);
+        cfg.setFsyncPolicy(FsyncPolicy.INTERVAL);
+        try (SegmentedLog log = SegmentedLog.open("interval", dir, cfg)) {
+            long offset = log.append(new Message("m0", "payload-0", 1000, null, null));
+            CountDownLatch done = new CountDownLatch(2);
+            for (int i = 0; i < 2; i++) {
+                new Thread(() -> {
+                    log.awaitDurable(offset);
+                    done.countDown();
+                }).start();
+            }
+            assertFalse(done.await(100, TimeUnit.MILLISECONDS)); // fsync 전에는 돌아오지 않음
+            log.sync();                                           // flusher 주기 fsync 1번이 둘 다 깨움
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(1, log.durableOffset());
+        }
+    }
+
+    @Test
+    void everyNPolicyNthProducerSyncsForEveryone() throws Exception {
+        MyMqConfig.Wal cfg = config(64 * 1024);
+        cfg.setFsyncPolicy(FsyncPolicy.EVERY_N);
+        cfg.setFsyncEveryRecords(3);
+        try (SegmentedLog log = SegmentedLog.open("every-n", dir, cfg)) {
+            long first = log.append(new Message("m0", "payload-0", 1000, null, null));
+            CountDownLatch done = new CountDownLatch(1);
+            new Thread(() -> {
+                log.awaitDurable(first);
+                done.countDown();
+            }).start();
+            assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+            log.append(new Message("m1", "payload-1", 1010, null, null));
+            long third = log.append(new Message("m2", "payload-2", 1020, null, null));
+            log.awaitDurable(third); // 3건째 프로듀서가 fsync → 앞 프로듀서도 같이 깨어남
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(3, log.durableOffset());
+        }
+    }
+}
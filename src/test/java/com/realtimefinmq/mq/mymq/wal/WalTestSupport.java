@@ -0,0 +1,18 @@
+package com.realtimefinmq.mq.mymq.wal;
+
+/**
+ * 다른 패키지 테스트에서 WriteAheadLog 생명주기(@PostConstruct / @PreDestroy)를 직접 돌리기 위한 도우미
+ * - 재시작 시나리오: close()로 로그 + 커밋 체크포인트를 내리고, 같은 디렉터리로 새 WAL을 start()
+ */
+public final class WalTestSupport {
+    private WalTestSupport() {
+    }
+
+    public static void start(WriteAheadLog wal) {
+        wal.start();
+    }
+
+    public static void close(WriteAheadLog wal) {
+        wal.close();
+    }
+}